@@ -0,0 +1,110 @@
+package dp.api.dataset;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.model.DatasetVersion;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of parsing a large getDatasetVersion response straight from the entity stream, against
+ * decoding the entity into a String before parsing it, and of copying the cached model a 304 returns. Run with {@code -prof gc} to compare the bytes allocated per
+ * response (gc.alloc.rate.norm).
+ * <p>
+ * This benchmark is in the client's package so that it can reach the package-private response handlers.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseParsingBenchmark {
+
+    private static final ObjectMapper json = new ObjectMapper();
+
+    private final byte[] payload = largeVersionPayload();
+    private final HttpGet request = new HttpGet("http://localhost:22000/datasets/cpih01/editions/time-series/versions/1");
+    private final ModelSnapshot<DatasetVersion> snapshot = snapshot(request, payload);
+
+    @Benchmark
+    public DatasetVersion streamed() throws IOException, DatasetAPIException {
+        return DatasetAPIResponses.datasetVersion(request, response(payload));
+    }
+
+    @Benchmark
+    public DatasetVersion buffered() throws IOException {
+        String body = EntityUtils.toString(response(payload).getEntity());
+        return json.readValue(body, DatasetVersion.class);
+    }
+
+    /**
+     * The copy of a cached version returned on a 304 by a client with a {@link ValidatingResponseCache}.
+     */
+    @Benchmark
+    public DatasetVersion notModified() {
+        return snapshot.model();
+    }
+
+    private static ModelSnapshot<DatasetVersion> snapshot(HttpGet request, byte[] payload) {
+        try {
+            return ModelSnapshot.of(DatasetAPIResponses.datasetVersion(request, response(payload)));
+        } catch (IOException | DatasetAPIException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A version of roughly 250KB, most of which is dimensions that are not mapped onto the model.
+     */
+    private static byte[] largeVersionPayload() {
+        StringBuilder body = new StringBuilder();
+        body.append("{\"id\":\"abc\",\"edition\":\"time-series\",\"version\":\"1\",\"state\":\"published\",\"dimensions\":[");
+        for (int i = 0; i < 2000; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"id\":\"dimension-").append(i)
+                    .append("\",\"name\":\"geography\",\"label\":\"Geography ").append(i)
+                    .append("\",\"href\":\"http://localhost:22400/code-lists/dimension-").append(i).append("\"}");
+        }
+        body.append("]}");
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static CloseableHttpResponse response(byte[] payload) {
+        CloseableHttpResponse resp = new StubResponse();
+        resp.setEntity(new ByteArrayEntity(payload, ContentType.APPLICATION_JSON));
+        return resp;
+    }
+
+    private static class StubResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        StubResponse() {
+            super(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, null);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
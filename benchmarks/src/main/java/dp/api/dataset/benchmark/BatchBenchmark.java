@@ -0,0 +1,94 @@
+package dp.api.dataset.benchmark;
+
+import dp.api.dataset.BatchResult;
+import dp.api.dataset.DatasetAPIClient;
+import dp.api.dataset.DatasetBatchClient;
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.model.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to read a batch of datasets with {@link DatasetBatchClient#getDatasets} against a serial loop of
+ * {@code getDataset} calls on the same client. The stub waits a few milliseconds before each response, as a dataset
+ * API across a network would, which is the time the batch client overlaps.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchBenchmark {
+
+    private static final int PARALLELISM = 8;
+
+    @Param({"16", "64"})
+    public int batchSize;
+
+    @Param({"0", "5"})
+    public long latencyMs;
+
+    private StubDatasetAPI stub;
+    private DatasetAPIClient client;
+    private DatasetBatchClient batchClient;
+    private List<String> datasetIDs;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, URISyntaxException {
+        stub = new StubDatasetAPI(PayloadSize.SMALL, PARALLELISM, false, latencyMs);
+        client = DatasetAPIClient.builder()
+                .datasetAPIURL(stub.url())
+                .maxConnectionsPerRoute(PARALLELISM)
+                .build();
+        batchClient = new DatasetBatchClient(client, PARALLELISM);
+
+        datasetIDs = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            datasetIDs.add("dataset-" + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        batchClient.close();
+        client.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public Map<String, Dataset> batch() throws IOException {
+        BatchResult<String, Dataset> result = batchClient.getDatasets(datasetIDs);
+        if (!result.isSuccessful()) {
+            throw new IllegalStateException("batch failed: " + result.getErrors());
+        }
+        return result.getResults();
+    }
+
+    @Benchmark
+    public List<Dataset> serial() throws IOException, DatasetAPIException {
+        List<Dataset> datasets = new ArrayList<>(datasetIDs.size());
+        for (String datasetID : datasetIDs) {
+            datasets.add(client.getDataset(datasetID));
+        }
+        return datasets;
+    }
+}
@@ -0,0 +1,116 @@
+package dp.api.dataset.benchmark;
+
+import dp.api.dataset.DatasetAPIClient;
+import dp.api.dataset.DatasetOperation;
+import dp.api.dataset.HistogramMetricsListener;
+import dp.api.dataset.OperationMetrics;
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time per call, and the bytes on the wire, of reading dataset versions and updating datasets with and without
+ * gzip. The stub compresses its responses up front, so the difference in time is the client's cost of compressing
+ * and decompressing. Bytes per call are printed when each trial ends.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(1)
+public class CompressionBenchmark {
+
+    private static final String datasetID = "cpih01";
+    private static final String edition = "2017";
+    private static final String version = "1";
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public PayloadSize payloadSize;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private StubDatasetAPI stub;
+    private DatasetAPIClient client;
+    private HistogramMetricsListener metrics;
+    private Dataset dataset;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, URISyntaxException {
+        stub = new StubDatasetAPI(payloadSize, 1, gzip);
+        metrics = new HistogramMetricsListener();
+
+        DatasetAPIClient.Builder builder = DatasetAPIClient.builder()
+                .datasetAPIURL(stub.url())
+                .metricsListener(metrics);
+        if (gzip) {
+            builder.requestCompressionThreshold(1024);
+        }
+        client = builder.build();
+
+        dataset = new Dataset();
+        dataset.setId(datasetID);
+        dataset.setTitle("Consumer Prices Index including owner occupiers' housing costs (CPIH)");
+        dataset.setDescription(description(payloadSize));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        report("getDatasetVersion received", metrics.getMetrics(DatasetOperation.GET_DATASET_VERSION), false);
+        report("updateDataset sent", metrics.getMetrics(DatasetOperation.UPDATE_DATASET), true);
+        client.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public DatasetVersion getDatasetVersion() throws IOException, DatasetAPIException {
+        return client.getDatasetVersion(datasetID, edition, version);
+    }
+
+    @Benchmark
+    public void updateDataset() throws IOException, DatasetAPIException {
+        client.updateDataset(datasetID, dataset);
+    }
+
+    private void report(String name, OperationMetrics operation, boolean sent) {
+        if (operation.getCount() == 0) {
+            return;
+        }
+        long bytes = sent ? operation.getBytesSent() : operation.getBytesReceived();
+        System.out.printf("%n%s (payloadSize=%s, gzip=%s): %d bytes per call%n",
+                name, payloadSize, gzip, bytes / operation.getCount());
+    }
+
+    /**
+     * A description of roughly the payload size, made of numbered sentences so it compresses like real prose rather
+     * than a single repeated string.
+     */
+    private static String description(PayloadSize payloadSize) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; description.length() < payloadSize.bytes(); i++) {
+            description.append("Section ").append(i)
+                    .append(": the index covers goods and services bought by households in the UK. ");
+        }
+        return description.toString();
+    }
+}
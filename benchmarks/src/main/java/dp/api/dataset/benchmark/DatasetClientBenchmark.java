@@ -0,0 +1,110 @@
+package dp.api.dataset.benchmark;
+
+import dp.api.dataset.DatasetAPIClient;
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Instance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+/**
+ * Measures the cost of every DatasetClient operation against a {@link StubDatasetAPI} running in the same JVM. The
+ * concrete subclasses choose the benchmark mode and thread count.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+public abstract class DatasetClientBenchmark {
+
+    private static final String datasetID = "cpih01";
+    private static final String edition = "2017";
+    private static final String version = "1";
+    private static final String authToken = "12345";
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public PayloadSize payloadSize;
+
+    private StubDatasetAPI stub;
+    private DatasetAPIClient client;
+    private Dataset dataset;
+    private DatasetVersion datasetVersion;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, URISyntaxException {
+        stub = new StubDatasetAPI(payloadSize, Runtime.getRuntime().availableProcessors());
+        client = DatasetAPIClient.builder()
+                .datasetAPIURL(stub.url())
+                .datasetAPIAuthToken(authToken)
+                .serviceAuthToken(authToken)
+                .build();
+
+        dataset = new Dataset();
+        dataset.setId(datasetID);
+        dataset.setTitle("Consumer Prices Index including owner occupiers' housing costs (CPIH)");
+        dataset.setState(dp.api.dataset.model.State.CREATED);
+
+        datasetVersion = new DatasetVersion();
+        datasetVersion.setEdition(edition);
+        datasetVersion.setVersion(version);
+        datasetVersion.setState(dp.api.dataset.model.State.EDITION_CONFIRMED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public Instance getInstance() throws IOException, DatasetAPIException {
+        return client.getInstance("instance-1");
+    }
+
+    @Benchmark
+    public Dataset createDataset() throws IOException, DatasetAPIException {
+        return client.createDataset(datasetID, dataset);
+    }
+
+    @Benchmark
+    public Dataset getDataset() throws IOException, DatasetAPIException {
+        return client.getDataset(datasetID);
+    }
+
+    @Benchmark
+    public void deleteDataset() throws IOException, DatasetAPIException {
+        client.deleteDataset(datasetID);
+    }
+
+    @Benchmark
+    public void detachVersion() throws IOException, DatasetAPIException {
+        client.detachVersion(datasetID, edition, version);
+    }
+
+    @Benchmark
+    public void updateDataset() throws IOException, DatasetAPIException {
+        client.updateDataset(datasetID, dataset);
+    }
+
+    @Benchmark
+    public DatasetVersion getDatasetVersion() throws IOException, DatasetAPIException {
+        return client.getDatasetVersion(datasetID, edition, version);
+    }
+
+    @Benchmark
+    public void updateDatasetVersion() throws IOException, DatasetAPIException {
+        client.updateDatasetVersion(datasetID, edition, version, datasetVersion);
+    }
+}
@@ -0,0 +1,21 @@
+package dp.api.dataset.benchmark;
+
+/**
+ * The approximate size of the canned response bodies served by the {@link StubDatasetAPI}.
+ */
+public enum PayloadSize {
+
+    SMALL(512),
+    MEDIUM(16 * 1024),
+    LARGE(256 * 1024);
+
+    private final int bytes;
+
+    PayloadSize(int bytes) {
+        this.bytes = bytes;
+    }
+
+    public int bytes() {
+        return bytes;
+    }
+}
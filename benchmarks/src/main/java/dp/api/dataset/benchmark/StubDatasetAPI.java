@@ -0,0 +1,245 @@
+package dp.api.dataset.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetLinks;
+import dp.api.dataset.model.DatasetResponse;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Instance;
+import dp.api.dataset.model.Link;
+import dp.api.dataset.model.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-process HTTP server that answers every dataset API route used by the client with a canned response, so the
+ * benchmarks measure the client rather than a real dataset API.
+ * <p>
+ * GET responses are padded with a "dimensions" array, which the client's models ignore, until they reach the
+ * requested {@link PayloadSize}. That exercises the same read-and-skip path as real responses carrying fields the
+ * client does not map.
+ * <p>
+ * A stub created with gzip enabled compresses its responses up front and sends them to any client that accepts gzip,
+ * and decompresses gzip request bodies, so that the client's compression cost is not mixed up with the stub's.
+ * <p>
+ * A stub created with a latency waits that long before answering each request, standing in for the network and the
+ * dataset API's own work.
+ */
+public class StubDatasetAPI implements Closeable {
+
+    private static final ObjectMapper json = new ObjectMapper();
+
+    static {
+        // Without TCP_NODELAY small responses stall on Nagle's algorithm and delayed ACKs for ~40ms, which would
+        // swamp everything the benchmarks are meant to measure.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Set<InetSocketAddress> clientAddresses = ConcurrentHashMap.newKeySet();
+
+    private final byte[] instanceBody;
+    private final byte[] datasetBody;
+    private final byte[] versionBody;
+    private final boolean gzip;
+    private final long latencyMs;
+
+    public StubDatasetAPI(PayloadSize payloadSize, int threads) throws IOException {
+        this(payloadSize, threads, false);
+    }
+
+    public StubDatasetAPI(PayloadSize payloadSize, int threads, boolean gzip) throws IOException {
+        this(payloadSize, threads, gzip, 0);
+    }
+
+    public StubDatasetAPI(PayloadSize payloadSize, int threads, boolean gzip, long latencyMs) throws IOException {
+        this.gzip = gzip;
+        this.latencyMs = latencyMs;
+        this.instanceBody = encode(pad(json.valueToTree(instance()), payloadSize.bytes()));
+        this.datasetBody = encode(pad(json.valueToTree(datasetResponse()), payloadSize.bytes()));
+        this.versionBody = encode(pad(json.valueToTree(datasetVersion()), payloadSize.bytes()));
+
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * The base URL of the stub, to be used as the client's dataset API URL.
+     */
+    public String url() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * The number of connections the stub has accepted requests on, counted by their distinct client address and port.
+     */
+    public int connectionCount() {
+        return clientAddresses.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            clientAddresses.add(exchange.getRemoteAddress());
+            InputStream requestBody = exchange.getRequestBody();
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+                drain(new GZIPInputStream(requestBody));
+            }
+            // GZIPInputStream stops at the gzip trailer, which may leave the end of a chunked body unread
+            drain(requestBody);
+            sleep(latencyMs);
+
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            boolean version = path.contains("/versions/");
+
+            if (path.startsWith("/instances/") && method.equals("GET")) {
+                respond(exchange, 200, instanceBody);
+            } else if (!path.startsWith("/datasets/")) {
+                respond(exchange, 404, null);
+            } else if (method.equals("GET")) {
+                respond(exchange, 200, version ? versionBody : datasetBody);
+            } else if (method.equals("POST")) {
+                respond(exchange, 201, datasetBody);
+            } else if (method.equals("PUT")) {
+                respond(exchange, 200, null);
+            } else if (method.equals("DELETE")) {
+                respond(exchange, version ? 200 : 204, null);
+            } else {
+                respond(exchange, 405, null);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        if (gzip) {
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+                exchange.sendResponseHeaders(406, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) != -1) {
+            // discard
+        }
+    }
+
+    private byte[] encode(byte[] body) throws IOException {
+        if (!gzip) {
+            return body;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] pad(ObjectNode node, int targetBytes) throws IOException {
+        ArrayNode dimensions = node.putArray("dimensions");
+        byte[] body = json.writeValueAsBytes(node);
+        for (int i = 0; body.length < targetBytes; i++) {
+            ObjectNode dimension = dimensions.addObject();
+            dimension.put("id", "dimension-" + i);
+            dimension.put("name", "geography");
+            dimension.put("label", "Geography " + i);
+            dimension.put("href", "http://localhost:22400/code-lists/geography-" + i);
+            body = json.writeValueAsBytes(node);
+        }
+        return body;
+    }
+
+    private static Instance instance() {
+        Instance instance = new Instance();
+        instance.setId("instance-1");
+        instance.setEdition("2017");
+        instance.setVersion("1");
+        return instance;
+    }
+
+    private static DatasetResponse datasetResponse() {
+        Dataset dataset = new Dataset();
+        dataset.setId("cpih01");
+        dataset.setTitle("Consumer Prices Index including owner occupiers' housing costs (CPIH)");
+        dataset.setDescription("Monthly index of consumer prices");
+        dataset.setState(State.PUBLISHED);
+        dataset.setLinks(links("http://localhost:22000/datasets/cpih01"));
+
+        DatasetResponse response = new DatasetResponse();
+        response.setId("cpih01");
+        response.setCurrent(dataset);
+        response.setNext(dataset);
+        return response;
+    }
+
+    private static DatasetVersion datasetVersion() {
+        DatasetVersion version = new DatasetVersion();
+        version.setId("version-1");
+        version.setEdition("2017");
+        version.setVersion("1");
+        version.setRelease_date("2017-11-14T00:00:00.000Z");
+        version.setState(State.PUBLISHED);
+        version.setLinks(links("http://localhost:22000/datasets/cpih01/editions/2017/versions/1"));
+        return version;
+    }
+
+    private static DatasetLinks links(String href) {
+        Link self = new Link();
+        self.setHref(href);
+        DatasetLinks links = new DatasetLinks();
+        links.setSelf(self);
+        return links;
+    }
+}
@@ -0,0 +1,79 @@
+package dp.api.dataset.benchmark;
+
+import dp.api.dataset.DatasetAPIClient;
+import dp.api.dataset.JdkHttpTransport;
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.model.Dataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of reading datasets with 32 threads sharing one client on the default Apache transport and
+ * on {@link JdkHttpTransport}, and prints the number of connections the stub accepted when each trial ends.
+ * <p>
+ * The stub only speaks HTTP/1.1, so the JDK transport's HTTP/2 upgrade is declined and both transports need a
+ * connection per concurrent call; the comparison is of the transports' per-call cost and connection reuse. Against an
+ * HTTP/2 dataset API the JDK transport multiplexes the same calls over one connection.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(32)
+public class TransportBenchmark {
+
+    private static final String datasetID = "cpih01";
+
+    @Param({"SMALL", "MEDIUM"})
+    public PayloadSize payloadSize;
+
+    @Param({"apache", "jdk"})
+    public String transport;
+
+    private StubDatasetAPI stub;
+    private DatasetAPIClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, URISyntaxException {
+        stub = new StubDatasetAPI(payloadSize, Runtime.getRuntime().availableProcessors());
+
+        DatasetAPIClient.Builder builder = DatasetAPIClient.builder()
+                .datasetAPIURL(stub.url())
+                .maxConnectionsPerRoute(32);
+        if (transport.equals("jdk")) {
+            builder.transport(JdkHttpTransport.builder().build());
+        }
+        client = builder.build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.printf("%n%s transport (payloadSize=%s): %d connections%n",
+                transport, payloadSize, stub.connectionCount());
+        client.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public Dataset getDataset() throws IOException, DatasetAPIException {
+        return client.getDataset(datasetID);
+    }
+}
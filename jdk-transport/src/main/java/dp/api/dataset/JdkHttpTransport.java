@@ -0,0 +1,242 @@
+package dp.api.dataset;
+
+import org.apache.http.util.Args;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link HttpTransport} that sends requests with the JDK's {@link HttpClient}. By default it negotiates HTTP/2,
+ * so concurrent calls are multiplexed over a single connection to the dataset API instead of each needing a
+ * connection of its own. Against a dataset API that only speaks HTTP/1.1 it falls back to one connection per
+ * concurrent call, like the default transport.
+ * <p>
+ * Over plain http, HTTP/2 is negotiated by upgrading the first request on a connection. Calls made before the first
+ * upgrade completes may open connections of their own.
+ */
+public class JdkHttpTransport implements HttpTransport {
+
+    /**
+     * Headers the JDK client sets itself and does not allow callers to set.
+     */
+    private static final Set<String> restrictedHeaders = caseInsensitiveSet(
+            "Connection", "Content-Length", "Expect", "Host", "Upgrade");
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+
+    private JdkHttpTransport(Builder builder) {
+        HttpClient.Builder client = HttpClient.newBuilder()
+                .version(builder.version)
+                .connectTimeout(builder.connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER);
+        if (builder.executor != null) {
+            client.executor(builder.executor);
+        }
+        this.client = client.build();
+        this.requestTimeout = builder.requestTimeout;
+    }
+
+    /**
+     * Create a new builder for a JdkHttpTransport.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+
+        HttpRequest.BodyPublisher body = request.getBody() != null
+                ? HttpRequest.BodyPublishers.ofByteArray(request.getBody())
+                : HttpRequest.BodyPublishers.noBody();
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri())
+                .method(request.getMethod(), body)
+                .timeout(timeout(request));
+        for (Map.Entry<String, List<String>> header : request.getHeaders().entrySet()) {
+            if (restrictedHeaders.contains(header.getKey())) {
+                continue;
+            }
+            for (String value : header.getValue()) {
+                builder.header(header.getKey(), value);
+            }
+        }
+
+        try {
+            return new Response(client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for dataset-api response");
+        }
+    }
+
+    private Duration timeout(TransportRequest request) {
+        if (request.getTimeoutMs() > 0 && request.getTimeoutMs() < requestTimeout.toMillis()) {
+            return Duration.ofMillis(request.getTimeoutMs());
+        }
+        return requestTimeout;
+    }
+
+    /**
+     * Closes the JDK client on Java 21 and later, waiting for requests in progress to complete. Before Java 21 the
+     * client has no close method and its connections are released once it is unreachable.
+     */
+    @Override
+    public void close() throws IOException {
+        if (client instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) client).close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private static Set<String> caseInsensitiveSet(String... values) {
+        Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        set.addAll(Arrays.asList(values));
+        return set;
+    }
+
+    private static class Response implements TransportResponse {
+
+        private final HttpResponse<InputStream> response;
+        private final DrainingInputStream body;
+
+        private Response(HttpResponse<InputStream> response) {
+            this.response = response;
+            this.body = new DrainingInputStream(response.body());
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return response.headers().map();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            body.close();
+        }
+
+        @Override
+        public void abort() throws IOException {
+            body.abort();
+        }
+    }
+
+    /**
+     * Reads any of the body left unread when it is closed. The JDK client closes the connection instead of reusing it
+     * when a body is closed early, which the JSON parser does once it has read the last token.
+     */
+    private static class DrainingInputStream extends FilterInputStream {
+
+        private volatile boolean closed;
+
+        private DrainingInputStream(InputStream in) {
+            super(in);
+        }
+
+        /**
+         * Close the stream without draining it, which gives up the connection.
+         */
+        private void abort() throws IOException {
+            closed = true;
+            in.close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                in.transferTo(OutputStream.nullOutputStream());
+            } finally {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Builder for a JdkHttpTransport.
+     */
+    public static class Builder {
+
+        private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+        private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+        private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+        private Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+        private Executor executor;
+
+        private Builder() {
+        }
+
+        /**
+         * @param version - The preferred HTTP version, HTTP/2 by default
+         */
+        public Builder version(HttpClient.Version version) {
+            this.version = Args.notNull(version, "version");
+            return this;
+        }
+
+        /**
+         * @param connectTimeout - The time to wait for a connection to the dataset API to be established
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            Args.check(!connectTimeout.isNegative() && !connectTimeout.isZero(), "connectTimeout must be positive");
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * @param requestTimeout - The time to wait for the response headers of each request, unless the call's
+         *                       deadline is sooner
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            Args.check(!requestTimeout.isNegative() && !requestTimeout.isZero(), "requestTimeout must be positive");
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * @param executor - Runs the JDK client's asynchronous tasks, instead of its own cached thread pool
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public JdkHttpTransport build() {
+            return new JdkHttpTransport(this);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package dp.api.dataset;
+
+import com.sun.net.httpserver.HttpServer;
+import dp.api.dataset.exception.DatasetNotFoundException;
+import dp.api.dataset.exception.DeadlineExceededException;
+import dp.api.dataset.model.Dataset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JdkHttpTransportTest {
+
+    private static final byte[] datasetBody = "{\"id\":\"321\",\"next\":{\"id\":\"321\",\"title\":\"CPIH\"}}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private final AtomicInteger unavailableResponses = new AtomicInteger();
+    private volatile String lastRequestBody;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/datasets/", exchange -> {
+            lastRequestBody = new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8);
+            String path = exchange.getRequestURI().getPath();
+            if (unavailableResponses.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+            } else if (path.equals("/datasets/missing")) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (path.equals("/datasets/slow")) {
+                sleep(2000);
+                exchange.sendResponseHeaders(200, -1);
+            } else if (exchange.getRequestMethod().equals("GET")) {
+                byte[] body = gzip(datasetBody);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } else {
+                exchange.sendResponseHeaders(200, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testGetDataset_gzipResponse_decompressed() throws Exception {
+
+        // Given a client using the JDK transport
+        try (DatasetAPIClient client = client()) {
+
+            // When a dataset is requested, then it is parsed from the decompressed response
+            Dataset dataset = client.getDataset("321");
+            assertEquals("321", dataset.getId());
+
+            // When a missing dataset is requested, then the usual exception is thrown
+            assertThrows(DatasetNotFoundException.class, () -> client.getDataset("missing"));
+        }
+    }
+
+    @Test
+    public void testUpdateDataset_bodySent() throws Exception {
+
+        // Given a client using the JDK transport
+        try (DatasetAPIClient client = client()) {
+
+            // When a dataset is updated
+            Dataset dataset = new Dataset();
+            dataset.setTitle("CPIH");
+            client.updateDataset("321", dataset);
+
+            // Then the serialized dataset is sent
+            assertTrue(lastRequestBody.contains("\"title\":\"CPIH\""));
+        }
+    }
+
+    @Test
+    public void testGetDataset_unavailable_retried() throws Exception {
+
+        // Given a dataset API that is unavailable for two requests
+        unavailableResponses.set(2);
+
+        try (DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL(url())
+                .transport(JdkHttpTransport.builder().build())
+                .retryStrategy(new RetryStrategy(3, 1))
+                .build()) {
+
+            // When a dataset is requested, then it is returned after the retries
+            assertEquals("321", client.getDataset("321").getId());
+        }
+    }
+
+    @Test
+    public void testGetDataset_deadline_requestTimesOut() throws Exception {
+
+        // Given a dataset API that takes 2 seconds to respond
+        try (DatasetAPIClient client = client()) {
+
+            // When a dataset is requested with a 200ms deadline, then the call fails at the deadline
+            long start = System.nanoTime();
+            assertThrows(DeadlineExceededException.class,
+                    () -> client.getDataset("slow", Deadline.after(200, TimeUnit.MILLISECONDS)));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+        }
+    }
+
+    private DatasetAPIClient client() throws Exception {
+        return DatasetAPIClient.builder()
+                .datasetAPIURL(url())
+                .transport(JdkHttpTransport.builder().build())
+                .build();
+    }
+
+    private String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
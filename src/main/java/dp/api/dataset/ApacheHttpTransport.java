@@ -0,0 +1,95 @@
+package dp.api.dataset;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.Args;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link HttpTransport} that sends requests with an Apache CloseableHttpClient, which may be shared with other
+ * transports and clients. The HTTP client should be built without a retry strategy, as DatasetAPIClient applies its
+ * own.
+ */
+public class ApacheHttpTransport implements HttpTransport {
+
+    private final CloseableHttpClient client;
+
+    public ApacheHttpTransport(CloseableHttpClient client) {
+        this.client = Args.notNull(client, "client");
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+
+        RequestBuilder builder = RequestBuilder.create(request.getMethod()).setUri(request.getUri());
+        for (Map.Entry<String, List<String>> header : request.getHeaders().entrySet()) {
+            for (String value : header.getValue()) {
+                builder.addHeader(header.getKey(), value);
+            }
+        }
+        if (request.getBody() != null) {
+            builder.setEntity(new ByteArrayEntity(request.getBody()));
+        }
+        if (request.getTimeoutMs() > 0) {
+            int timeoutMs = (int) Math.min(request.getTimeoutMs(), Integer.MAX_VALUE);
+            builder.setConfig(RequestConfig.custom()
+                    .setConnectTimeout(timeoutMs)
+                    .setSocketTimeout(timeoutMs)
+                    .setConnectionRequestTimeout(timeoutMs)
+                    .build());
+        }
+
+        return new Response(client.execute(builder.build()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    private static class Response implements TransportResponse {
+
+        private final CloseableHttpResponse response;
+        private final Map<String, List<String>> headers = new LinkedHashMap<>();
+
+        private Response(CloseableHttpResponse response) {
+            this.response = response;
+            for (Header header : response.getAllHeaders()) {
+                headers.computeIfAbsent(header.getName(), name -> new ArrayList<>(1)).add(header.getValue());
+            }
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getStatusLine().getStatusCode();
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            HttpEntity entity = response.getEntity();
+            return entity != null ? entity.getContent() : new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dp.api.dataset;
+
+import org.apache.http.util.Args;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An auth token and the time it expires, as fetched for a {@link CachingTokenProvider}.
+ */
+public final class AuthToken {
+
+    private final String value;
+    private final long expiresAtMillis;
+
+    private AuthToken(String value, long expiresAtMillis) {
+        this.value = value;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    /**
+     * A token that never expires.
+     */
+    public static AuthToken of(String value) {
+        return new AuthToken(value, Long.MAX_VALUE);
+    }
+
+    /**
+     * A token that expires at the given wall clock time, such as the "exp" claim of a JWT.
+     *
+     * @param expiresAtMillis - The expiry time in milliseconds since the epoch
+     */
+    public static AuthToken expiringAt(String value, long expiresAtMillis) {
+        return new AuthToken(value, expiresAtMillis);
+    }
+
+    /**
+     * A token that expires the given time from now, such as the "expires_in" of an OAuth token response.
+     */
+    public static AuthToken expiringIn(String value, long duration, TimeUnit unit) {
+        Args.notNegative(duration, "duration");
+        return new AuthToken(value, saturatedAdd(System.currentTimeMillis(), unit.toMillis(duration)));
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * The expiry time in milliseconds since the epoch, or Long.MAX_VALUE if the token never expires.
+     */
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthToken{expiresAtMillis=" + expiresAtMillis + '}';
+    }
+}
@@ -0,0 +1,40 @@
+package dp.api.dataset;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The outcome of a batch read. Each requested key appears in exactly one of the results or the errors, so a
+ * failure for one key does not affect the others.
+ */
+public final class BatchResult<K, V> {
+
+    private final Map<K, V> results;
+    private final Map<K, Exception> errors;
+
+    BatchResult(Map<K, V> results, Map<K, Exception> errors) {
+        this.results = Collections.unmodifiableMap(results);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * The successfully read values, in the order the keys were requested.
+     */
+    public Map<K, V> getResults() {
+        return results;
+    }
+
+    /**
+     * The exception thrown for each key that could not be read, for example a DatasetNotFoundException.
+     */
+    public Map<K, Exception> getErrors() {
+        return errors;
+    }
+
+    /**
+     * True if every key was read successfully.
+     */
+    public boolean isSuccessful() {
+        return errors.isEmpty();
+    }
+}
@@ -0,0 +1,75 @@
+package dp.api.dataset;
+
+/**
+ * An immutable snapshot of the statistics of a {@link CachingDatasetClient}.
+ */
+public final class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expiredCount;
+    private final long size;
+
+    CacheStats(long hitCount, long missCount, long evictionCount, long expiredCount, long size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expiredCount = expiredCount;
+        this.size = size;
+    }
+
+    /**
+     * The number of lookups that returned a cached value.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * The number of lookups that had to call the dataset API, including lookups of expired entries.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * The number of entries removed to keep the cache within its maximum size.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * The number of entries removed because their time to live had passed.
+     */
+    public long getExpiredCount() {
+        return expiredCount;
+    }
+
+    /**
+     * The number of entries in the cache when the snapshot was taken.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * The ratio of hits to lookups, or 1.0 if there have been no lookups.
+     */
+    public double getHitRatio() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                ", expiredCount=" + expiredCount +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -0,0 +1,248 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Instance;
+import org.apache.http.util.Args;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A DatasetClient decorator that caches instances, datasets and versions in memory. Entries are held in a bounded
+ * LRU and expire after a time to live configured per entity type. Writes made through this client invalidate the
+ * affected entries; writes made by other clients are only seen once the entry expires.
+ * <p>
+ * Entries are held as snapshots of the models, and every hit returns a new copy, so callers may change the models
+ * they are given.
+ */
+public class CachingDatasetClient extends ForwardingDatasetClient {
+
+    private final ConcurrentLruCache<RequestKey, ModelSnapshot<?>> cache;
+    private final long instanceTtlNanos;
+    private final long datasetTtlNanos;
+    private final long versionTtlNanos;
+
+    private CachingDatasetClient(Builder builder) {
+        super(builder.delegate);
+        this.cache = new ConcurrentLruCache<>(builder.maximumSize, builder.concurrencyLevel, builder.nanoTime);
+        this.instanceTtlNanos = builder.instanceTtlNanos;
+        this.datasetTtlNanos = builder.datasetTtlNanos;
+        this.versionTtlNanos = builder.versionTtlNanos;
+    }
+
+    /**
+     * Create a new builder for a CachingDatasetClient wrapping the given client.
+     */
+    public static Builder builder(DatasetClient delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public Instance getInstance(String instanceID) throws IOException, DatasetAPIException {
+        return read(RequestKey.instance(instanceID), instanceTtlNanos, () -> delegate().getInstance(instanceID));
+    }
+
+    @Override
+    public Dataset getDataset(String datasetID) throws IOException, DatasetAPIException {
+        return read(RequestKey.dataset(datasetID), datasetTtlNanos, () -> delegate().getDataset(datasetID));
+    }
+
+    @Override
+    public DatasetVersion getDatasetVersion(String datasetID, String edition, String version) throws IOException, DatasetAPIException {
+        return read(RequestKey.version(datasetID, edition, version), versionTtlNanos,
+                () -> delegate().getDatasetVersion(datasetID, edition, version));
+    }
+
+    @Override
+    public Dataset createDataset(String datasetID, Dataset dataset) throws IOException, DatasetAPIException {
+        try {
+            return delegate().createDataset(datasetID, dataset);
+        } finally {
+            cache.invalidate(RequestKey.dataset(datasetID));
+        }
+    }
+
+    @Override
+    public void updateDataset(String datasetID, Dataset dataset) throws IOException, DatasetAPIException {
+        try {
+            delegate().updateDataset(datasetID, dataset);
+        } finally {
+            cache.invalidate(RequestKey.dataset(datasetID));
+        }
+    }
+
+    @Override
+    public void deleteDataset(String datasetID) throws IOException, DatasetAPIException {
+        try {
+            delegate().deleteDataset(datasetID);
+        } finally {
+            cache.invalidateIf(key -> key.belongsTo(datasetID));
+        }
+    }
+
+    @Override
+    public void detachVersion(String datasetID, String edition, String version) throws IOException, DatasetAPIException {
+        try {
+            delegate().detachVersion(datasetID, edition, version);
+        } finally {
+            cache.invalidate(RequestKey.version(datasetID, edition, version));
+            cache.invalidate(RequestKey.dataset(datasetID));
+        }
+    }
+
+    @Override
+    public void updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion) throws IOException, DatasetAPIException {
+        try {
+            delegate().updateDatasetVersion(datasetID, edition, version, datasetVersion);
+        } finally {
+            cache.invalidate(RequestKey.version(datasetID, edition, version));
+            cache.invalidate(RequestKey.dataset(datasetID));
+        }
+    }
+
+    @Override
+    public String updateDataset(String datasetID, Dataset dataset, String ifMatch) throws IOException, DatasetAPIException {
+        try {
+            return delegate().updateDataset(datasetID, dataset, ifMatch);
+        } finally {
+            cache.invalidate(RequestKey.dataset(datasetID));
+        }
+    }
+
+    @Override
+    public String updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion, String ifMatch) throws IOException, DatasetAPIException {
+        try {
+            return delegate().updateDatasetVersion(datasetID, edition, version, datasetVersion, ifMatch);
+        } finally {
+            cache.invalidate(RequestKey.version(datasetID, edition, version));
+            cache.invalidate(RequestKey.dataset(datasetID));
+        }
+    }
+
+    @Override
+    public void patchDataset(String datasetID, JsonPatch patch) throws IOException, DatasetAPIException {
+        try {
+            delegate().patchDataset(datasetID, patch);
+        } finally {
+            cache.invalidate(RequestKey.dataset(datasetID));
+        }
+    }
+
+    @Override
+    public void patchDatasetVersion(String datasetID, String edition, String version, JsonPatch patch) throws IOException, DatasetAPIException {
+        try {
+            delegate().patchDatasetVersion(datasetID, edition, version, patch);
+        } finally {
+            cache.invalidate(RequestKey.version(datasetID, edition, version));
+            cache.invalidate(RequestKey.dataset(datasetID));
+        }
+    }
+
+    /**
+     * Get a snapshot of the hit, miss, eviction and expiry counts.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Remove every cached entry.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private <T> T read(RequestKey key, long ttlNanos, DatasetCall<T> loader) throws IOException, DatasetAPIException {
+
+        ModelSnapshot<?> cached = cache.get(key);
+        if (cached != null) {
+            @SuppressWarnings("unchecked")
+            T value = (T) cached.model();
+            return value;
+        }
+
+        long generation = cache.generation(key);
+        T value = loader.call();
+        if (value != null) {
+            cache.put(key, ModelSnapshot.of(value), ttlNanos, generation);
+        }
+        return value;
+    }
+
+    /**
+     * Builder for a CachingDatasetClient.
+     */
+    public static class Builder {
+
+        private static final int DEFAULT_MAXIMUM_SIZE = 10000;
+        private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+        private static final long DEFAULT_TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+        private final DatasetClient delegate;
+        private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+        private int concurrencyLevel = DEFAULT_CONCURRENCY_LEVEL;
+        private long instanceTtlNanos = DEFAULT_TTL_NANOS;
+        private long datasetTtlNanos = DEFAULT_TTL_NANOS;
+        private long versionTtlNanos = DEFAULT_TTL_NANOS;
+        private LongSupplier nanoTime = System::nanoTime;
+
+        private Builder(DatasetClient delegate) {
+            this.delegate = Args.notNull(delegate, "delegate");
+        }
+
+        /**
+         * @param maximumSize - The maximum number of entries across all entity types
+         */
+        public Builder maximumSize(int maximumSize) {
+            this.maximumSize = Args.positive(maximumSize, "maximumSize");
+            return this;
+        }
+
+        /**
+         * @param concurrencyLevel - The number of independently locked segments the cache is split into
+         */
+        public Builder concurrencyLevel(int concurrencyLevel) {
+            this.concurrencyLevel = Args.positive(concurrencyLevel, "concurrencyLevel");
+            return this;
+        }
+
+        /**
+         * @param ttl  - How long an instance is cached for
+         * @param unit - The unit of the ttl
+         */
+        public Builder instanceTtl(long ttl, TimeUnit unit) {
+            this.instanceTtlNanos = unit.toNanos(Args.positive(ttl, "ttl"));
+            return this;
+        }
+
+        /**
+         * @param ttl  - How long a dataset is cached for
+         * @param unit - The unit of the ttl
+         */
+        public Builder datasetTtl(long ttl, TimeUnit unit) {
+            this.datasetTtlNanos = unit.toNanos(Args.positive(ttl, "ttl"));
+            return this;
+        }
+
+        /**
+         * @param ttl  - How long a dataset version is cached for
+         * @param unit - The unit of the ttl
+         */
+        public Builder versionTtl(long ttl, TimeUnit unit) {
+            this.versionTtlNanos = unit.toNanos(Args.positive(ttl, "ttl"));
+            return this;
+        }
+
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            return this;
+        }
+
+        public CachingDatasetClient build() {
+            return new CachingDatasetClient(this);
+        }
+    }
+}
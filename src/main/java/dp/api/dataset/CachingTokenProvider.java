@@ -0,0 +1,160 @@
+package dp.api.dataset;
+
+import org.apache.http.util.Args;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+import static com.github.onsdigital.logging.v2.event.SimpleEvent.warn;
+
+/**
+ * A TokenProvider that caches the token fetched from a {@link TokenSource} until shortly before it expires.
+ * <p>
+ * Once a token is within the refresh-ahead window of its expiry, callers keep getting it while a replacement is
+ * fetched in the background, so requests do not wait for a token fetch while the old token is still valid. If the
+ * background fetch fails, the old token is used until it expires and the next caller tries again. Only callers that
+ * find no valid token wait, and only one of them fetches while the others wait for its result.
+ */
+public class CachingTokenProvider implements TokenProvider {
+
+    /**
+     * Fetches a new token, for example from an identity service.
+     */
+    @FunctionalInterface
+    public interface TokenSource {
+        AuthToken fetch() throws IOException;
+    }
+
+    private final TokenSource source;
+    private final long refreshAheadMs;
+    private final Executor executor;
+    private final LongSupplier currentTimeMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private volatile AuthToken token;
+
+    private CachingTokenProvider(Builder builder) {
+        this.source = builder.source;
+        this.refreshAheadMs = builder.refreshAheadMs;
+        this.executor = builder.executor != null
+                ? builder.executor : Executors.newCachedThreadPool(new DaemonThreadFactory("dataset-token-refresh"));
+        this.currentTimeMillis = builder.currentTimeMillis;
+    }
+
+    /**
+     * Create a new builder for a CachingTokenProvider fetching tokens from the given source.
+     */
+    public static Builder builder(TokenSource source) {
+        return new Builder(source);
+    }
+
+    @Override
+    public String getToken() throws IOException {
+        AuthToken current = token;
+        long now = currentTimeMillis.getAsLong();
+
+        if (current != null && now < current.getExpiresAtMillis()) {
+            if (now >= current.getExpiresAtMillis() - refreshAheadMs) {
+                refreshInBackground();
+            }
+            return current.getValue();
+        }
+        return refresh(current).getValue();
+    }
+
+    /**
+     * Drop the cached token, for example after the dataset API has rejected it, so that the next caller fetches a
+     * new one.
+     */
+    public void invalidate() {
+        token = null;
+    }
+
+    /**
+     * Fetch a new token unless another caller replaced the stale one while this caller waited for the lock.
+     */
+    private AuthToken refresh(AuthToken stale) throws IOException {
+        lock.lock();
+        try {
+            AuthToken current = token;
+            if (current != stale && current != null && currentTimeMillis.getAsLong() < current.getExpiresAtMillis()) {
+                return current;
+            }
+            AuthToken fetched = Args.notNull(source.fetch(), "fetched token");
+            token = fetched;
+            return fetched;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refreshInBackground() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        AuthToken stale = token;
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh(stale);
+                } catch (IOException | RuntimeException e) {
+                    warn().exception(e).log("failed to refresh dataset-api auth token ahead of expiry");
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Builder for a CachingTokenProvider.
+     */
+    public static class Builder {
+
+        private static final long DEFAULT_REFRESH_AHEAD_MS = TimeUnit.SECONDS.toMillis(30);
+
+        private final TokenSource source;
+        private long refreshAheadMs = DEFAULT_REFRESH_AHEAD_MS;
+        private Executor executor;
+        private LongSupplier currentTimeMillis = System::currentTimeMillis;
+
+        private Builder(TokenSource source) {
+            this.source = Args.notNull(source, "source");
+        }
+
+        /**
+         * @param refreshAhead - How long before a token expires to start fetching its replacement
+         * @param unit         - The unit of refreshAhead
+         */
+        public Builder refreshAhead(long refreshAhead, TimeUnit unit) {
+            this.refreshAheadMs = unit.toMillis(Args.notNegative(refreshAhead, "refreshAhead"));
+            return this;
+        }
+
+        /**
+         * @param executor - Runs background refreshes, instead of a cached pool of daemon threads
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        Builder currentTimeMillis(LongSupplier currentTimeMillis) {
+            this.currentTimeMillis = currentTimeMillis;
+            return this;
+        }
+
+        public CachingTokenProvider build() {
+            return new CachingTokenProvider(this);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetAPIException;
+
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets a call that is waiting on the dataset API be abandoned from another thread. The call is made with a
+ * cancellation current on its thread, and {@link DatasetAPIClient} registers the HTTP exchange it is waiting on, so
+ * that cancelling aborts the exchange. Interrupting the thread does not do that.
+ */
+final class Cancellation {
+
+    private static final ThreadLocal<Cancellation> current = new ThreadLocal<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private boolean cancelled;
+    private Runnable abort;
+
+    /**
+     * The cancellation of the call being made on this thread, or null if there is none.
+     */
+    static Cancellation current() {
+        return current.get();
+    }
+
+    /**
+     * Make the call with the given cancellation current on this thread.
+     */
+    static <T> T callWithin(Cancellation cancellation, DatasetCall<T> call) throws IOException, DatasetAPIException {
+
+        Cancellation previous = current.get();
+        current.set(cancellation);
+        try {
+            return call.call();
+        } finally {
+            if (previous != null) {
+                current.set(previous);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    /**
+     * Set the action that aborts the exchange in progress, or clear it with null once the exchange is over. The action
+     * is run at once if the call has already been cancelled. It must not block.
+     */
+    void abortWith(Runnable abort) {
+        lock.lock();
+        try {
+            this.abort = abort;
+            if (cancelled && abort != null) {
+                abort.run();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancel the call, aborting the exchange in progress if there is one.
+     */
+    void cancel() {
+        lock.lock();
+        try {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (abort != null) {
+                abort.run();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isCancelled() {
+        lock.lock();
+        try {
+            return cancelled;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
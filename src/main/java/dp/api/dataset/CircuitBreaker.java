@@ -0,0 +1,160 @@
+package dp.api.dataset;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A count-based circuit breaker. While closed, the outcome of each call is kept in a ring buffer of the last
+ * {@code slidingWindowSize} calls; once the failure or slow call rate over the window reaches its threshold the
+ * circuit opens and calls are refused. After the wait duration a limited number of probe calls are let through, and
+ * their outcome decides whether the circuit closes again or re-opens.
+ * <p>
+ * Every state change starts a new epoch. A caller is given the epoch with its permission to call, and its result is
+ * ignored if the epoch has changed by the time the call finishes, so calls started before the circuit opened can
+ * not decide the outcome of the probes.
+ */
+final class CircuitBreaker {
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final CircuitBreakerConfig config;
+    private final LongSupplier nanoTime;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile CircuitBreakingDatasetClient.State state = CircuitBreakingDatasetClient.State.CLOSED;
+    private volatile long epoch;
+    private long openedAt;
+
+    private final byte[] outcomes;
+    private int next;
+    private int calls;
+    private int failures;
+    private int slowCalls;
+
+    private int probesPermitted;
+    private int probes;
+    private int probeFailures;
+    private int slowProbes;
+
+    CircuitBreaker(String name, CircuitBreakerConfig config, LongSupplier nanoTime) {
+        this.name = name;
+        this.config = config;
+        this.nanoTime = nanoTime;
+        this.outcomes = new byte[config.slidingWindowSize];
+    }
+
+    /**
+     * Ask to make a call.
+     *
+     * @return the epoch to pass to {@link #onResult}, or -1 if the call is not permitted
+     */
+    long tryAcquire() {
+        if (state == CircuitBreakingDatasetClient.State.CLOSED) {
+            return epoch;
+        }
+
+        lock.lock();
+        try {
+            if (state == CircuitBreakingDatasetClient.State.OPEN) {
+                if (nanoTime.getAsLong() - openedAt < config.waitDurationInOpenStateNanos) {
+                    return -1;
+                }
+                transitionTo(CircuitBreakingDatasetClient.State.HALF_OPEN);
+            }
+            if (state == CircuitBreakingDatasetClient.State.HALF_OPEN) {
+                if (probesPermitted >= config.permittedCallsInHalfOpenState) {
+                    return -1;
+                }
+                probesPermitted++;
+            }
+            return epoch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record the outcome of a permitted call.
+     */
+    void onResult(long permit, boolean failed, long durationNanos) {
+        boolean slow = durationNanos >= config.slowCallDurationNanos;
+
+        lock.lock();
+        try {
+            if (permit != epoch) {
+                return;
+            }
+
+            switch (state) {
+                case CLOSED:
+                    record(failed, slow);
+                    if (calls >= config.minimumNumberOfCalls && exceedsThresholds(failures, slowCalls, calls)) {
+                        transitionTo(CircuitBreakingDatasetClient.State.OPEN);
+                    }
+                    break;
+                case HALF_OPEN:
+                    probes++;
+                    probeFailures += failed ? 1 : 0;
+                    slowProbes += slow ? 1 : 0;
+                    if (probes >= config.permittedCallsInHalfOpenState) {
+                        transitionTo(exceedsThresholds(probeFailures, slowProbes, probes)
+                                ? CircuitBreakingDatasetClient.State.OPEN : CircuitBreakingDatasetClient.State.CLOSED);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    CircuitBreakingDatasetClient.State state() {
+        return state;
+    }
+
+    /**
+     * A message for the exception thrown when a call is refused.
+     */
+    String openMessage() {
+        return "circuit breaker for dataset-api " + name + " is " + state.name().toLowerCase().replace('_', '-');
+    }
+
+    private void record(boolean failed, boolean slow) {
+        byte outcome = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        if (calls == outcomes.length) {
+            byte evicted = outcomes[next];
+            failures -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            calls++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        failures += failed ? 1 : 0;
+        slowCalls += slow ? 1 : 0;
+    }
+
+    private boolean exceedsThresholds(int failed, int slow, int total) {
+        return failed * 100L >= (long) config.failureRateThreshold * total
+                || slow * 100L >= (long) config.slowCallRateThreshold * total;
+    }
+
+    private void transitionTo(CircuitBreakingDatasetClient.State newState) {
+        state = newState;
+        epoch++;
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+        probesPermitted = 0;
+        probes = 0;
+        probeFailures = 0;
+        slowProbes = 0;
+        if (newState == CircuitBreakingDatasetClient.State.OPEN) {
+            openedAt = nanoTime.getAsLong();
+        }
+    }
+}
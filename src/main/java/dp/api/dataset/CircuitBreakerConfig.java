@@ -0,0 +1,126 @@
+package dp.api.dataset;
+
+import org.apache.http.util.Args;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The thresholds of a circuit breaker in a {@link CircuitBreakingDatasetClient}.
+ */
+public final class CircuitBreakerConfig {
+
+    private static final CircuitBreakerConfig DEFAULTS = builder().build();
+
+    final int failureRateThreshold;
+    final int slowCallRateThreshold;
+    final long slowCallDurationNanos;
+    final int slidingWindowSize;
+    final int minimumNumberOfCalls;
+    final long waitDurationInOpenStateNanos;
+    final int permittedCallsInHalfOpenState;
+
+    private CircuitBreakerConfig(Builder builder) {
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallDurationNanos = builder.slowCallDurationNanos;
+        this.slidingWindowSize = builder.slidingWindowSize;
+        this.minimumNumberOfCalls = builder.minimumNumberOfCalls;
+        this.waitDurationInOpenStateNanos = builder.waitDurationInOpenStateNanos;
+        this.permittedCallsInHalfOpenState = builder.permittedCallsInHalfOpenState;
+    }
+
+    /**
+     * The default thresholds: open when half of the last 100 calls failed or every one of them took 5 seconds or
+     * more, stay open for 10 seconds, then let 5 calls through to decide whether to close.
+     */
+    public static CircuitBreakerConfig defaults() {
+        return DEFAULTS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builder for a CircuitBreakerConfig.
+     */
+    public static class Builder {
+
+        private int failureRateThreshold = 50;
+        private int slowCallRateThreshold = 100;
+        private long slowCallDurationNanos = TimeUnit.SECONDS.toNanos(5);
+        private int slidingWindowSize = 100;
+        private int minimumNumberOfCalls = 20;
+        private long waitDurationInOpenStateNanos = TimeUnit.SECONDS.toNanos(10);
+        private int permittedCallsInHalfOpenState = 5;
+
+        private Builder() {
+        }
+
+        /**
+         * @param failureRateThreshold - The percentage of failed calls in the sliding window at which the circuit opens
+         */
+        public Builder failureRateThreshold(int failureRateThreshold) {
+            Args.check(failureRateThreshold > 0 && failureRateThreshold <= 100, "failureRateThreshold must be between 1 and 100");
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * @param slowCallRateThreshold - The percentage of slow calls in the sliding window at which the circuit opens
+         */
+        public Builder slowCallRateThreshold(int slowCallRateThreshold) {
+            Args.check(slowCallRateThreshold > 0 && slowCallRateThreshold <= 100, "slowCallRateThreshold must be between 1 and 100");
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        /**
+         * @param duration - How long a call must take to count as slow
+         * @param unit     - The unit of the duration
+         */
+        public Builder slowCallDuration(long duration, TimeUnit unit) {
+            this.slowCallDurationNanos = unit.toNanos(Args.positive(duration, "duration"));
+            return this;
+        }
+
+        /**
+         * @param slidingWindowSize - The number of most recent calls the failure and slow call rates are taken over
+         */
+        public Builder slidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = Args.positive(slidingWindowSize, "slidingWindowSize");
+            return this;
+        }
+
+        /**
+         * @param minimumNumberOfCalls - The number of calls needed in the window before the rates are acted on
+         */
+        public Builder minimumNumberOfCalls(int minimumNumberOfCalls) {
+            this.minimumNumberOfCalls = Args.positive(minimumNumberOfCalls, "minimumNumberOfCalls");
+            return this;
+        }
+
+        /**
+         * @param duration - How long the circuit stays open before letting probe calls through
+         * @param unit     - The unit of the duration
+         */
+        public Builder waitDurationInOpenState(long duration, TimeUnit unit) {
+            this.waitDurationInOpenStateNanos = unit.toNanos(Args.positive(duration, "duration"));
+            return this;
+        }
+
+        /**
+         * @param permittedCallsInHalfOpenState - The number of probe calls let through while half-open, whose
+         *                                      results decide whether the circuit closes or opens again
+         */
+        public Builder permittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+            this.permittedCallsInHalfOpenState = Args.positive(permittedCallsInHalfOpenState, "permittedCallsInHalfOpenState");
+            return this;
+        }
+
+        public CircuitBreakerConfig build() {
+            Args.check(minimumNumberOfCalls <= slidingWindowSize, "minimumNumberOfCalls must not exceed slidingWindowSize");
+            return new CircuitBreakerConfig(this);
+        }
+    }
+}
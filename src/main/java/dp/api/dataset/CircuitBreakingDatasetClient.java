@@ -0,0 +1,257 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.CircuitBreakerOpenException;
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.exception.DeadlineExceededException;
+import dp.api.dataset.exception.UnexpectedResponseException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Edition;
+import dp.api.dataset.model.Instance;
+import org.apache.http.HttpStatus;
+import org.apache.http.util.Args;
+
+import java.io.IOException;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * A DatasetClient decorator that stops calling the dataset API while it is failing or slow, and fails fast with a
+ * {@link CircuitBreakerOpenException} instead. Reads and writes have separate circuit breakers, each with its own
+ * {@link CircuitBreakerConfig}, so a failing write path does not stop reads.
+ * <p>
+ * A call counts as failed if it throws an IOException or a RuntimeException, gets a 5xx or 429 response, or does not
+ * complete before the caller's {@link Deadline}. Responses the caller is responsible for, such as 404 or 400, count as
+ * successes.
+ * <p>
+ * Each page of a listing counts as a read of its own when the client underneath is a {@link DatasetAPIClient}, and a
+ * page requested while the read circuit breaker is open fails the stream with an UncheckedDatasetAPIException caused by
+ * a CircuitBreakerOpenException.
+ */
+public class CircuitBreakingDatasetClient extends ForwardingDatasetClient {
+
+    /**
+     * The state of a circuit breaker.
+     */
+    public enum State {
+
+        /**
+         * Calls are made and their outcomes recorded.
+         */
+        CLOSED,
+
+        /**
+         * Calls fail fast without calling the dataset API.
+         */
+        OPEN,
+
+        /**
+         * A limited number of probe calls are made to decide whether to close or open again.
+         */
+        HALF_OPEN
+    }
+
+    private final CircuitBreaker reads;
+    private final CircuitBreaker writes;
+    private final LongSupplier nanoTime;
+    private final PagedIterator.PageInterceptor readPages = new PagedIterator.PageInterceptor() {
+        @Override
+        public <P> P intercept(DatasetCall<P> fetch) throws IOException, DatasetAPIException {
+            return call(reads, fetch);
+        }
+    };
+
+    private CircuitBreakingDatasetClient(Builder builder) {
+        super(builder.delegate);
+        this.reads = new CircuitBreaker("reads", builder.readConfig, builder.nanoTime);
+        this.writes = new CircuitBreaker("writes", builder.writeConfig, builder.nanoTime);
+        this.nanoTime = builder.nanoTime;
+    }
+
+    /**
+     * Create a new builder for a CircuitBreakingDatasetClient wrapping the given client.
+     */
+    public static Builder builder(DatasetClient delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public Instance getInstance(String instanceID) throws IOException, DatasetAPIException {
+        return call(reads, () -> delegate().getInstance(instanceID));
+    }
+
+    @Override
+    public Dataset createDataset(String datasetID, Dataset dataset) throws IOException, DatasetAPIException {
+        return call(writes, () -> delegate().createDataset(datasetID, dataset));
+    }
+
+    @Override
+    public Dataset getDataset(String datasetID) throws IOException, DatasetAPIException {
+        return call(reads, () -> delegate().getDataset(datasetID));
+    }
+
+    @Override
+    public void deleteDataset(String datasetID) throws IOException, DatasetAPIException {
+        call(writes, () -> {
+            delegate().deleteDataset(datasetID);
+            return null;
+        });
+    }
+
+    @Override
+    public void detachVersion(String datasetID, String edition, String version) throws IOException, DatasetAPIException {
+        call(writes, () -> {
+            delegate().detachVersion(datasetID, edition, version);
+            return null;
+        });
+    }
+
+    @Override
+    public void updateDataset(String datasetID, Dataset dataset) throws IOException, DatasetAPIException {
+        call(writes, () -> {
+            delegate().updateDataset(datasetID, dataset);
+            return null;
+        });
+    }
+
+    @Override
+    public DatasetVersion getDatasetVersion(String datasetID, String edition, String version) throws IOException, DatasetAPIException {
+        return call(reads, () -> delegate().getDatasetVersion(datasetID, edition, version));
+    }
+
+    @Override
+    public void updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion) throws IOException, DatasetAPIException {
+        call(writes, () -> {
+            delegate().updateDatasetVersion(datasetID, edition, version, datasetVersion);
+            return null;
+        });
+    }
+
+    @Override
+    public String updateDataset(String datasetID, Dataset dataset, String ifMatch) throws IOException, DatasetAPIException {
+        return call(writes, () -> delegate().updateDataset(datasetID, dataset, ifMatch));
+    }
+
+    @Override
+    public String updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion, String ifMatch) throws IOException, DatasetAPIException {
+        return call(writes, () -> delegate().updateDatasetVersion(datasetID, edition, version, datasetVersion, ifMatch));
+    }
+
+    @Override
+    public void patchDataset(String datasetID, JsonPatch patch) throws IOException, DatasetAPIException {
+        call(writes, () -> {
+            delegate().patchDataset(datasetID, patch);
+            return null;
+        });
+    }
+
+    @Override
+    public void patchDatasetVersion(String datasetID, String edition, String version, JsonPatch patch) throws IOException, DatasetAPIException {
+        call(writes, () -> {
+            delegate().patchDatasetVersion(datasetID, edition, version, patch);
+            return null;
+        });
+    }
+
+    @Override
+    public Stream<Dataset> listDatasets(int pageSize) {
+        return PagedIterator.openWithin(readPages, () -> delegate().listDatasets(pageSize));
+    }
+
+    @Override
+    public Stream<Edition> listEditions(String datasetID, int pageSize) {
+        return PagedIterator.openWithin(readPages, () -> delegate().listEditions(datasetID, pageSize));
+    }
+
+    @Override
+    public Stream<DatasetVersion> listVersions(String datasetID, String edition, int pageSize) {
+        return PagedIterator.openWithin(readPages, () -> delegate().listVersions(datasetID, edition, pageSize));
+    }
+
+    /**
+     * The state of the circuit breaker for getInstance, getDataset, getDatasetVersion and pages of listings.
+     */
+    public State getReadState() {
+        return reads.state();
+    }
+
+    /**
+     * The state of the circuit breaker for operations that change data.
+     */
+    public State getWriteState() {
+        return writes.state();
+    }
+
+    private <T> T call(CircuitBreaker breaker, DatasetCall<T> call) throws IOException, DatasetAPIException {
+
+        long permit = breaker.tryAcquire();
+        if (permit < 0) {
+            throw new CircuitBreakerOpenException(breaker.openMessage());
+        }
+
+        long start = nanoTime.getAsLong();
+        boolean failed = true;
+        try {
+            T value = call.call();
+            failed = false;
+            return value;
+        } catch (DatasetAPIException e) {
+            failed = isFailure(e);
+            throw e;
+        } finally {
+            breaker.onResult(permit, failed, nanoTime.getAsLong() - start);
+        }
+    }
+
+    private static boolean isFailure(DatasetAPIException e) {
+        if (e instanceof DeadlineExceededException) {
+            // an API that hangs until every caller gives up is failing, even though no response says so
+            return true;
+        }
+        if (!(e instanceof UnexpectedResponseException)) {
+            return false;
+        }
+        int responseCode = ((UnexpectedResponseException) e).getResponseCode();
+        return responseCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR || responseCode == RetryStrategy.SC_TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Builder for a CircuitBreakingDatasetClient.
+     */
+    public static class Builder {
+
+        private final DatasetClient delegate;
+        private CircuitBreakerConfig readConfig = CircuitBreakerConfig.defaults();
+        private CircuitBreakerConfig writeConfig = CircuitBreakerConfig.defaults();
+        private LongSupplier nanoTime = System::nanoTime;
+
+        private Builder(DatasetClient delegate) {
+            this.delegate = Args.notNull(delegate, "delegate");
+        }
+
+        /**
+         * @param readConfig - The thresholds for getInstance, getDataset, getDatasetVersion and pages of listings
+         */
+        public Builder readConfig(CircuitBreakerConfig readConfig) {
+            this.readConfig = Args.notNull(readConfig, "readConfig");
+            return this;
+        }
+
+        /**
+         * @param writeConfig - The thresholds for operations that change data
+         */
+        public Builder writeConfig(CircuitBreakerConfig writeConfig) {
+            this.writeConfig = Args.notNull(writeConfig, "writeConfig");
+            return this;
+        }
+
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            return this;
+        }
+
+        public CircuitBreakingDatasetClient build() {
+            return new CircuitBreakingDatasetClient(this);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Instance;
+
+import java.io.IOException;
+
+/**
+ * A DatasetClient decorator that coalesces concurrent identical reads. While a getInstance, getDataset or
+ * getDatasetVersion call is in flight, other callers asking for the same entity wait for that call instead of making
+ * their own request, and all of them receive its result or exception. Writes are passed straight through.
+ * <p>
+ * Callers that share a call each receive their own copy of the model, so they may change it.
+ */
+public class CoalescingDatasetClient extends ForwardingDatasetClient {
+
+    private final SingleFlight<RequestKey> inFlight = new SingleFlight<>();
+
+    public CoalescingDatasetClient(DatasetClient delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public Instance getInstance(String instanceID) throws IOException, DatasetAPIException {
+        return inFlight.execute(RequestKey.instance(instanceID), () -> delegate().getInstance(instanceID));
+    }
+
+    @Override
+    public Dataset getDataset(String datasetID) throws IOException, DatasetAPIException {
+        return inFlight.execute(RequestKey.dataset(datasetID), () -> delegate().getDataset(datasetID));
+    }
+
+    @Override
+    public DatasetVersion getDatasetVersion(String datasetID, String edition, String version) throws IOException, DatasetAPIException {
+        return inFlight.execute(RequestKey.version(datasetID, edition, version),
+                () -> delegate().getDatasetVersion(datasetID, edition, version));
+    }
+
+    int waiters(RequestKey key) {
+        return inFlight.waiters(key);
+    }
+}
@@ -0,0 +1,184 @@
+package dp.api.dataset;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A bounded, expiring LRU cache split into independently locked segments, so concurrent callers only contend when
+ * their keys hash to the same segment. Recency is tracked per segment, which approximates a global LRU closely
+ * enough for a read-through cache.
+ * <p>
+ * Each segment keeps a generation counter that is bumped on every invalidation. A caller loading a value records the
+ * generation before calling the dataset API and only stores the result if no invalidation happened in the meantime,
+ * so a slow read can not put back a value that a concurrent write has just invalidated.
+ */
+final class ConcurrentLruCache<K, V> {
+
+    private final Segment<K, V>[] segments;
+    private final LongSupplier nanoTime;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    ConcurrentLruCache(int maximumSize, int concurrencyLevel, LongSupplier nanoTime) {
+        int segmentCount = Math.max(1, Math.min(concurrencyLevel, maximumSize));
+        int segmentCapacity = (maximumSize + segmentCount - 1) / segmentCount;
+
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity, evictions);
+        }
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Get the cached value for the key, or null if there is none or it has expired.
+     */
+    V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        long now = nanoTime.getAsLong();
+
+        segment.lock.lock();
+        try {
+            Node<V> node = segment.map.get(key);
+            if (node == null) {
+                misses.increment();
+                return null;
+            }
+            if (node.expiresAt - now <= 0) {
+                segment.map.remove(key);
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return node.value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * The current invalidation generation for the key's segment, to be passed to {@link #put}.
+     */
+    long generation(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            return segment.generation;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Cache the value unless the key's segment has been invalidated since the given generation was read.
+     */
+    void put(K key, V value, long ttlNanos, long expectedGeneration) {
+        Segment<K, V> segment = segmentFor(key);
+        long expiresAt = nanoTime.getAsLong() + ttlNanos;
+
+        segment.lock.lock();
+        try {
+            if (segment.generation == expectedGeneration) {
+                segment.map.put(key, new Node<>(value, expiresAt));
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.generation++;
+            segment.map.remove(key);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    void invalidateIf(Predicate<K> predicate) {
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.generation++;
+                Iterator<K> keys = segment.map.keySet().iterator();
+                while (keys.hasNext()) {
+                    if (predicate.test(keys.next())) {
+                        keys.remove();
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    void invalidateAll() {
+        invalidateIf(key -> true);
+    }
+
+    long size() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                size += segment.map.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size());
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[(hash & Integer.MAX_VALUE) % segments.length];
+    }
+
+    private static final class Node<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        private Node(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Segment<K, V> {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<K, Node<V>> map;
+        private long generation;
+
+        private Segment(int capacity, LongAdder evictions) {
+            this.map = new LinkedHashMap<K, Node<V>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Node<V>> eldest) {
+                    if (size() > capacity) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package dp.api.dataset;
+
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Wraps a request or response entity to count the body bytes actually written or read, which may differ from the
+ * Content-Length when a body is streamed or only partly consumed.
+ */
+final class CountingEntity extends HttpEntityWrapper {
+
+    private CountingInputStream in;
+    private long previouslyRead;
+    private long bytesWritten;
+
+    CountingEntity(HttpEntity wrappedEntity) {
+        super(wrappedEntity);
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        if (in != null) {
+            previouslyRead += in.getByteCount();
+        }
+        in = new CountingInputStream(super.getContent());
+        return in;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        CountingOutputStream counting = new CountingOutputStream(out);
+        try {
+            super.writeTo(counting);
+        } finally {
+            bytesWritten += counting.getByteCount();
+        }
+    }
+
+    long bytesRead() {
+        return previouslyRead + (in != null ? in.getByteCount() : 0);
+    }
+
+    long bytesWritten() {
+        return bytesWritten;
+    }
+}
@@ -0,0 +1,28 @@
+package dp.api.dataset;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates daemon threads named "prefix-pool-thread", so that a client's background threads never keep the JVM alive
+ * and can be told apart in a thread dump.
+ */
+final class DaemonThreadFactory implements ThreadFactory {
+
+    private static final AtomicInteger poolNumber = new AtomicInteger();
+
+    private final String prefix;
+    private final int pool = poolNumber.incrementAndGet();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    DaemonThreadFactory(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, prefix + "-" + pool + "-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,462 @@
+package dp.api.dataset;
+
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Instance;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.util.Args;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.onsdigital.logging.v2.event.SimpleEvent.info;
+
+/**
+ * Non-blocking HTTP client for the dataset API, backed by the Apache NIO async client. Requests are multiplexed over
+ * a small number of I/O reactor threads, so many requests can be in flight without a thread per request.
+ * <p>
+ * Responses are mapped to results and exceptions on the I/O reactor thread; callers doing heavy work with the
+ * result should move it onto their own executor with the *Async variants of {@link CompletableFuture}.
+ * Invalid arguments are rejected immediately with an {@link IllegalArgumentException}.
+ * <p>
+ * A client created with the builder has the same connect, socket and connection request timeouts as the blocking
+ * client, and retries 5xx and 429 responses with the same {@link RetryStrategy}. Retries wait on a timer rather than
+ * a thread. A client created with the constructor that takes an HTTP client uses that client's timeouts and makes no
+ * retries.
+ */
+public class DatasetAPIAsyncClient implements DatasetAsyncClient {
+
+    private final DatasetAPIRequests requests;
+
+    private final CloseableHttpAsyncClient client;
+    private final RetryStrategy retryStrategy;
+    private final ScheduledExecutorService retryTimer;
+
+    /**
+     * Create a new instance of DatasetAPIAsyncClient
+     *
+     * @param datasetAPIURL       - The URL of the dataset API
+     * @param datasetAPIAuthToken - The authentication token for the dataset API
+     * @param serviceAuthToken    - The service authentication token
+     * @param client              - The async HTTP client to use internally. It is started if not already running.
+     */
+    public DatasetAPIAsyncClient(String datasetAPIURL,
+                                 String datasetAPIAuthToken,
+                                 String serviceAuthToken,
+                                 CloseableHttpAsyncClient client) throws URISyntaxException {
+
+        this(new URI(datasetAPIURL), TokenProvider.of(datasetAPIAuthToken), TokenProvider.of(serviceAuthToken), client, null);
+    }
+
+    /**
+     * Create a new instance of DatasetAPIAsyncClient
+     *
+     * @param datasetAPIURL       - The URL of the dataset API
+     * @param datasetAPIAuthToken - The authentication token for the dataset API
+     * @param serviceAuthToken    - The service authentication token
+     */
+    public DatasetAPIAsyncClient(String datasetAPIURL, String datasetAPIAuthToken, String serviceAuthToken) throws URISyntaxException {
+
+        this(new URI(datasetAPIURL), TokenProvider.of(datasetAPIAuthToken), TokenProvider.of(serviceAuthToken),
+                new Builder().createHttpClient(), RetryStrategy.builder().build());
+    }
+
+    private DatasetAPIAsyncClient(URI datasetAPIURL,
+                                  TokenProvider datasetAPIAuthToken,
+                                  TokenProvider serviceAuthToken,
+                                  CloseableHttpAsyncClient client,
+                                  RetryStrategy retryStrategy) {
+
+        this.requests = new DatasetAPIRequests(datasetAPIURL, datasetAPIAuthToken, serviceAuthToken);
+        this.client = client;
+        this.retryStrategy = retryStrategy;
+        this.retryTimer = retryStrategy != null
+                ? Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("dataset-async-retry")) : null;
+
+        if (!client.isRunning()) {
+            client.start();
+        }
+    }
+
+    /**
+     * Create a new builder for a DatasetAPIAsyncClient.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public CompletableFuture<Instance> getInstance(String instanceID) {
+        return execute(() -> requests.getInstance(instanceID), DatasetAPIResponses::instance);
+    }
+
+    @Override
+    public CompletableFuture<Dataset> createDataset(String datasetID, Dataset dataset) {
+        return execute(() -> requests.createDataset(datasetID, dataset), DatasetAPIResponses::createdDataset);
+    }
+
+    @Override
+    public CompletableFuture<Dataset> getDataset(String datasetID) {
+        return execute(() -> requests.getDataset(datasetID), DatasetAPIResponses::dataset);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteDataset(String datasetID) {
+        return execute(() -> requests.deleteDataset(datasetID), DatasetAPIResponses::deletedDataset);
+    }
+
+    @Override
+    public CompletableFuture<Void> detachVersion(String datasetID, String edition, String version) {
+        return execute(() -> requests.detachVersion(datasetID, edition, version), DatasetAPIResponses::detachedVersion);
+    }
+
+    @Override
+    public CompletableFuture<Void> updateDataset(String datasetID, Dataset dataset) {
+        return execute(() -> requests.updateDataset(datasetID, dataset), DatasetAPIResponses::updatedDataset);
+    }
+
+    @Override
+    public CompletableFuture<DatasetVersion> getDatasetVersion(String datasetID, String edition, String version) {
+        return execute(() -> requests.getDatasetVersion(datasetID, edition, version), DatasetAPIResponses::datasetVersion);
+    }
+
+    @Override
+    public CompletableFuture<Void> updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion) {
+        return execute(() -> requests.updateDatasetVersion(datasetID, edition, version, datasetVersion),
+                DatasetAPIResponses::updatedDatasetVersion);
+    }
+
+    /**
+     * Update the dataset only if it has not changed since it was read with the given ETag. The future completes with
+     * the dataset's new ETag.
+     */
+    @Override
+    public CompletableFuture<String> updateDataset(String datasetID, Dataset dataset, String ifMatch) {
+        return execute(() -> requests.updateDataset(datasetID, dataset, ifMatch),
+                DatasetAPIResponses.updated(DatasetAPIResponses::updatedDataset));
+    }
+
+    /**
+     * Update the dataset version only if it has not changed since it was read with the given ETag. The future
+     * completes with the version's new ETag.
+     */
+    @Override
+    public CompletableFuture<String> updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion, String ifMatch) {
+        return execute(() -> requests.updateDatasetVersion(datasetID, edition, version, datasetVersion, ifMatch),
+                DatasetAPIResponses.updated(DatasetAPIResponses::updatedDatasetVersion));
+    }
+
+    /**
+     * Apply a JSON Patch to the dataset. An empty patch is not sent, and the returned future is already complete.
+     */
+    @Override
+    public CompletableFuture<Void> patchDataset(String datasetID, JsonPatch patch) {
+
+        requests.validateDatasetID(datasetID);
+        Args.notNull(patch, "patch");
+        if (patch.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return execute(() -> requests.patchDataset(datasetID, patch), DatasetAPIResponses::updatedDataset);
+    }
+
+    /**
+     * Apply a JSON Patch to the dataset version. An empty patch is not sent, and the returned future is already
+     * complete.
+     */
+    @Override
+    public CompletableFuture<Void> patchDatasetVersion(String datasetID, String edition, String version, JsonPatch patch) {
+
+        requests.validateDatasetID(datasetID);
+        requests.validateEdition(edition);
+        requests.validateVersion(version);
+        Args.notNull(patch, "patch");
+        if (patch.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return execute(() -> requests.patchDatasetVersion(datasetID, edition, version, patch),
+                DatasetAPIResponses::updatedDatasetVersion);
+    }
+
+    private <T> CompletableFuture<T> execute(RequestFactory factory, DatasetAPIResponses.Handler<T> handler) {
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        HttpUriRequest req;
+        try {
+            req = factory.create();
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        send(req, factory, handler, result, new BasicHttpContext(), 1);
+        return result;
+    }
+
+    private <T> void send(HttpUriRequest req,
+                          RequestFactory factory,
+                          DatasetAPIResponses.Handler<T> handler,
+                          CompletableFuture<T> result,
+                          HttpContext context,
+                          int executionCount) {
+
+        context.setAttribute(HttpCoreContext.HTTP_REQUEST, req);
+        info().beginHTTP(req).log("executing async dataset-api request");
+        Future<HttpResponse> pending = client.execute(req, new FutureCallback<HttpResponse>() {
+
+            @Override
+            public void completed(HttpResponse resp) {
+                info().endHTTP(req, resp).log("execute async dataset-api request completed");
+                if (retryStrategy != null && retryStrategy.retryRequest(resp, executionCount, context)) {
+                    EntityUtils.consumeQuietly(resp.getEntity());
+                    retry(factory, handler, result, context, executionCount + 1, retryStrategy.getRetryInterval());
+                    return;
+                }
+                try {
+                    result.complete(handler.handle(req, resp));
+                } catch (Exception e) {
+                    result.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                result.cancel(false);
+            }
+        });
+
+        // propagate cancellation of the returned future to the in-flight request
+        result.whenComplete((value, throwable) -> {
+            if (result.isCancelled() && pending != null) {
+                pending.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * Send the request again once the retry interval has passed, unless the caller has cancelled it by then.
+     */
+    private <T> void retry(RequestFactory factory,
+                           DatasetAPIResponses.Handler<T> handler,
+                           CompletableFuture<T> result,
+                           HttpContext context,
+                           int executionCount,
+                           long intervalMs) {
+
+        try {
+            retryTimer.schedule(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                HttpUriRequest req;
+                try {
+                    req = factory.create();
+                } catch (IOException e) {
+                    result.completeExceptionally(e);
+                    return;
+                }
+                send(req, factory, handler, result, context, executionCount);
+            }, intervalMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new IOException("dataset-api async client closed before a retry", e));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (retryTimer != null) {
+            retryTimer.shutdownNow();
+        }
+        client.close();
+    }
+
+    /**
+     * Builds a request, which may need to fetch an auth token.
+     */
+    @FunctionalInterface
+    private interface RequestFactory {
+        HttpUriRequest create() throws IOException;
+    }
+
+    /**
+     * Builder for a DatasetAPIAsyncClient.
+     */
+    public static class Builder {
+
+        private static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 100;
+        private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+        private static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;
+        private static final int DEFAULT_SOCKET_TIMEOUT_MS = 30000;
+        private static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MS = 5000;
+
+        private String datasetAPIURL;
+        private TokenProvider datasetAPIAuthToken = TokenProvider.of(null);
+        private TokenProvider serviceAuthToken = TokenProvider.of(null);
+        private int maxTotalConnections = DEFAULT_MAX_TOTAL_CONNECTIONS;
+        private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        private int ioThreadCount = Runtime.getRuntime().availableProcessors();
+        private int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+        private int socketTimeoutMs = DEFAULT_SOCKET_TIMEOUT_MS;
+        private int connectionRequestTimeoutMs = DEFAULT_CONNECTION_REQUEST_TIMEOUT_MS;
+        private RetryStrategy retryStrategy;
+        private CloseableHttpAsyncClient httpClient;
+
+        private Builder() {
+        }
+
+        /**
+         * @param datasetAPIURL - The URL of the dataset API
+         */
+        public Builder datasetAPIURL(String datasetAPIURL) {
+            this.datasetAPIURL = datasetAPIURL;
+            return this;
+        }
+
+        /**
+         * @param datasetAPIAuthToken - The authentication token for the dataset API
+         */
+        public Builder datasetAPIAuthToken(String datasetAPIAuthToken) {
+            this.datasetAPIAuthToken = TokenProvider.of(datasetAPIAuthToken);
+            return this;
+        }
+
+        /**
+         * @param datasetAPIAuthToken - Supplies the authentication token for the dataset API for each request
+         */
+        public Builder datasetAPIAuthToken(TokenProvider datasetAPIAuthToken) {
+            this.datasetAPIAuthToken = Args.notNull(datasetAPIAuthToken, "datasetAPIAuthToken");
+            return this;
+        }
+
+        /**
+         * @param serviceAuthToken - The service authentication token
+         */
+        public Builder serviceAuthToken(String serviceAuthToken) {
+            this.serviceAuthToken = TokenProvider.of(serviceAuthToken);
+            return this;
+        }
+
+        /**
+         * @param serviceAuthToken - Supplies the service authentication token for each request
+         */
+        public Builder serviceAuthToken(TokenProvider serviceAuthToken) {
+            this.serviceAuthToken = Args.notNull(serviceAuthToken, "serviceAuthToken");
+            return this;
+        }
+
+        /**
+         * @param maxTotalConnections - The maximum number of pooled connections across all routes
+         */
+        public Builder maxTotalConnections(int maxTotalConnections) {
+            this.maxTotalConnections = Args.positive(maxTotalConnections, "maxTotalConnections");
+            return this;
+        }
+
+        /**
+         * @param maxConnectionsPerRoute - The maximum number of pooled connections to a single host
+         */
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = Args.positive(maxConnectionsPerRoute, "maxConnectionsPerRoute");
+            return this;
+        }
+
+        /**
+         * @param ioThreadCount - The number of I/O reactor threads, defaults to the number of available processors
+         */
+        public Builder ioThreadCount(int ioThreadCount) {
+            this.ioThreadCount = Args.positive(ioThreadCount, "ioThreadCount");
+            return this;
+        }
+
+        /**
+         * @param connectTimeoutMs - The time to wait for a connection to the dataset API to be established, or 0 to
+         *                         wait indefinitely
+         */
+        public Builder connectTimeoutMs(int connectTimeoutMs) {
+            this.connectTimeoutMs = Args.notNegative(connectTimeoutMs, "connectTimeoutMs");
+            return this;
+        }
+
+        /**
+         * @param socketTimeoutMs - The longest time to wait for data between two packets of a response, or 0 to wait
+         *                        indefinitely
+         */
+        public Builder socketTimeoutMs(int socketTimeoutMs) {
+            this.socketTimeoutMs = Args.notNegative(socketTimeoutMs, "socketTimeoutMs");
+            return this;
+        }
+
+        /**
+         * @param connectionRequestTimeoutMs - The time to wait for a connection from the pool when every connection
+         *                                   is leased, or 0 to wait indefinitely
+         */
+        public Builder connectionRequestTimeoutMs(int connectionRequestTimeoutMs) {
+            this.connectionRequestTimeoutMs = Args.notNegative(connectionRequestTimeoutMs, "connectionRequestTimeoutMs");
+            return this;
+        }
+
+        /**
+         * @param retryStrategy - Replaces the default strategy of up to 3 retries with exponential backoff and full
+         *                      jitter
+         */
+        public Builder retryStrategy(RetryStrategy retryStrategy) {
+            this.retryStrategy = Args.notNull(retryStrategy, "retryStrategy");
+            return this;
+        }
+
+        /**
+         * @param httpClient - An externally managed async HTTP client to use instead of the pooled default. Its own
+         *                   timeouts apply, and the connection and timeout settings of this builder are ignored.
+         */
+        public Builder httpClient(CloseableHttpAsyncClient httpClient) {
+            this.httpClient = Args.notNull(httpClient, "httpClient");
+            return this;
+        }
+
+        public DatasetAPIAsyncClient build() throws URISyntaxException {
+            Args.notNull(datasetAPIURL, "datasetAPIURL");
+            return new DatasetAPIAsyncClient(new URI(datasetAPIURL), datasetAPIAuthToken, serviceAuthToken,
+                    httpClient != null ? httpClient : createHttpClient(),
+                    retryStrategy != null ? retryStrategy : RetryStrategy.builder().build());
+        }
+
+        private CloseableHttpAsyncClient createHttpClient() {
+            return HttpAsyncClients.custom()
+                    .setMaxConnTotal(maxTotalConnections)
+                    .setMaxConnPerRoute(maxConnectionsPerRoute)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setConnectTimeout(connectTimeoutMs)
+                            .setSocketTimeout(socketTimeoutMs)
+                            .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                            .build())
+                    .setDefaultIOReactorConfig(IOReactorConfig.custom()
+                            .setIoThreadCount(ioThreadCount)
+                            .setSoKeepAlive(true)
+                            .build())
+                    .build();
+        }
+    }
+}
@@ -1,39 +1,48 @@
 package dp.api.dataset;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import dp.api.dataset.exception.BadRequestException;
 import dp.api.dataset.exception.DatasetAPIException;
-import dp.api.dataset.exception.DatasetAlreadyExistsException;
-import dp.api.dataset.exception.DatasetNotFoundException;
-import dp.api.dataset.exception.ForbiddenException;
-import dp.api.dataset.exception.InstanceNotFoundException;
-import dp.api.dataset.exception.UnauthorisedException;
-import dp.api.dataset.exception.UnexpectedResponseException;
+import dp.api.dataset.exception.DeadlineExceededException;
+import dp.api.dataset.exception.PreconditionFailedException;
 import dp.api.dataset.model.Dataset;
-import dp.api.dataset.model.DatasetResponse;
 import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Edition;
 import dp.api.dataset.model.Instance;
-import org.apache.http.HttpEntity;
+import org.apache.http.Header;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
 import org.apache.http.util.Args;
-import org.apache.http.util.EntityUtils;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static com.github.onsdigital.logging.v2.event.SimpleEvent.info;
 
@@ -42,15 +51,18 @@ import static com.github.onsdigital.logging.v2.event.SimpleEvent.info;
  */
 public class DatasetAPIClient implements DatasetClient {
 
-    private final URI datasetAPIURL;
-    private final String datasetAPIAuthToken;
-    private final String serviceAuthToken;
+    private final DatasetAPIRequests requests;
+    private final ValidatingResponseCache responseCache;
+    private final MetricsListener metricsListener;
+    private final RequestConfig requestConfig;
+    private final int requestCompressionThreshold;
 
     private final CloseableHttpClient client;
-
-    private static final String authTokenHeaderName = "Internal-token";
-    private static final String serviceTokenHeaderName = "Authorization";
-    private static final ObjectMapper json = new ObjectMapper();
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final HttpTransport transport;
+    private final RetryStrategy transportRetryStrategy;
+    private final ExecutorService prefetchExecutor;
+    private final Runnable onClose;
 
     /**
      * Create a new instance of DatasetAPIClient
@@ -64,10 +76,8 @@ public class DatasetAPIClient implements DatasetClient {
                             String serviceAuthToken,
                             CloseableHttpClient client) throws URISyntaxException {
 
-        this.datasetAPIURL = new URI(datasetAPIURL);
-        this.datasetAPIAuthToken = datasetAPIAuthToken;
-        this.client = client;
-        this.serviceAuthToken = serviceAuthToken;
+        this(new URI(datasetAPIURL), new Builder().datasetAPIAuthToken(datasetAPIAuthToken).serviceAuthToken(serviceAuthToken),
+                client, null);
     }
 
     /**
@@ -78,14 +88,98 @@ public class DatasetAPIClient implements DatasetClient {
      */
     public DatasetAPIClient(String datasetAPIURL, String datasetAPIAuthToken, String serviceAuthToken) throws URISyntaxException {
 
-        this(datasetAPIURL, datasetAPIAuthToken, serviceAuthToken, createDefaultHttpClient());
+        this(new URI(datasetAPIURL), new Builder().datasetAPIAuthToken(datasetAPIAuthToken).serviceAuthToken(serviceAuthToken));
+    }
+
+    private DatasetAPIClient(URI datasetAPIURL, Builder config) {
+
+        this(datasetAPIURL, config, config.createConnectionManager());
+    }
+
+    private DatasetAPIClient(URI datasetAPIURL, Builder config, PoolingHttpClientConnectionManager connectionManager) {
+
+        this(datasetAPIURL, config, config.createHttpClient(connectionManager), connectionManager);
+    }
+
+    private DatasetAPIClient(URI datasetAPIURL,
+                             Builder config,
+                             CloseableHttpClient client,
+                             PoolingHttpClientConnectionManager connectionManager) {
+
+        this.requests = new DatasetAPIRequests(datasetAPIURL, config.datasetAPIAuthToken, config.serviceAuthToken);
+        this.responseCache = config.responseCache;
+        this.metricsListener = config.metricsListener;
+        this.requestCompressionThreshold = config.requestCompressionThreshold;
+        this.requestConfig = connectionManager != null ? config.createRequestConfig() : RequestConfig.DEFAULT;
+        this.client = client;
+        this.connectionManager = connectionManager;
+        this.transport = config.transport;
+        this.transportRetryStrategy = transport != null ? config.createRetryStrategy() : null;
+        this.prefetchExecutor = Executors.newCachedThreadPool(new DaemonThreadFactory("dataset-prefetch"));
+        this.onClose = null;
+    }
+
+    private DatasetAPIClient(DatasetAPIClient parent, DatasetAPIRequests requests, Runnable onClose) {
+
+        this.requests = requests;
+        this.responseCache = parent.responseCache;
+        this.metricsListener = parent.metricsListener;
+        this.requestCompressionThreshold = parent.requestCompressionThreshold;
+        this.requestConfig = parent.requestConfig;
+        this.client = parent.client;
+        this.connectionManager = parent.connectionManager;
+        this.transport = parent.transport;
+        this.transportRetryStrategy = parent.transportRetryStrategy;
+        this.prefetchExecutor = parent.prefetchExecutor;
+        this.onClose = onClose;
+    }
+
+    /**
+     * Create a new builder for a DatasetAPIClient backed by a pooled connection manager.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get a client that sends the given auth tokens instead of this client's, for example to make calls on behalf of
+     * another user. The returned client shares this client's connection pool, transport, cache and metrics, so it is
+     * cheap to create for each call. Closing it has no effect; the pool is closed with this client.
+     *
+     * @param datasetAPIAuthToken - Supplies the authentication token for the dataset API
+     * @param serviceAuthToken    - Supplies the service authentication token
+     */
+    public DatasetAPIClient withAuthTokens(TokenProvider datasetAPIAuthToken, TokenProvider serviceAuthToken) {
+        Args.notNull(datasetAPIAuthToken, "datasetAPIAuthToken");
+        Args.notNull(serviceAuthToken, "serviceAuthToken");
+        return view(datasetAPIAuthToken, serviceAuthToken, () -> {
+        });
     }
 
-    private static CloseableHttpClient createDefaultHttpClient() {
+    /**
+     * Get a client that sends the given auth tokens instead of this client's, sharing its connection pool.
+     *
+     * @see #withAuthTokens(TokenProvider, TokenProvider)
+     */
+    public DatasetAPIClient withAuthTokens(String datasetAPIAuthToken, String serviceAuthToken) {
+        return withAuthTokens(TokenProvider.of(datasetAPIAuthToken), TokenProvider.of(serviceAuthToken));
+    }
+
+    /**
+     * A client sharing this client's connection pool that runs the given callback instead of closing it.
+     */
+    DatasetAPIClient view(TokenProvider datasetAPIAuthToken, TokenProvider serviceAuthToken, Runnable onClose) {
+        return new DatasetAPIClient(this, requests.withTokens(datasetAPIAuthToken, serviceAuthToken), onClose);
+    }
 
-        return HttpClients.custom()
-                .setServiceUnavailableRetryStrategy(new RetryStrategy())
-                .build();
+    /**
+     * Get a snapshot of the leased, pending and available connections in the connection pool.
+     *
+     * @return the pool statistics, or null if the client was created with an externally managed HTTP client or a
+     * transport.
+     */
+    public PoolStats getPoolStats() {
+        return connectionManager != null ? connectionManager.getTotalStats() : null;
     }
 
     /**
@@ -99,28 +193,8 @@ public class DatasetAPIClient implements DatasetClient {
     @Override
     public Instance getInstance(String instanceID) throws IOException, DatasetAPIException {
 
-        validateInstanceID(instanceID);
-
-        String path = "/instances/" + instanceID;
-        URI uri = datasetAPIURL.resolve(path);
-
-        HttpGet req = new HttpGet(uri);
-        req.addHeader(authTokenHeaderName, datasetAPIAuthToken);
-        req.addHeader(serviceTokenHeaderName, serviceAuthToken);
-
-        try (CloseableHttpResponse resp = executeRequest(req)) {
-            int statusCode = resp.getStatusLine().getStatusCode();
-
-            switch (statusCode) {
-                case HttpStatus.SC_OK:
-                    return parseResponseBody(resp, Instance.class);
-                case HttpStatus.SC_NOT_FOUND:
-                    throw new InstanceNotFoundException(formatErrResponse(req, resp));
-                default:
-                    throw new UnexpectedResponseException(
-                            formatErrResponse(req, resp), resp.getStatusLine().getStatusCode());
-            }
-        }
+        HttpGet req = requests.getInstance(instanceID);
+        return executeGet(DatasetOperation.GET_INSTANCE, req, DatasetAPIResponses::instance);
     }
 
     /**
@@ -135,35 +209,8 @@ public class DatasetAPIClient implements DatasetClient {
     @Override
     public Dataset createDataset(String datasetID, Dataset dataset) throws IOException, DatasetAPIException {
 
-        validateDatasetID(datasetID);
-
-        String path = "/datasets/" + datasetID;
-        URI uri = datasetAPIURL.resolve(path);
-
-        HttpPost req = new HttpPost(uri);
-        req.addHeader(authTokenHeaderName, datasetAPIAuthToken);
-        req.addHeader(serviceTokenHeaderName, serviceAuthToken);
-        req.setHeader("Content-Type", "application/json");
-
-        addBody(dataset, req);
-
-        try (CloseableHttpResponse resp = executeRequest(req)) {
-
-            int statusCode = resp.getStatusLine().getStatusCode();
-
-            switch (statusCode) {
-                case HttpStatus.SC_CREATED:
-                    DatasetResponse datasetResponse = parseResponseBody(resp, DatasetResponse.class);
-                    return datasetResponse.getNext();
-                case HttpStatus.SC_UNAUTHORIZED:
-                    throw new UnauthorisedException();
-                case HttpStatus.SC_FORBIDDEN:
-                    throw new DatasetAlreadyExistsException();
-                default:
-                    throw new UnexpectedResponseException(
-                            formatErrResponse(req, resp), resp.getStatusLine().getStatusCode());
-            }
-        }
+        HttpPost req = requests.createDataset(datasetID, dataset);
+        return execute(DatasetOperation.CREATE_DATASET, req, DatasetAPIResponses::createdDataset);
     }
 
     /**
@@ -177,20 +224,8 @@ public class DatasetAPIClient implements DatasetClient {
     @Override
     public Dataset getDataset(String datasetID) throws IOException, DatasetAPIException {
 
-        validateDatasetID(datasetID);
-
-        String path = "/datasets/" + datasetID;
-        URI uri = datasetAPIURL.resolve(path);
-
-        HttpGet req = new HttpGet(uri);
-        req.addHeader(authTokenHeaderName, datasetAPIAuthToken);
-        req.addHeader(serviceTokenHeaderName, serviceAuthToken);
-
-        try (CloseableHttpResponse resp = executeRequest(req)) {
-            validate200ResponseCode(req, resp);
-            DatasetResponse datasetResponse = parseResponseBody(resp, DatasetResponse.class);
-            return datasetResponse.getNext();
-        }
+        HttpGet req = requests.getDataset(datasetID);
+        return executeGet(DatasetOperation.GET_DATASET, req, DatasetAPIResponses::dataset);
     }
 
     /**
@@ -204,25 +239,8 @@ public class DatasetAPIClient implements DatasetClient {
     @Override
     public void deleteDataset(String datasetID) throws IOException, DatasetAPIException {
 
-        validateDatasetID(datasetID);
-
-        String path = "/datasets/" + datasetID;
-        URI uri = datasetAPIURL.resolve(path);
-
-        HttpDelete req = new HttpDelete(uri);
-        req.addHeader(authTokenHeaderName, datasetAPIAuthToken);
-        req.addHeader(serviceTokenHeaderName, serviceAuthToken);
-
-        try (CloseableHttpResponse resp = executeRequest(req)) {
-            int statusCode = resp.getStatusLine().getStatusCode();
-
-            switch (statusCode) {
-                case HttpStatus.SC_NO_CONTENT:
-                    return;
-                default:
-                    validate200ResponseCode(req, resp);
-            }
-        }
+        HttpDelete req = requests.deleteDataset(datasetID);
+        execute(DatasetOperation.DELETE_DATASET, req, DatasetAPIResponses::deletedDataset);
     }
 
     /**
@@ -238,20 +256,8 @@ public class DatasetAPIClient implements DatasetClient {
     @Override
     public void detachVersion(String datasetID, String edition, String version) throws IOException, DatasetAPIException {
 
-        validateDatasetID(datasetID);
-        validateEdition(edition);
-        validateVersion(version);
-
-        String path = String.format("/datasets/%s/editions/%s/versions/%s", datasetID, edition, version);
-        URI uri = datasetAPIURL.resolve(path);
-
-        HttpDelete req = new HttpDelete(uri);
-        req.addHeader(authTokenHeaderName, datasetAPIAuthToken);
-        req.addHeader(serviceTokenHeaderName, serviceAuthToken);
-
-        try (CloseableHttpResponse resp = executeRequest(req)) {
-            validate200ResponseCode(req, resp);
-        }
+        HttpDelete req = requests.detachVersion(datasetID, edition, version);
+        execute(DatasetOperation.DETACH_VERSION, req, DatasetAPIResponses::detachedVersion);
     }
 
 
@@ -267,36 +273,51 @@ public class DatasetAPIClient implements DatasetClient {
     @Override
     public void updateDataset(String datasetID, Dataset dataset) throws IOException, DatasetAPIException {
 
-        validateDatasetID(datasetID);
-
-        String path = "/datasets/" + datasetID;
-        URI uri = datasetAPIURL.resolve(path);
+        HttpPut req = requests.updateDataset(datasetID, dataset);
+        compressBody(req);
+        execute(DatasetOperation.UPDATE_DATASET, req, DatasetAPIResponses::updatedDataset);
+    }
 
-        HttpPut req = new HttpPut(uri);
-        req.addHeader(authTokenHeaderName, datasetAPIAuthToken);
-        req.addHeader(serviceTokenHeaderName, serviceAuthToken);
-        req.setHeader("Content-Type", "application/json");
+    /**
+     * Update the dataset only if it has not changed since it was read with the given ETag, without reading it again.
+     *
+     * @param datasetID
+     * @param dataset
+     * @param ifMatch   - The ETag the dataset was read with, usually {@link Dataset#getEtag()}
+     * @return the new ETag of the dataset, to update it again with
+     * @throws PreconditionFailedException if the dataset has been changed since
+     * @throws IOException
+     * @throws DatasetAPIException
+     */
+    @Override
+    public String updateDataset(String datasetID, Dataset dataset, String ifMatch) throws IOException, DatasetAPIException {
 
-        addBody(dataset, req);
+        HttpPut req = requests.updateDataset(datasetID, dataset, ifMatch);
+        compressBody(req);
+        return execute(DatasetOperation.UPDATE_DATASET, req,
+                DatasetAPIResponses.updated(DatasetAPIResponses::updatedDataset));
+    }
 
-        try (CloseableHttpResponse resp = executeRequest(req)) {
+    /**
+     * Apply a JSON Patch to the dataset for the given dataset ID, sending only the fields it changes. An empty patch
+     * is not sent.
+     *
+     * @param datasetID
+     * @param patch     - The operations to apply, for example from {@link JsonPatch#diff(Dataset, Dataset)}
+     * @throws IOException
+     * @throws DatasetAPIException
+     */
+    @Override
+    public void patchDataset(String datasetID, JsonPatch patch) throws IOException, DatasetAPIException {
 
-            int statusCode = resp.getStatusLine().getStatusCode();
-
-            switch (statusCode) {
-                case HttpStatus.SC_OK:
-                    return;
-                case HttpStatus.SC_NOT_FOUND:
-                    throw new DatasetNotFoundException(formatErrResponse(req, resp));
-                case HttpStatus.SC_UNAUTHORIZED:
-                    throw new UnauthorisedException();
-                case HttpStatus.SC_BAD_REQUEST:
-                    throw new BadRequestException("invalid dataset request");
-                default:
-                    throw new UnexpectedResponseException(
-                            formatErrResponse(req, resp), resp.getStatusLine().getStatusCode());
-            }
+        requests.validateDatasetID(datasetID);
+        Args.notNull(patch, "patch");
+        if (patch.isEmpty()) {
+            return;
         }
+
+        HttpPatch req = requests.patchDataset(datasetID, patch);
+        execute(DatasetOperation.PATCH_DATASET, req, DatasetAPIResponses::updatedDataset);
     }
 
     /**
@@ -312,21 +333,8 @@ public class DatasetAPIClient implements DatasetClient {
     @Override
     public DatasetVersion getDatasetVersion(String datasetID, String edition, String version) throws IOException, DatasetAPIException {
 
-        validateDatasetID(datasetID);
-        validateEdition(edition);
-        validateVersion(version);
-
-        String path = String.format("/datasets/%s/editions/%s/versions/%s", datasetID, edition, version);
-        URI uri = datasetAPIURL.resolve(path);
-
-        HttpGet req = new HttpGet(uri);
-        req.addHeader(authTokenHeaderName, datasetAPIAuthToken);
-        req.addHeader(serviceTokenHeaderName, serviceAuthToken);
-
-        try (CloseableHttpResponse resp = executeRequest(req)) {
-            validate200ResponseCode(req, resp);
-            return parseResponseBody(resp, DatasetVersion.class);
-        }
+        HttpGet req = requests.getDatasetVersion(datasetID, edition, version);
+        return executeGet(DatasetOperation.GET_DATASET_VERSION, req, DatasetAPIResponses::datasetVersion);
     }
 
     /**
@@ -343,91 +351,609 @@ public class DatasetAPIClient implements DatasetClient {
     @Override
     public void updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion) throws IOException, DatasetAPIException {
 
-        validateDatasetID(datasetID);
-        validateEdition(edition);
-        validateVersion(version);
-
-        String path = String.format("/datasets/%s/editions/%s/versions/%s", datasetID, edition, version);
-        URI uri = datasetAPIURL.resolve(path);
+        HttpPut req = requests.updateDatasetVersion(datasetID, edition, version, datasetVersion);
+        compressBody(req);
+        execute(DatasetOperation.UPDATE_DATASET_VERSION, req, DatasetAPIResponses::updatedDatasetVersion);
+    }
 
-        HttpPut req = new HttpPut(uri);
-        req.addHeader(authTokenHeaderName, datasetAPIAuthToken);
-        req.addHeader(serviceTokenHeaderName, serviceAuthToken);
-        req.setHeader("Content-Type", "application/json");
+    /**
+     * Update the dataset version only if it has not changed since it was read with the given ETag, without reading
+     * it again.
+     *
+     * @param datasetID
+     * @param edition
+     * @param version
+     * @param datasetVersion
+     * @param ifMatch        - The ETag the version was read with, usually {@link DatasetVersion#getEtag()}
+     * @return the new ETag of the version, to update it again with
+     * @throws PreconditionFailedException if the version has been changed since
+     * @throws IOException
+     * @throws DatasetAPIException
+     */
+    @Override
+    public String updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion, String ifMatch) throws IOException, DatasetAPIException {
 
-        addBody(datasetVersion, req);
+        HttpPut req = requests.updateDatasetVersion(datasetID, edition, version, datasetVersion, ifMatch);
+        compressBody(req);
+        return execute(DatasetOperation.UPDATE_DATASET_VERSION, req,
+                DatasetAPIResponses.updated(DatasetAPIResponses::updatedDatasetVersion));
+    }
 
-        try (CloseableHttpResponse resp = executeRequest(req)) {
-            validate200ResponseCode(req, resp);
+    /**
+     * Apply a JSON Patch to the dataset version, sending only the fields it changes. An empty patch is not sent.
+     *
+     * @param datasetID
+     * @param edition
+     * @param version
+     * @param patch     - The operations to apply, for example from {@link JsonPatch#diff(DatasetVersion, DatasetVersion)}
+     * @throws IOException
+     * @throws DatasetAPIException
+     */
+    @Override
+    public void patchDatasetVersion(String datasetID, String edition, String version, JsonPatch patch) throws IOException, DatasetAPIException {
+
+        requests.validateDatasetID(datasetID);
+        requests.validateEdition(edition);
+        requests.validateVersion(version);
+        Args.notNull(patch, "patch");
+        if (patch.isEmpty()) {
+            return;
         }
+
+        HttpPatch req = requests.patchDatasetVersion(datasetID, edition, version, patch);
+        execute(DatasetOperation.PATCH_DATASET_VERSION, req, DatasetAPIResponses::updatedDatasetVersion);
     }
 
-    private void validate200ResponseCode(HttpRequestBase httpRequest, CloseableHttpResponse response)
-            throws DatasetNotFoundException, UnexpectedResponseException, UnauthorisedException, ForbiddenException {
-        switch (response.getStatusLine().getStatusCode()) {
-            case HttpStatus.SC_OK:
-                return;
-            case HttpStatus.SC_FORBIDDEN:
-                throw new ForbiddenException();
-            case HttpStatus.SC_NOT_FOUND:
-                throw new DatasetNotFoundException(formatErrResponse(httpRequest, response));
-            case HttpStatus.SC_UNAUTHORIZED:
-                throw new UnauthorisedException();
-            default:
-                throw new UnexpectedResponseException(
-                        formatErrResponse(httpRequest, response), response.getStatusLine().getStatusCode());
-        }
+    /**
+     * List every dataset, fetching the next page in the background while the caller handles the current one.
+     *
+     * @param pageSize - The number of datasets to ask for in each request
+     */
+    @Override
+    public Stream<Dataset> listDatasets(int pageSize) {
+
+        return list(pageSize, (offset, limit) -> execute(DatasetOperation.LIST_DATASETS,
+                requests.listDatasets(offset, limit), DatasetAPIResponses.datasetPage(offset)));
+    }
+
+    /**
+     * List the editions of a dataset, fetching the next page in the background while the caller handles the current
+     * one.
+     *
+     * @param datasetID
+     * @param pageSize  - The number of editions to ask for in each request
+     */
+    @Override
+    public Stream<Edition> listEditions(String datasetID, int pageSize) {
+
+        return list(pageSize, (offset, limit) -> execute(DatasetOperation.LIST_EDITIONS,
+                requests.listEditions(datasetID, offset, limit), DatasetAPIResponses.editionPage(offset)));
     }
 
-    private void addBody(Object object, HttpEntityEnclosingRequestBase httpRequest) throws JsonProcessingException, UnsupportedEncodingException {
+    /**
+     * List the versions of an edition of a dataset, fetching the next page in the background while the caller handles
+     * the current one.
+     *
+     * @param datasetID
+     * @param edition
+     * @param pageSize  - The number of versions to ask for in each request
+     */
+    @Override
+    public Stream<DatasetVersion> listVersions(String datasetID, String edition, int pageSize) {
+
+        return list(pageSize, (offset, limit) -> execute(DatasetOperation.LIST_VERSIONS,
+                requests.listVersions(datasetID, edition, offset, limit), DatasetAPIResponses.versionPage(offset)));
+    }
 
-        String body = json.writeValueAsString(object);
-        StringEntity stringEntity = new StringEntity(body);
-        httpRequest.setEntity(stringEntity);
+    private <T> Stream<T> list(int pageSize, PagedIterator.PageFetcher<T> fetcher) {
+        Args.positive(pageSize, "pageSize");
+        return new PagedIterator<>(fetcher, pageSize, prefetchExecutor).stream();
     }
 
-    private void validateDatasetID(String datasetID) {
-        Args.check(isNotEmpty(datasetID), "a dataset id must be provided.");
+    /**
+     * Gzip the request body if it is larger than the configured threshold.
+     */
+    private void compressBody(HttpEntityEnclosingRequestBase req) throws IOException {
+        if (requestCompressionThreshold < 0 || !(req.getEntity() instanceof JsonEntity)) {
+            return;
+        }
+        JsonEntity body = (JsonEntity) req.getEntity();
+        if (body.serializedLength() > requestCompressionThreshold) {
+            req.setEntity(new GzipCompressingEntity(body));
+        }
     }
 
-    private void validateEdition(String edition) {
-        Args.check(isNotEmpty(edition), "an edition must be provided.");
+    /**
+     * Execute a GET request, revalidating any cached response for the same URI when a response cache is configured.
+     */
+    private <T> T executeGet(DatasetOperation operation, HttpGet req, DatasetAPIResponses.Handler<T> handler) throws IOException, DatasetAPIException {
+
+        if (responseCache == null) {
+            return execute(operation, req, handler);
+        }
+
+        String key = req.getURI().toString();
+        ValidatingResponseCache.Entry cached = responseCache.lookup(key);
+        if (cached != null) {
+            if (cached.etag != null) {
+                req.setHeader(HttpHeaders.IF_NONE_MATCH, cached.etag);
+            }
+            if (cached.lastModified != null) {
+                req.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified);
+            }
+        }
+
+        return execute(operation, req, (request, resp) -> {
+
+            if (cached != null && resp.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                responseCache.recordNotModified();
+                @SuppressWarnings("unchecked")
+                T value = (T) cached.value.model();
+                return value;
+            }
+
+            T value = handler.handle(request, resp);
+            responseCache.store(key, headerValue(resp, HttpHeaders.ETAG), headerValue(resp, HttpHeaders.LAST_MODIFIED), value);
+            return value;
+        });
     }
 
-    private void validateVersion(String version) {
-        Args.check(isNotEmpty(version), "a version must be provided.");
+    /**
+     * Execute the request, aborting it if the call is cancelled from another thread. A transport sends a copy of the
+     * request, so executeWithTransport registers the transport's response instead.
+     */
+    private <T> T execute(DatasetOperation operation, HttpUriRequest req, DatasetAPIResponses.Handler<T> handler) throws IOException, DatasetAPIException {
+
+        Cancellation cancellation = Cancellation.current();
+        if (cancellation == null) {
+            return executeWithinDeadline(operation, req, handler);
+        }
+
+        if (transport == null) {
+            cancellation.abortWith(req::abort);
+        }
+        try {
+            return executeWithinDeadline(operation, req, handler);
+        } finally {
+            cancellation.abortWith(null);
+        }
     }
 
-    private void validateInstanceID(String instanceID) {
-        Args.check(isNotEmpty(instanceID), "a instance id must be provided.");
+    private <T> T executeWithinDeadline(DatasetOperation operation, HttpUriRequest req, DatasetAPIResponses.Handler<T> handler) throws IOException, DatasetAPIException {
+
+        Deadline deadline = Deadline.current();
+        if (deadline == null) {
+            return executeAndHandle(operation, req, handler);
+        }
+
+        ScheduledFuture<?> abort = applyDeadline(deadline, req);
+        try {
+            return executeAndHandle(operation, req, handler);
+        } catch (IOException e) {
+            if (deadline.isExpired()) {
+                throw new DeadlineExceededException("deadline exceeded waiting for dataset-api request: " + e.getMessage());
+            }
+            throw e;
+        } finally {
+            if (abort != null) {
+                abort.cancel(false);
+            }
+        }
     }
 
-    private static boolean isNotEmpty(String str) {
-        return str != null && str.length() > 0;
+    /**
+     * Cap the request's timeouts at the time left before the deadline, and abort the request if it is still running
+     * when the deadline passes, since a socket timeout only bounds each read rather than the whole response. A
+     * transport sends a copy of the request, so executeWithTransport enforces the deadline itself.
+     */
+    private ScheduledFuture<?> applyDeadline(Deadline deadline, HttpUriRequest req) throws DeadlineExceededException {
+
+        long remainingMs = deadline.remaining(TimeUnit.MILLISECONDS);
+        if (remainingMs <= 0) {
+            throw new DeadlineExceededException("deadline exceeded before dataset-api request was sent");
+        }
+        if (transport != null) {
+            return null;
+        }
+
+        if (req instanceof HttpRequestBase) {
+            ((HttpRequestBase) req).setConfig(RequestConfig.copy(requestConfig)
+                    .setConnectTimeout(cap(requestConfig.getConnectTimeout(), remainingMs))
+                    .setSocketTimeout(cap(requestConfig.getSocketTimeout(), remainingMs))
+                    .setConnectionRequestTimeout(cap(requestConfig.getConnectionRequestTimeout(), remainingMs))
+                    .build());
+        }
+        return deadline.schedule(req::abort);
     }
 
-    private <T> T parseResponseBody(CloseableHttpResponse response, Class<T> type) throws IOException {
-        HttpEntity entity = response.getEntity();
-        String responseString = EntityUtils.toString(entity);
-        return json.readValue(responseString, type);
+    private static int cap(int timeoutMs, long remainingMs) {
+        return timeoutMs > 0 && timeoutMs < remainingMs ? timeoutMs : (int) Math.min(remainingMs, Integer.MAX_VALUE);
     }
 
-    private String formatErrResponse(HttpRequestBase httpRequest, CloseableHttpResponse response) {
+    private <T> T executeAndHandle(DatasetOperation operation, HttpUriRequest req, DatasetAPIResponses.Handler<T> handler) throws IOException, DatasetAPIException {
 
-        return String.format("the dataset api returned a %s response for %s",
-                response.getStatusLine().getStatusCode(),
-                httpRequest.getURI());
+        if (metricsListener == MetricsListener.NOOP) {
+            try (CloseableHttpResponse resp = executeRequest(req)) {
+                return handler.handle(req, resp);
+            }
+        }
+
+        long start = System.nanoTime();
+        CountingEntity requestBody = null;
+        CountingEntity responseBody = null;
+        int statusCode = -1;
+        Exception failure = null;
+
+        if (req instanceof HttpEntityEnclosingRequest) {
+            HttpEntityEnclosingRequest enclosingRequest = (HttpEntityEnclosingRequest) req;
+            if (enclosingRequest.getEntity() != null) {
+                requestBody = new CountingEntity(enclosingRequest.getEntity());
+                enclosingRequest.setEntity(requestBody);
+            }
+        }
+
+        try (CloseableHttpResponse resp = executeRequest(req)) {
+            statusCode = resp.getStatusLine().getStatusCode();
+            if (resp.getEntity() != null) {
+                responseBody = new CountingEntity(resp.getEntity());
+                resp.setEntity(responseBody);
+            }
+            return handler.handle(req, resp);
+        } catch (IOException | DatasetAPIException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metricsListener.requestCompleted(operation, statusCode, failure, System.nanoTime() - start,
+                    requestBody != null ? requestBody.bytesWritten() : 0,
+                    responseBody != null ? responseBody.bytesRead() : 0);
+        }
+    }
+
+    private static String headerValue(HttpResponse resp, String name) {
+        Header header = resp.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
     }
 
     private CloseableHttpResponse executeRequest(HttpUriRequest req) throws IOException {
         info().beginHTTP(req).log("executing dataset-api request");
-        CloseableHttpResponse resp = client.execute(req);
+        CloseableHttpResponse resp = transport != null ? executeWithTransport(req) : client.execute(req);
         info().endHTTP(req, resp).log("execute dataset-api request compeleted");
         return resp;
     }
 
+    /**
+     * Send the request through the transport, retrying as the retry strategy decides. Apache HttpClient does this
+     * itself for the default transport. Under a deadline, each attempt is given the time left, its response is aborted
+     * if the body is still being read when the deadline passes, and no retry is made that would wait past it.
+     */
+    private CloseableHttpResponse executeWithTransport(HttpUriRequest req) throws IOException {
+
+        HttpContext context = new BasicHttpContext();
+        context.setAttribute(HttpCoreContext.HTTP_REQUEST, req);
+
+        Deadline deadline = Deadline.current();
+        Cancellation cancellation = Cancellation.current();
+        TransportRequest request = TransportExchange.toTransportRequest(req, 0);
+
+        for (int executionCount = 1; ; executionCount++) {
+            if (cancellation != null && cancellation.isCancelled()) {
+                throw new InterruptedIOException("dataset-api request cancelled");
+            }
+
+            TransportResponse response;
+            if (deadline != null) {
+                long remainingMs = deadline.remaining(TimeUnit.MILLISECONDS);
+                if (remainingMs <= 0) {
+                    throw new InterruptedIOException("deadline passed before dataset-api request was retried");
+                }
+                response = TransportExchange.abortedAt(deadline, transport.execute(request.withTimeoutMs(remainingMs)));
+            } else {
+                response = transport.execute(request);
+            }
+
+            if (cancellation != null) {
+                TransportResponse inProgress = response;
+                cancellation.abortWith(() -> TransportExchange.abortQuietly(inProgress));
+            }
+
+            CloseableHttpResponse resp = TransportExchange.toHttpResponse(response);
+            if (!transportRetryStrategy.retryRequest(resp, executionCount, context)) {
+                return resp;
+            }
+            long intervalMs = transportRetryStrategy.getRetryInterval();
+            if (deadline != null && intervalMs >= deadline.remaining(TimeUnit.MILLISECONDS)) {
+                return resp;
+            }
+            resp.close();
+
+            try {
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted waiting to retry dataset-api request");
+            }
+        }
+    }
+
     @Override
     public void close() throws IOException {
-        client.close();
+        if (onClose != null) {
+            onClose.run();
+            return;
+        }
+        prefetchExecutor.shutdownNow();
+        if (transport != null) {
+            transport.close();
+        } else {
+            client.close();
+        }
+    }
+
+    /**
+     * Builder for a DatasetAPIClient that uses a pooled connection manager. Connections are kept alive between
+     * requests, validated after a period of inactivity, and evicted in the background once expired or idle.
+     */
+    public static class Builder {
+
+        private static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 100;
+        private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+        private static final long DEFAULT_KEEP_ALIVE_MS = 30000;
+        private static final int DEFAULT_VALIDATE_AFTER_INACTIVITY_MS = 2000;
+        private static final long DEFAULT_MAX_IDLE_TIME_MS = 60000;
+        private static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;
+        private static final int DEFAULT_SOCKET_TIMEOUT_MS = 30000;
+        private static final int DEFAULT_CONNECTION_REQUEST_TIMEOUT_MS = 5000;
+
+        private String datasetAPIURL;
+        private TokenProvider datasetAPIAuthToken = TokenProvider.of(null);
+        private TokenProvider serviceAuthToken = TokenProvider.of(null);
+        private int maxTotalConnections = DEFAULT_MAX_TOTAL_CONNECTIONS;
+        private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+        private long keepAliveMs = DEFAULT_KEEP_ALIVE_MS;
+        private int validateAfterInactivityMs = DEFAULT_VALIDATE_AFTER_INACTIVITY_MS;
+        private long maxIdleTimeMs = DEFAULT_MAX_IDLE_TIME_MS;
+        private int connectTimeoutMs = DEFAULT_CONNECT_TIMEOUT_MS;
+        private int socketTimeoutMs = DEFAULT_SOCKET_TIMEOUT_MS;
+        private int connectionRequestTimeoutMs = DEFAULT_CONNECTION_REQUEST_TIMEOUT_MS;
+        private int requestCompressionThreshold = -1;
+        private CloseableHttpClient httpClient;
+        private ValidatingResponseCache responseCache;
+        private MetricsListener metricsListener = MetricsListener.NOOP;
+        private RetryStrategy retryStrategy;
+        private HttpTransport transport;
+
+        private Builder() {
+        }
+
+        /**
+         * @param datasetAPIURL - The URL of the dataset API
+         */
+        public Builder datasetAPIURL(String datasetAPIURL) {
+            this.datasetAPIURL = datasetAPIURL;
+            return this;
+        }
+
+        /**
+         * @param datasetAPIAuthToken - The authentication token for the dataset API
+         */
+        public Builder datasetAPIAuthToken(String datasetAPIAuthToken) {
+            this.datasetAPIAuthToken = TokenProvider.of(datasetAPIAuthToken);
+            return this;
+        }
+
+        /**
+         * @param datasetAPIAuthToken - Supplies the authentication token for the dataset API for each request, so
+         *                            that it can be rotated without creating a new client
+         */
+        public Builder datasetAPIAuthToken(TokenProvider datasetAPIAuthToken) {
+            this.datasetAPIAuthToken = Args.notNull(datasetAPIAuthToken, "datasetAPIAuthToken");
+            return this;
+        }
+
+        /**
+         * @param serviceAuthToken - The service authentication token
+         */
+        public Builder serviceAuthToken(String serviceAuthToken) {
+            this.serviceAuthToken = TokenProvider.of(serviceAuthToken);
+            return this;
+        }
+
+        /**
+         * @param serviceAuthToken - Supplies the service authentication token for each request, so that it can be
+         *                         rotated without creating a new client
+         */
+        public Builder serviceAuthToken(TokenProvider serviceAuthToken) {
+            this.serviceAuthToken = Args.notNull(serviceAuthToken, "serviceAuthToken");
+            return this;
+        }
+
+        /**
+         * @param maxTotalConnections - The maximum number of pooled connections across all routes
+         */
+        public Builder maxTotalConnections(int maxTotalConnections) {
+            this.maxTotalConnections = Args.positive(maxTotalConnections, "maxTotalConnections");
+            return this;
+        }
+
+        /**
+         * @param maxConnectionsPerRoute - The maximum number of pooled connections to a single host
+         */
+        public Builder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = Args.positive(maxConnectionsPerRoute, "maxConnectionsPerRoute");
+            return this;
+        }
+
+        /**
+         * @param keepAliveMs - The maximum time an idle connection is kept alive, unless the server asks for less
+         */
+        public Builder keepAliveMs(long keepAliveMs) {
+            this.keepAliveMs = Args.positive(keepAliveMs, "keepAliveMs");
+            return this;
+        }
+
+        /**
+         * @param validateAfterInactivityMs - The period of inactivity after which a pooled connection is
+         *                                  checked for staleness before being leased
+         */
+        public Builder validateAfterInactivityMs(int validateAfterInactivityMs) {
+            this.validateAfterInactivityMs = Args.notNegative(validateAfterInactivityMs, "validateAfterInactivityMs");
+            return this;
+        }
+
+        /**
+         * @param maxIdleTimeMs - The time after which idle connections are closed by the background evictor
+         */
+        public Builder maxIdleTimeMs(long maxIdleTimeMs) {
+            this.maxIdleTimeMs = Args.positive(maxIdleTimeMs, "maxIdleTimeMs");
+            return this;
+        }
+
+        /**
+         * @param connectTimeoutMs - The time to wait for a connection to the dataset API to be established, or 0 to
+         *                         wait indefinitely
+         */
+        public Builder connectTimeoutMs(int connectTimeoutMs) {
+            this.connectTimeoutMs = Args.notNegative(connectTimeoutMs, "connectTimeoutMs");
+            return this;
+        }
+
+        /**
+         * @param socketTimeoutMs - The longest time to wait for data between two packets of a response, or 0 to wait
+         *                        indefinitely
+         */
+        public Builder socketTimeoutMs(int socketTimeoutMs) {
+            this.socketTimeoutMs = Args.notNegative(socketTimeoutMs, "socketTimeoutMs");
+            return this;
+        }
+
+        /**
+         * @param connectionRequestTimeoutMs - The time to wait for a connection from the pool when every connection
+         *                                   is leased, or 0 to wait indefinitely
+         */
+        public Builder connectionRequestTimeoutMs(int connectionRequestTimeoutMs) {
+            this.connectionRequestTimeoutMs = Args.notNegative(connectionRequestTimeoutMs, "connectionRequestTimeoutMs");
+            return this;
+        }
+
+        /**
+         * @param requestCompressionThreshold - The size in bytes above which updateDataset and updateDatasetVersion
+         *                                    bodies are sent gzip compressed. Requests are not compressed unless
+         *                                    this is set, as the dataset API must accept gzip request bodies.
+         */
+        public Builder requestCompressionThreshold(int requestCompressionThreshold) {
+            this.requestCompressionThreshold = Args.notNegative(requestCompressionThreshold, "requestCompressionThreshold");
+            return this;
+        }
+
+        /**
+         * @param httpClient - An externally managed HTTP client to use instead of the pooled default. The
+         *                   connection pool and timeout settings of this builder are ignored, and calls made
+         *                   with a deadline use default request settings with timeouts bounded by the deadline.
+         */
+        public Builder httpClient(CloseableHttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * @param responseCache - A cache used to make conditional GET requests for instances, datasets and versions
+         */
+        public Builder responseCache(ValidatingResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * @param metricsListener - Notified of the outcome, duration and size of every request. Retries are only
+         *                        reported by the default retry strategy, or by a {@link RetryStrategy} built with the
+         *                        same listener.
+         */
+        public Builder metricsListener(MetricsListener metricsListener) {
+            this.metricsListener = Args.notNull(metricsListener, "metricsListener");
+            return this;
+        }
+
+        /**
+         * @param retryStrategy - Replaces the default strategy of up to 3 retries with exponential backoff and full
+         *                      jitter. Ignored if an external HTTP client is used.
+         */
+        public Builder retryStrategy(RetryStrategy retryStrategy) {
+            this.retryStrategy = retryStrategy;
+            return this;
+        }
+
+        /**
+         * @param transport - Sends requests instead of the pooled Apache client, for example over HTTP/2. The
+         *                  connection pool and timeout settings of this builder are ignored; the transport is closed
+         *                  with the client.
+         */
+        public Builder transport(HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public DatasetAPIClient build() throws URISyntaxException {
+            Args.notNull(datasetAPIURL, "datasetAPIURL");
+            URI uri = new URI(datasetAPIURL);
+            if (transport != null) {
+                return new DatasetAPIClient(uri, this, null, null);
+            }
+            if (httpClient != null) {
+                return new DatasetAPIClient(uri, this, httpClient, null);
+            }
+            return new DatasetAPIClient(uri, this);
+        }
+
+        private PoolingHttpClientConnectionManager createConnectionManager() {
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(maxTotalConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            connectionManager.setValidateAfterInactivity(validateAfterInactivityMs);
+            return connectionManager;
+        }
+
+        private RequestConfig createRequestConfig() {
+            return RequestConfig.custom()
+                    .setConnectTimeout(connectTimeoutMs)
+                    .setSocketTimeout(socketTimeoutMs)
+                    .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                    .build();
+        }
+
+        private CloseableHttpClient createHttpClient(PoolingHttpClientConnectionManager connectionManager) {
+            return HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(createRequestConfig())
+                    // responses are decompressed as they are parsed, so metrics count the bytes on the wire
+                    .disableContentCompression()
+                    .setKeepAliveStrategy(new CappedKeepAliveStrategy(keepAliveMs))
+                    .evictExpiredConnections()
+                    .evictIdleConnections(maxIdleTimeMs, TimeUnit.MILLISECONDS)
+                    .setServiceUnavailableRetryStrategy(createRetryStrategy())
+                    .build();
+        }
+
+        private RetryStrategy createRetryStrategy() {
+            return retryStrategy != null ? retryStrategy : RetryStrategy.builder().metricsListener(metricsListener).build();
+        }
+    }
+
+    /**
+     * Honours the Keep-Alive header sent by the dataset API, but never keeps a connection longer than the
+     * configured maximum.
+     */
+    private static class CappedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+        private final long maxKeepAliveMs;
+
+        private CappedKeepAliveStrategy(long maxKeepAliveMs) {
+            this.maxKeepAliveMs = maxKeepAliveMs;
+        }
+
+        @Override
+        public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+            long keepAliveMs = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAliveMs > 0 ? Math.min(keepAliveMs, maxKeepAliveMs) : maxKeepAliveMs;
+        }
     }
 }
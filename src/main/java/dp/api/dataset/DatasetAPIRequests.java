@@ -0,0 +1,291 @@
+package dp.api.dataset;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPatch;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.util.Args;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds the HTTP requests for each dataset API operation. Shared by the blocking and asynchronous clients so that
+ * both send identical requests.
+ * <p>
+ * The URI of each operation is a {@link UriTemplate} compiled once per client, and IDs are percent-encoded into it.
+ */
+class DatasetAPIRequests {
+
+    private final TokenHeader datasetAPIAuthToken;
+    private final TokenHeader serviceAuthToken;
+
+    private final UriTemplate instanceURI;
+    private final UriTemplate datasetURI;
+    private final UriTemplate versionURI;
+    private final UriTemplate datasetsURI;
+    private final UriTemplate editionsURI;
+    private final UriTemplate versionsURI;
+
+    private static final String authTokenHeaderName = "Internal-token";
+    private static final String serviceTokenHeaderName = "Authorization";
+    private static final Header acceptEncoding = new BasicHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+    private static final String jsonPatchContentType = "application/json-patch+json";
+    private static final ObjectMapper json = new ObjectMapper();
+    private static final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    DatasetAPIRequests(URI datasetAPIURL, String datasetAPIAuthToken, String serviceAuthToken) {
+        this(datasetAPIURL, TokenProvider.of(datasetAPIAuthToken), TokenProvider.of(serviceAuthToken));
+    }
+
+    DatasetAPIRequests(URI datasetAPIURL, TokenProvider datasetAPIAuthToken, TokenProvider serviceAuthToken) {
+        this.datasetAPIAuthToken = new TokenHeader(authTokenHeaderName, datasetAPIAuthToken);
+        this.serviceAuthToken = new TokenHeader(serviceTokenHeaderName, serviceAuthToken);
+
+        this.instanceURI = UriTemplate.compile(datasetAPIURL, "/instances/{instanceID}");
+        this.datasetURI = UriTemplate.compile(datasetAPIURL, "/datasets/{datasetID}");
+        this.versionURI = UriTemplate.compile(datasetAPIURL, "/datasets/{datasetID}/editions/{edition}/versions/{version}");
+        this.datasetsURI = UriTemplate.compile(datasetAPIURL, "/datasets?offset={offset}&limit={limit}");
+        this.editionsURI = UriTemplate.compile(datasetAPIURL, "/datasets/{datasetID}/editions?offset={offset}&limit={limit}");
+        this.versionsURI = UriTemplate.compile(datasetAPIURL,
+                "/datasets/{datasetID}/editions/{edition}/versions?offset={offset}&limit={limit}");
+    }
+
+    private DatasetAPIRequests(DatasetAPIRequests requests, TokenProvider datasetAPIAuthToken, TokenProvider serviceAuthToken) {
+        this.datasetAPIAuthToken = new TokenHeader(authTokenHeaderName, datasetAPIAuthToken);
+        this.serviceAuthToken = new TokenHeader(serviceTokenHeaderName, serviceAuthToken);
+
+        this.instanceURI = requests.instanceURI;
+        this.datasetURI = requests.datasetURI;
+        this.versionURI = requests.versionURI;
+        this.datasetsURI = requests.datasetsURI;
+        this.editionsURI = requests.editionsURI;
+        this.versionsURI = requests.versionsURI;
+    }
+
+    /**
+     * Requests to the same dataset API with different auth tokens, sharing the compiled URI templates.
+     */
+    DatasetAPIRequests withTokens(TokenProvider datasetAPIAuthToken, TokenProvider serviceAuthToken) {
+        return new DatasetAPIRequests(this, datasetAPIAuthToken, serviceAuthToken);
+    }
+
+    HttpGet getInstance(String instanceID) throws IOException {
+
+        validateInstanceID(instanceID);
+
+        return withAuthHeaders(new HttpGet(instanceURI.expand(instanceID)));
+    }
+
+    HttpPost createDataset(String datasetID, Dataset dataset) throws IOException {
+
+        validateDatasetID(datasetID);
+
+        HttpPost req = withAuthHeaders(new HttpPost(datasetURI.expand(datasetID)));
+        addBody(dataset, req);
+        return req;
+    }
+
+    HttpGet getDataset(String datasetID) throws IOException {
+
+        validateDatasetID(datasetID);
+
+        return withAuthHeaders(new HttpGet(datasetURI.expand(datasetID)));
+    }
+
+    HttpDelete deleteDataset(String datasetID) throws IOException {
+
+        validateDatasetID(datasetID);
+
+        return withAuthHeaders(new HttpDelete(datasetURI.expand(datasetID)));
+    }
+
+    HttpDelete detachVersion(String datasetID, String edition, String version) throws IOException {
+
+        validateDatasetID(datasetID);
+        validateEdition(edition);
+        validateVersion(version);
+
+        return withAuthHeaders(new HttpDelete(versionURI.expand(datasetID, edition, version)));
+    }
+
+    HttpPut updateDataset(String datasetID, Dataset dataset) throws IOException {
+
+        validateDatasetID(datasetID);
+
+        HttpPut req = withAuthHeaders(new HttpPut(datasetURI.expand(datasetID)));
+        addBody(dataset, req);
+        return req;
+    }
+
+    HttpPut updateDataset(String datasetID, Dataset dataset, String ifMatch) throws IOException {
+
+        Args.notBlank(ifMatch, "ifMatch");
+
+        HttpPut req = updateDataset(datasetID, dataset);
+        req.setHeader(HttpHeaders.IF_MATCH, ifMatch);
+        return req;
+    }
+
+    HttpPatch patchDataset(String datasetID, JsonPatch patch) throws IOException {
+
+        validateDatasetID(datasetID);
+
+        HttpPatch req = withAuthHeaders(new HttpPatch(datasetURI.expand(datasetID)));
+        addBody(patch, req, jsonPatchContentType);
+        return req;
+    }
+
+    HttpGet getDatasetVersion(String datasetID, String edition, String version) throws IOException {
+
+        validateDatasetID(datasetID);
+        validateEdition(edition);
+        validateVersion(version);
+
+        return withAuthHeaders(new HttpGet(versionURI.expand(datasetID, edition, version)));
+    }
+
+    HttpPut updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion) throws IOException {
+
+        validateDatasetID(datasetID);
+        validateEdition(edition);
+        validateVersion(version);
+
+        HttpPut req = withAuthHeaders(new HttpPut(versionURI.expand(datasetID, edition, version)));
+        addBody(datasetVersion, req);
+        return req;
+    }
+
+    HttpPut updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion,
+                                 String ifMatch) throws IOException {
+
+        Args.notBlank(ifMatch, "ifMatch");
+
+        HttpPut req = updateDatasetVersion(datasetID, edition, version, datasetVersion);
+        req.setHeader(HttpHeaders.IF_MATCH, ifMatch);
+        return req;
+    }
+
+    HttpPatch patchDatasetVersion(String datasetID, String edition, String version, JsonPatch patch) throws IOException {
+
+        validateDatasetID(datasetID);
+        validateEdition(edition);
+        validateVersion(version);
+
+        HttpPatch req = withAuthHeaders(new HttpPatch(versionURI.expand(datasetID, edition, version)));
+        addBody(patch, req, jsonPatchContentType);
+        return req;
+    }
+
+    HttpGet listDatasets(int offset, int limit) throws IOException {
+
+        return withAuthHeaders(new HttpGet(datasetsURI.expand(String.valueOf(offset), String.valueOf(limit))));
+    }
+
+    HttpGet listEditions(String datasetID, int offset, int limit) throws IOException {
+
+        validateDatasetID(datasetID);
+
+        return withAuthHeaders(new HttpGet(
+                editionsURI.expand(datasetID, String.valueOf(offset), String.valueOf(limit))));
+    }
+
+    HttpGet listVersions(String datasetID, String edition, int offset, int limit) throws IOException {
+
+        validateDatasetID(datasetID);
+        validateEdition(edition);
+
+        return withAuthHeaders(new HttpGet(
+                versionsURI.expand(datasetID, edition, String.valueOf(offset), String.valueOf(limit))));
+    }
+
+    /**
+     * Add the auth and encoding headers. Headers are immutable, so the same instances are shared by every request
+     * until a token changes.
+     */
+    private <T extends HttpRequestBase> T withAuthHeaders(T req) throws IOException {
+        req.addHeader(datasetAPIAuthToken.get());
+        req.addHeader(serviceAuthToken.get());
+        req.addHeader(acceptEncoding);
+        return req;
+    }
+
+    private void addBody(Object object, HttpEntityEnclosingRequestBase httpRequest) {
+
+        addBody(object, httpRequest, "application/json");
+    }
+
+    private void addBody(Object object, HttpEntityEnclosingRequestBase httpRequest, String contentType) {
+
+        Args.notNull(object, "a request body");
+
+        JsonEntity entity = new JsonEntity(object, writerFor(object.getClass()));
+        entity.setContentType(contentType);
+        httpRequest.setHeader("Content-Type", contentType);
+        httpRequest.setEntity(entity);
+    }
+
+    private static ObjectWriter writerFor(Class<?> type) {
+        return writers.computeIfAbsent(type,
+                t -> json.writerFor(t).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+    }
+
+    void validateDatasetID(String datasetID) {
+        Args.check(isNotEmpty(datasetID), "a dataset id must be provided.");
+    }
+
+    void validateEdition(String edition) {
+        Args.check(isNotEmpty(edition), "an edition must be provided.");
+    }
+
+    void validateVersion(String version) {
+        Args.check(isNotEmpty(version), "a version must be provided.");
+    }
+
+    private void validateInstanceID(String instanceID) {
+        Args.check(isNotEmpty(instanceID), "a instance id must be provided.");
+    }
+
+    private static boolean isNotEmpty(String str) {
+        return str != null && str.length() > 0;
+    }
+
+    /**
+     * The header for a token, rebuilt only when the provider returns a different token.
+     */
+    private static final class TokenHeader {
+
+        private final String name;
+        private final TokenProvider provider;
+        private volatile Header header;
+
+        private TokenHeader(String name, TokenProvider provider) {
+            this.name = name;
+            this.provider = Args.notNull(provider, "token provider");
+        }
+
+        private Header get() throws IOException {
+            String token = provider.getToken();
+            Header current = header;
+            if (current == null || !Objects.equals(current.getValue(), token)) {
+                current = new BasicHeader(name, token);
+                header = current;
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package dp.api.dataset;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import dp.api.dataset.exception.BadRequestException;
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.exception.DatasetAlreadyExistsException;
+import dp.api.dataset.exception.DatasetNotFoundException;
+import dp.api.dataset.exception.ForbiddenException;
+import dp.api.dataset.exception.InstanceNotFoundException;
+import dp.api.dataset.exception.PreconditionFailedException;
+import dp.api.dataset.exception.UnauthorisedException;
+import dp.api.dataset.exception.UnexpectedResponseException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetResponse;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Edition;
+import dp.api.dataset.model.EditionResponse;
+import dp.api.dataset.model.Instance;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.util.Args;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Maps dataset API responses onto model objects or exceptions. Shared by the blocking and asynchronous clients so
+ * that both report the same exception for a given status code.
+ */
+final class DatasetAPIResponses {
+
+    private static final ObjectMapper json = new ObjectMapper();
+    private static final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private DatasetAPIResponses() {
+    }
+
+    /**
+     * Handles the response of a single dataset API operation.
+     */
+    @FunctionalInterface
+    interface Handler<T> {
+        T handle(HttpUriRequest req, HttpResponse resp) throws IOException, DatasetAPIException;
+    }
+
+    static Instance instance(HttpUriRequest req, HttpResponse resp) throws IOException, DatasetAPIException {
+
+        int statusCode = resp.getStatusLine().getStatusCode();
+
+        switch (statusCode) {
+            case HttpStatus.SC_OK:
+                return parseResponseBody(resp, Instance.class);
+            case HttpStatus.SC_NOT_FOUND:
+                throw new InstanceNotFoundException(formatErrResponse(req, resp));
+            default:
+                throw new UnexpectedResponseException(
+                        formatErrResponse(req, resp), resp.getStatusLine().getStatusCode());
+        }
+    }
+
+    static Dataset createdDataset(HttpUriRequest req, HttpResponse resp) throws IOException, DatasetAPIException {
+
+        int statusCode = resp.getStatusLine().getStatusCode();
+
+        switch (statusCode) {
+            case HttpStatus.SC_CREATED:
+                DatasetResponse datasetResponse = parseResponseBody(resp, DatasetResponse.class);
+                Dataset dataset = datasetResponse.getNext();
+                if (dataset != null) {
+                    dataset.setEtag(etag(resp));
+                }
+                return dataset;
+            case HttpStatus.SC_UNAUTHORIZED:
+                throw new UnauthorisedException();
+            case HttpStatus.SC_FORBIDDEN:
+                throw new DatasetAlreadyExistsException();
+            default:
+                throw new UnexpectedResponseException(
+                        formatErrResponse(req, resp), resp.getStatusLine().getStatusCode());
+        }
+    }
+
+    static Dataset dataset(HttpUriRequest req, HttpResponse resp) throws IOException, DatasetAPIException {
+
+        validate200ResponseCode(req, resp);
+        DatasetResponse datasetResponse = parseResponseBody(resp, DatasetResponse.class);
+        Dataset dataset = datasetResponse.getNext();
+        if (dataset != null) {
+            dataset.setEtag(etag(resp));
+        }
+        return dataset;
+    }
+
+    static Void deletedDataset(HttpUriRequest req, HttpResponse resp) throws DatasetAPIException {
+
+        int statusCode = resp.getStatusLine().getStatusCode();
+
+        switch (statusCode) {
+            case HttpStatus.SC_NO_CONTENT:
+                return null;
+            default:
+                validate200ResponseCode(req, resp);
+                return null;
+        }
+    }
+
+    static Void detachedVersion(HttpUriRequest req, HttpResponse resp) throws DatasetAPIException {
+
+        validate200ResponseCode(req, resp);
+        return null;
+    }
+
+    static Void updatedDataset(HttpUriRequest req, HttpResponse resp) throws DatasetAPIException {
+
+        int statusCode = resp.getStatusLine().getStatusCode();
+
+        switch (statusCode) {
+            case HttpStatus.SC_OK:
+                return null;
+            case HttpStatus.SC_NOT_FOUND:
+                throw new DatasetNotFoundException(formatErrResponse(req, resp));
+            case HttpStatus.SC_UNAUTHORIZED:
+                throw new UnauthorisedException();
+            case HttpStatus.SC_BAD_REQUEST:
+                throw new BadRequestException("invalid dataset request");
+            case HttpStatus.SC_PRECONDITION_FAILED:
+                throw new PreconditionFailedException(formatErrResponse(req, resp));
+            default:
+                throw new UnexpectedResponseException(
+                        formatErrResponse(req, resp), resp.getStatusLine().getStatusCode());
+        }
+    }
+
+    static DatasetVersion datasetVersion(HttpUriRequest req, HttpResponse resp) throws IOException, DatasetAPIException {
+
+        validate200ResponseCode(req, resp);
+        DatasetVersion datasetVersion = parseResponseBody(resp, DatasetVersion.class);
+        if (datasetVersion != null) {
+            datasetVersion.setEtag(etag(resp));
+        }
+        return datasetVersion;
+    }
+
+    static Void updatedDatasetVersion(HttpUriRequest req, HttpResponse resp) throws DatasetAPIException {
+
+        if (resp.getStatusLine().getStatusCode() == HttpStatus.SC_PRECONDITION_FAILED) {
+            throw new PreconditionFailedException(formatErrResponse(req, resp));
+        }
+        validate200ResponseCode(req, resp);
+        return null;
+    }
+
+    /**
+     * The ETag header of the response, or null if there is none.
+     */
+    static String etag(HttpResponse resp) {
+        Header header = resp.getFirstHeader(HttpHeaders.ETAG);
+        return header != null ? header.getValue() : null;
+    }
+
+    /**
+     * Handle an update response, then return the ETag of the updated resource.
+     */
+    static Handler<String> updated(Handler<Void> handler) {
+        return (req, resp) -> {
+            handler.handle(req, resp);
+            return etag(resp);
+        };
+    }
+
+    static Handler<Page<Dataset>> datasetPage(int offset) {
+        return (req, resp) -> {
+            validate200ResponseCode(req, resp);
+            return parsePage(resp, offset, DatasetResponse.class,
+                    item -> item.getNext() != null ? item.getNext() : item.getCurrent());
+        };
+    }
+
+    static Handler<Page<Edition>> editionPage(int offset) {
+        return (req, resp) -> {
+            validate200ResponseCode(req, resp);
+            return parsePage(resp, offset, EditionResponse.class,
+                    item -> item.getNext() != null ? item.getNext() : item.getCurrent());
+        };
+    }
+
+    static Handler<Page<DatasetVersion>> versionPage(int offset) {
+        return (req, resp) -> {
+            validate200ResponseCode(req, resp);
+            return parsePage(resp, offset, DatasetVersion.class, Function.identity());
+        };
+    }
+
+    private static void validate200ResponseCode(HttpUriRequest httpRequest, HttpResponse response)
+            throws DatasetNotFoundException, UnexpectedResponseException, UnauthorisedException, ForbiddenException {
+        switch (response.getStatusLine().getStatusCode()) {
+            case HttpStatus.SC_OK:
+                return;
+            case HttpStatus.SC_FORBIDDEN:
+                throw new ForbiddenException();
+            case HttpStatus.SC_NOT_FOUND:
+                throw new DatasetNotFoundException(formatErrResponse(httpRequest, response));
+            case HttpStatus.SC_UNAUTHORIZED:
+                throw new UnauthorisedException();
+            default:
+                throw new UnexpectedResponseException(
+                        formatErrResponse(httpRequest, response), response.getStatusLine().getStatusCode());
+        }
+    }
+
+    /**
+     * Deserialize the response body straight from the entity stream, without first decoding it into a String. The
+     * entity is always consumed so that the connection can be returned to the pool.
+     */
+    private static <T> T parseResponseBody(HttpResponse response, Class<T> type) throws IOException {
+        HttpEntity entity = Args.notNull(response.getEntity(), "Entity");
+        try (InputStream content = decompressed(entity).getContent()) {
+            return readerFor(type).readValue(content);
+        } finally {
+            EntityUtils.consume(entity);
+        }
+    }
+
+    /**
+     * Deserialize a page of a listing one item at a time as the body is read, rather than reading the whole body into
+     * a tree first, so that only the items themselves are held in memory.
+     */
+    private static <R, T> Page<T> parsePage(HttpResponse response, int offset, Class<R> itemType, Function<R, T> mapper) throws IOException {
+        HttpEntity entity = Args.notNull(response.getEntity(), "Entity");
+        try (InputStream content = decompressed(entity).getContent();
+             JsonParser parser = json.getFactory().createParser(content)) {
+
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "expected a page of dataset-api results");
+            }
+
+            ObjectReader reader = readerFor(itemType);
+            List<T> items = new ArrayList<>();
+            long totalCount = -1;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals("items") && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        R item = reader.readValue(parser);
+                        T mapped = item != null ? mapper.apply(item) : null;
+                        if (mapped != null) {
+                            items.add(mapped);
+                        }
+                    }
+                } else if (field.equals("total_count") && value.isNumeric()) {
+                    totalCount = parser.getLongValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return new Page<>(items, offset, totalCount);
+        } finally {
+            EntityUtils.consume(entity);
+        }
+    }
+
+    /**
+     * Wrap a gzip or deflate encoded entity so that it is decompressed as it is read. Entities already decoded by the
+     * HTTP client no longer carry a content encoding and are returned as they are.
+     */
+    static HttpEntity decompressed(HttpEntity entity) {
+        Header contentEncoding = entity.getContentEncoding();
+        if (contentEncoding == null) {
+            return entity;
+        }
+        switch (contentEncoding.getValue().trim().toLowerCase(Locale.ROOT)) {
+            case "gzip":
+            case "x-gzip":
+                return new GzipDecompressingEntity(entity);
+            case "deflate":
+                return new DeflateDecompressingEntity(entity);
+            default:
+                return entity;
+        }
+    }
+
+    private static ObjectReader readerFor(Class<?> type) {
+        return readers.computeIfAbsent(type, json::readerFor);
+    }
+
+    private static String formatErrResponse(HttpUriRequest httpRequest, HttpResponse response) {
+
+        return String.format("the dataset api returned a %s response for %s",
+                response.getStatusLine().getStatusCode(),
+                httpRequest.getURI());
+    }
+}
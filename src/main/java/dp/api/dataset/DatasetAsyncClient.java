@@ -0,0 +1,92 @@
+package dp.api.dataset;
+
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Instance;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking equivalent of {@link DatasetClient}. Each operation returns immediately, and the returned future is
+ * completed with the result, or completed exceptionally with the same {@link dp.api.dataset.exception.DatasetAPIException}
+ * or {@link java.io.IOException} the blocking client would have thrown. Datasets and versions carry the ETag they
+ * were read with, as they do from the blocking client.
+ */
+public interface DatasetAsyncClient extends Closeable {
+
+    /**
+     * Get the instance for the given instance ID.
+     */
+    CompletableFuture<Instance> getInstance(String instanceID);
+
+    /**
+     * Create a new dataset.
+     */
+    CompletableFuture<Dataset> createDataset(String datasetID, Dataset dataset);
+
+    /**
+     * Get the dataset for the given dataset ID.
+     */
+    CompletableFuture<Dataset> getDataset(String datasetID);
+
+    /**
+     * Delete the dataset for the given dataset ID.
+     */
+    CompletableFuture<Void> deleteDataset(String datasetID);
+
+    /**
+     * Detach the given version for the given edition for given dataset ID.
+     */
+    CompletableFuture<Void> detachVersion(String datasetID, String edition, String version);
+
+    /**
+     * Update the dataset for the given dataset ID with the given dataset instance data.
+     */
+    CompletableFuture<Void> updateDataset(String datasetID, Dataset dataset);
+
+    /**
+     * Get a particular version of a dataset.
+     */
+    CompletableFuture<DatasetVersion> getDatasetVersion(String datasetID, String edition, String version);
+
+    /**
+     * Update the dataset version
+     */
+    CompletableFuture<Void> updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion);
+
+    /**
+     * Update the dataset only if it still has the given ETag, as read with {@link Dataset#getEtag()}. The future
+     * fails with a PreconditionFailedException if it has been changed since, and otherwise completes with the
+     * dataset's new ETag.
+     * <p>
+     * Implementations that cannot make the update conditional throw an UnsupportedOperationException rather than
+     * updating unconditionally.
+     */
+    default CompletableFuture<String> updateDataset(String datasetID, Dataset dataset, String ifMatch) {
+        throw new UnsupportedOperationException("conditional updateDataset is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Update the dataset version only if it still has the given ETag, as read with {@link DatasetVersion#getEtag()}.
+     * The future completes with the version's new ETag.
+     */
+    default CompletableFuture<String> updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion, String ifMatch) {
+        throw new UnsupportedOperationException("conditional updateDatasetVersion is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Apply a JSON Patch to the dataset for the given dataset ID, changing only the fields it names. Implementations
+     * that do not support patching throw an UnsupportedOperationException.
+     */
+    default CompletableFuture<Void> patchDataset(String datasetID, JsonPatch patch) {
+        throw new UnsupportedOperationException("patchDataset is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Apply a JSON Patch to the dataset version, changing only the fields it names.
+     */
+    default CompletableFuture<Void> patchDatasetVersion(String datasetID, String edition, String version, JsonPatch patch) {
+        throw new UnsupportedOperationException("patchDatasetVersion is not supported by " + getClass().getName());
+    }
+}
@@ -0,0 +1,129 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import org.apache.http.util.Args;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads many datasets or versions at once by fanning the calls out over a fixed number of threads. Each call goes
+ * through the wrapped DatasetClient, so a {@link DatasetAPIClient} shares its connection pool across the batch and
+ * any caching or coalescing decorators still apply.
+ * <p>
+ * The parallelism should not exceed the connection pool's per-route limit, otherwise the extra threads just wait
+ * for a connection. Closing a batch client stops its threads but does not close the wrapped DatasetClient.
+ * <p>
+ * Each read is made under the batch's {@link Deadline}, if it has one, so that reads still queued when the deadline
+ * passes fail with a DeadlineExceededException rather than being sent.
+ */
+public class DatasetBatchClient implements Closeable {
+
+    private final DatasetClient client;
+    private final ExecutorService executor;
+
+    /**
+     * @param client      - The client used for each individual read
+     * @param parallelism - The maximum number of reads in flight at once
+     */
+    public DatasetBatchClient(DatasetClient client, int parallelism) {
+        this.client = Args.notNull(client, "client");
+        Args.positive(parallelism, "parallelism");
+        this.executor = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory("dataset-batch"));
+    }
+
+    /**
+     * Get the dataset for each of the given dataset IDs.
+     */
+    public BatchResult<String, Dataset> getDatasets(Collection<String> datasetIDs) throws InterruptedIOException {
+        return execute(datasetIDs, client::getDataset, Deadline.current());
+    }
+
+    /**
+     * Get the dataset for each of the given dataset IDs, failing each read that is not complete before the deadline.
+     */
+    public BatchResult<String, Dataset> getDatasets(Collection<String> datasetIDs, Deadline deadline) throws InterruptedIOException {
+        return execute(datasetIDs, client::getDataset, Args.notNull(deadline, "deadline"));
+    }
+
+    /**
+     * Get each of the given dataset versions.
+     */
+    public BatchResult<DatasetVersionKey, DatasetVersion> getDatasetVersions(Collection<DatasetVersionKey> keys) throws InterruptedIOException {
+        return execute(keys, this::getDatasetVersion, Deadline.current());
+    }
+
+    /**
+     * Get each of the given dataset versions, failing each read that is not complete before the deadline.
+     */
+    public BatchResult<DatasetVersionKey, DatasetVersion> getDatasetVersions(Collection<DatasetVersionKey> keys, Deadline deadline) throws InterruptedIOException {
+        return execute(keys, this::getDatasetVersion, Args.notNull(deadline, "deadline"));
+    }
+
+    private DatasetVersion getDatasetVersion(DatasetVersionKey key) throws IOException, DatasetAPIException {
+        return client.getDatasetVersion(key.getDatasetID(), key.getEdition(), key.getVersion());
+    }
+
+    private <K, V> BatchResult<K, V> execute(Collection<K> keys, Read<K, V> read, Deadline deadline) throws InterruptedIOException {
+
+        Args.notNull(keys, "keys");
+
+        // the deadline is current on the caller's thread only, so each read is given it explicitly
+        Map<K, Future<V>> futures = new LinkedHashMap<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            futures.put(key, executor.submit(() -> deadline != null
+                    ? Deadline.callWithin(deadline, () -> read.read(key))
+                    : read.read(key)));
+        }
+
+        Map<K, V> results = new LinkedHashMap<>();
+        Map<K, Exception> errors = new LinkedHashMap<>();
+
+        try {
+            for (Map.Entry<K, Future<V>> entry : futures.entrySet()) {
+                try {
+                    results.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    errors.put(entry.getKey(), (Exception) cause);
+                }
+            }
+        } catch (InterruptedException e) {
+            cancel(futures.values());
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for a batch of dataset-api requests");
+        }
+
+        return new BatchResult<>(results, errors);
+    }
+
+    private static void cancel(Collection<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface Read<K, V> {
+        V read(K key) throws IOException, DatasetAPIException;
+    }
+}
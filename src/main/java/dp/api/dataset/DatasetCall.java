@@ -0,0 +1,14 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetAPIException;
+
+import java.io.IOException;
+
+/**
+ * A single call to a DatasetClient, used by decorators that need to defer, share or repeat the call.
+ */
+@FunctionalInterface
+interface DatasetCall<T> {
+
+    T call() throws IOException, DatasetAPIException;
+}
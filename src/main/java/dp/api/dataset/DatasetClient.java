@@ -3,10 +3,12 @@ package dp.api.dataset;
 import dp.api.dataset.exception.DatasetAPIException;
 import dp.api.dataset.model.Dataset;
 import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Edition;
 import dp.api.dataset.model.Instance;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.stream.Stream;
 
 public interface DatasetClient extends Closeable {
 
@@ -49,4 +51,211 @@ public interface DatasetClient extends Closeable {
      * Update the dataset version
      */
     void updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion) throws IOException, DatasetAPIException;
+
+    /**
+     * Update the dataset only if it still has the given ETag, as read with {@link Dataset#getEtag()}. Throws a
+     * PreconditionFailedException if it has been changed since. Returns the dataset's new ETag, to make another
+     * conditional update with.
+     * <p>
+     * Implementations that cannot make the update conditional throw an UnsupportedOperationException rather than
+     * updating unconditionally.
+     */
+    default String updateDataset(String datasetID, Dataset dataset, String ifMatch) throws IOException, DatasetAPIException {
+        throw new UnsupportedOperationException("conditional updateDataset is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Update the dataset version only if it still has the given ETag, as read with {@link DatasetVersion#getEtag()}.
+     * Throws a PreconditionFailedException if it has been changed since. Returns the version's new ETag.
+     */
+    default String updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion, String ifMatch) throws IOException, DatasetAPIException {
+        throw new UnsupportedOperationException("conditional updateDatasetVersion is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Apply a JSON Patch to the dataset for the given dataset ID, changing only the fields it names. Implementations
+     * that do not support patching throw an UnsupportedOperationException.
+     */
+    default void patchDataset(String datasetID, JsonPatch patch) throws IOException, DatasetAPIException {
+        throw new UnsupportedOperationException("patchDataset is not supported by " + getClass().getName());
+    }
+
+    /**
+     * Apply a JSON Patch to the dataset version, changing only the fields it names.
+     */
+    default void patchDatasetVersion(String datasetID, String edition, String version, JsonPatch patch) throws IOException, DatasetAPIException {
+        throw new UnsupportedOperationException("patchDatasetVersion is not supported by " + getClass().getName());
+    }
+
+    /**
+     * List every dataset, fetching pages of the given size as the stream is consumed. Failures are thrown while
+     * consuming the stream as an UncheckedIOException or UncheckedDatasetAPIException. Close the stream if it is not
+     * consumed to the end.
+     * <p>
+     * Implementations that do not support listing throw an UnsupportedOperationException.
+     */
+    default Stream<Dataset> listDatasets(int pageSize) {
+        throw new UnsupportedOperationException("listDatasets is not supported by " + getClass().getName());
+    }
+
+    /**
+     * List the editions of a dataset, fetching pages of the given size as the stream is consumed.
+     */
+    default Stream<Edition> listEditions(String datasetID, int pageSize) {
+        throw new UnsupportedOperationException("listEditions is not supported by " + getClass().getName());
+    }
+
+    /**
+     * List the versions of an edition of a dataset, fetching pages of the given size as the stream is consumed.
+     */
+    default Stream<DatasetVersion> listVersions(String datasetID, String edition, int pageSize) {
+        throw new UnsupportedOperationException("listVersions is not supported by " + getClass().getName());
+    }
+
+    /**
+     * List every dataset, 100 at a time.
+     */
+    default Stream<Dataset> listDatasets() {
+        return listDatasets(PagedIterator.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * List the editions of a dataset, 100 at a time.
+     */
+    default Stream<Edition> listEditions(String datasetID) {
+        return listEditions(datasetID, PagedIterator.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * List the versions of an edition of a dataset, 100 at a time.
+     */
+    default Stream<DatasetVersion> listVersions(String datasetID, String edition) {
+        return listVersions(datasetID, edition, PagedIterator.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * List every dataset, fetching each page before the deadline. A page that cannot be fetched in time is thrown
+     * while consuming the stream as an UncheckedDatasetAPIException caused by a DeadlineExceededException.
+     */
+    default Stream<Dataset> listDatasets(int pageSize, Deadline deadline) {
+        return Deadline.streamWithin(deadline, () -> listDatasets(pageSize));
+    }
+
+    /**
+     * List the editions of a dataset, fetching each page before the deadline.
+     */
+    default Stream<Edition> listEditions(String datasetID, int pageSize, Deadline deadline) {
+        return Deadline.streamWithin(deadline, () -> listEditions(datasetID, pageSize));
+    }
+
+    /**
+     * List the versions of an edition of a dataset, fetching each page before the deadline.
+     */
+    default Stream<DatasetVersion> listVersions(String datasetID, String edition, int pageSize, Deadline deadline) {
+        return Deadline.streamWithin(deadline, () -> listVersions(datasetID, edition, pageSize));
+    }
+
+    /**
+     * Get the instance for the given instance ID, failing with a DeadlineExceededException if the call including any
+     * retries is not complete by the deadline.
+     */
+    default Instance getInstance(String instanceID, Deadline deadline) throws IOException, DatasetAPIException {
+        return Deadline.callWithin(deadline, () -> getInstance(instanceID));
+    }
+
+    /**
+     * Create a new dataset before the deadline.
+     */
+    default Dataset createDataset(String datasetID, Dataset dataset, Deadline deadline) throws IOException, DatasetAPIException {
+        return Deadline.callWithin(deadline, () -> createDataset(datasetID, dataset));
+    }
+
+    /**
+     * Get the dataset for the given dataset ID before the deadline.
+     */
+    default Dataset getDataset(String datasetID, Deadline deadline) throws IOException, DatasetAPIException {
+        return Deadline.callWithin(deadline, () -> getDataset(datasetID));
+    }
+
+    /**
+     * Delete the dataset for the given dataset ID before the deadline.
+     */
+    default void deleteDataset(String datasetID, Deadline deadline) throws IOException, DatasetAPIException {
+        Deadline.callWithin(deadline, () -> {
+            deleteDataset(datasetID);
+            return null;
+        });
+    }
+
+    /**
+     * Detach the given version for the given edition for given dataset ID before the deadline.
+     */
+    default void detachVersion(String datasetID, String edition, String version, Deadline deadline) throws IOException, DatasetAPIException {
+        Deadline.callWithin(deadline, () -> {
+            detachVersion(datasetID, edition, version);
+            return null;
+        });
+    }
+
+    /**
+     * Update the dataset for the given dataset ID before the deadline.
+     */
+    default void updateDataset(String datasetID, Dataset dataset, Deadline deadline) throws IOException, DatasetAPIException {
+        Deadline.callWithin(deadline, () -> {
+            updateDataset(datasetID, dataset);
+            return null;
+        });
+    }
+
+    /**
+     * Get a particular version of a dataset before the deadline.
+     */
+    default DatasetVersion getDatasetVersion(String datasetID, String edition, String version, Deadline deadline) throws IOException, DatasetAPIException {
+        return Deadline.callWithin(deadline, () -> getDatasetVersion(datasetID, edition, version));
+    }
+
+    /**
+     * Update the dataset version before the deadline.
+     */
+    default void updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion, Deadline deadline) throws IOException, DatasetAPIException {
+        Deadline.callWithin(deadline, () -> {
+            updateDatasetVersion(datasetID, edition, version, datasetVersion);
+            return null;
+        });
+    }
+
+    /**
+     * Update the dataset before the deadline, only if it still has the given ETag. Returns the dataset's new ETag.
+     */
+    default String updateDataset(String datasetID, Dataset dataset, String ifMatch, Deadline deadline) throws IOException, DatasetAPIException {
+        return Deadline.callWithin(deadline, () -> updateDataset(datasetID, dataset, ifMatch));
+    }
+
+    /**
+     * Update the dataset version before the deadline, only if it still has the given ETag. Returns the version's new
+     * ETag.
+     */
+    default String updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion, String ifMatch, Deadline deadline) throws IOException, DatasetAPIException {
+        return Deadline.callWithin(deadline, () -> updateDatasetVersion(datasetID, edition, version, datasetVersion, ifMatch));
+    }
+
+    /**
+     * Apply a JSON Patch to the dataset for the given dataset ID before the deadline.
+     */
+    default void patchDataset(String datasetID, JsonPatch patch, Deadline deadline) throws IOException, DatasetAPIException {
+        Deadline.callWithin(deadline, () -> {
+            patchDataset(datasetID, patch);
+            return null;
+        });
+    }
+
+    /**
+     * Apply a JSON Patch to the dataset version before the deadline.
+     */
+    default void patchDatasetVersion(String datasetID, String edition, String version, JsonPatch patch, Deadline deadline) throws IOException, DatasetAPIException {
+        Deadline.callWithin(deadline, () -> {
+            patchDatasetVersion(datasetID, edition, version, patch);
+            return null;
+        });
+    }
 }
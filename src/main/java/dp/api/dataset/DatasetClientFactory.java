@@ -0,0 +1,254 @@
+package dp.api.dataset;
+
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.Args;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static com.github.onsdigital.logging.v2.event.SimpleEvent.info;
+import static com.github.onsdigital.logging.v2.event.SimpleEvent.warn;
+
+/**
+ * Hands out DatasetAPIClients that share one connection pool per dataset API URL, so that the modules of an
+ * application do not each open their own pool and threads to the same host.
+ * <p>
+ * The first client for a URL creates the shared pool and each client holds a reference to it. Clients differ only in
+ * their auth tokens, and closing one releases its reference; the pool is closed when the last client for its URL is
+ * closed, or when the factory is closed.
+ */
+public class DatasetClientFactory implements Closeable {
+
+    private final Consumer<DatasetAPIClient.Builder> configuration;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, SharedClient> clients = new HashMap<>();
+    private boolean closed;
+
+    private DatasetClientFactory(Builder builder) {
+        this.configuration = builder.configuration;
+    }
+
+    /**
+     * Create a new builder for a DatasetClientFactory.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Get a client for the given dataset API, sharing a connection pool with the other open clients for the same URL.
+     *
+     * @param datasetAPIURL       - The URL of the dataset API
+     * @param datasetAPIAuthToken - Supplies the authentication token for the dataset API
+     * @param serviceAuthToken    - Supplies the service authentication token
+     */
+    public DatasetAPIClient client(String datasetAPIURL,
+                                   TokenProvider datasetAPIAuthToken,
+                                   TokenProvider serviceAuthToken) throws URISyntaxException {
+
+        Args.notNull(datasetAPIAuthToken, "datasetAPIAuthToken");
+        Args.notNull(serviceAuthToken, "serviceAuthToken");
+        String key = key(datasetAPIURL);
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("dataset client factory is closed");
+            }
+            SharedClient shared = clients.get(key);
+            if (shared == null) {
+                shared = new SharedClient(key, create(key));
+                clients.put(key, shared);
+                info().data("datasetAPIURL", key).log("created shared dataset-api connection pool");
+            }
+            // create the view before the factory can be closed, so it is never handed out over a closed pool
+            DatasetAPIClient view = shared.client.view(datasetAPIAuthToken, serviceAuthToken, shared.releaser());
+            shared.references++;
+            return view;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get a client for the given dataset API with fixed auth tokens.
+     *
+     * @see #client(String, TokenProvider, TokenProvider)
+     */
+    public DatasetAPIClient client(String datasetAPIURL,
+                                   String datasetAPIAuthToken,
+                                   String serviceAuthToken) throws URISyntaxException {
+
+        return client(datasetAPIURL, TokenProvider.of(datasetAPIAuthToken), TokenProvider.of(serviceAuthToken));
+    }
+
+    /**
+     * Get the number of connection pools currently open, one for each dataset API URL with an open client.
+     */
+    public int getPoolCount() {
+        lock.lock();
+        try {
+            return clients.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of clients handed out and not yet closed, across all URLs.
+     */
+    public int getClientCount() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (SharedClient shared : clients.values()) {
+                count += shared.references;
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get a snapshot of the leased, pending and available connections of each open pool, by dataset API URL. Pools
+     * of clients configured with an externally managed HTTP client or a transport are reported as null.
+     */
+    public Map<String, PoolStats> getPoolStats() {
+        lock.lock();
+        try {
+            Map<String, PoolStats> stats = new LinkedHashMap<>();
+            clients.forEach((key, shared) -> stats.put(key, shared.client.getPoolStats()));
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Close every shared connection pool, including those still used by open clients. No more clients can be created.
+     */
+    @Override
+    public void close() throws IOException {
+        List<SharedClient> open;
+        lock.lock();
+        try {
+            closed = true;
+            open = new ArrayList<>(clients.values());
+            clients.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        IOException failure = null;
+        for (SharedClient shared : open) {
+            try {
+                shared.client.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private DatasetAPIClient create(String datasetAPIURL) throws URISyntaxException {
+        DatasetAPIClient.Builder builder = DatasetAPIClient.builder();
+        configuration.accept(builder);
+        return builder.datasetAPIURL(datasetAPIURL).build();
+    }
+
+    private void release(SharedClient shared) {
+        lock.lock();
+        try {
+            if (--shared.references > 0 || clients.get(shared.key) != shared) {
+                return;
+            }
+            clients.remove(shared.key);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            shared.client.close();
+            info().data("datasetAPIURL", shared.key).log("closed shared dataset-api connection pool");
+        } catch (IOException e) {
+            warn().exception(e).data("datasetAPIURL", shared.key).log("failed to close shared dataset-api connection pool");
+        }
+    }
+
+    /**
+     * The same dataset API with or without a trailing slash or redundant path segments shares a pool.
+     */
+    private static String key(String datasetAPIURL) throws URISyntaxException {
+        Args.notNull(datasetAPIURL, "datasetAPIURL");
+        String key = new URI(datasetAPIURL).normalize().toString();
+        return key.endsWith("/") ? key.substring(0, key.length() - 1) : key;
+    }
+
+    private class SharedClient {
+
+        private final String key;
+        private final DatasetAPIClient client;
+        private int references;
+
+        private SharedClient(String key, DatasetAPIClient client) {
+            this.key = key;
+            this.client = client;
+        }
+
+        /**
+         * Releases one reference, however many times the client holding it is closed.
+         */
+        private Runnable releaser() {
+            AtomicBoolean released = new AtomicBoolean();
+            return () -> {
+                if (released.compareAndSet(false, true)) {
+                    release(this);
+                }
+            };
+        }
+    }
+
+    /**
+     * Builder for a DatasetClientFactory.
+     */
+    public static class Builder {
+
+        private Consumer<DatasetAPIClient.Builder> configuration = builder -> {
+        };
+
+        private Builder() {
+        }
+
+        /**
+         * @param configuration - Configures the builder of the shared client for each dataset API URL, for example
+         *                      its pool size, timeouts or retry strategy. Called once for each URL, so a transport it
+         *                      sets must be created inside it rather than shared between URLs.
+         */
+        public Builder configure(Consumer<DatasetAPIClient.Builder> configuration) {
+            this.configuration = Args.notNull(configuration, "configuration");
+            return this;
+        }
+
+        public DatasetClientFactory build() {
+            return new DatasetClientFactory(this);
+        }
+    }
+}
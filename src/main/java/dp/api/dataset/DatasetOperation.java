@@ -0,0 +1,90 @@
+package dp.api.dataset;
+
+import org.apache.http.HttpRequest;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * The operations of a {@link DatasetClient}, used to label metrics.
+ */
+public enum DatasetOperation {
+
+    GET_INSTANCE(true),
+    CREATE_DATASET(false),
+    GET_DATASET(true),
+    DELETE_DATASET(false),
+    DETACH_VERSION(false),
+    UPDATE_DATASET(false),
+    GET_DATASET_VERSION(true),
+    UPDATE_DATASET_VERSION(false),
+    PATCH_DATASET(false),
+    PATCH_DATASET_VERSION(false),
+    LIST_DATASETS(true),
+    LIST_EDITIONS(true),
+    LIST_VERSIONS(true);
+
+    private final boolean read;
+
+    DatasetOperation(boolean read) {
+        this.read = read;
+    }
+
+    /**
+     * True if the operation only reads from the dataset API.
+     */
+    public boolean isRead() {
+        return read;
+    }
+
+    /**
+     * Work out which operation a request was made for from its method and path, or null if it is not a dataset API
+     * request. Used where only the HTTP request is available, such as in a retry strategy.
+     */
+    static DatasetOperation of(HttpRequest request) {
+        if (request instanceof HttpRequestWrapper) {
+            request = ((HttpRequestWrapper) request).getOriginal();
+        }
+
+        if (!(request instanceof HttpUriRequest)) {
+            return null;
+        }
+
+        String method = ((HttpUriRequest) request).getMethod();
+        String path = ((HttpUriRequest) request).getURI().getPath();
+        if (path == null) {
+            return null;
+        }
+
+        if (path.startsWith("/instances/")) {
+            return method.equals("GET") ? GET_INSTANCE : null;
+        }
+        if (path.equals("/datasets")) {
+            return method.equals("GET") ? LIST_DATASETS : null;
+        }
+        if (!path.startsWith("/datasets/")) {
+            return null;
+        }
+        if (path.endsWith("/editions")) {
+            return method.equals("GET") ? LIST_EDITIONS : null;
+        }
+        if (path.endsWith("/versions")) {
+            return method.equals("GET") ? LIST_VERSIONS : null;
+        }
+
+        boolean version = path.contains("/versions/");
+        switch (method) {
+            case "GET":
+                return version ? GET_DATASET_VERSION : GET_DATASET;
+            case "PUT":
+                return version ? UPDATE_DATASET_VERSION : UPDATE_DATASET;
+            case "PATCH":
+                return version ? PATCH_DATASET_VERSION : PATCH_DATASET;
+            case "DELETE":
+                return version ? DETACH_VERSION : DELETE_DATASET;
+            case "POST":
+                return version ? null : CREATE_DATASET;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package dp.api.dataset;
+
+import org.apache.http.util.Args;
+
+import java.util.Objects;
+
+/**
+ * Identifies a single version of a dataset edition.
+ */
+public final class DatasetVersionKey {
+
+    private final String datasetID;
+    private final String edition;
+    private final String version;
+
+    public DatasetVersionKey(String datasetID, String edition, String version) {
+        this.datasetID = Args.notNull(datasetID, "datasetID");
+        this.edition = Args.notNull(edition, "edition");
+        this.version = Args.notNull(version, "version");
+    }
+
+    public String getDatasetID() {
+        return datasetID;
+    }
+
+    public String getEdition() {
+        return edition;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DatasetVersionKey)) {
+            return false;
+        }
+        DatasetVersionKey other = (DatasetVersionKey) o;
+        return datasetID.equals(other.datasetID)
+                && edition.equals(other.edition)
+                && version.equals(other.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(datasetID, edition, version);
+    }
+
+    @Override
+    public String toString() {
+        return datasetID + "/" + edition + "/" + version;
+    }
+}
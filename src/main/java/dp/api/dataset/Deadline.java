@@ -0,0 +1,134 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetAPIException;
+import org.apache.http.util.Args;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * A point in time by which a call must complete, including any retries. Pass a deadline to the overloads on
+ * {@link DatasetClient} to bound the total time a call can take.
+ * <p>
+ * The deadline is made current on the calling thread for the duration of the call, so that decorators still see the
+ * call and the {@link DatasetAPIClient} and {@link RetryStrategy} underneath can enforce it.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+    private final LongSupplier nanoTime;
+
+    Deadline(long deadlineNanos, LongSupplier nanoTime) {
+        this.deadlineNanos = deadlineNanos;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * A deadline the given time from now.
+     */
+    public static Deadline after(long timeout, TimeUnit unit) {
+        Args.notNegative(timeout, "timeout");
+        return new Deadline(System.nanoTime() + unit.toNanos(timeout), System::nanoTime);
+    }
+
+    /**
+     * The time left before the deadline, which is zero or negative once it has passed.
+     */
+    public long remaining(TimeUnit unit) {
+        return unit.convert(deadlineNanos - nanoTime.getAsLong(), TimeUnit.NANOSECONDS);
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - nanoTime.getAsLong() <= 0;
+    }
+
+    /**
+     * The deadline of the call being made on this thread, or null if there is none.
+     */
+    static Deadline current() {
+        return current.get();
+    }
+
+    /**
+     * Make the call with the given deadline current on this thread. A call already running under an earlier deadline
+     * keeps the earlier one.
+     */
+    static <T> T callWithin(Deadline deadline, DatasetCall<T> call) throws IOException, DatasetAPIException {
+        Args.notNull(deadline, "deadline");
+
+        Deadline previous = current.get();
+        if (previous != null && previous.deadlineNanos - deadline.deadlineNanos <= 0) {
+            return call.call();
+        }
+
+        current.set(deadline);
+        try {
+            return call.call();
+        } finally {
+            if (previous != null) {
+                current.set(previous);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    /**
+     * Open a listing with the given deadline current on this thread. Pages of the listing are fetched as the stream is
+     * consumed, each of them within the deadline.
+     */
+    static <T> Stream<T> streamWithin(Deadline deadline, Supplier<Stream<T>> listing) {
+        Args.notNull(deadline, "deadline");
+
+        Deadline previous = current.get();
+        if (previous != null && previous.deadlineNanos - deadline.deadlineNanos <= 0) {
+            return listing.get();
+        }
+
+        current.set(deadline);
+        try {
+            return listing.get();
+        } finally {
+            if (previous != null) {
+                current.set(previous);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    /**
+     * Run the task once the deadline has passed, unless the returned future is cancelled first.
+     */
+    ScheduledFuture<?> schedule(Runnable task) {
+        return Timer.INSTANCE.schedule(task, Math.max(0, deadlineNanos - nanoTime.getAsLong()), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remainingMs=" + remaining(TimeUnit.MILLISECONDS) + '}';
+    }
+
+    /**
+     * A single daemon thread shared by every deadline, created when first needed.
+     */
+    private static final class Timer {
+
+        private static final ScheduledThreadPoolExecutor INSTANCE = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "dataset-deadline-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            INSTANCE.setRemoveOnCancelPolicy(true);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Edition;
+import dp.api.dataset.model.Instance;
+import org.apache.http.util.Args;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+/**
+ * A DatasetClient that forwards every call to another DatasetClient. Decorators extend this class and override only
+ * the operations they change.
+ */
+public abstract class ForwardingDatasetClient implements DatasetClient {
+
+    private final DatasetClient delegate;
+
+    protected ForwardingDatasetClient(DatasetClient delegate) {
+        this.delegate = Args.notNull(delegate, "delegate");
+    }
+
+    /**
+     * The client that calls are forwarded to.
+     */
+    protected DatasetClient delegate() {
+        return delegate;
+    }
+
+    @Override
+    public Instance getInstance(String instanceID) throws IOException, DatasetAPIException {
+        return delegate.getInstance(instanceID);
+    }
+
+    @Override
+    public Dataset createDataset(String datasetID, Dataset dataset) throws IOException, DatasetAPIException {
+        return delegate.createDataset(datasetID, dataset);
+    }
+
+    @Override
+    public Dataset getDataset(String datasetID) throws IOException, DatasetAPIException {
+        return delegate.getDataset(datasetID);
+    }
+
+    @Override
+    public void deleteDataset(String datasetID) throws IOException, DatasetAPIException {
+        delegate.deleteDataset(datasetID);
+    }
+
+    @Override
+    public void detachVersion(String datasetID, String edition, String version) throws IOException, DatasetAPIException {
+        delegate.detachVersion(datasetID, edition, version);
+    }
+
+    @Override
+    public void updateDataset(String datasetID, Dataset dataset) throws IOException, DatasetAPIException {
+        delegate.updateDataset(datasetID, dataset);
+    }
+
+    @Override
+    public DatasetVersion getDatasetVersion(String datasetID, String edition, String version) throws IOException, DatasetAPIException {
+        return delegate.getDatasetVersion(datasetID, edition, version);
+    }
+
+    @Override
+    public void updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion) throws IOException, DatasetAPIException {
+        delegate.updateDatasetVersion(datasetID, edition, version, datasetVersion);
+    }
+
+    @Override
+    public String updateDataset(String datasetID, Dataset dataset, String ifMatch) throws IOException, DatasetAPIException {
+        return delegate.updateDataset(datasetID, dataset, ifMatch);
+    }
+
+    @Override
+    public String updateDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion, String ifMatch) throws IOException, DatasetAPIException {
+        return delegate.updateDatasetVersion(datasetID, edition, version, datasetVersion, ifMatch);
+    }
+
+    @Override
+    public void patchDataset(String datasetID, JsonPatch patch) throws IOException, DatasetAPIException {
+        delegate.patchDataset(datasetID, patch);
+    }
+
+    @Override
+    public void patchDatasetVersion(String datasetID, String edition, String version, JsonPatch patch) throws IOException, DatasetAPIException {
+        delegate.patchDatasetVersion(datasetID, edition, version, patch);
+    }
+
+    @Override
+    public Stream<Dataset> listDatasets(int pageSize) {
+        return delegate.listDatasets(pageSize);
+    }
+
+    @Override
+    public Stream<Edition> listEditions(String datasetID, int pageSize) {
+        return delegate.listEditions(datasetID, pageSize);
+    }
+
+    @Override
+    public Stream<DatasetVersion> listVersions(String datasetID, String edition, int pageSize) {
+        return delegate.listVersions(datasetID, edition, pageSize);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
@@ -0,0 +1,386 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Instance;
+import org.apache.http.util.Args;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A DatasetClient decorator that hedges reads against a slow dataset API instance. If getInstance, getDataset or
+ * getDatasetVersion has not completed within the hedge delay, an identical second request is sent and whichever
+ * succeeds first is returned to the caller. A failure is only returned once both requests have failed. Writes are
+ * passed straight through.
+ * <p>
+ * The delay is either fixed or derived from a percentile of the latencies seen so far for each operation, so that
+ * only the slowest requests are hedged. Hedges are drawn from a token bucket that allows a set percentage of extra
+ * requests, so hedging can not add more than that to the load on the dataset API even when every request is slow.
+ * <p>
+ * The original request runs on the caller's thread, and a hedge on one of a bounded pool of the client's own threads,
+ * under the caller's {@link Deadline} if there is one. A hedge is not sent while the pool is full. The losing request
+ * has its HTTP exchange aborted when the delegate is a {@link DatasetAPIClient} called on the same thread; any other
+ * losing request runs to completion, and a caller whose original request can not be aborted waits for it. Only the
+ * latencies of successful requests are used to derive the delay.
+ */
+public class HedgingDatasetClient extends ForwardingDatasetClient {
+
+    private final long delayNanos;
+    private final double delayPercentile;
+    private final int minimumSamples;
+    private final RetryBudget hedgeBudget;
+    private final LongSupplier nanoTime;
+    private final Semaphore hedgeSlots;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor timer;
+    private final Map<DatasetOperation, LatencyHistogram> latencies = new EnumMap<>(DatasetOperation.class);
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder hedgesRejected = new LongAdder();
+
+    private HedgingDatasetClient(Builder builder) {
+        super(builder.delegate);
+        this.delayNanos = builder.delayNanos;
+        this.delayPercentile = builder.delayPercentile;
+        this.minimumSamples = builder.minimumSamples;
+        this.hedgeBudget = new RetryBudget(builder.maxExtraLoadPercent / 100.0, builder.maxBurst);
+        this.nanoTime = builder.nanoTime;
+        this.hedgeSlots = new Semaphore(builder.maxConcurrentHedges);
+        this.executor = new ThreadPoolExecutor(builder.maxConcurrentHedges, builder.maxConcurrentHedges,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new DaemonThreadFactory("dataset-hedge"));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timer = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("dataset-hedge-timer"));
+        this.timer.setRemoveOnCancelPolicy(true);
+        for (DatasetOperation operation : DatasetOperation.values()) {
+            if (operation.isRead()) {
+                latencies.put(operation, new LatencyHistogram());
+            }
+        }
+    }
+
+    /**
+     * Create a new builder for a HedgingDatasetClient wrapping the given client.
+     */
+    public static Builder builder(DatasetClient delegate) {
+        return new Builder(delegate);
+    }
+
+    @Override
+    public Instance getInstance(String instanceID) throws IOException, DatasetAPIException {
+        return hedge(DatasetOperation.GET_INSTANCE, () -> delegate().getInstance(instanceID));
+    }
+
+    @Override
+    public Dataset getDataset(String datasetID) throws IOException, DatasetAPIException {
+        return hedge(DatasetOperation.GET_DATASET, () -> delegate().getDataset(datasetID));
+    }
+
+    @Override
+    public DatasetVersion getDatasetVersion(String datasetID, String edition, String version) throws IOException, DatasetAPIException {
+        return hedge(DatasetOperation.GET_DATASET_VERSION,
+                () -> delegate().getDatasetVersion(datasetID, edition, version));
+    }
+
+    /**
+     * The number of hedged requests sent.
+     */
+    public long getHedgeCount() {
+        return hedgeBudget.getRetryCount();
+    }
+
+    /**
+     * The number of hedged requests that finished before the original request.
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * The number of hedged requests not sent because they would have exceeded the extra load allowed, or because the
+     * most hedges allowed were already in flight.
+     */
+    public long getHedgeShedCount() {
+        return hedgeBudget.getShedCount() + hedgesRejected.sum();
+    }
+
+    @Override
+    public void close() throws IOException {
+        timer.shutdownNow();
+        executor.shutdownNow();
+        super.close();
+    }
+
+    /**
+     * The time to wait for the original request before sending a hedge.
+     */
+    long hedgeDelayNanos(DatasetOperation operation) {
+        if (delayPercentile > 0) {
+            LatencyHistogram histogram = latencies.get(operation);
+            if (histogram.count() >= minimumSamples) {
+                return histogram.valueAt(delayPercentile);
+            }
+        }
+        return delayNanos;
+    }
+
+    private <T> T hedge(DatasetOperation operation, DatasetCall<T> call) throws IOException, DatasetAPIException {
+
+        hedgeBudget.recordSuccess();
+        Race<T> race = new Race<>(operation, call, Deadline.current());
+        ScheduledFuture<?> hedgeTimer = timer.schedule(race::sendHedge, hedgeDelayNanos(operation), TimeUnit.NANOSECONDS);
+
+        T value;
+        try {
+            value = Cancellation.callWithin(race.original, timed(operation, call));
+        } catch (IOException | DatasetAPIException | RuntimeException e) {
+            hedgeTimer.cancel(false);
+            return race.originalFailed(e);
+        }
+        hedgeTimer.cancel(false);
+        race.originalSucceeded();
+        return value;
+    }
+
+    private <T> DatasetCall<T> timed(DatasetOperation operation, DatasetCall<T> call) {
+        return () -> {
+            long start = nanoTime.getAsLong();
+            T value = call.call();
+            // a failed or aborted request says nothing about how long the dataset API takes to answer
+            latencies.get(operation).record(nanoTime.getAsLong() - start);
+            return value;
+        };
+    }
+
+    /**
+     * An original request and the hedge that may be sent for it, and which of them has succeeded.
+     */
+    private class Race<T> {
+
+        private final DatasetOperation operation;
+        private final DatasetCall<T> call;
+        private final Deadline deadline;
+        private final Cancellation original = new Cancellation();
+        private final Cancellation hedgeCancellation = new Cancellation();
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean originalDone;
+        private boolean originalSucceeded;
+        private Future<T> hedge;
+        private boolean hedgeSucceeded;
+        private T hedgeValue;
+
+        private Race(DatasetOperation operation, DatasetCall<T> call, Deadline deadline) {
+            this.operation = operation;
+            this.call = call;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Send the hedge if the original request is still running and there is room for it. Runs on the timer thread.
+         */
+        private void sendHedge() {
+            lock.lock();
+            try {
+                if (originalDone) {
+                    return;
+                }
+                if (!hedgeSlots.tryAcquire()) {
+                    hedgesRejected.increment();
+                    return;
+                }
+                if (!hedgeBudget.tryAcquire()) {
+                    hedgeSlots.release();
+                    return;
+                }
+                try {
+                    hedge = executor.submit(this::runHedge);
+                } catch (RejectedExecutionException e) {
+                    // the client has been closed
+                    hedgeSlots.release();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private T runHedge() throws IOException, DatasetAPIException {
+            try {
+                DatasetCall<T> timedCall = timed(operation, call);
+                T value = Cancellation.callWithin(hedgeCancellation,
+                        deadline != null ? () -> Deadline.callWithin(deadline, timedCall) : timedCall);
+
+                boolean won;
+                lock.lock();
+                try {
+                    won = !originalSucceeded;
+                    if (won) {
+                        hedgeSucceeded = true;
+                        hedgeValue = value;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (won) {
+                    hedgeWins.increment();
+                    original.cancel();
+                }
+                return value;
+            } finally {
+                hedgeSlots.release();
+            }
+        }
+
+        private void originalSucceeded() {
+            Future<T> pending;
+            lock.lock();
+            try {
+                originalDone = true;
+                originalSucceeded = true;
+                pending = hedge;
+            } finally {
+                lock.unlock();
+            }
+            if (pending != null) {
+                hedgeCancellation.cancel();
+                pending.cancel(true);
+            }
+        }
+
+        /**
+         * Return the hedge's result if it succeeds, or else the original request's failure.
+         */
+        private T originalFailed(Exception failure) throws IOException, DatasetAPIException {
+            Future<T> pending;
+            lock.lock();
+            try {
+                originalDone = true;
+                if (hedgeSucceeded) {
+                    return hedgeValue;
+                }
+                pending = hedge;
+            } finally {
+                lock.unlock();
+            }
+
+            if (pending != null) {
+                try {
+                    return pending.get();
+                } catch (InterruptedException e) {
+                    hedgeCancellation.cancel();
+                    pending.cancel(true);
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("interrupted waiting for a dataset-api request");
+                } catch (ExecutionException | CancellationException e) {
+                    // the hedge failed too, so the original failure is returned
+                }
+            }
+
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof DatasetAPIException) {
+                throw (DatasetAPIException) failure;
+            }
+            throw (RuntimeException) failure;
+        }
+    }
+
+    /**
+     * Builder for a HedgingDatasetClient.
+     */
+    public static class Builder {
+
+        private static final long DEFAULT_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+        private static final int DEFAULT_MINIMUM_SAMPLES = 100;
+        private static final int DEFAULT_MAX_EXTRA_LOAD_PERCENT = 5;
+        private static final int DEFAULT_MAX_BURST = 10;
+        private static final int DEFAULT_MAX_CONCURRENT_HEDGES = 20;
+
+        private final DatasetClient delegate;
+        private long delayNanos = DEFAULT_DELAY_NANOS;
+        private double delayPercentile;
+        private int minimumSamples = DEFAULT_MINIMUM_SAMPLES;
+        private int maxExtraLoadPercent = DEFAULT_MAX_EXTRA_LOAD_PERCENT;
+        private int maxBurst = DEFAULT_MAX_BURST;
+        private int maxConcurrentHedges = DEFAULT_MAX_CONCURRENT_HEDGES;
+        private LongSupplier nanoTime = System::nanoTime;
+
+        private Builder(DatasetClient delegate) {
+            this.delegate = Args.notNull(delegate, "delegate");
+        }
+
+        /**
+         * @param delay - How long to wait for a read before sending a hedge, or until enough latencies have been
+         *              seen to use the delay percentile
+         * @param unit  - The unit of the delay
+         */
+        public Builder delay(long delay, TimeUnit unit) {
+            this.delayNanos = unit.toNanos(Args.notNegative(delay, "delay"));
+            return this;
+        }
+
+        /**
+         * @param percentile     - The percentile of each operation's latency to wait before sending a hedge, for
+         *                       example 0.95 to hedge the slowest 5% of reads
+         * @param minimumSamples - The number of latencies to see before the percentile is used instead of the fixed
+         *                       delay
+         */
+        public Builder delayPercentile(double percentile, int minimumSamples) {
+            Args.check(percentile > 0 && percentile < 1, "percentile must be between 0 and 1");
+            this.delayPercentile = percentile;
+            this.minimumSamples = Args.positive(minimumSamples, "minimumSamples");
+            return this;
+        }
+
+        /**
+         * @param maxExtraLoadPercent - The most hedged requests that may be sent, as a percentage of reads
+         */
+        public Builder maxExtraLoadPercent(int maxExtraLoadPercent) {
+            Args.check(maxExtraLoadPercent > 0 && maxExtraLoadPercent <= 100,
+                    "maxExtraLoadPercent must be between 1 and 100");
+            this.maxExtraLoadPercent = maxExtraLoadPercent;
+            return this;
+        }
+
+        /**
+         * @param maxBurst - The number of hedges that can be saved up during quiet periods and sent together
+         */
+        public Builder maxBurst(int maxBurst) {
+            this.maxBurst = Args.positive(maxBurst, "maxBurst");
+            return this;
+        }
+
+        /**
+         * @param maxConcurrentHedges - The most hedged requests in flight at once, and so the most threads the client
+         *                            uses to send them
+         */
+        public Builder maxConcurrentHedges(int maxConcurrentHedges) {
+            this.maxConcurrentHedges = Args.positive(maxConcurrentHedges, "maxConcurrentHedges");
+            return this;
+        }
+
+        Builder nanoTime(LongSupplier nanoTime) {
+            this.nanoTime = nanoTime;
+            return this;
+        }
+
+        public HedgingDatasetClient build() {
+            return new HedgingDatasetClient(this);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package dp.api.dataset;
+
+import org.apache.http.util.Args;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A MetricsListener that keeps a latency histogram, status code and exception counts, retry counts and byte counts
+ * for each operation in memory. Recording is lock-free; {@link #getMetrics} takes a snapshot that can be logged or
+ * published periodically.
+ */
+public class HistogramMetricsListener implements MetricsListener {
+
+    private static final int MAX_STATUS_CODE = 599;
+
+    private final Map<DatasetOperation, Recorder> recorders = new EnumMap<>(DatasetOperation.class);
+
+    public HistogramMetricsListener() {
+        for (DatasetOperation operation : DatasetOperation.values()) {
+            recorders.put(operation, new Recorder());
+        }
+    }
+
+    @Override
+    public void requestCompleted(DatasetOperation operation, int statusCode, Exception exception,
+                                 long durationNanos, long bytesSent, long bytesReceived) {
+        Recorder recorder = recorders.get(operation);
+        recorder.latency.record(durationNanos);
+        recorder.statusCounts.incrementAndGet(statusCode >= 0 && statusCode <= MAX_STATUS_CODE ? statusCode + 1 : 0);
+        if (exception != null) {
+            recorder.exceptionCount(exception.getClass()).increment();
+        }
+        if (bytesSent > 0) {
+            recorder.bytesSent.add(bytesSent);
+        }
+        if (bytesReceived > 0) {
+            recorder.bytesReceived.add(bytesReceived);
+        }
+    }
+
+    @Override
+    public void requestRetried(DatasetOperation operation, int statusCode) {
+        recorders.get(operation).retries.increment();
+    }
+
+    @Override
+    public void retryShed(DatasetOperation operation, int statusCode) {
+        recorders.get(operation).retriesShed.increment();
+    }
+
+    /**
+     * Get a snapshot of the metrics for the given operation.
+     */
+    public OperationMetrics getMetrics(DatasetOperation operation) {
+        Recorder recorder = recorders.get(Args.notNull(operation, "operation"));
+
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        for (int i = 0; i < recorder.statusCounts.length(); i++) {
+            long count = recorder.statusCounts.get(i);
+            if (count > 0) {
+                statusCounts.put(i - 1, count);
+            }
+        }
+
+        Map<String, Long> exceptionCounts = new TreeMap<>();
+        recorder.exceptionCounts.forEach((type, count) -> exceptionCounts.put(type.getName(), count.sum()));
+
+        return new OperationMetrics(operation, recorder.latency, statusCounts, exceptionCounts,
+                recorder.retries.sum(), recorder.retriesShed.sum(), recorder.bytesSent.sum(), recorder.bytesReceived.sum());
+    }
+
+    /**
+     * Get a snapshot of the metrics for every operation.
+     */
+    public Map<DatasetOperation, OperationMetrics> getMetrics() {
+        Map<DatasetOperation, OperationMetrics> metrics = new EnumMap<>(DatasetOperation.class);
+        for (DatasetOperation operation : DatasetOperation.values()) {
+            metrics.put(operation, getMetrics(operation));
+        }
+        return metrics;
+    }
+
+    private static final class Recorder {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        // index 0 counts calls with no response or an out of range status, index n + 1 counts status n
+        private final AtomicLongArray statusCounts = new AtomicLongArray(MAX_STATUS_CODE + 2);
+        private final ConcurrentMap<Class<?>, LongAdder> exceptionCounts = new ConcurrentHashMap<>();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder retriesShed = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+
+        private LongAdder exceptionCount(Class<?> type) {
+            LongAdder count = exceptionCounts.get(type);
+            return count != null ? count : exceptionCounts.computeIfAbsent(type, t -> new LongAdder());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package dp.api.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Sends a single HTTP request to the dataset API. Implement this interface to run {@link DatasetAPIClient} on an
+ * HTTP client other than the pooled Apache client it uses by default, and pass it to
+ * {@link DatasetAPIClient.Builder#transport(HttpTransport)}.
+ * <p>
+ * A transport only makes the exchange: DatasetAPIClient still builds the request, applies the {@link RetryStrategy}
+ * and maps the response. Implementations must be thread safe and should not retry requests themselves.
+ */
+public interface HttpTransport extends Closeable {
+
+    /**
+     * Send the request and return the response once its status and headers have been received. The caller reads the
+     * body and closes the response.
+     *
+     * @throws IOException if no response was received
+     */
+    TransportResponse execute(TransportRequest request) throws IOException;
+}
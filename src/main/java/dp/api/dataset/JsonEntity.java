@@ -0,0 +1,139 @@
+package dp.api.dataset;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.util.Args;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A request entity that serializes a model object as UTF-8 JSON bytes, rather than building the whole payload as a
+ * String first.
+ * <p>
+ * A body of up to {@link #MAX_BUFFERED_LENGTH} bytes is serialized into a byte buffer when its length is asked for,
+ * so that it is sent with a Content-Length header as a String body was; some proxies reject chunked PUT requests.
+ * A larger body has no known length and is serialized directly to the connection's output stream with chunked
+ * encoding.
+ * <p>
+ * The entity is repeatable: each write serializes the object again, so retries replay the same body. Once the object
+ * has been serialized into the buffer, the buffer is reused for every subsequent read and write.
+ */
+class JsonEntity extends AbstractHttpEntity {
+
+    static final int MAX_BUFFERED_LENGTH = 64 * 1024;
+
+    private final Object value;
+    private final ObjectWriter writer;
+
+    private volatile byte[] buffer;
+    private volatile boolean tooLargeToBuffer;
+
+    JsonEntity(Object value, ObjectWriter writer) {
+        this.value = Args.notNull(value, "value");
+        this.writer = Args.notNull(writer, "writer");
+        setContentType(ContentType.APPLICATION_JSON.toString());
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        byte[] buffered = buffer;
+        if (buffered != null) {
+            return buffered.length;
+        }
+        if (tooLargeToBuffer) {
+            return -1;
+        }
+
+        LimitedOutputStream out = new LimitedOutputStream();
+        try {
+            writer.writeValue(out, value);
+        } catch (IOException e) {
+            // too large to buffer, or failed to serialize, which writeTo reports when the body is sent
+            tooLargeToBuffer = true;
+            return -1;
+        }
+        buffered = out.toByteArray();
+        buffer = buffered;
+        return buffered.length;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return new ByteArrayInputStream(buffer());
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        Args.notNull(out, "Output stream");
+        byte[] buffered = buffer;
+        if (buffered != null) {
+            out.write(buffered);
+        } else {
+            writer.writeValue(out, value);
+        }
+        out.flush();
+    }
+
+    /**
+     * The length of the serialized body. The object is serialized into the buffer, which later writes reuse.
+     */
+    long serializedLength() throws IOException {
+        return buffer().length;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * A byte buffer that fails once more than MAX_BUFFERED_LENGTH bytes are written to it.
+     */
+    private static class LimitedOutputStream extends OutputStream {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        @Override
+        public void write(int b) throws IOException {
+            checkLimit(1);
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkLimit(len);
+            buffer.write(b, off, len);
+        }
+
+        private void checkLimit(int len) throws IOException {
+            if (buffer.size() + len > MAX_BUFFERED_LENGTH) {
+                throw new IOException("request body is larger than " + MAX_BUFFERED_LENGTH + " bytes");
+            }
+        }
+
+        private byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+
+    private byte[] buffer() throws IOException {
+        byte[] buffered = buffer;
+        if (buffered == null) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writer.writeValue(out, value);
+            buffered = out.toByteArray();
+            buffer = buffered;
+        }
+        return buffered;
+    }
+}
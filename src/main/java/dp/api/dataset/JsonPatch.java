@@ -0,0 +1,222 @@
+package dp.api.dataset;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import org.apache.http.util.Args;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * An RFC 6902 JSON Patch: a list of operations that change only some fields of a dataset or version, so that an
+ * update does not have to send the whole document.
+ * <p>
+ * Build a patch by hand with {@link #builder()}, or work out the operations that turn one snapshot of a model into
+ * another with {@link #diff(Dataset, Dataset)}. Diffs descend into nested objects such as links, and replace arrays
+ * as a whole.
+ */
+public final class JsonPatch {
+
+    private static final ObjectMapper json = new ObjectMapper();
+
+    private final List<Operation> operations;
+
+    private JsonPatch(List<Operation> operations) {
+        this.operations = Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * Create a new builder for a JsonPatch.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Work out the operations that turn one snapshot of a dataset into another. Fields that are null in the target
+     * are removed.
+     *
+     * @param source - The dataset as it was read
+     * @param target - The dataset as it should be
+     */
+    public static JsonPatch diff(Dataset source, Dataset target) {
+        return diff((Object) source, target);
+    }
+
+    /**
+     * Work out the operations that turn one snapshot of a dataset version into another. Fields that are null in the
+     * target are removed.
+     *
+     * @param source - The version as it was read
+     * @param target - The version as it should be
+     */
+    public static JsonPatch diff(DatasetVersion source, DatasetVersion target) {
+        return diff((Object) source, target);
+    }
+
+    private static JsonPatch diff(Object source, Object target) {
+        Args.notNull(source, "source");
+        Args.notNull(target, "target");
+        List<Operation> operations = new ArrayList<>();
+        diff("", json.valueToTree(source), json.valueToTree(target), operations);
+        return new JsonPatch(operations);
+    }
+
+    private static void diff(String path, JsonNode source, JsonNode target, List<Operation> operations) {
+        if (source.equals(target)) {
+            return;
+        }
+        if (!source.isObject() || !target.isObject()) {
+            operations.add(new Operation("replace", path, target));
+            return;
+        }
+
+        Iterator<String> sourceFields = source.fieldNames();
+        while (sourceFields.hasNext()) {
+            String field = sourceFields.next();
+            if (!target.has(field)) {
+                operations.add(new Operation("remove", path + "/" + escape(field), null));
+            }
+        }
+
+        Iterator<String> targetFields = target.fieldNames();
+        while (targetFields.hasNext()) {
+            String field = targetFields.next();
+            JsonNode sourceValue = source.get(field);
+            JsonNode targetValue = target.get(field);
+            if (sourceValue == null) {
+                operations.add(new Operation("add", path + "/" + escape(field), targetValue));
+            } else {
+                diff(path + "/" + escape(field), sourceValue, targetValue, operations);
+            }
+        }
+    }
+
+    /**
+     * Escape a field name as a JSON Pointer reference token.
+     */
+    private static String escape(String field) {
+        return field.replace("~", "~0").replace("/", "~1");
+    }
+
+    /**
+     * The operations of the patch, in the order they are applied.
+     */
+    @JsonValue
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * True if the patch makes no changes.
+     */
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        try {
+            return json.writeValueAsString(this);
+        } catch (Exception e) {
+            return operations.toString();
+        }
+    }
+
+    /**
+     * A single JSON Patch operation.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static final class Operation {
+
+        private final String op;
+        private final String path;
+        private final JsonNode value;
+
+        private Operation(String op, String path, JsonNode value) {
+            this.op = op;
+            this.path = path;
+            this.value = value;
+        }
+
+        public String getOp() {
+            return op;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * The value to add, replace or test, or null for a remove.
+         */
+        public JsonNode getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Builder for a JsonPatch. Values are serialized as the models are, so enums such as {@code State} can be used
+     * directly.
+     */
+    public static class Builder {
+
+        private final List<Operation> operations = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @param path  - A JSON Pointer to the field to add, such as {@code /collection_id}
+         * @param value - The value to add
+         */
+        public Builder add(String path, Object value) {
+            return operation("add", path, valueOf(value));
+        }
+
+        /**
+         * @param path  - A JSON Pointer to the field to replace, such as {@code /state}
+         * @param value - The new value
+         */
+        public Builder replace(String path, Object value) {
+            return operation("replace", path, valueOf(value));
+        }
+
+        /**
+         * @param path - A JSON Pointer to the field to remove
+         */
+        public Builder remove(String path) {
+            return operation("remove", path, null);
+        }
+
+        /**
+         * @param path  - A JSON Pointer to the field to check
+         * @param value - The value the field must have for the patch to be applied
+         */
+        public Builder test(String path, Object value) {
+            return operation("test", path, valueOf(value));
+        }
+
+        private Builder operation(String op, String path, JsonNode value) {
+            Args.notNull(path, "path");
+            Args.check(path.isEmpty() || path.startsWith("/"), "path must be a JSON Pointer starting with /");
+            operations.add(new Operation(op, path, value));
+            return this;
+        }
+
+        private static JsonNode valueOf(Object value) {
+            return value != null ? json.valueToTree(value) : NullNode.getInstance();
+        }
+
+        public JsonPatch build() {
+            return new JsonPatch(new ArrayList<>(operations));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package dp.api.dataset;
+
+/**
+ * Receives a callback for every request made by a {@link DatasetAPIClient}. Implement this interface to bridge the
+ * client to a metrics library, or use {@link HistogramMetricsListener} to keep the metrics in memory.
+ * <p>
+ * Callbacks are made on the calling thread, after the request, so implementations must be thread safe and should
+ * return quickly.
+ */
+public interface MetricsListener {
+
+    /**
+     * A listener that ignores every callback.
+     */
+    MetricsListener NOOP = new MetricsListener() {
+    };
+
+    /**
+     * Called once for every completed call, successful or not.
+     *
+     * @param operation     - The operation that was called
+     * @param statusCode    - The status code of the final response, or -1 if no response was received
+     * @param exception     - The exception thrown to the caller, or null if the call succeeded
+     * @param durationNanos - The time taken by the call, including any retries
+     * @param bytesSent     - The number of request body bytes written, after any compression
+     * @param bytesReceived - The number of response body bytes read, before any decompression
+     */
+    default void requestCompleted(DatasetOperation operation,
+                                  int statusCode,
+                                  Exception exception,
+                                  long durationNanos,
+                                  long bytesSent,
+                                  long bytesReceived) {
+    }
+
+    /**
+     * Called each time a request is about to be retried.
+     *
+     * @param operation  - The operation being retried
+     * @param statusCode - The status code of the response that caused the retry
+     */
+    default void requestRetried(DatasetOperation operation, int statusCode) {
+    }
+
+    /**
+     * Called each time a retry is skipped because the {@link RetryBudget} is exhausted.
+     *
+     * @param operation  - The operation that was not retried
+     * @param statusCode - The status code of the response that would have caused the retry
+     */
+    default void retryShed(DatasetOperation operation, int statusCode) {
+    }
+}
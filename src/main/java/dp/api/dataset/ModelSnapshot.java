@@ -0,0 +1,70 @@
+package dp.api.dataset;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * An immutable copy of a model held as its parsed JSON tokens. Caches and shared calls keep a snapshot instead of the
+ * model itself and hand each caller a fresh model, so a caller changing its model through the setters cannot change
+ * what any other caller receives.
+ */
+final class ModelSnapshot<T> {
+
+    private static final ObjectMapper json = new ObjectMapper();
+
+    private final TokenBuffer tokens;
+    private final Class<T> type;
+    private final String etag;
+
+    private ModelSnapshot(TokenBuffer tokens, Class<T> type, String etag) {
+        this.tokens = tokens;
+        this.type = type;
+        this.etag = etag;
+    }
+
+    /**
+     * Take a snapshot of the model as it is now.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ModelSnapshot<T> of(T value) {
+        TokenBuffer tokens = new TokenBuffer(json, false);
+        try {
+            json.writeValue(tokens, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to copy a dataset-api model", e);
+        }
+        return new ModelSnapshot<>(tokens, (Class<T>) value.getClass(), etag(value));
+    }
+
+    /**
+     * A new copy of the model, which the caller is free to change.
+     */
+    T model() {
+        try {
+            T value = json.readValue(tokens.asParser(), type);
+            if (value instanceof Dataset) {
+                ((Dataset) value).setEtag(etag);
+            } else if (value instanceof DatasetVersion) {
+                ((DatasetVersion) value).setEtag(etag);
+            }
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to copy a dataset-api model", e);
+        }
+    }
+
+    private static String etag(Object value) {
+        if (value instanceof Dataset) {
+            return ((Dataset) value).getEtag();
+        }
+        if (value instanceof DatasetVersion) {
+            return ((DatasetVersion) value).getEtag();
+        }
+        return null;
+    }
+}
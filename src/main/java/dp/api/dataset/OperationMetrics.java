@@ -0,0 +1,138 @@
+package dp.api.dataset;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable snapshot of the metrics recorded by a {@link HistogramMetricsListener} for one operation.
+ */
+public final class OperationMetrics {
+
+    private final DatasetOperation operation;
+    private final long count;
+    private final long totalNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+    private final Map<Integer, Long> statusCounts;
+    private final Map<String, Long> exceptionCounts;
+    private final long retryCount;
+    private final long retryShedCount;
+    private final long bytesSent;
+    private final long bytesReceived;
+
+    OperationMetrics(DatasetOperation operation, LatencyHistogram latency, Map<Integer, Long> statusCounts,
+                     Map<String, Long> exceptionCounts, long retryCount, long retryShedCount, long bytesSent, long bytesReceived) {
+        this.operation = operation;
+        this.count = latency.count();
+        this.totalNanos = latency.sum();
+        this.p50Nanos = latency.valueAt(0.5);
+        this.p90Nanos = latency.valueAt(0.9);
+        this.p99Nanos = latency.valueAt(0.99);
+        this.p999Nanos = latency.valueAt(0.999);
+        this.maxNanos = latency.max();
+        this.statusCounts = Collections.unmodifiableMap(statusCounts);
+        this.exceptionCounts = Collections.unmodifiableMap(exceptionCounts);
+        this.retryCount = retryCount;
+        this.retryShedCount = retryShedCount;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+    }
+
+    public DatasetOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * The number of completed calls.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * The mean call duration, or 0 if there have been no calls.
+     */
+    public long getMean(TimeUnit unit) {
+        return count == 0 ? 0 : unit.convert(totalNanos / count, TimeUnit.NANOSECONDS);
+    }
+
+    public long getP50(TimeUnit unit) {
+        return unit.convert(p50Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getP90(TimeUnit unit) {
+        return unit.convert(p90Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getP99(TimeUnit unit) {
+        return unit.convert(p99Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getP999(TimeUnit unit) {
+        return unit.convert(p999Nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public long getMax(TimeUnit unit) {
+        return unit.convert(maxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * The number of calls by the status code of their final response. Calls that received no response are counted
+     * under -1.
+     */
+    public Map<Integer, Long> getStatusCounts() {
+        return statusCounts;
+    }
+
+    /**
+     * The number of failed calls by the class name of the exception thrown.
+     */
+    public Map<String, Long> getExceptionCounts() {
+        return exceptionCounts;
+    }
+
+    /**
+     * The number of retried requests.
+     */
+    public long getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * The number of retries skipped because the retry budget was exhausted.
+     */
+    public long getRetryShedCount() {
+        return retryShedCount;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationMetrics{" +
+                "operation=" + operation +
+                ", count=" + count +
+                ", p50Micros=" + getP50(TimeUnit.MICROSECONDS) +
+                ", p90Micros=" + getP90(TimeUnit.MICROSECONDS) +
+                ", p99Micros=" + getP99(TimeUnit.MICROSECONDS) +
+                ", p999Micros=" + getP999(TimeUnit.MICROSECONDS) +
+                ", maxMicros=" + getMax(TimeUnit.MICROSECONDS) +
+                ", statusCounts=" + statusCounts +
+                ", exceptionCounts=" + exceptionCounts +
+                ", retryCount=" + retryCount +
+                ", retryShedCount=" + retryShedCount +
+                ", bytesSent=" + bytesSent +
+                ", bytesReceived=" + bytesReceived +
+                '}';
+    }
+}
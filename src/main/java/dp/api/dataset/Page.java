@@ -0,0 +1,31 @@
+package dp.api.dataset;
+
+import java.util.List;
+
+/**
+ * One page of a dataset API listing.
+ */
+final class Page<T> {
+
+    final List<T> items;
+    final int offset;
+    final long totalCount;
+
+    /**
+     * @param items      - The items on the page
+     * @param offset     - The position of the first item in the whole listing
+     * @param totalCount - The number of items in the whole listing, or -1 if the response did not say
+     */
+    Page(List<T> items, int offset, long totalCount) {
+        this.items = items;
+        this.offset = offset;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * True if there are no items after this page, given the number of items that were asked for.
+     */
+    boolean isLast(int limit) {
+        return items.size() < limit || (totalCount >= 0 && offset + items.size() >= totalCount);
+    }
+}
@@ -0,0 +1,199 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.exception.UncheckedDatasetAPIException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over a dataset API listing one page at a time. The first page is fetched when the caller first asks for an
+ * item, and each following page is fetched in the background while the caller works through the one before, so at
+ * most two pages are held in memory however long the listing is.
+ * <p>
+ * Failures to fetch a page are thrown from {@link #hasNext()} as an UncheckedIOException or an
+ * {@link UncheckedDatasetAPIException}. Closing the iterator cancels any page still being fetched.
+ * <p>
+ * The {@link Deadline} current when the iterator is created applies to every page, including those fetched in the
+ * background, and so does the {@link PageInterceptor} current then.
+ */
+final class PagedIterator<T> implements Iterator<T>, Closeable {
+
+    static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * Fetches the page of a listing starting at an offset.
+     */
+    @FunctionalInterface
+    interface PageFetcher<T> {
+        Page<T> fetch(int offset, int limit) throws IOException, DatasetAPIException;
+    }
+
+    /**
+     * Wraps each page fetch of a listing, so that a decorator can treat every page as a call of its own.
+     */
+    interface PageInterceptor {
+        <P> P intercept(DatasetCall<P> fetch) throws IOException, DatasetAPIException;
+    }
+
+    private static final ThreadLocal<PageInterceptor> currentInterceptor = new ThreadLocal<>();
+
+    private final PageFetcher<T> fetcher;
+    private final int pageSize;
+    private final Executor executor;
+    private final Deadline deadline;
+    private final PageInterceptor interceptor;
+
+    private Iterator<T> current = Collections.emptyIterator();
+    private Future<Page<T>> next;
+    private boolean started;
+    private boolean closed;
+
+    PagedIterator(PageFetcher<T> fetcher, int pageSize, Executor executor) {
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+        this.executor = executor;
+        this.deadline = Deadline.current();
+        this.interceptor = currentInterceptor.get();
+    }
+
+    /**
+     * Open a listing with the given interceptor applied to each of its pages. An interceptor already current on this
+     * thread is applied outside it.
+     */
+    static <T> Stream<T> openWithin(PageInterceptor interceptor, Supplier<Stream<T>> listing) {
+
+        PageInterceptor previous = currentInterceptor.get();
+        currentInterceptor.set(previous == null ? interceptor : new PageInterceptor() {
+            @Override
+            public <P> P intercept(DatasetCall<P> fetch) throws IOException, DatasetAPIException {
+                return previous.intercept(() -> interceptor.intercept(fetch));
+            }
+        });
+        try {
+            return listing.get();
+        } finally {
+            if (previous != null) {
+                currentInterceptor.set(previous);
+            } else {
+                currentInterceptor.remove();
+            }
+        }
+    }
+
+    /**
+     * A sequential stream of the listing's items, which cancels any page still being fetched when it is closed.
+     */
+    Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL),
+                false).onClose(this::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            Page<T> page;
+            if (closed) {
+                return false;
+            } else if (!started) {
+                started = true;
+                page = fetch(0);
+            } else if (next != null) {
+                page = await(next);
+                next = null;
+            } else {
+                return false;
+            }
+
+            current = page.items.iterator();
+            if (!page.isLast(pageSize)) {
+                next = prefetch(page.offset + page.items.size());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        current = Collections.emptyIterator();
+        if (next != null) {
+            next.cancel(true);
+            next = null;
+        }
+    }
+
+    private Page<T> fetch(int offset) {
+        try {
+            return fetchPage(offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (DatasetAPIException e) {
+            throw new UncheckedDatasetAPIException(e);
+        }
+    }
+
+    private Page<T> fetchPage(int offset) throws IOException, DatasetAPIException {
+        DatasetCall<Page<T>> fetch = deadline != null
+                ? () -> Deadline.callWithin(deadline, () -> fetcher.fetch(offset, pageSize))
+                : () -> fetcher.fetch(offset, pageSize);
+        return interceptor != null ? interceptor.intercept(fetch) : fetch.call();
+    }
+
+    private Future<Page<T>> prefetch(int offset) {
+        FutureTask<Page<T>> task = new FutureTask<>(() -> fetchPage(offset));
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // the client is closing, so fetch on demand and let the request fail as it would without prefetching
+            task.run();
+        }
+        return task;
+    }
+
+    private Page<T> await(Future<Page<T>> page) {
+        try {
+            return page.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            page.cancel(true);
+            throw new UncheckedIOException(
+                    new InterruptedIOException("interrupted waiting for a page of dataset-api results"));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            if (cause instanceof DatasetAPIException) {
+                throw new UncheckedDatasetAPIException((DatasetAPIException) cause);
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+}
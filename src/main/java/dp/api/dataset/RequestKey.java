@@ -0,0 +1,62 @@
+package dp.api.dataset;
+
+import java.util.Objects;
+
+/**
+ * Identifies the entity a read operation refers to. Instances are keyed by instance ID alone, datasets by dataset ID,
+ * and versions by dataset ID, edition and version.
+ */
+final class RequestKey {
+
+    private static final char INSTANCE = 'i';
+    private static final char DATASET = 'd';
+    private static final char VERSION = 'v';
+
+    private final char type;
+    private final String id;
+    private final String edition;
+    private final String version;
+
+    private RequestKey(char type, String id, String edition, String version) {
+        this.type = type;
+        this.id = id;
+        this.edition = edition;
+        this.version = version;
+    }
+
+    static RequestKey instance(String instanceID) {
+        return new RequestKey(INSTANCE, instanceID, null, null);
+    }
+
+    static RequestKey dataset(String datasetID) {
+        return new RequestKey(DATASET, datasetID, null, null);
+    }
+
+    static RequestKey version(String datasetID, String edition, String version) {
+        return new RequestKey(VERSION, datasetID, edition, version);
+    }
+
+    boolean belongsTo(String datasetID) {
+        return type != INSTANCE && Objects.equals(id, datasetID);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RequestKey)) {
+            return false;
+        }
+        RequestKey other = (RequestKey) o;
+        return type == other.type
+                && Objects.equals(id, other.id)
+                && Objects.equals(edition, other.edition)
+                && Objects.equals(version, other.version);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, id, edition, version);
+    }
+}
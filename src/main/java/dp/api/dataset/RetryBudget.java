@@ -0,0 +1,100 @@
+package dp.api.dataset;
+
+import org.apache.http.util.Args;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A token bucket that limits retries to a fraction of recent successful requests, so that during an outage each
+ * client adds little more than its normal load instead of multiplying it by the number of retries.
+ * <p>
+ * Every response that is not retryable deposits {@code retryRatio} tokens, and every retry withdraws one. The bucket
+ * starts full and holds at most {@code maxTokens}, which allows a burst of retries after a quiet period. Once it is
+ * empty, retries are shed until enough requests succeed again. One budget may be shared by several
+ * {@link RetryStrategy} instances to limit the retries they make together.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long maxTokens;
+    private final long deposit;
+    private final AtomicLong tokens;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+
+    /**
+     * @param retryRatio - The number of retries allowed for each successful request, for example 0.1 for 10%
+     * @param maxTokens  - The maximum number of retries that can be saved up
+     */
+    public RetryBudget(double retryRatio, int maxTokens) {
+        Args.check(retryRatio > 0 && retryRatio <= 1, "retryRatio must be greater than 0 and at most 1");
+        Args.positive(maxTokens, "maxTokens");
+        this.maxTokens = maxTokens * SCALE;
+        this.deposit = Math.max(1, Math.round(retryRatio * SCALE));
+        this.tokens = new AtomicLong(this.maxTokens);
+    }
+
+    /**
+     * Deposit tokens for a request that did not need retrying.
+     */
+    void recordSuccess() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current >= maxTokens) {
+                return;
+            }
+        } while (!tokens.compareAndSet(current, Math.min(maxTokens, current + deposit)));
+    }
+
+    /**
+     * Withdraw a token for a retry, or record the retry as shed if the budget is exhausted.
+     *
+     * @return true if the retry may go ahead
+     */
+    boolean tryAcquire() {
+        long current;
+        do {
+            current = tokens.get();
+            if (current < SCALE) {
+                shed.increment();
+                return false;
+            }
+        } while (!tokens.compareAndSet(current, current - SCALE));
+        retries.increment();
+        return true;
+    }
+
+    /**
+     * The number of retries that could be made now.
+     */
+    public double getAvailableTokens() {
+        return (double) tokens.get() / SCALE;
+    }
+
+    /**
+     * The number of retries allowed by the budget.
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * The number of retries skipped because the budget was exhausted.
+     */
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget{" +
+                "availableTokens=" + getAvailableTokens() +
+                ", retryCount=" + getRetryCount() +
+                ", shedCount=" + getShedCount() +
+                '}';
+    }
+}
@@ -1,35 +1,341 @@
 package dp.api.dataset;
 
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.ServiceUnavailableRetryStrategy;
+import org.apache.http.client.utils.DateUtils;
 import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.util.Args;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 /**
- * Custom implementation of ServiceUnavailableRetryStrategy to retry any HTTP 5xx responses.
+ * Custom implementation of ServiceUnavailableRetryStrategy to retry any HTTP 5xx and 429 responses.
+ * <p>
+ * Strategies created with {@link #builder()} back off exponentially from a base interval up to a maximum, with
+ * optional jitter so that many clients failing at the same moment do not all retry at the same moment. A Retry-After
+ * header on a 503 or 429 response is used instead of the computed interval, and no retry is made once the total time
+ * spent waiting for a request would exceed the configured limit, or once the retry could not start before the
+ * caller's {@link Deadline}. Retries are also drawn from a {@link RetryBudget}, so a prolonged outage does not
+ * multiply the load on the dataset API. Strategies created with a constructor retry after a fixed interval, without a
+ * budget.
+ * <p>
+ * HttpClient asks for the retry interval straight after deciding to retry, on the same thread, without passing the
+ * response or context. The interval worked out for the response is therefore handed over in a thread local.
  */
 public class RetryStrategy implements ServiceUnavailableRetryStrategy {
 
+    static final int DEFAULT_MAX_RETRIES = 3;
+    static final long DEFAULT_RETRY_INTERVAL_MS = 20;
+
+    static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private static final String RETRY_STARTED_AT = "dp.retry.started-at";
+    private static final String PREVIOUS_INTERVAL = "dp.retry.previous-interval";
+
+    /**
+     * How the computed interval is randomised.
+     */
+    public enum Jitter {
+
+        /**
+         * Wait the exponential interval exactly.
+         */
+        NONE,
+
+        /**
+         * Wait a random time between zero and the exponential interval.
+         */
+        FULL,
+
+        /**
+         * Wait a random time between the base interval and three times the previous interval.
+         */
+        DECORRELATED
+    }
+
     private final int maxRetries;
-    private final long retryIntervalMs;
+    private final long baseIntervalMs;
+    private final long maxIntervalMs;
+    private final long maxTotalRetryTimeMs;
+    private final Jitter jitter;
+    private final RetryBudget retryBudget;
+    private final MetricsListener metricsListener;
+    private final LongSupplier currentTimeMillis;
 
-    public RetryStrategy(int maxRetries, long retryIntervalMs) {
+    private final ThreadLocal<Long> nextInterval = new ThreadLocal<>();
+
+    /**
+     * @param maxRetries      - The maximum number of times a request is retried
+     * @param retryIntervalMs - The time to wait before each retry
+     * @param metricsListener - Notified of each retry
+     */
+    public RetryStrategy(int maxRetries, long retryIntervalMs, MetricsListener metricsListener) {
         this.maxRetries = maxRetries;
-        this.retryIntervalMs = retryIntervalMs;
+        this.baseIntervalMs = retryIntervalMs;
+        this.maxIntervalMs = retryIntervalMs;
+        this.maxTotalRetryTimeMs = Long.MAX_VALUE;
+        this.jitter = Jitter.NONE;
+        this.retryBudget = null;
+        this.metricsListener = Args.notNull(metricsListener, "metricsListener");
+        this.currentTimeMillis = System::currentTimeMillis;
+    }
+
+    public RetryStrategy(int maxRetries, long retryIntervalMs) {
+        this(maxRetries, retryIntervalMs, MetricsListener.NOOP);
     }
 
     public RetryStrategy() {
-        this(3, 20);
+        this(DEFAULT_MAX_RETRIES, DEFAULT_RETRY_INTERVAL_MS);
+    }
+
+    private RetryStrategy(Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.baseIntervalMs = builder.baseIntervalMs;
+        this.maxIntervalMs = builder.maxIntervalMs;
+        this.maxTotalRetryTimeMs = builder.maxTotalRetryTimeMs;
+        this.jitter = builder.jitter;
+        this.retryBudget = builder.retryBudget;
+        this.metricsListener = builder.metricsListener;
+        this.currentTimeMillis = builder.currentTimeMillis;
+    }
+
+    /**
+     * Create a new builder for a RetryStrategy with exponential backoff.
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     @Override
     public boolean retryRequest(HttpResponse response, int executionCount, HttpContext context) {
-        return executionCount <= maxRetries &&
-                response.getStatusLine().getStatusCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (!isRetryable(statusCode)) {
+            if (retryBudget != null) {
+                retryBudget.recordSuccess();
+            }
+            return false;
+        }
+        if (executionCount > maxRetries) {
+            return false;
+        }
+
+        long now = currentTimeMillis.getAsLong();
+        long startedAt = startedAt(context, now);
+
+        long interval = retryAfterMs(response, now);
+        if (interval < 0) {
+            interval = backoffMs(executionCount, context);
+        }
+        if (interval == Long.MAX_VALUE || interval > maxTotalRetryTimeMs - (now - startedAt)) {
+            return false;
+        }
+
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.remaining(TimeUnit.MILLISECONDS) <= interval) {
+            return false;
+        }
+
+        if (retryBudget != null && !retryBudget.tryAcquire()) {
+            if (metricsListener != MetricsListener.NOOP) {
+                DatasetOperation operation = operationOf(context);
+                if (operation != null) {
+                    metricsListener.retryShed(operation, statusCode);
+                }
+            }
+            return false;
+        }
+
+        nextInterval.set(interval);
+        if (metricsListener != MetricsListener.NOOP) {
+            DatasetOperation operation = operationOf(context);
+            if (operation != null) {
+                metricsListener.requestRetried(operation, statusCode);
+            }
+        }
+        return true;
     }
 
     @Override
     public long getRetryInterval() {
-        return retryIntervalMs;
+        Long interval = nextInterval.get();
+        if (interval == null) {
+            return baseIntervalMs;
+        }
+        nextInterval.remove();
+        return interval;
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        return statusCode >= HttpStatus.SC_INTERNAL_SERVER_ERROR || statusCode == SC_TOO_MANY_REQUESTS;
+    }
+
+    private static long startedAt(HttpContext context, long now) {
+        if (context == null) {
+            return now;
+        }
+        Object startedAt = context.getAttribute(RETRY_STARTED_AT);
+        if (startedAt == null) {
+            context.setAttribute(RETRY_STARTED_AT, now);
+            return now;
+        }
+        return (Long) startedAt;
+    }
+
+    /**
+     * The wait requested by a Retry-After header on a 503 or 429 response, or -1 if there is none.
+     */
+    static long retryAfterMs(HttpResponse response, long now) {
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode != HttpStatus.SC_SERVICE_UNAVAILABLE && statusCode != SC_TOO_MANY_REQUESTS) {
+            return -1;
+        }
+
+        Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null || header.getValue() == null) {
+            return -1;
+        }
+
+        String value = header.getValue().trim();
+        if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+            try {
+                return Math.multiplyExact(Long.parseLong(value), 1000L);
+            } catch (NumberFormatException | ArithmeticException e) {
+                // Saturate rather than wrap around, so that a wait too long to count is refused, not retried at once.
+                return Long.MAX_VALUE;
+            }
+        }
+        Date date = DateUtils.parseDate(value);
+        return date != null ? Math.max(0, date.getTime() - now) : -1;
+    }
+
+    private long backoffMs(int executionCount, HttpContext context) {
+        int doublings = Math.min(executionCount - 1, 62);
+        long exponential = baseIntervalMs <= (maxIntervalMs >> doublings)
+                ? baseIntervalMs << doublings : maxIntervalMs;
+
+        switch (jitter) {
+            case FULL:
+                return ThreadLocalRandom.current().nextLong(exponential + 1);
+            case DECORRELATED:
+                Object previous = context != null ? context.getAttribute(PREVIOUS_INTERVAL) : null;
+                long previousMs = previous != null ? (Long) previous : baseIntervalMs;
+                long upper = Math.min(maxIntervalMs, 3 * previousMs);
+                long interval = upper > baseIntervalMs
+                        ? ThreadLocalRandom.current().nextLong(baseIntervalMs, upper + 1) : upper;
+                if (context != null) {
+                    context.setAttribute(PREVIOUS_INTERVAL, interval);
+                }
+                return interval;
+            default:
+                return exponential;
+        }
+    }
+
+    private static DatasetOperation operationOf(HttpContext context) {
+        if (context == null) {
+            return null;
+        }
+        HttpRequest request = HttpCoreContext.adapt(context).getRequest();
+        return request != null ? DatasetOperation.of(request) : null;
+    }
+
+    /**
+     * Builder for a RetryStrategy with exponential backoff.
+     */
+    public static class Builder {
+
+        private static final long DEFAULT_BASE_INTERVAL_MS = 50;
+        private static final long DEFAULT_MAX_INTERVAL_MS = 2000;
+        private static final long DEFAULT_MAX_TOTAL_RETRY_TIME_MS = 5000;
+        private static final double DEFAULT_RETRY_RATIO = 0.1;
+        private static final int DEFAULT_MAX_RETRY_TOKENS = 10;
+
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+        private long baseIntervalMs = DEFAULT_BASE_INTERVAL_MS;
+        private long maxIntervalMs = DEFAULT_MAX_INTERVAL_MS;
+        private long maxTotalRetryTimeMs = DEFAULT_MAX_TOTAL_RETRY_TIME_MS;
+        private Jitter jitter = Jitter.FULL;
+        private RetryBudget retryBudget = new RetryBudget(DEFAULT_RETRY_RATIO, DEFAULT_MAX_RETRY_TOKENS);
+        private MetricsListener metricsListener = MetricsListener.NOOP;
+        private LongSupplier currentTimeMillis = System::currentTimeMillis;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxRetries - The maximum number of times a request is retried
+         */
+        public Builder maxRetries(int maxRetries) {
+            this.maxRetries = Args.notNegative(maxRetries, "maxRetries");
+            return this;
+        }
+
+        /**
+         * @param baseIntervalMs - The interval before the first retry, doubled for each retry after that
+         */
+        public Builder baseIntervalMs(long baseIntervalMs) {
+            this.baseIntervalMs = Args.positive(baseIntervalMs, "baseIntervalMs");
+            return this;
+        }
+
+        /**
+         * @param maxIntervalMs - The longest interval before any one retry, unless a Retry-After header asks for more
+         */
+        public Builder maxIntervalMs(long maxIntervalMs) {
+            this.maxIntervalMs = Args.positive(maxIntervalMs, "maxIntervalMs");
+            return this;
+        }
+
+        /**
+         * @param maxTotalRetryTimeMs - The longest a request may spend between its first failure and its last retry
+         */
+        public Builder maxTotalRetryTimeMs(long maxTotalRetryTimeMs) {
+            this.maxTotalRetryTimeMs = Args.notNegative(maxTotalRetryTimeMs, "maxTotalRetryTimeMs");
+            return this;
+        }
+
+        /**
+         * @param jitter - How the exponential interval is randomised
+         */
+        public Builder jitter(Jitter jitter) {
+            this.jitter = Args.notNull(jitter, "jitter");
+            return this;
+        }
+
+        /**
+         * @param retryBudget - The budget retries are drawn from, which may be shared with other strategies, or null
+         *                    to retry without a budget. Defaults to a budget of its own allowing retries of 10% of
+         *                    successful requests.
+         */
+        public Builder retryBudget(RetryBudget retryBudget) {
+            this.retryBudget = retryBudget;
+            return this;
+        }
+
+        /**
+         * @param metricsListener - Notified of each retry
+         */
+        public Builder metricsListener(MetricsListener metricsListener) {
+            this.metricsListener = Args.notNull(metricsListener, "metricsListener");
+            return this;
+        }
+
+        Builder currentTimeMillis(LongSupplier currentTimeMillis) {
+            this.currentTimeMillis = currentTimeMillis;
+            return this;
+        }
+
+        public RetryStrategy build() {
+            Args.check(maxIntervalMs >= baseIntervalMs, "maxIntervalMs must not be less than baseIntervalMs");
+            return new RetryStrategy(this);
+        }
     }
 }
@@ -0,0 +1,89 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.exception.DeadlineExceededException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collapses concurrent calls for the same key into a single call. The first caller for a key makes the call, and
+ * any caller arriving while it is in flight waits for and shares its result or exception. Waiting callers each
+ * receive their own copy of the resulting model, made from a {@link ModelSnapshot} taken when the call completes. A waiting caller with a
+ * {@link Deadline} stops waiting once its own deadline passes, whatever the deadline of the caller making the call.
+ */
+final class SingleFlight<K> {
+
+    private final ConcurrentMap<K, Flight<?>> flights = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    <T> T execute(K key, DatasetCall<T> call) throws IOException, DatasetAPIException {
+
+        Flight<T> flight = new Flight<>();
+        Flight<T> existing = (Flight<T>) flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            return existing.await();
+        }
+
+        try {
+            T value = call.call();
+            flight.result.complete(value != null ? ModelSnapshot.of(value) : null);
+            return value;
+        } catch (IOException | DatasetAPIException | RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * The number of callers currently waiting on the in-flight call for the key, not counting the caller making it.
+     */
+    int waiters(K key) {
+        Flight<?> flight = flights.get(key);
+        return flight != null ? flight.waiters.get() : 0;
+    }
+
+    private static final class Flight<T> {
+
+        private final CompletableFuture<ModelSnapshot<T>> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        private T await() throws IOException, DatasetAPIException {
+            Deadline deadline = Deadline.current();
+            waiters.incrementAndGet();
+            try {
+                ModelSnapshot<T> snapshot = deadline == null ? result.get()
+                        : result.get(Math.max(0, deadline.remaining(TimeUnit.NANOSECONDS)), TimeUnit.NANOSECONDS);
+                return snapshot != null ? snapshot.model() : null;
+            } catch (TimeoutException e) {
+                throw new DeadlineExceededException("deadline exceeded waiting for an in-flight dataset-api request");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted waiting for an in-flight dataset-api request");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof DatasetAPIException) {
+                    throw (DatasetAPIException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw (Error) cause;
+            } finally {
+                waiters.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package dp.api.dataset;
+
+import java.io.IOException;
+
+/**
+ * Supplies an auth token for each request to the dataset API, so that tokens can be rotated without creating a new
+ * client. Called on every request, so implementations that fetch tokens should cache them, as
+ * {@link CachingTokenProvider} does.
+ */
+@FunctionalInterface
+public interface TokenProvider {
+
+    /**
+     * The token to send with the next request, or null to send the header without a value.
+     *
+     * @throws IOException if no token could be obtained
+     */
+    String getToken() throws IOException;
+
+    /**
+     * A provider that always returns the same token.
+     */
+    static TokenProvider of(String token) {
+        return () -> token;
+    }
+}
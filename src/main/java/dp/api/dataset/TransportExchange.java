@@ -0,0 +1,173 @@
+package dp.api.dataset;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Converts between the Apache requests and responses that DatasetAPIClient works with and the transport-neutral
+ * {@link TransportRequest} and {@link TransportResponse}, so that the request builders and response handlers are the
+ * same whichever {@link HttpTransport} is used.
+ */
+final class TransportExchange {
+
+    private TransportExchange() {
+    }
+
+    static TransportRequest toTransportRequest(HttpUriRequest req, long timeoutMs) throws IOException {
+
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (Header header : req.getAllHeaders()) {
+            if (header.getValue() != null) {
+                add(headers, header.getName(), header.getValue());
+            }
+        }
+
+        byte[] body = null;
+        if (req instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) req).getEntity();
+            if (entity != null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                entity.writeTo(out);
+                body = out.toByteArray();
+                if (entity.getContentType() != null && !headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
+                    add(headers, HttpHeaders.CONTENT_TYPE, entity.getContentType().getValue());
+                }
+                if (entity.getContentEncoding() != null && !headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+                    add(headers, HttpHeaders.CONTENT_ENCODING, entity.getContentEncoding().getValue());
+                }
+            }
+        }
+
+        return new TransportRequest(req.getMethod(), req.getURI(), headers, body, timeoutMs);
+    }
+
+    static CloseableHttpResponse toHttpResponse(TransportResponse response) throws IOException {
+        return new TransportHttpResponse(response);
+    }
+
+    /**
+     * Abort the response when the deadline passes, unless it is closed first, so that reading the body can not outlast
+     * the deadline.
+     */
+    static TransportResponse abortedAt(Deadline deadline, TransportResponse response) {
+        return new DeadlineResponse(response, deadline.schedule(() -> abortQuietly(response)));
+    }
+
+    /**
+     * Abort the response, leaving the failure to whoever is reading the body.
+     */
+    static void abortQuietly(TransportResponse response) {
+        try {
+            response.abort();
+        } catch (IOException | RuntimeException e) {
+            // the reader sees the failure
+        }
+    }
+
+    private static void add(Map<String, List<String>> headers, String name, String value) {
+        headers.computeIfAbsent(name, n -> new ArrayList<>(1)).add(value);
+    }
+
+    /**
+     * A transport response that cancels its deadline when it is closed.
+     */
+    private static class DeadlineResponse implements TransportResponse {
+
+        private final TransportResponse response;
+        private final ScheduledFuture<?> abort;
+
+        private DeadlineResponse(TransportResponse response, ScheduledFuture<?> abort) {
+            this.response = response;
+            this.abort = abort;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public void close() throws IOException {
+            abort.cancel(false);
+            response.close();
+        }
+
+        @Override
+        public void abort() throws IOException {
+            response.abort();
+        }
+    }
+
+    /**
+     * An Apache response backed by a transport response, with the body streamed from the transport.
+     */
+    private static class TransportHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        private final TransportResponse response;
+
+        private TransportHttpResponse(TransportResponse response) throws IOException {
+            super(new BasicStatusLine(HttpVersion.HTTP_1_1, response.getStatusCode(),
+                    EnglishReasonPhraseCatalog.INSTANCE.getReason(response.getStatusCode(), Locale.ENGLISH)));
+            this.response = response;
+
+            for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+                for (String value : header.getValue()) {
+                    addHeader(header.getKey(), value);
+                }
+            }
+
+            BasicHttpEntity entity = new BasicHttpEntity();
+            entity.setContent(response.getBody());
+            entity.setContentLength(contentLength());
+            entity.setContentType(getFirstHeader(HttpHeaders.CONTENT_TYPE));
+            entity.setContentEncoding(getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+            setEntity(entity);
+        }
+
+        private long contentLength() {
+            Header contentLength = getFirstHeader(HttpHeaders.CONTENT_LENGTH);
+            if (contentLength == null) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(contentLength.getValue().trim());
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            response.close();
+        }
+    }
+}
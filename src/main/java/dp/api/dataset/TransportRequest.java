@@ -0,0 +1,67 @@
+package dp.api.dataset;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An HTTP request to be sent by an {@link HttpTransport}.
+ */
+public final class TransportRequest {
+
+    private final String method;
+    private final URI uri;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+    private final long timeoutMs;
+
+    TransportRequest(String method, URI uri, Map<String, List<String>> headers, byte[] body, long timeoutMs) {
+        this.method = method;
+        this.uri = uri;
+        this.headers = Collections.unmodifiableMap(headers);
+        this.body = body;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * A copy of this request with a different timeout, for a retry.
+     */
+    TransportRequest withTimeoutMs(long timeoutMs) {
+        return new TransportRequest(method, uri, headers, body, timeoutMs);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    /**
+     * The request headers, in the order they were added.
+     */
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * The request body, or null if the request has none. The array must not be modified.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * The time left for the whole exchange before the caller's {@link Deadline}, or 0 if the call has no deadline.
+     */
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    @Override
+    public String toString() {
+        return "TransportRequest{" + method + " " + uri + '}';
+    }
+}
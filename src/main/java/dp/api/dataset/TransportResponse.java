@@ -0,0 +1,34 @@
+package dp.api.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The response to a {@link TransportRequest}. Closing the response releases its connection.
+ */
+public interface TransportResponse extends Closeable {
+
+    int getStatusCode();
+
+    /**
+     * The response headers. Names may be in any case.
+     */
+    Map<String, List<String>> getHeaders();
+
+    /**
+     * The response body, which is empty if the response has none.
+     */
+    InputStream getBody() throws IOException;
+
+    /**
+     * Abandon the response without reading the rest of the body. This is called from another thread when the caller's
+     * deadline passes while the body is still being read, so it must not block, and a read in progress should fail
+     * rather than wait. The response is still closed afterwards. Closes the response by default.
+     */
+    default void abort() throws IOException {
+        close();
+    }
+}
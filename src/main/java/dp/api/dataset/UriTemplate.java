@@ -0,0 +1,153 @@
+package dp.api.dataset;
+
+import org.apache.http.util.Args;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A URI template such as "/datasets/{datasetID}/editions/{edition}", split once into its literal parts so that
+ * expanding it is a single pass into a presized buffer. Values are percent-encoded as UTF-8, as path segments or as
+ * query values depending on where the variable is, so IDs containing reserved characters such as '/', '?' or '#' stay
+ * within their own segment.
+ * <p>
+ * The expanded path is resolved against the dataset API URL in the same way as {@link URI#resolve(String)}: it
+ * replaces any path of the URL. Only the path is parsed for each request, since parsing the scheme and authority
+ * again every time costs more than the rest of the expansion.
+ */
+final class UriTemplate {
+
+    private static final char[] hexDigits = "0123456789ABCDEF".toCharArray();
+    private static final boolean[] pathSafe = safeCharacters("-._~!$&'()*+,;=:@");
+    private static final boolean[] querySafe = safeCharacters("-._~!$'()*,;:@/?");
+
+    private final URI origin;
+    private final String[] literals;
+    private final boolean[] inQuery;
+    private final int literalLength;
+
+    private UriTemplate(URI origin, String[] literals, boolean[] inQuery) {
+        this.origin = origin;
+        this.literals = literals;
+        this.inQuery = inQuery;
+
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compile a template, with variables in braces, against the base URL of the dataset API.
+     */
+    static UriTemplate compile(URI baseURL, String template) {
+        Args.check(template.startsWith("/"), "a URI template must start with '/'");
+
+        List<String> literals = new ArrayList<>();
+        List<Boolean> inQuery = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int position = 0;
+        while (position < template.length()) {
+            int open = template.indexOf('{', position);
+            if (open < 0) {
+                literal.append(template, position, template.length());
+                break;
+            }
+            int close = template.indexOf('}', open);
+            Args.check(close > open + 1, "unterminated or empty variable in URI template " + template);
+
+            literal.append(template, position, open);
+            literals.add(literal.toString());
+            inQuery.add(template.lastIndexOf('?', open) >= 0);
+            literal.setLength(0);
+            position = close + 1;
+        }
+        literals.add(literal.toString());
+
+        boolean[] queryFlags = new boolean[inQuery.size()];
+        for (int i = 0; i < queryFlags.length; i++) {
+            queryFlags[i] = inQuery.get(i);
+        }
+        return new UriTemplate(baseURL.resolve("/"), literals.toArray(new String[0]), queryFlags);
+    }
+
+    /**
+     * Expand the template with one value for each variable, in order.
+     */
+    URI expand(String... values) {
+        Args.check(values.length == inQuery.length,
+                "expected " + inQuery.length + " URI template values but got " + values.length);
+
+        StringBuilder path = new StringBuilder(literalLength + 16 * values.length);
+        for (int i = 0; i < values.length; i++) {
+            path.append(literals[i]);
+            appendEncoded(path, values[i], inQuery[i] ? querySafe : pathSafe);
+        }
+        path.append(literals[values.length]);
+        return origin.resolve(URI.create(path.toString()));
+    }
+
+    /**
+     * Append a value, percent-encoding any character that is not safe where the value is placed.
+     */
+    private static void appendEncoded(StringBuilder out, String value, boolean[] safe) {
+        if (value.equals(".") || value.equals("..")) {
+            // dot segments would be removed when the path is normalised
+            for (int i = 0; i < value.length(); i++) {
+                appendByte(out, '.');
+            }
+            return;
+        }
+
+        int length = value.length();
+        for (int i = 0; i < length; ) {
+            char c = value.charAt(i);
+            if (c < 128 && safe[c]) {
+                out.append(c);
+                i++;
+                continue;
+            }
+
+            int codePoint = value.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (codePoint < 0x80) {
+                appendByte(out, codePoint);
+            } else if (codePoint < 0x800) {
+                appendByte(out, 0xC0 | (codePoint >> 6));
+                appendByte(out, 0x80 | (codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                appendByte(out, 0xE0 | (codePoint >> 12));
+                appendByte(out, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendByte(out, 0x80 | (codePoint & 0x3F));
+            } else {
+                appendByte(out, 0xF0 | (codePoint >> 18));
+                appendByte(out, 0x80 | ((codePoint >> 12) & 0x3F));
+                appendByte(out, 0x80 | ((codePoint >> 6) & 0x3F));
+                appendByte(out, 0x80 | (codePoint & 0x3F));
+            }
+        }
+    }
+
+    private static void appendByte(StringBuilder out, int b) {
+        out.append('%').append(hexDigits[(b >> 4) & 0xF]).append(hexDigits[b & 0xF]);
+    }
+
+    private static boolean[] safeCharacters(String punctuation) {
+        boolean[] safe = new boolean[128];
+        for (char c = 'a'; c <= 'z'; c++) {
+            safe[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            safe[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            safe[c] = true;
+        }
+        for (char c : punctuation.toCharArray()) {
+            safe[c] = true;
+        }
+        return safe;
+    }
+}
@@ -0,0 +1,120 @@
+package dp.api.dataset;
+
+import org.apache.http.util.Args;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in cache of parsed GET responses, keyed by request URI and stored with the ETag and Last-Modified validators
+ * returned by the dataset API. When configured on a {@link DatasetAPIClient} the client revalidates cached entries
+ * with If-None-Match / If-Modified-Since, and returns the cached model on a 304 without reading a body.
+ * <p>
+ * Responses are held as snapshots of their parsed tokens, and every 304 returns a new copy of the model, so callers
+ * may change the models they are given. The copy is bound from the buffered tokens of the fields the model maps,
+ * without reading or tokenizing any JSON text. Responses with no model, such as a dataset with no next document, are
+ * not cached.
+ */
+public class ValidatingResponseCache {
+
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private final int maxEntries;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+
+    /**
+     * @param maxEntries - The maximum number of responses to keep. Once full, an arbitrary entry is dropped to make
+     *                   room for each new one.
+     */
+    public ValidatingResponseCache(int maxEntries) {
+        this.maxEntries = Args.positive(maxEntries, "maxEntries");
+    }
+
+    public ValidatingResponseCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * The number of requests that were sent with validators from a cached entry.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * The number of requests that had no cached entry to revalidate.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * The number of requests answered with a 304 and served from the cache.
+     */
+    public long getNotModifiedCount() {
+        return notModified.sum();
+    }
+
+    /**
+     * The number of responses currently cached.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Remove all cached responses.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    Entry lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return entry;
+    }
+
+    void recordNotModified() {
+        notModified.increment();
+    }
+
+    void store(String key, String etag, String lastModified, Object value) {
+        if (value == null || (etag == null && lastModified == null)) {
+            entries.remove(key);
+            return;
+        }
+
+        if (!entries.containsKey(key) && entries.size() >= maxEntries) {
+            Iterator<String> keys = entries.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        entries.put(key, new Entry(etag, lastModified, ModelSnapshot.of(value)));
+    }
+
+    static final class Entry {
+
+        final String etag;
+        final String lastModified;
+        final ModelSnapshot<?> value;
+
+        private Entry(String etag, String lastModified, ModelSnapshot<?> value) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package dp.api.dataset.exception;
+
+/**
+ * Thrown without calling the dataset API while the circuit breaker for the operation is open.
+ */
+public class CircuitBreakerOpenException extends DatasetAPIException {
+
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+}
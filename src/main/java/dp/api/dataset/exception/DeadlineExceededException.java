@@ -0,0 +1,11 @@
+package dp.api.dataset.exception;
+
+/**
+ * Thrown when a call does not complete, including any retries, before the caller's deadline.
+ */
+public class DeadlineExceededException extends DatasetAPIException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package dp.api.dataset.exception;
+
+/**
+ * Thrown when a conditional update is rejected because the resource has changed since its ETag was read.
+ */
+public class PreconditionFailedException extends DatasetAPIException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
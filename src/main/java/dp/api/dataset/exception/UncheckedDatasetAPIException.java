@@ -0,0 +1,16 @@
+package dp.api.dataset.exception;
+
+/**
+ * Wraps a DatasetAPIException thrown where checked exceptions can not be, such as while iterating over a listing.
+ */
+public class UncheckedDatasetAPIException extends RuntimeException {
+
+    public UncheckedDatasetAPIException(DatasetAPIException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized DatasetAPIException getCause() {
+        return (DatasetAPIException) super.getCause();
+    }
+}
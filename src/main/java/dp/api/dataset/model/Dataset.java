@@ -1,5 +1,6 @@
 package dp.api.dataset.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
@@ -30,6 +31,9 @@ public class Dataset {
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private String description;
 
+    @JsonIgnore
+    private String etag;
+
     public String getId() {
         return id;
     }
@@ -85,5 +89,16 @@ public class Dataset {
     public void setDescription(String description) {
         this.description = description;
     }
-}
 
+    /**
+     * The ETag the dataset API returned with this model, or null if it sent none. Pass it to a conditional update
+     * to make the update fail if the model has been changed by someone else since it was read.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+}
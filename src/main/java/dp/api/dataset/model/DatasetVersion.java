@@ -1,5 +1,6 @@
 package dp.api.dataset.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
@@ -27,6 +28,9 @@ public class DatasetVersion {
     @JsonInclude(JsonInclude.Include.NON_NULL)
     private DatasetLinks links;
 
+    @JsonIgnore
+    private String etag;
+
     public String getId() {
         return id;
     }
@@ -82,4 +86,16 @@ public class DatasetVersion {
     public void setLinks(DatasetLinks links) {
         this.links = links;
     }
+
+    /**
+     * The ETag the dataset API returned with this model, or null if it sent none. Pass it to a conditional update
+     * to make the update fail if the model has been changed by someone else since it was read.
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
 }
@@ -0,0 +1,55 @@
+package dp.api.dataset.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The model of an edition of a dataset as provided by the dataset API.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class Edition {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String id;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String edition;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private State state;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private EditionLinks links;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEdition() {
+        return edition;
+    }
+
+    public void setEdition(String edition) {
+        this.edition = edition;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public EditionLinks getLinks() {
+        return links;
+    }
+
+    public void setLinks(EditionLinks links) {
+        this.links = links;
+    }
+}
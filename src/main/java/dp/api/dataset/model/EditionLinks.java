@@ -0,0 +1,55 @@
+package dp.api.dataset.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The model of the links of an edition as provided by the dataset API.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EditionLinks {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Link self;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Link dataset;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Link versions;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Link latest_version;
+
+    public Link getSelf() {
+        return self;
+    }
+
+    public void setSelf(Link self) {
+        this.self = self;
+    }
+
+    public Link getDataset() {
+        return dataset;
+    }
+
+    public void setDataset(Link dataset) {
+        this.dataset = dataset;
+    }
+
+    public Link getVersions() {
+        return versions;
+    }
+
+    public void setVersions(Link versions) {
+        this.versions = versions;
+    }
+
+    public Link getLatest_version() {
+        return latest_version;
+    }
+
+    public void setLatest_version(Link latest_version) {
+        this.latest_version = latest_version;
+    }
+}
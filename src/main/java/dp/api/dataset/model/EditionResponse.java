@@ -0,0 +1,41 @@
+package dp.api.dataset.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EditionResponse {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String id;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Edition current;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Edition next;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Edition getCurrent() {
+        return current;
+    }
+
+    public void setCurrent(Edition current) {
+        this.current = current;
+    }
+
+    public Edition getNext() {
+        return next;
+    }
+
+    public void setNext(Edition next) {
+        this.next = next;
+    }
+}
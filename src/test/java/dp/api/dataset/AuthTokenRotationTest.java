@@ -0,0 +1,122 @@
+package dp.api.dataset;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AuthTokenRotationTest {
+
+    private static final byte[] datasetBody = "{\"id\":\"321\"}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private final List<String> tokens = new CopyOnWriteArrayList<>();
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/datasets/", exchange -> {
+            tokens.add(exchange.getRequestHeaders().getFirst("Internal-token") + "/"
+                    + exchange.getRequestHeaders().getFirst("Authorization"));
+            connections.add(exchange.getRemoteAddress());
+            exchange.sendResponseHeaders(200, datasetBody.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(datasetBody);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testGetDataset_rotatingToken_newTokenSentOnSameConnection() throws Exception {
+
+        // Given a client whose dataset API token is rotated between calls
+        AtomicInteger rotation = new AtomicInteger(1);
+        try (DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL(url())
+                .datasetAPIAuthToken(() -> "token-" + rotation.get())
+                .serviceAuthToken("service")
+                .build()) {
+
+            // When datasets are requested before and after the rotation
+            client.getDataset("321");
+            rotation.incrementAndGet();
+            client.getDataset("321");
+
+            // Then each request carries the current token over the same pooled connection
+            assertEquals("token-1/service", tokens.get(0));
+            assertEquals("token-2/service", tokens.get(1));
+            assertEquals(1, connections.size());
+        }
+    }
+
+    @Test
+    public void testWithAuthTokens_perCallTokens_shareConnectionPool() throws Exception {
+
+        // Given a client created once with service tokens
+        try (DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL(url())
+                .datasetAPIAuthToken("service")
+                .serviceAuthToken("service")
+                .build()) {
+
+            // When calls are made on behalf of two users with their own tokens, closing each view afterwards
+            try (DatasetAPIClient alice = client.withAuthTokens("alice", "service")) {
+                alice.getDataset("321");
+            }
+            try (DatasetAPIClient bob = client.withAuthTokens("bob", "service")) {
+                bob.getDataset("321");
+            }
+            client.getDataset("321");
+
+            // Then each call carries its own token, and the views reuse the parent's open connection
+            assertEquals("alice/service", tokens.get(0));
+            assertEquals("bob/service", tokens.get(1));
+            assertEquals("service/service", tokens.get(2));
+            assertEquals(1, connections.size());
+            assertEquals(1, client.getPoolStats().getAvailable());
+        }
+    }
+
+    @Test
+    public void testGetDataset_tokenUnavailable_ioExceptionThrown() throws Exception {
+
+        // Given a token provider that cannot obtain a token
+        try (DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL(url())
+                .datasetAPIAuthToken(() -> {
+                    throw new IOException("identity service unavailable");
+                })
+                .build()) {
+
+            // When a dataset is requested, then the failure is thrown without sending a request
+            assertThrows(IOException.class, () -> client.getDataset("321"));
+            assertEquals(0, tokens.size());
+        }
+    }
+
+    private String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,163 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetNotFoundException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Instance;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingDatasetClientTest {
+
+    private static final String instanceID = "123";
+    private static final String datasetID = "321";
+    private static final String edition = "current";
+    private static final String version = "1";
+
+    @Test
+    public void testCachingClient_getDataset_cached() throws Exception {
+
+        // Given a caching client
+        DatasetClient mockClient = mock(DatasetClient.class);
+        Dataset dataset = new Dataset();
+        dataset.setTitle("CPI");
+        dataset.setEtag("\"1\"");
+        when(mockClient.getDataset(datasetID)).thenReturn(dataset);
+        CachingDatasetClient client = CachingDatasetClient.builder(mockClient).build();
+
+        // When getDataset is called twice, and the first caller changes the dataset it was given
+        Dataset first = client.getDataset(datasetID);
+        first.setTitle("changed");
+        Dataset second = client.getDataset(datasetID);
+
+        // Then the dataset API is only called once
+        assertSame(dataset, first);
+        verify(mockClient, times(1)).getDataset(datasetID);
+
+        // Then the cached copy does not have the first caller's change
+        assertNotSame(first, second);
+        assertEquals("CPI", second.getTitle());
+        assertEquals("\"1\"", second.getEtag());
+
+        CacheStats stats = client.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0.5, stats.getHitRatio(), 0.001);
+    }
+
+    @Test
+    public void testCachingClient_getInstance_expires() throws Exception {
+
+        // Given a caching client with a one minute instance ttl
+        AtomicLong now = new AtomicLong();
+        DatasetClient mockClient = mock(DatasetClient.class);
+        when(mockClient.getInstance(instanceID)).thenReturn(new Instance());
+        CachingDatasetClient client = CachingDatasetClient.builder(mockClient)
+                .instanceTtl(1, TimeUnit.MINUTES)
+                .nanoTime(now::get)
+                .build();
+
+        // When getInstance is called before and after the ttl has passed
+        client.getInstance(instanceID);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        client.getInstance(instanceID);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        client.getInstance(instanceID);
+
+        // Then the expired entry is fetched again
+        verify(mockClient, times(2)).getInstance(instanceID);
+        assertEquals(1, client.stats().getExpiredCount());
+    }
+
+    @Test
+    public void testCachingClient_updateDataset_invalidates() throws Exception {
+
+        // Given a cached dataset
+        DatasetClient mockClient = mock(DatasetClient.class);
+        when(mockClient.getDataset(datasetID)).thenReturn(new Dataset());
+        CachingDatasetClient client = CachingDatasetClient.builder(mockClient).build();
+        client.getDataset(datasetID);
+
+        // When the dataset is updated through the caching client
+        client.updateDataset(datasetID, new Dataset());
+        client.getDataset(datasetID);
+
+        // Then the next read goes to the dataset API
+        verify(mockClient, times(2)).getDataset(datasetID);
+    }
+
+    @Test
+    public void testCachingClient_deleteDataset_invalidatesVersions() throws Exception {
+
+        // Given a cached dataset and version
+        DatasetClient mockClient = mock(DatasetClient.class);
+        when(mockClient.getDataset(datasetID)).thenReturn(new Dataset());
+        when(mockClient.getDatasetVersion(datasetID, edition, version)).thenReturn(new DatasetVersion());
+        CachingDatasetClient client = CachingDatasetClient.builder(mockClient).build();
+        client.getDataset(datasetID);
+        client.getDatasetVersion(datasetID, edition, version);
+
+        // When the dataset is deleted
+        client.deleteDataset(datasetID);
+
+        // Then both the dataset and its versions are removed from the cache
+        assertEquals(0, client.stats().getSize());
+    }
+
+    @Test
+    public void testCachingClient_updateDatasetVersion_invalidates() throws Exception {
+
+        // Given a cached version
+        DatasetClient mockClient = mock(DatasetClient.class);
+        when(mockClient.getDatasetVersion(datasetID, edition, version)).thenReturn(new DatasetVersion());
+        CachingDatasetClient client = CachingDatasetClient.builder(mockClient).build();
+        client.getDatasetVersion(datasetID, edition, version);
+
+        // When the version is updated
+        client.updateDatasetVersion(datasetID, edition, version, new DatasetVersion());
+        client.getDatasetVersion(datasetID, edition, version);
+
+        // Then the next read goes to the dataset API
+        verify(mockClient, times(2)).getDatasetVersion(datasetID, edition, version);
+    }
+
+    @Test
+    public void testCachingClient_exceptionsNotCached() throws Exception {
+
+        // Given a dataset that does not exist
+        DatasetClient mockClient = mock(DatasetClient.class);
+        when(mockClient.getDataset(datasetID)).thenThrow(new DatasetNotFoundException("not found"));
+        CachingDatasetClient client = CachingDatasetClient.builder(mockClient).build();
+
+        // When getDataset is called twice
+        // Then the exception is thrown each time, and not cached
+        assertThrows(DatasetNotFoundException.class, () -> client.getDataset(datasetID));
+        assertThrows(DatasetNotFoundException.class, () -> client.getDataset(datasetID));
+        verify(mockClient, times(2)).getDataset(datasetID);
+    }
+
+    @Test
+    public void testCachingClient_close() throws Exception {
+
+        // Given a caching client
+        DatasetClient mockClient = mock(DatasetClient.class);
+        CachingDatasetClient client = CachingDatasetClient.builder(mockClient).build();
+
+        // When close is called
+        client.close();
+
+        // Then the underlying client is closed
+        verify(mockClient, times(1)).close();
+    }
+}
@@ -0,0 +1,137 @@
+package dp.api.dataset;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CachingTokenProviderTest {
+
+    private final AtomicLong now = new AtomicLong(1000);
+    private final List<Runnable> backgroundTasks = new ArrayList<>();
+
+    @Test
+    public void testGetToken_valid_fetchedOnce() throws Exception {
+
+        // Given a source of tokens that are valid for a minute
+        CountingSource source = new CountingSource(60000);
+        CachingTokenProvider provider = provider(source);
+
+        // When the token is requested several times within its lifetime
+        String first = provider.getToken();
+        now.addAndGet(10000);
+        String second = provider.getToken();
+
+        // Then it is fetched once
+        assertEquals("token-1", first);
+        assertEquals("token-1", second);
+        assertEquals(1, source.fetches.get());
+        assertEquals(0, backgroundTasks.size());
+    }
+
+    @Test
+    public void testGetToken_nearExpiry_refreshedInBackground() throws Exception {
+
+        // Given a cached token within the 30 second refresh-ahead window of its expiry
+        CountingSource source = new CountingSource(60000);
+        CachingTokenProvider provider = provider(source);
+        provider.getToken();
+        now.addAndGet(45000);
+
+        // When the token is requested twice
+        String beforeRefresh = provider.getToken();
+        provider.getToken();
+
+        // Then the old token is returned without waiting, and one refresh is started
+        assertEquals("token-1", beforeRefresh);
+        assertEquals(1, backgroundTasks.size());
+
+        // Then the new token is returned once the refresh completes
+        runBackgroundTasks();
+        assertEquals("token-2", provider.getToken());
+        assertEquals(2, source.fetches.get());
+    }
+
+    @Test
+    public void testGetToken_backgroundRefreshFails_oldTokenUsedUntilExpiry() throws Exception {
+
+        // Given a cached token near expiry and a source that then fails
+        CountingSource source = new CountingSource(60000);
+        CachingTokenProvider provider = provider(source);
+        provider.getToken();
+        source.failing = true;
+        now.addAndGet(45000);
+
+        // When the background refresh fails
+        provider.getToken();
+        runBackgroundTasks();
+
+        // Then the old token is still returned while it is valid
+        assertEquals("token-1", provider.getToken());
+
+        // Then the failure is thrown to callers once it has expired
+        now.addAndGet(20000);
+        assertThrows(IOException.class, provider::getToken);
+
+        // Then a new token is fetched once the source recovers
+        source.failing = false;
+        assertEquals("token-4", provider.getToken());
+    }
+
+    @Test
+    public void testGetToken_invalidated_fetchedAgain() throws Exception {
+
+        // Given a cached token that the dataset API has rejected
+        CountingSource source = new CountingSource(60000);
+        CachingTokenProvider provider = provider(source);
+        provider.getToken();
+
+        // When the token is invalidated and requested again
+        provider.invalidate();
+        String token = provider.getToken();
+
+        // Then a new token is fetched
+        assertEquals("token-2", token);
+    }
+
+    private CachingTokenProvider provider(CachingTokenProvider.TokenSource source) {
+        return CachingTokenProvider.builder(source)
+                .refreshAhead(30, TimeUnit.SECONDS)
+                .executor(backgroundTasks::add)
+                .currentTimeMillis(now::get)
+                .build();
+    }
+
+    private void runBackgroundTasks() {
+        List<Runnable> tasks = new ArrayList<>(backgroundTasks);
+        backgroundTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private class CountingSource implements CachingTokenProvider.TokenSource {
+
+        private final long lifetimeMs;
+        private final AtomicInteger fetches = new AtomicInteger();
+        private volatile boolean failing;
+
+        private CountingSource(long lifetimeMs) {
+            this.lifetimeMs = lifetimeMs;
+        }
+
+        @Override
+        public AuthToken fetch() throws IOException {
+            int fetch = fetches.incrementAndGet();
+            if (failing) {
+                throw new IOException("identity service unavailable");
+            }
+            return AuthToken.expiringAt("token-" + fetch, now.get() + lifetimeMs);
+        }
+    }
+}
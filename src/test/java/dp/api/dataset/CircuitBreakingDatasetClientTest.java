@@ -0,0 +1,240 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.CircuitBreakerOpenException;
+import dp.api.dataset.exception.DatasetAPIException;
+import dp.api.dataset.exception.DatasetNotFoundException;
+import dp.api.dataset.exception.DeadlineExceededException;
+import dp.api.dataset.exception.UnexpectedResponseException;
+import dp.api.dataset.model.Dataset;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class CircuitBreakingDatasetClientTest {
+
+    private static final CircuitBreakerConfig CONFIG = CircuitBreakerConfig.builder()
+            .failureRateThreshold(50)
+            .slowCallRateThreshold(50)
+            .slowCallDuration(1, TimeUnit.SECONDS)
+            .slidingWindowSize(10)
+            .minimumNumberOfCalls(4)
+            .waitDurationInOpenState(10, TimeUnit.SECONDS)
+            .permittedCallsInHalfOpenState(2)
+            .build();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final StubDatasetClient stubClient = new StubDatasetClient(clock);
+    private final CircuitBreakingDatasetClient client = CircuitBreakingDatasetClient.builder(stubClient)
+            .readConfig(CONFIG)
+            .writeConfig(CONFIG)
+            .nanoTime(clock::get)
+            .build();
+
+    @Test
+    public void testGetDataset_failureRateExceeded_failsFastWithoutCallingAPI() throws Exception {
+
+        // Given a dataset API that fails every request
+        stubClient.responseCode = 503;
+
+        // When enough requests fail to reach the minimum number of calls
+        for (int i = 0; i < 4; i++) {
+            assertThrows(UnexpectedResponseException.class, () -> client.getDataset("123"));
+        }
+
+        // Then the circuit is open and further requests fail fast
+        assertEquals(CircuitBreakingDatasetClient.State.OPEN, client.getReadState());
+        assertThrows(CircuitBreakerOpenException.class, () -> client.getDataset("123"));
+        assertEquals(4, stubClient.calls.get());
+    }
+
+    @Test
+    public void testGetDataset_deadlineExceeded_circuitOpens() throws Exception {
+
+        // Given a dataset API that hangs until every caller's deadline passes
+        stubClient.deadlineExceeded = true;
+
+        // When enough requests time out to reach the minimum number of calls
+        for (int i = 0; i < 4; i++) {
+            assertThrows(DeadlineExceededException.class, () -> client.getDataset("123"));
+        }
+
+        // Then the circuit is open and further requests fail fast
+        assertEquals(CircuitBreakingDatasetClient.State.OPEN, client.getReadState());
+        assertThrows(CircuitBreakerOpenException.class, () -> client.getDataset("123"));
+        assertEquals(4, stubClient.calls.get());
+    }
+
+    @Test
+    public void testGetDataset_notFound_notCountedAsFailure() throws Exception {
+
+        // Given a dataset API that returns 404 for every request
+        stubClient.responseCode = 404;
+
+        // When many requests are made
+        for (int i = 0; i < 10; i++) {
+            assertThrows(DatasetNotFoundException.class, () -> client.getDataset("123"));
+        }
+
+        // Then the circuit stays closed
+        assertEquals(CircuitBreakingDatasetClient.State.CLOSED, client.getReadState());
+        assertEquals(10, stubClient.calls.get());
+    }
+
+    @Test
+    public void testGetDataset_slowCallRateExceeded_circuitOpens() throws Exception {
+
+        // Given a dataset API that answers successfully but slowly
+        stubClient.latencyNanos = TimeUnit.SECONDS.toNanos(2);
+
+        // When enough requests are made to reach the minimum number of calls
+        for (int i = 0; i < 4; i++) {
+            client.getDataset("123");
+        }
+
+        // Then the circuit is open
+        assertEquals(CircuitBreakingDatasetClient.State.OPEN, client.getReadState());
+        assertThrows(CircuitBreakerOpenException.class, () -> client.getDataset("123"));
+    }
+
+    @Test
+    public void testGetDataset_halfOpenProbesSucceed_circuitCloses() throws Exception {
+
+        // Given an open circuit
+        openReadCircuit();
+
+        // When the wait duration has passed and the dataset API has recovered
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        stubClient.responseCode = 200;
+        client.getDataset("123");
+
+        // Then a limited number of probes are let through
+        assertEquals(CircuitBreakingDatasetClient.State.HALF_OPEN, client.getReadState());
+        client.getDataset("123");
+
+        // Then the circuit closes once the probes succeed
+        assertEquals(CircuitBreakingDatasetClient.State.CLOSED, client.getReadState());
+        client.getDataset("123");
+        assertEquals(7, stubClient.calls.get());
+    }
+
+    @Test
+    public void testGetDataset_halfOpenProbesFail_circuitReopens() throws Exception {
+
+        // Given an open circuit
+        openReadCircuit();
+
+        // When the wait duration has passed and the probes fail
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 2; i++) {
+            assertThrows(UnexpectedResponseException.class, () -> client.getDataset("123"));
+        }
+
+        // Then the circuit opens again for another wait duration
+        assertEquals(CircuitBreakingDatasetClient.State.OPEN, client.getReadState());
+        assertThrows(CircuitBreakerOpenException.class, () -> client.getDataset("123"));
+        assertEquals(6, stubClient.calls.get());
+    }
+
+    @Test
+    public void testGetDataset_halfOpen_excessCallsRefused() throws Exception {
+
+        // Given a circuit breaker whose open wait duration has passed
+        CircuitBreaker breaker = new CircuitBreaker("reads", CONFIG, clock::get);
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(breaker.tryAcquire(), true, 0);
+        }
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        // When more calls are attempted than are permitted in the half-open state, before any probe has finished
+        long first = breaker.tryAcquire();
+        long second = breaker.tryAcquire();
+        long third = breaker.tryAcquire();
+
+        // Then only the permitted number of probes are let through
+        assertEquals(CircuitBreakingDatasetClient.State.HALF_OPEN, breaker.state());
+        assertEquals(first, second);
+        assertEquals(-1, third);
+    }
+
+    @Test
+    public void testUpdateDataset_writesFailing_readsUnaffected() throws Exception {
+
+        // Given a dataset API that fails every request
+        stubClient.responseCode = 500;
+
+        // When enough writes fail to open the write circuit
+        for (int i = 0; i < 4; i++) {
+            assertThrows(UnexpectedResponseException.class, () -> client.updateDataset("123", new Dataset()));
+        }
+
+        // Then writes fail fast but reads are still made
+        assertEquals(CircuitBreakingDatasetClient.State.OPEN, client.getWriteState());
+        assertEquals(CircuitBreakingDatasetClient.State.CLOSED, client.getReadState());
+        assertThrows(CircuitBreakerOpenException.class, () -> client.deleteDataset("123"));
+        assertThrows(UnexpectedResponseException.class, () -> client.getDataset("123"));
+        assertEquals(5, stubClient.calls.get());
+    }
+
+    private void openReadCircuit() {
+        stubClient.responseCode = 503;
+        for (int i = 0; i < 4; i++) {
+            assertThrows(UnexpectedResponseException.class, () -> client.getDataset("123"));
+        }
+        assertEquals(CircuitBreakingDatasetClient.State.OPEN, client.getReadState());
+    }
+
+    /**
+     * Answers the reads and writes under test with the configured response code and latency, and forwards anything
+     * else to a mock.
+     */
+    private static class StubDatasetClient extends ForwardingDatasetClient {
+
+        private final AtomicLong clock;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile int responseCode = 200;
+        private volatile long latencyNanos;
+        private volatile boolean deadlineExceeded;
+
+        private StubDatasetClient(AtomicLong clock) {
+            super(mock(DatasetClient.class));
+            this.clock = clock;
+        }
+
+        private void respond() throws DatasetAPIException {
+            calls.incrementAndGet();
+            clock.addAndGet(latencyNanos);
+            if (deadlineExceeded) {
+                throw new DeadlineExceededException("deadline exceeded waiting for dataset-api request");
+            }
+            if (responseCode == 404) {
+                throw new DatasetNotFoundException("dataset not found");
+            }
+            if (responseCode != 200) {
+                throw new UnexpectedResponseException("unexpected response", responseCode);
+            }
+        }
+
+        @Override
+        public Dataset getDataset(String datasetID) throws IOException, DatasetAPIException {
+            respond();
+            return new Dataset();
+        }
+
+        @Override
+        public void deleteDataset(String datasetID) throws IOException, DatasetAPIException {
+            respond();
+        }
+
+        @Override
+        public void updateDataset(String datasetID, Dataset dataset) throws IOException, DatasetAPIException {
+            respond();
+        }
+    }
+}
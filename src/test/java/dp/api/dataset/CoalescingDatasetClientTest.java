@@ -0,0 +1,181 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetNotFoundException;
+import dp.api.dataset.exception.DeadlineExceededException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CoalescingDatasetClientTest {
+
+    private static final String datasetAPIURL = "http://localhost:22000";
+    private static final String datasetAPIAuthToken = "12345";
+    private static final String serviceAuthToken = "67856";
+    private static final String datasetID = "321";
+    private static final int CALLERS = 20;
+
+    @Test
+    public void testCoalescing_concurrentGetDataset_singleHttpCall() throws Exception {
+
+        // Given a dataset API that blocks until released
+        CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CloseableHttpResponse mockHttpResponse = MockHttp.response(HttpStatus.SC_OK);
+        DatasetResponse responseBody = new DatasetResponse();
+        Dataset next = new Dataset();
+        next.setId(datasetID);
+        responseBody.setNext(next);
+        MockHttp.responseBody(mockHttpResponse, responseBody);
+
+        when(mockHttpClient.execute(any(HttpRequestBase.class))).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return mockHttpResponse;
+        });
+
+        CoalescingDatasetClient client = new CoalescingDatasetClient(
+                new DatasetAPIClient(datasetAPIURL, datasetAPIAuthToken, serviceAuthToken, mockHttpClient));
+
+        // When many threads call getDataset for the same dataset at the same time
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<Future<Dataset>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> client.getDataset(datasetID)));
+        }
+
+        awaitWaiters(client, RequestKey.dataset(datasetID), CALLERS - 1);
+        release.countDown();
+
+        // Then every caller receives the dataset, each in its own copy
+        Set<Dataset> datasets = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<Dataset> result : results) {
+            Dataset dataset = result.get(10, TimeUnit.SECONDS);
+            assertEquals(datasetID, dataset.getId());
+            datasets.add(dataset);
+        }
+        assertEquals(CALLERS, datasets.size());
+        executor.shutdown();
+
+        // Then only one request was made to the underlying HTTP client
+        verify(mockHttpClient, times(1)).execute(any(HttpRequestBase.class));
+    }
+
+    @Test
+    public void testCoalescing_concurrentGetDataset_sharedException() throws Exception {
+
+        // Given a dataset API that blocks until released, then returns a 404
+        CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CloseableHttpResponse mockHttpResponse = MockHttp.response(HttpStatus.SC_NOT_FOUND);
+        when(mockHttpClient.execute(any(HttpRequestBase.class))).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return mockHttpResponse;
+        });
+
+        CoalescingDatasetClient client = new CoalescingDatasetClient(
+                new DatasetAPIClient(datasetAPIURL, datasetAPIAuthToken, serviceAuthToken, mockHttpClient));
+
+        // When many threads call getDataset for the same dataset at the same time
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<Future<Dataset>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> client.getDataset(datasetID)));
+        }
+
+        awaitWaiters(client, RequestKey.dataset(datasetID), CALLERS - 1);
+        release.countDown();
+
+        // Then every caller receives the exception
+        for (Future<Dataset> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof DatasetNotFoundException);
+        }
+        executor.shutdown();
+
+        verify(mockHttpClient, times(1)).execute(any(HttpRequestBase.class));
+    }
+
+    @Test
+    public void testCoalescing_sequentialCalls_notShared() throws Exception {
+
+        // Given a coalescing client
+        DatasetClient mockClient = mock(DatasetClient.class);
+        when(mockClient.getDataset(datasetID)).thenReturn(new Dataset());
+        CoalescingDatasetClient client = new CoalescingDatasetClient(mockClient);
+
+        // When getDataset is called twice, one after the other
+        client.getDataset(datasetID);
+        client.getDataset(datasetID);
+
+        // Then each call is made, as nothing was in flight to share
+        verify(mockClient, times(2)).getDataset(datasetID);
+    }
+
+    @Test
+    public void testSingleFlight_waiterDeadline_stopsWaiting() throws Exception {
+
+        // Given a call in flight that does not complete until released
+        SingleFlight<RequestKey> inFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Dataset> leader = executor.submit(() -> inFlight.execute(RequestKey.dataset(datasetID), () -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Dataset();
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // When a second caller with a 100ms deadline joins it
+        long start = System.nanoTime();
+        assertThrows(DeadlineExceededException.class, () -> Deadline.callWithin(Deadline.after(100, TimeUnit.MILLISECONDS),
+                () -> inFlight.execute(RequestKey.dataset(datasetID), Dataset::new)));
+
+        // Then it gives up at its own deadline rather than waiting for the call
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        assertEquals(0, inFlight.waiters(RequestKey.dataset(datasetID)));
+
+        // Then the call itself still completes for the caller making it
+        release.countDown();
+        leader.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    private static void awaitWaiters(CoalescingDatasetClient client, RequestKey key, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (client.waiters(key) < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, client.waiters(key));
+    }
+}
@@ -0,0 +1,193 @@
+package dp.api.dataset;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressionTest {
+
+    private HttpServer server;
+    private volatile String responseEncoding;
+    private volatile String acceptEncoding;
+    private volatile String requestEncoding;
+    private volatile String requestBody;
+    private volatile int responseBytes;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/datasets/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testGetDataset_gzipResponse_decompressed() throws Exception {
+
+        // Given a dataset API that gzips its responses
+        responseEncoding = "gzip";
+        HistogramMetricsListener metrics = new HistogramMetricsListener();
+
+        try (DatasetAPIClient client = client(metrics).build()) {
+
+            // When a dataset is requested
+            Dataset dataset = client.getDataset("cpih01");
+
+            // Then compressed responses are accepted and the dataset is parsed from the decompressed body
+            assertEquals("gzip, deflate", acceptEncoding);
+            assertEquals("cpih01", dataset.getId());
+
+            // Then the bytes received are those on the wire
+            assertEquals(responseBytes, metrics.getMetrics(DatasetOperation.GET_DATASET).getBytesReceived());
+            assertTrue(responseBytes * 10 < datasetJson().length(),
+                    "expected the repeated links to compress at least 10x but received " + responseBytes + " bytes");
+        }
+    }
+
+    @Test
+    public void testGetDatasetVersion_deflateResponse_decompressed() throws Exception {
+
+        // Given a dataset API that deflates its responses
+        responseEncoding = "deflate";
+
+        try (DatasetAPIClient client = client(MetricsListener.NOOP).build()) {
+
+            // When a version is requested, then it is parsed from the decompressed body
+            DatasetVersion datasetVersion = client.getDatasetVersion("cpih01", "2017", "1");
+            assertEquals("cpih01", datasetVersion.getId());
+        }
+    }
+
+    @Test
+    public void testUpdateDataset_bodyAboveThreshold_gzipped() throws Exception {
+
+        // Given a client that compresses request bodies larger than 100 bytes
+        try (DatasetAPIClient client = client(MetricsListener.NOOP).requestCompressionThreshold(100).build()) {
+
+            // When a small dataset is updated, then the body is sent uncompressed
+            Dataset small = new Dataset();
+            small.setId("cpih01");
+            client.updateDataset("cpih01", small);
+            assertNull(requestEncoding);
+            assertTrue(requestBody.contains("\"id\":\"cpih01\""));
+
+            // When a large dataset is updated, then the body is sent gzipped
+            Dataset large = new Dataset();
+            large.setId("cpih01");
+            large.setDescription(repeat("Consumer prices index including owner occupiers' housing costs. ", 20));
+            client.updateDataset("cpih01", large);
+            assertEquals("gzip", requestEncoding);
+            assertTrue(requestBody.contains(large.getDescription()));
+        }
+    }
+
+    private DatasetAPIClient.Builder client(MetricsListener metricsListener) {
+        return DatasetAPIClient.builder()
+                .datasetAPIURL(url())
+                .metricsListener(metricsListener);
+    }
+
+    private String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        requestEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equals(requestEncoding)) {
+            in = new GZIPInputStream(in);
+        }
+        requestBody = new String(readAll(in), StandardCharsets.UTF_8);
+
+        if (!exchange.getRequestMethod().equals("GET")) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+
+        String json = exchange.getRequestURI().getPath().contains("/versions/")
+                ? "{\"id\":\"cpih01\",\"edition\":\"2017\",\"version\":\"1\"}" : datasetJson();
+        byte[] body = encode(json.getBytes(StandardCharsets.UTF_8));
+        responseBytes = body.length;
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (responseEncoding != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", responseEncoding);
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+
+    private byte[] encode(byte[] body) throws IOException {
+        if (responseEncoding == null) {
+            return body;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = responseEncoding.equals("gzip")
+                ? new GZIPOutputStream(bytes) : new DeflaterOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A dataset response padded with the kind of repeated links real dataset API responses carry.
+     */
+    private static String datasetJson() {
+        StringBuilder dimensions = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            if (i > 0) {
+                dimensions.append(',');
+            }
+            dimensions.append("{\"id\":\"dimension-").append(i)
+                    .append("\",\"href\":\"http://localhost:22400/code-lists/geography/codes/").append(i).append("\"}");
+        }
+        return "{\"id\":\"cpih01\",\"next\":{\"id\":\"cpih01\",\"title\":\"CPIH\"},\"dimensions\":[" + dimensions + "]}";
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static String repeat(String value, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package dp.api.dataset;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrentLruCacheTest {
+
+    private static final long TTL = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    public void testCache_evictsLeastRecentlyUsed() {
+
+        // Given a single segment cache with room for two entries
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(2, 1, System::nanoTime);
+        cache.put("a", "A", TTL, cache.generation("a"));
+        cache.put("b", "B", TTL, cache.generation("b"));
+
+        // When "a" is read and a third entry is added
+        cache.get("a");
+        cache.put("c", "C", TTL, cache.generation("c"));
+
+        // Then the least recently used entry is evicted
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(1, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void testCache_putAfterInvalidateIsIgnored() {
+
+        // Given a load that started before an invalidation
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(10, 1, System::nanoTime);
+        long generation = cache.generation("a");
+        cache.invalidate("a");
+
+        // When the load completes
+        cache.put("a", "stale", TTL, generation);
+
+        // Then the stale value is not cached
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testCache_concurrentAccessStaysBounded() throws Exception {
+
+        // Given a bounded cache shared by many threads
+        int maximumSize = 1000;
+        ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(maximumSize, 16, System::nanoTime);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When the threads read and write overlapping keys
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20000; i++) {
+                    Integer key = (i * 31 + seed) % 5000;
+                    if (cache.get(key) == null) {
+                        cache.put(key, key, TTL, cache.generation(key));
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then the cache never exceeds its bound and every lookup is accounted for
+        CacheStats stats = cache.stats();
+        assertTrue(stats.getSize() <= maximumSize + 16, "size " + stats.getSize());
+        assertEquals(8 * 20000, stats.getHitCount() + stats.getMissCount());
+    }
+}
@@ -0,0 +1,144 @@
+package dp.api.dataset;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dp.api.dataset.exception.PreconditionFailedException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ConditionalUpdateTest {
+
+    private HttpServer server;
+    private final AtomicInteger revision = new AtomicInteger(1);
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/datasets/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    /**
+     * A dataset API holding one revision of every resource, which rejects updates made against an older revision.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String body = read(exchange.getRequestBody());
+        requests.add(exchange.getRequestMethod() + " " + body);
+
+        String path = exchange.getRequestURI().getPath();
+        byte[] response = path.contains("/versions/")
+                ? "{\"version\":\"1\"}".getBytes(StandardCharsets.UTF_8)
+                : "{\"id\":\"123\",\"next\":{\"id\":\"123\"}}".getBytes(StandardCharsets.UTF_8);
+
+        if (exchange.getRequestMethod().equals("PUT")) {
+            String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+            if (ifMatch != null && !ifMatch.equals(etag())) {
+                exchange.sendResponseHeaders(412, -1);
+                exchange.close();
+                return;
+            }
+            revision.incrementAndGet();
+            response = "{}".getBytes(StandardCharsets.UTF_8);
+        }
+
+        exchange.getResponseHeaders().add("ETag", etag());
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+        exchange.close();
+    }
+
+    @Test
+    public void testUpdateDataset_concurrentEditors_secondWriteRejected() throws Exception {
+
+        try (DatasetAPIClient client = client()) {
+
+            // Given two editors who have read the same revision of a dataset
+            Dataset first = client.getDataset("123");
+            Dataset second = client.getDataset("123");
+            assertEquals("\"1\"", first.getEtag());
+
+            // When the first editor updates it
+            first.setTitle("first");
+            String etag = client.updateDataset("123", first, first.getEtag());
+
+            // Then the new ETag is returned, the first editor's dataset is left as it was and the ETag is not sent
+            // in the body
+            assertEquals("\"2\"", etag);
+            assertEquals("\"1\"", first.getEtag());
+            assertFalse(requests.get(2).contains("etag"));
+
+            // Then the second editor's update is rejected instead of overwriting the first
+            second.setTitle("second");
+            assertThrows(PreconditionFailedException.class, () -> client.updateDataset("123", second, second.getEtag()));
+
+            // Then the first editor can update again without reading the dataset first
+            first.setTitle("first again");
+            assertEquals("\"3\"", client.updateDataset("123", first, etag));
+            assertEquals(5, requests.size());
+        }
+    }
+
+    @Test
+    public void testUpdateDatasetVersion_staleETag_preconditionFailed() throws Exception {
+
+        try (DatasetAPIClient client = client()) {
+
+            // Given a version that has been updated since it was read
+            DatasetVersion version = client.getDatasetVersion("123", "2017", "1");
+            String staleETag = version.getEtag();
+            String etag = client.updateDatasetVersion("123", "2017", "1", version, staleETag);
+
+            // When it is updated with the ETag it was first read with, then the update is rejected
+            assertThrows(PreconditionFailedException.class,
+                    () -> client.updateDatasetVersion("123", "2017", "1", version, staleETag));
+
+            // Then an update with the ETag returned by the last update succeeds
+            client.updateDatasetVersion("123", "2017", "1", version, etag);
+        }
+    }
+
+    private DatasetAPIClient client() throws Exception {
+        return DatasetAPIClient.builder()
+                .datasetAPIURL("http://localhost:" + server.getAddress().getPort())
+                .build();
+    }
+
+    private String etag() {
+        return "\"" + revision.get() + "\"";
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int n; (n = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
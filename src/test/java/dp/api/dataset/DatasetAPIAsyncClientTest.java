@@ -0,0 +1,368 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetNotFoundException;
+import dp.api.dataset.exception.InstanceNotFoundException;
+import dp.api.dataset.exception.UnexpectedResponseException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetResponse;
+import dp.api.dataset.model.DatasetVersion;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.message.BasicHeader;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URISyntaxException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DatasetAPIAsyncClientTest {
+
+    private static final String authTokenHeaderName = "Internal-token";
+    private static final String serviceTokenHeaderName = "Authorization";
+
+    private static final String datasetAPIURL = "";
+    private static final String datasetAPIAuthToken = "12345";
+    private static final String serviceAuthToken = "67856";
+    private static final String instanceID = "123";
+    private static final String datasetID = "321";
+    private static final String edition = "current";
+    private static final String version = "1";
+
+    @Test
+    public void testDatasetAPIAsync_startsClient() throws Exception {
+
+        // Given an async HTTP client that is not running
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        when(mockHttpClient.isRunning()).thenReturn(false);
+
+        // When a new DatasetAPIAsyncClient is created
+        getDatasetClient(mockHttpClient);
+
+        // Then the underlying client is started
+        verify(mockHttpClient, times(1)).start();
+    }
+
+    @Test
+    public void testDatasetAPIAsync_getDataset() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // Given a mock dataset response from the dataset API
+        CloseableHttpResponse mockHttpResponse = MockHttp.response(HttpStatus.SC_OK);
+        DatasetResponse responseBody = new DatasetResponse();
+        Dataset next = new Dataset();
+        next.setId(datasetID);
+        responseBody.setNext(next);
+        MockHttp.responseBody(mockHttpResponse, responseBody);
+        completeWith(mockHttpClient, mockHttpResponse);
+
+        // When getDataset is called
+        Dataset actualDataset = datasetAPIClient.getDataset(datasetID).get();
+
+        // Then the request should contain the authentication headers
+        HttpUriRequest httpRequest = captureHttpRequest(mockHttpClient);
+        assertEquals(datasetAPIAuthToken, httpRequest.getFirstHeader(authTokenHeaderName).getValue());
+        assertEquals(serviceAuthToken, httpRequest.getFirstHeader(serviceTokenHeaderName).getValue());
+        assertEquals("/datasets/" + datasetID, httpRequest.getURI().toString());
+
+        // Then the response should be whats returned from the dataset API
+        assertEquals(datasetID, actualDataset.getId());
+    }
+
+    @Test
+    public void testDatasetAPIAsync_getDatasetVersion() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // Given a mock version response from the dataset API
+        CloseableHttpResponse mockHttpResponse = MockHttp.response(HttpStatus.SC_OK);
+        DatasetVersion datasetVersion = new DatasetVersion();
+        datasetVersion.setVersion(version);
+        MockHttp.responseBody(mockHttpResponse, datasetVersion);
+        completeWith(mockHttpClient, mockHttpResponse);
+
+        // When getDatasetVersion is called
+        DatasetVersion actualVersion = datasetAPIClient.getDatasetVersion(datasetID, edition, version).get();
+
+        // Then the response should be whats returned from the dataset API
+        assertEquals(version, actualVersion.getVersion());
+    }
+
+    @Test
+    public void testDatasetAPIAsync_conditionalUpdate_etags() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // Given a dataset API that returns the version's ETag
+        CloseableHttpResponse mockHttpResponse = MockHttp.response(HttpStatus.SC_OK);
+        MockHttp.responseBody(mockHttpResponse, new DatasetVersion());
+        when(mockHttpResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "\"1\""));
+        completeWith(mockHttpClient, mockHttpResponse);
+
+        // When the version is read, then it carries its ETag
+        DatasetVersion actualVersion = datasetAPIClient.getDatasetVersion(datasetID, edition, version).get();
+        assertEquals("\"1\"", actualVersion.getEtag());
+
+        // When it is updated with that ETag, then the request is conditional and the new ETag is returned
+        when(mockHttpResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, "\"2\""));
+        String etag = datasetAPIClient.updateDatasetVersion(datasetID, edition, version, actualVersion,
+                actualVersion.getEtag()).get();
+        assertEquals("\"2\"", etag);
+        assertEquals("\"1\"", actualVersion.getEtag());
+
+        ArgumentCaptor<HttpUriRequest> requestCaptor = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(mockHttpClient, times(2)).execute(requestCaptor.capture(), any(FutureCallback.class));
+        assertEquals("\"1\"", requestCaptor.getAllValues().get(1).getFirstHeader(HttpHeaders.IF_MATCH).getValue());
+    }
+
+    @Test
+    public void testDatasetAPIAsync_getDataset_notFound() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // Given a request to the dataset API that returns a 404
+        completeWith(mockHttpClient, MockHttp.response(HttpStatus.SC_NOT_FOUND));
+
+        // When getDataset is called
+        CompletableFuture<Dataset> future = datasetAPIClient.getDataset(datasetID);
+
+        // Then the future fails with the same exception the blocking client would throw
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause() instanceof DatasetNotFoundException);
+    }
+
+    @Test
+    public void testDatasetAPIAsync_getInstance_notFound() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // Given a request to the dataset API that returns a 404
+        completeWith(mockHttpClient, MockHttp.response(HttpStatus.SC_NOT_FOUND));
+
+        // When getInstance is called
+        CompletableFuture<?> future = datasetAPIClient.getInstance(instanceID);
+
+        // Then the future fails with the expected exception
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause() instanceof InstanceNotFoundException);
+    }
+
+    @Test
+    public void testDatasetAPIAsync_updateDataset_internalError() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // Given a request to the dataset API that returns a 500
+        completeWith(mockHttpClient, MockHttp.response(HttpStatus.SC_INTERNAL_SERVER_ERROR));
+
+        // When updateDataset is called
+        CompletableFuture<Void> future = datasetAPIClient.updateDataset(datasetID, new Dataset());
+
+        // Then the future fails with the expected exception
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause() instanceof UnexpectedResponseException);
+        assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, ((UnexpectedResponseException) e.getCause()).getResponseCode());
+    }
+
+    @Test
+    public void testDatasetAPIAsync_patchDatasetVersion() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // Given a dataset API that accepts the patch
+        completeWith(mockHttpClient, MockHttp.response(HttpStatus.SC_OK));
+
+        // When a version is patched
+        datasetAPIClient.patchDatasetVersion(datasetID, edition, version,
+                JsonPatch.builder().remove("/collection_id").build()).get();
+
+        // Then a JSON Patch request is sent for the version
+        HttpUriRequest httpRequest = captureHttpRequest(mockHttpClient);
+        assertEquals("PATCH", httpRequest.getMethod());
+        assertEquals("/datasets/" + datasetID + "/editions/" + edition + "/versions/" + version,
+                httpRequest.getURI().toString());
+    }
+
+    @Test
+    public void testDatasetAPIAsync_patchDataset_emptyPatchNotSent() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // When an empty patch is applied
+        CompletableFuture<Void> future = datasetAPIClient.patchDataset(datasetID, JsonPatch.builder().build());
+
+        // Then it completes without a request being made
+        assertTrue(future.isDone());
+        verify(mockHttpClient, never()).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+
+        // Then its arguments are still checked
+        assertThrows(IllegalArgumentException.class, () -> datasetAPIClient.patchDataset("", JsonPatch.builder().build()));
+    }
+
+    @Test
+    public void testDatasetAPIAsync_connectionFailure() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // Given a request that fails to connect
+        when(mockHttpClient.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenAnswer(invocation -> {
+            FutureCallback<HttpResponse> callback = invocation.getArgument(1);
+            callback.failed(new ConnectException("connection refused"));
+            return null;
+        });
+
+        // When deleteDataset is called
+        CompletableFuture<Void> future = datasetAPIClient.deleteDataset(datasetID);
+
+        // Then the future fails with the IO exception
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause() instanceof IOException);
+    }
+
+    @Test
+    public void testDatasetAPIAsync_emptyDatasetID() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // Given an empty dataset ID
+        String datasetID = "";
+
+        // When getDataset is called
+        // Then the expected exception is thrown
+        assertThrows(IllegalArgumentException.class,
+                () -> datasetAPIClient.getDataset(datasetID));
+    }
+
+    @Test
+    public void testDatasetAPIAsync_getDataset_retriesServiceUnavailable() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getRetryingDatasetClient(mockHttpClient);
+
+        // Given a dataset API that is unavailable for the first request only
+        CloseableHttpResponse unavailable = MockHttp.response(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        CloseableHttpResponse ok = MockHttp.response(HttpStatus.SC_OK);
+        DatasetResponse responseBody = new DatasetResponse();
+        Dataset next = new Dataset();
+        next.setId(datasetID);
+        responseBody.setNext(next);
+        MockHttp.responseBody(ok, responseBody);
+        completeWith(mockHttpClient, unavailable, ok);
+
+        // When getDataset is called
+        Dataset actualDataset = datasetAPIClient.getDataset(datasetID).get(5, TimeUnit.SECONDS);
+
+        // Then the request is sent again and the dataset from the second response is returned
+        verify(mockHttpClient, times(2)).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+        assertEquals(datasetID, actualDataset.getId());
+    }
+
+    @Test
+    public void testDatasetAPIAsync_getDataset_retriesExhausted() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getRetryingDatasetClient(mockHttpClient);
+
+        // Given a dataset API that is always unavailable
+        CloseableHttpResponse unavailable = MockHttp.response(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        completeWith(mockHttpClient, unavailable);
+
+        // When getDataset is called
+        CompletableFuture<Dataset> future = datasetAPIClient.getDataset(datasetID);
+
+        // Then the last response is reported once the retries run out
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof UnexpectedResponseException);
+        verify(mockHttpClient, times(3)).execute(any(HttpUriRequest.class), any(FutureCallback.class));
+    }
+
+    @Test
+    public void testDatasetAPIAsync_pendingUntilResponse() throws Exception {
+
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // Given a request that has not yet completed
+        when(mockHttpClient.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenReturn(null);
+
+        // When detachVersion is called
+        CompletableFuture<Void> future = datasetAPIClient.detachVersion(datasetID, edition, version);
+
+        // Then the call returns without blocking on the response
+        assertFalse(future.isDone());
+    }
+
+    @Test
+    public void testDatasetAPIAsync_close() throws Exception {
+
+        // Given a dataset API async client implements closable
+        CloseableHttpAsyncClient mockHttpClient = mock(CloseableHttpAsyncClient.class);
+        DatasetAsyncClient datasetAPIClient = getDatasetClient(mockHttpClient);
+
+        // When close is called
+        datasetAPIClient.close();
+
+        // Then close is called on the underlying httpClient
+        verify(mockHttpClient, times(1)).close();
+    }
+
+    private DatasetAsyncClient getDatasetClient(CloseableHttpAsyncClient mockHttpClient) throws URISyntaxException {
+        return new DatasetAPIAsyncClient(datasetAPIURL, datasetAPIAuthToken, serviceAuthToken, mockHttpClient);
+    }
+
+    private DatasetAsyncClient getRetryingDatasetClient(CloseableHttpAsyncClient mockHttpClient) throws URISyntaxException {
+        return DatasetAPIAsyncClient.builder()
+                .datasetAPIURL(datasetAPIURL)
+                .datasetAPIAuthToken(datasetAPIAuthToken)
+                .serviceAuthToken(serviceAuthToken)
+                .httpClient(mockHttpClient)
+                .retryStrategy(RetryStrategy.builder().maxRetries(2).baseIntervalMs(1).maxIntervalMs(1).build())
+                .build();
+    }
+
+    private void completeWith(CloseableHttpAsyncClient mockHttpClient, HttpResponse... responses) {
+        AtomicInteger calls = new AtomicInteger();
+        when(mockHttpClient.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenAnswer(invocation -> {
+            FutureCallback<HttpResponse> callback = invocation.getArgument(1);
+            callback.completed(responses[Math.min(calls.getAndIncrement(), responses.length - 1)]);
+            return null;
+        });
+    }
+
+    private HttpUriRequest captureHttpRequest(CloseableHttpAsyncClient mockHttpClient) {
+        ArgumentCaptor<HttpUriRequest> requestCaptor = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(mockHttpClient).execute(requestCaptor.capture(), any(FutureCallback.class));
+        return requestCaptor.getValue();
+    }
+}
@@ -0,0 +1,97 @@
+package dp.api.dataset;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.pool.PoolStats;
+import org.junit.jupiter.api.Test;
+
+import java.net.URISyntaxException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+public class DatasetAPIClientBuilderTest {
+
+    private static final String datasetAPIURL = "http://localhost:22000";
+    private static final String datasetAPIAuthToken = "12345";
+    private static final String serviceAuthToken = "67856";
+
+    @Test
+    public void testBuilder_poolStats() throws Exception {
+
+        // Given a client built with a custom connection pool size
+        DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL(datasetAPIURL)
+                .datasetAPIAuthToken(datasetAPIAuthToken)
+                .serviceAuthToken(serviceAuthToken)
+                .maxTotalConnections(50)
+                .maxConnectionsPerRoute(25)
+                .keepAliveMs(10000)
+                .validateAfterInactivityMs(500)
+                .maxIdleTimeMs(5000)
+                .build();
+
+        // When the pool stats are requested
+        PoolStats stats = client.getPoolStats();
+
+        // Then the configured maximum is reported and no connections are in use
+        assertNotNull(stats);
+        assertEquals(50, stats.getMax());
+        assertEquals(0, stats.getLeased());
+        assertEquals(0, stats.getPending());
+        assertEquals(0, stats.getAvailable());
+
+        client.close();
+    }
+
+    @Test
+    public void testBuilder_defaultConstructorIsPooled() throws Exception {
+
+        // Given a client created with the default constructor
+        DatasetAPIClient client = new DatasetAPIClient(datasetAPIURL, datasetAPIAuthToken, serviceAuthToken);
+
+        // When the pool stats are requested
+        // Then the default pool is reported
+        assertNotNull(client.getPoolStats());
+
+        client.close();
+    }
+
+    @Test
+    public void testBuilder_invalidPoolSize() {
+
+        // Given an invalid maximum number of connections
+        // When the builder is configured
+        // Then the expected exception is thrown
+        assertThrows(IllegalArgumentException.class,
+                () -> DatasetAPIClient.builder().maxTotalConnections(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> DatasetAPIClient.builder().maxConnectionsPerRoute(-1));
+    }
+
+    @Test
+    public void testBuilder_invalidURI() {
+
+        // Given an invalid URI
+        String invalidURI = "{{}}";
+
+        // When the client is built
+        // Then the expected exception is thrown
+        assertThrows(URISyntaxException.class,
+                () -> DatasetAPIClient.builder().datasetAPIURL(invalidURI).build());
+    }
+
+    @Test
+    public void testBuilder_externalClientHasNoPoolStats() throws Exception {
+
+        // Given a client created with an externally managed HTTP client
+        CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+        DatasetAPIClient client = new DatasetAPIClient(datasetAPIURL, datasetAPIAuthToken, serviceAuthToken, mockHttpClient);
+
+        // When the pool stats are requested
+        // Then no stats are available
+        assertNull(client.getPoolStats());
+    }
+}
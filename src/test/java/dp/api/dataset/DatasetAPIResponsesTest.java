@@ -0,0 +1,76 @@
+package dp.api.dataset;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dp.api.dataset.model.DatasetVersion;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DatasetAPIResponsesTest {
+
+    private static final ObjectMapper json = new ObjectMapper();
+
+    @Test
+    public void testParse_datasetVersion_utf8() throws Exception {
+
+        // Given a version response containing non-Latin characters
+        DatasetVersion datasetVersion = new DatasetVersion();
+        datasetVersion.setCollection_id("Ystadegau Gwladol \u2013 \u7d71\u8a08");
+        byte[] payload = json.writeValueAsBytes(datasetVersion);
+
+        CloseableHttpResponse resp = response(payload);
+
+        // When the response is parsed
+        DatasetVersion actual = DatasetAPIResponses.datasetVersion(new HttpGet("/"), resp);
+
+        // Then the characters are decoded correctly
+        assertEquals("Ystadegau Gwladol \u2013 \u7d71\u8a08", actual.getCollection_id());
+    }
+
+    @Test
+    public void testParse_entityIsConsumed() throws Exception {
+
+        // Given a response with trailing content after the JSON document
+        byte[] payload = "{\"version\":\"1\"}\n\n\n".getBytes(StandardCharsets.UTF_8);
+        ByteArrayInputStream content = new ByteArrayInputStream(payload);
+
+        CloseableHttpResponse resp = new StubResponse(HttpStatus.SC_OK);
+        org.apache.http.entity.BasicHttpEntity entity = new org.apache.http.entity.BasicHttpEntity();
+        entity.setContent(content);
+        resp.setEntity(entity);
+
+        // When the response is parsed
+        DatasetVersion actual = DatasetAPIResponses.datasetVersion(new HttpGet("/"), resp);
+
+        // Then the model is returned and the entity stream has been fully read so the connection can be reused
+        assertEquals("1", actual.getVersion());
+        assertEquals(0, content.available());
+    }
+
+    private static CloseableHttpResponse response(byte[] payload) {
+        CloseableHttpResponse resp = new StubResponse(HttpStatus.SC_OK);
+        resp.setEntity(new ByteArrayEntity(payload, ContentType.APPLICATION_JSON));
+        return resp;
+    }
+
+    private static class StubResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        StubResponse(int statusCode) {
+            super(HttpVersion.HTTP_1_1, statusCode, null);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
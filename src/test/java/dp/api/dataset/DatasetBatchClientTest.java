@@ -0,0 +1,149 @@
+package dp.api.dataset;
+
+import dp.api.dataset.exception.DatasetNotFoundException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DatasetBatchClientTest {
+
+    private static final int BATCH_SIZE = 64;
+    private static final int PARALLELISM = 8;
+
+    @Test
+    public void testGetDatasets_oneNotFound_otherResultsReturned() throws Exception {
+
+        // Given a dataset API where one of the datasets does not exist
+        DatasetClient mockClient = mock(DatasetClient.class);
+        when(mockClient.getDataset(anyString())).thenAnswer(invocation -> {
+            String datasetID = invocation.getArgument(0);
+            if (datasetID.equals("missing")) {
+                throw new DatasetNotFoundException("dataset not found: " + datasetID);
+            }
+            return dataset(datasetID);
+        });
+
+        try (DatasetBatchClient batchClient = new DatasetBatchClient(mockClient, PARALLELISM)) {
+
+            // When a batch including the missing dataset is requested
+            BatchResult<String, Dataset> result = batchClient.getDatasets(Arrays.asList("a", "missing", "b"));
+
+            // Then the other datasets are returned in request order
+            assertFalse(result.isSuccessful());
+            assertEquals(Arrays.asList("a", "b"), new ArrayList<>(result.getResults().keySet()));
+            assertEquals("b", result.getResults().get("b").getId());
+
+            // Then the missing dataset is reported as an error
+            assertEquals(1, result.getErrors().size());
+            assertTrue(result.getErrors().get("missing") instanceof DatasetNotFoundException);
+        }
+    }
+
+    @Test
+    public void testGetDatasetVersions_duplicateKeys_readOnce() throws Exception {
+
+        // Given a batch that names the same version twice
+        DatasetClient mockClient = mock(DatasetClient.class);
+        DatasetVersion datasetVersion = new DatasetVersion();
+        datasetVersion.setVersion("1");
+        when(mockClient.getDatasetVersion("123", "2017", "1")).thenReturn(datasetVersion);
+        DatasetVersionKey key = new DatasetVersionKey("123", "2017", "1");
+
+        try (DatasetBatchClient batchClient = new DatasetBatchClient(mockClient, PARALLELISM)) {
+
+            // When the batch is requested
+            BatchResult<DatasetVersionKey, DatasetVersion> result = batchClient.getDatasetVersions(
+                    Arrays.asList(key, new DatasetVersionKey("123", "2017", "1")));
+
+            // Then the version is read once
+            assertTrue(result.isSuccessful());
+            assertEquals(1, result.getResults().size());
+            assertEquals("1", result.getResults().get(key).getVersion());
+            verify(mockClient, times(1)).getDatasetVersion("123", "2017", "1");
+        }
+    }
+
+    @Test
+    public void testGetDatasets_readsInParallel() throws Exception {
+
+        // Given a dataset API whose reads each wait until PARALLELISM reads are in flight at once
+        DatasetClient mockClient = mock(DatasetClient.class);
+        CountDownLatch allInFlight = new CountDownLatch(PARALLELISM);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(mockClient.getDataset(anyString())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            allInFlight.countDown();
+            try {
+                if (!allInFlight.await(10, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("reads were not made in parallel");
+                }
+                return dataset(invocation.getArgument(0));
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+
+        List<String> datasetIDs = new ArrayList<>();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            datasetIDs.add("dataset-" + i);
+        }
+
+        try (DatasetBatchClient batchClient = new DatasetBatchClient(mockClient, PARALLELISM)) {
+
+            // When the datasets are read as a batch
+            BatchResult<String, Dataset> result = batchClient.getDatasets(datasetIDs);
+
+            // Then every dataset is read, with PARALLELISM reads in flight at once and never more
+            assertTrue(result.isSuccessful(), "errors: " + result.getErrors());
+            assertEquals(BATCH_SIZE, result.getResults().size());
+            assertEquals(PARALLELISM, maxInFlight.get());
+        }
+    }
+
+    @Test
+    public void testGetDatasets_deadline_appliedToEachRead() throws Exception {
+
+        // Given a dataset API that records the deadline each read is made under
+        DatasetClient mockClient = mock(DatasetClient.class);
+        List<Deadline> deadlines = new CopyOnWriteArrayList<>();
+        when(mockClient.getDataset(anyString())).thenAnswer(invocation -> {
+            deadlines.add(Deadline.current());
+            return dataset(invocation.getArgument(0));
+        });
+        Deadline deadline = Deadline.after(5, TimeUnit.SECONDS);
+
+        try (DatasetBatchClient batchClient = new DatasetBatchClient(mockClient, PARALLELISM)) {
+
+            // When a batch is read with a deadline
+            BatchResult<String, Dataset> result = batchClient.getDatasets(Arrays.asList("a", "b", "c"), deadline);
+
+            // Then each read is made under the deadline on the batch's threads
+            assertTrue(result.isSuccessful(), "errors: " + result.getErrors());
+            assertEquals(Arrays.asList(deadline, deadline, deadline), deadlines);
+        }
+    }
+
+    private static Dataset dataset(String datasetID) {
+        Dataset dataset = new Dataset();
+        dataset.setId(datasetID);
+        return dataset;
+    }
+}
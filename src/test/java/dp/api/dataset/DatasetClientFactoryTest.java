@@ -0,0 +1,124 @@
+package dp.api.dataset;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.pool.PoolStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DatasetClientFactoryTest {
+
+    private static final byte[] datasetBody = "{\"id\":\"321\",\"next\":{\"id\":\"321\"}}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/datasets/", exchange -> {
+            connections.add(exchange.getRemoteAddress());
+            exchange.sendResponseHeaders(200, datasetBody.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(datasetBody);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testClient_sameURL_sharesOnePool() throws Exception {
+
+        // Given a factory configured with a small pool
+        try (DatasetClientFactory factory = DatasetClientFactory.builder()
+                .configure(builder -> builder.maxTotalConnections(2))
+                .build()) {
+
+            // When two modules get clients for the same dataset API, one with a trailing slash
+            DatasetAPIClient first = factory.client(url(), "first", "service");
+            DatasetAPIClient second = factory.client(url() + "/", "second", "service");
+            first.getDataset("321");
+            second.getDataset("321");
+
+            // Then they share one pool and one connection
+            assertEquals(1, factory.getPoolCount());
+            assertEquals(2, factory.getClientCount());
+            assertEquals(1, connections.size());
+            PoolStats stats = factory.getPoolStats().get(url());
+            assertEquals(1, stats.getAvailable());
+            assertEquals(2, stats.getMax());
+
+            // When the first client is closed, twice
+            first.close();
+            first.close();
+
+            // Then the second client can still use the pool
+            assertEquals(1, factory.getPoolCount());
+            assertEquals(1, factory.getClientCount());
+            second.getDataset("321");
+            assertEquals(1, connections.size());
+
+            // Then the pool is closed with the last client
+            second.close();
+            assertEquals(0, factory.getPoolCount());
+            assertEquals(0, factory.getClientCount());
+        }
+    }
+
+    @Test
+    public void testClient_afterLastClosed_newPoolCreated() throws Exception {
+
+        // Given a factory whose only client for a URL has been closed
+        try (DatasetClientFactory factory = DatasetClientFactory.builder().build()) {
+            factory.client(url(), "token", "service").close();
+
+            // When another client is requested for the URL
+            try (DatasetAPIClient client = factory.client(url(), "token", "service")) {
+
+                // Then a new pool is created and used
+                assertEquals("321", client.getDataset("321").getId());
+                assertEquals(1, factory.getPoolCount());
+            }
+        }
+    }
+
+    @Test
+    public void testClose_openClients_poolsClosed() throws Exception {
+
+        // Given a factory with an open client
+        DatasetClientFactory factory = DatasetClientFactory.builder().build();
+        DatasetAPIClient client = factory.client(url(), "token", "service");
+
+        // When the factory is closed
+        factory.close();
+
+        // Then its pools are closed and no more clients can be created
+        assertEquals(0, factory.getPoolCount());
+        assertThrows(IllegalStateException.class, () -> client.getDataset("321"));
+        assertThrows(IllegalStateException.class, () -> factory.client(url(), "token", "service"));
+
+        // Then closing the client afterwards has no effect
+        client.close();
+    }
+
+    private String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+}
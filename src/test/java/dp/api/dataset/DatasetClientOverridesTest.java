@@ -0,0 +1,77 @@
+package dp.api.dataset;
+
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The DatasetClient and DatasetAsyncClient methods added after the first release have default implementations that
+ * throw an UnsupportedOperationException, so that existing implementations still compile. Every client in this library
+ * must override them, or it fails only when the method is called.
+ */
+public class DatasetClientOverridesTest {
+
+    private static final List<Class<? extends DatasetClient>> clients = Arrays.asList(
+            DatasetAPIClient.class,
+            ForwardingDatasetClient.class,
+            CachingDatasetClient.class,
+            CoalescingDatasetClient.class,
+            HedgingDatasetClient.class,
+            CircuitBreakingDatasetClient.class);
+
+    @Test
+    public void testListMethods_overriddenByEveryClient() throws Exception {
+
+        // Given the listing methods of DatasetClient
+        // When each client is checked, then each of them implements the methods
+        for (Class<? extends DatasetClient> client : clients) {
+            assertOverrides(client, DatasetClient.class, "listDatasets", int.class);
+            assertOverrides(client, DatasetClient.class, "listEditions", String.class, int.class);
+            assertOverrides(client, DatasetClient.class, "listVersions", String.class, String.class, int.class);
+        }
+    }
+
+    @Test
+    public void testPatchMethods_overriddenByEveryClient() throws Exception {
+
+        // Given the JSON Patch methods of DatasetClient and DatasetAsyncClient
+        // When each client is checked, then each of them implements the methods
+        for (Class<? extends DatasetClient> client : clients) {
+            assertOverrides(client, DatasetClient.class, "patchDataset", String.class, JsonPatch.class);
+            assertOverrides(client, DatasetClient.class, "patchDatasetVersion",
+                    String.class, String.class, String.class, JsonPatch.class);
+        }
+        assertOverrides(DatasetAPIAsyncClient.class, DatasetAsyncClient.class, "patchDataset",
+                String.class, JsonPatch.class);
+        assertOverrides(DatasetAPIAsyncClient.class, DatasetAsyncClient.class, "patchDatasetVersion",
+                String.class, String.class, String.class, JsonPatch.class);
+    }
+
+    @Test
+    public void testConditionalUpdates_overriddenByEveryClient() throws Exception {
+
+        // Given the If-Match update methods of DatasetClient and DatasetAsyncClient
+        // When each client is checked, then each of them implements the methods
+        for (Class<? extends DatasetClient> client : clients) {
+            assertOverrides(client, DatasetClient.class, "updateDataset", String.class, Dataset.class, String.class);
+            assertOverrides(client, DatasetClient.class, "updateDatasetVersion",
+                    String.class, String.class, String.class, DatasetVersion.class, String.class);
+        }
+        assertOverrides(DatasetAPIAsyncClient.class, DatasetAsyncClient.class, "updateDataset",
+                String.class, Dataset.class, String.class);
+        assertOverrides(DatasetAPIAsyncClient.class, DatasetAsyncClient.class, "updateDatasetVersion",
+                String.class, String.class, String.class, DatasetVersion.class, String.class);
+    }
+
+    private static void assertOverrides(Class<?> client, Class<?> api, String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        Method method = client.getMethod(name, parameterTypes);
+        assertTrue(method.getDeclaringClass() != api,
+                client.getSimpleName() + " does not override " + api.getSimpleName() + "." + name);
+    }
+}
@@ -0,0 +1,278 @@
+package dp.api.dataset;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dp.api.dataset.exception.CircuitBreakerOpenException;
+import dp.api.dataset.exception.DatasetNotFoundException;
+import dp.api.dataset.exception.DeadlineExceededException;
+import dp.api.dataset.exception.UncheckedDatasetAPIException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Edition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DatasetListingTest {
+
+    private static final int datasetCount = 45;
+
+    private HttpServer server;
+    private final Queue<String> queries = new ConcurrentLinkedQueue<>();
+    private volatile int failFromOffset = Integer.MAX_VALUE;
+    private volatile int slowFromOffset = Integer.MAX_VALUE;
+    private volatile int unavailableFromOffset = Integer.MAX_VALUE;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/datasets", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testListDatasets_fetchesEveryPage() throws Exception {
+
+        // Given a dataset API with 45 datasets
+        try (DatasetAPIClient client = client()) {
+
+            // When the datasets are listed 20 at a time
+            List<String> ids;
+            try (Stream<Dataset> datasets = client.listDatasets(20)) {
+                ids = datasets.map(Dataset::getId).collect(Collectors.toList());
+            }
+
+            // Then every dataset is returned in order from three pages
+            assertEquals(datasetCount, ids.size());
+            assertEquals("dataset-0", ids.get(0));
+            assertEquals("dataset-44", ids.get(44));
+            assertEquals(Arrays.asList("offset=0&limit=20", "offset=20&limit=20", "offset=40&limit=20"),
+                    Arrays.asList(queries.toArray()));
+        }
+    }
+
+    @Test
+    public void testListDatasets_prefetchesOnlyTheNextPage() throws Exception {
+
+        // Given a listing of datasets 20 at a time
+        try (DatasetAPIClient client = client();
+             Stream<Dataset> datasets = client.listDatasets(20)) {
+
+            // Then nothing is fetched until the first item is asked for
+            Iterator<Dataset> iterator = datasets.iterator();
+            assertEquals(0, queries.size());
+
+            // When the first item is read
+            assertEquals("dataset-0", iterator.next().getId());
+
+            // Then the second page is fetched in the background, but not the third
+            waitForQueries(2);
+            Thread.sleep(100);
+            assertEquals(2, queries.size());
+
+            // When the caller moves on to the second page, then the third is fetched
+            for (int i = 1; i <= 20; i++) {
+                iterator.next();
+            }
+            waitForQueries(3);
+        }
+    }
+
+    @Test
+    public void testListEditionsAndVersions() throws Exception {
+
+        // Given a dataset with two editions, one of which has three versions
+        try (DatasetAPIClient client = client()) {
+
+            // When the editions and versions are listed
+            List<String> editions = client.listEditions("cpih01").map(Edition::getEdition).collect(Collectors.toList());
+            List<String> versions = client.listVersions("cpih01", "2017")
+                    .map(DatasetVersion::getVersion).collect(Collectors.toList());
+
+            // Then each is returned from a single short page
+            assertEquals(Arrays.asList("2017", "2018"), editions);
+            assertEquals(Arrays.asList("1", "2", "3"), versions);
+        }
+    }
+
+    @Test
+    public void testListDatasets_pageFails_throwsUnchecked() throws Exception {
+
+        // Given a dataset API that fails to return the second page of datasets
+        failFromOffset = 20;
+
+        try (DatasetAPIClient client = client();
+             Stream<Dataset> datasets = client.listDatasets(20)) {
+
+            // When the datasets are listed, then the first page is returned before the failure
+            Iterator<Dataset> iterator = datasets.iterator();
+            for (int i = 0; i < 20; i++) {
+                assertEquals("dataset-" + i, iterator.next().getId());
+            }
+            UncheckedDatasetAPIException e = assertThrows(UncheckedDatasetAPIException.class, iterator::hasNext);
+            assertTrue(e.getCause() instanceof DatasetNotFoundException);
+        }
+    }
+
+    @Test
+    public void testListDatasets_deadline_appliesToPrefetchedPages() throws Exception {
+
+        // Given a dataset API that is slow to return the second page of datasets
+        slowFromOffset = 20;
+
+        try (DatasetAPIClient client = client();
+             Stream<Dataset> datasets = client.listDatasets(20, Deadline.after(500, TimeUnit.MILLISECONDS))) {
+
+            // When the datasets are listed within a deadline, then the first page is returned
+            Iterator<Dataset> iterator = datasets.iterator();
+            for (int i = 0; i < 20; i++) {
+                assertEquals("dataset-" + i, iterator.next().getId());
+            }
+
+            // Then the second page, fetched in the background, fails at the deadline
+            long start = System.nanoTime();
+            UncheckedDatasetAPIException e = assertThrows(UncheckedDatasetAPIException.class, iterator::hasNext);
+            assertTrue(e.getCause() instanceof DeadlineExceededException);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String query = exchange.getRequestURI().getQuery();
+        int offset = parameter(query, "offset");
+        int limit = parameter(query, "limit");
+
+        String body;
+        if (path.equals("/datasets")) {
+            queries.add(query);
+            if (offset >= slowFromOffset) {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (offset >= unavailableFromOffset) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            if (offset >= failFromOffset) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            StringBuilder items = new StringBuilder();
+            for (int i = offset; i < Math.min(offset + limit, datasetCount); i++) {
+                items.append(items.length() > 0 ? "," : "")
+                        .append("{\"id\":\"dataset-").append(i)
+                        .append("\",\"next\":{\"id\":\"dataset-").append(i).append("\"}}");
+            }
+            body = "{\"count\":" + Math.max(0, Math.min(limit, datasetCount - offset)) + ",\"items\":[" + items
+                    + "],\"offset\":" + offset + ",\"limit\":" + limit + ",\"total_count\":" + datasetCount + "}";
+        } else if (path.equals("/datasets/cpih01/editions")) {
+            body = "{\"items\":[{\"id\":\"e1\",\"next\":{\"edition\":\"2017\",\"state\":\"published\"}},"
+                    + "{\"id\":\"e2\",\"current\":{\"edition\":\"2018\"}}],\"offset\":0}";
+        } else if (path.equals("/datasets/cpih01/editions/2017/versions")) {
+            body = "{\"items\":[{\"version\":\"1\"},{\"version\":\"2\"},{\"version\":\"3\"}],\"total_count\":3}";
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+        exchange.close();
+    }
+
+    private void waitForQueries(int count) throws InterruptedException {
+        for (int i = 0; i < 500 && queries.size() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, queries.size());
+    }
+
+    private static int parameter(String query, String name) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith(name + "=")) {
+                    return Integer.parseInt(parameter.substring(name.length() + 1));
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    public void testListDatasets_circuitBreaker_eachPageCounted() throws Exception {
+
+        // Given a dataset API that is unavailable for the second page of datasets, and a circuit breaker over it
+        unavailableFromOffset = 20;
+        CircuitBreakerConfig config = CircuitBreakerConfig.builder()
+                .failureRateThreshold(50)
+                .minimumNumberOfCalls(4)
+                .waitDurationInOpenState(10, TimeUnit.SECONDS)
+                .build();
+
+        try (CircuitBreakingDatasetClient client = CircuitBreakingDatasetClient.builder(DatasetAPIClient.builder()
+                .datasetAPIURL("http://localhost:" + server.getAddress().getPort())
+                .retryStrategy(new RetryStrategy(0, 1, MetricsListener.NOOP))
+                .build()).readConfig(config).build()) {
+
+            // When the datasets are listed twice, each time failing on the second page
+            for (int i = 0; i < 2; i++) {
+                try (Stream<Dataset> datasets = client.listDatasets(20)) {
+                    assertThrows(UncheckedDatasetAPIException.class, () -> datasets.forEach(dataset -> { }));
+                }
+            }
+
+            // Then each page counts as a read, and half of them failing opens the read circuit
+            assertEquals(CircuitBreakingDatasetClient.State.OPEN, client.getReadState());
+
+            // Then the next listing fails fast without calling the dataset API
+            int requests = queries.size();
+            try (Stream<Dataset> datasets = client.listDatasets(20)) {
+                UncheckedDatasetAPIException e = assertThrows(UncheckedDatasetAPIException.class,
+                        () -> datasets.forEach(dataset -> { }));
+                assertTrue(e.getCause() instanceof CircuitBreakerOpenException);
+            }
+            assertEquals(requests, queries.size());
+        }
+    }
+
+    private DatasetAPIClient client() throws Exception {
+        return DatasetAPIClient.builder()
+                .datasetAPIURL("http://localhost:" + server.getAddress().getPort())
+                .build();
+    }
+}
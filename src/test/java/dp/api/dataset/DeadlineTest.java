@@ -0,0 +1,135 @@
+package dp.api.dataset;
+
+import com.sun.net.httpserver.HttpServer;
+import dp.api.dataset.exception.DeadlineExceededException;
+import dp.api.dataset.exception.UnexpectedResponseException;
+import dp.api.dataset.model.Dataset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DeadlineTest {
+
+    private static final byte[] datasetBody = "{\"id\":\"321\",\"next\":{\"id\":\"321\"}}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/datasets/", exchange -> {
+            requests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/datasets/unavailable")) {
+                exchange.sendResponseHeaders(503, -1);
+            } else {
+                if (path.equals("/datasets/slow")) {
+                    sleep(2000);
+                }
+                exchange.sendResponseHeaders(200, datasetBody.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(datasetBody);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testGetDataset_slowResponse_deadlineExceeded() throws Exception {
+
+        // Given a dataset API that takes 2 seconds to respond
+        try (DatasetAPIClient client = client(RetryStrategy.builder().build())) {
+
+            // When a dataset is requested with a 200ms deadline
+            long start = System.nanoTime();
+            assertThrows(DeadlineExceededException.class,
+                    () -> client.getDataset("slow", Deadline.after(200, TimeUnit.MILLISECONDS)));
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Then the call fails at the deadline instead of waiting for the response
+            assertTrue(elapsedMs < 1500, "expected the call to fail near the deadline but took " + elapsedMs + "ms");
+
+            // Then the client can still be used afterwards
+            Dataset dataset = client.getDataset("321", Deadline.after(5, TimeUnit.SECONDS));
+            assertEquals("321", dataset.getId());
+        }
+    }
+
+    @Test
+    public void testGetDataset_retries_boundedByDeadline() throws Exception {
+
+        // Given a dataset API that is unavailable, and a strategy that would retry 20 times 100ms apart
+        RetryStrategy retryStrategy = RetryStrategy.builder()
+                .maxRetries(20)
+                .baseIntervalMs(100)
+                .maxIntervalMs(100)
+                .jitter(RetryStrategy.Jitter.NONE)
+                .retryBudget(null)
+                .build();
+
+        try (DatasetAPIClient client = client(retryStrategy)) {
+
+            // When a dataset is requested with a 350ms deadline
+            long start = System.nanoTime();
+            assertThrows(UnexpectedResponseException.class,
+                    () -> client.getDataset("unavailable", Deadline.after(350, TimeUnit.MILLISECONDS)));
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Then retries stop before the deadline
+            assertTrue(elapsedMs < 1000, "expected retries to stop at the deadline but took " + elapsedMs + "ms");
+            assertTrue(requests.get() <= 4, "expected at most 4 requests but made " + requests.get());
+        }
+    }
+
+    @Test
+    public void testGetDataset_socketTimeout_applied() throws Exception {
+
+        // Given a client with a 200ms socket timeout and a dataset API that takes 2 seconds to respond
+        try (DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL("http://localhost:" + server.getAddress().getPort())
+                .socketTimeoutMs(200)
+                .build()) {
+
+            // When a dataset is requested without a deadline, then the read times out
+            assertThrows(SocketTimeoutException.class, () -> client.getDataset("slow"));
+        }
+    }
+
+    private DatasetAPIClient client(RetryStrategy retryStrategy) throws Exception {
+        return DatasetAPIClient.builder()
+                .datasetAPIURL("http://localhost:" + server.getAddress().getPort())
+                .retryStrategy(retryStrategy)
+                .build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package dp.api.dataset;
+
+import dp.api.dataset.model.Dataset;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class HedgingDatasetClientTest {
+
+    @Test
+    public void testGetDataset_slowFirstRequest_hedgeReturned() throws Exception {
+
+        // Given a dataset API where the first request is slow and the second is fast
+        ScriptedDatasetClient stubClient = new ScriptedDatasetClient(5000, 0);
+
+        try (HedgingDatasetClient client = HedgingDatasetClient.builder(stubClient)
+                .delay(20, TimeUnit.MILLISECONDS)
+                .build()) {
+
+            // When a dataset is requested
+            long start = System.nanoTime();
+            Dataset dataset = client.getDataset("123");
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Then the hedged request's result is returned without waiting for the slow one
+            assertEquals("2", dataset.getId());
+            assertTrue(elapsedMs < 2000, "expected the hedge to return quickly but took " + elapsedMs + "ms");
+            assertEquals(1, client.getHedgeCount());
+            assertEquals(1, client.getHedgeWinCount());
+
+            // Then the slow request is aborted
+            assertTrue(stubClient.cancelled.await(5, TimeUnit.SECONDS), "expected the slow request to be aborted");
+        }
+    }
+
+    @Test
+    public void testGetDataset_originalFailsAfterHedgeSent_hedgeReturned() throws Exception {
+
+        // Given a dataset API where the first request fails after the hedge is sent, and the hedge then succeeds
+        ScriptedDatasetClient stubClient = new ScriptedDatasetClient(100, 300);
+        stubClient.failingCall = 1;
+
+        try (HedgingDatasetClient client = HedgingDatasetClient.builder(stubClient)
+                .delay(20, TimeUnit.MILLISECONDS)
+                .build()) {
+
+            // When a dataset is requested, then the hedge's result is returned instead of the failure
+            Dataset dataset = client.getDataset("123");
+            assertEquals("2", dataset.getId());
+            assertEquals(1, client.getHedgeCount());
+            assertEquals(1, client.getHedgeWinCount());
+        }
+    }
+
+    @Test
+    public void testGetDataset_bothRequestsFail_failureReturned() throws Exception {
+
+        // Given a dataset API where both the request and its hedge fail
+        ScriptedDatasetClient stubClient = new ScriptedDatasetClient(100, 0);
+        stubClient.failingCall = -1;
+
+        try (HedgingDatasetClient client = HedgingDatasetClient.builder(stubClient)
+                .delay(20, TimeUnit.MILLISECONDS)
+                .build()) {
+
+            // When a dataset is requested, then the failure is returned once both have failed
+            assertThrows(IOException.class, () -> client.getDataset("123"));
+            assertEquals(2, stubClient.calls.get());
+        }
+    }
+
+    @Test
+    public void testGetDataset_fastRequest_noHedge() throws Exception {
+
+        // Given a dataset API that answers quickly
+        ScriptedDatasetClient stubClient = new ScriptedDatasetClient(0);
+
+        try (HedgingDatasetClient client = HedgingDatasetClient.builder(stubClient)
+                .delay(1, TimeUnit.SECONDS)
+                .build()) {
+
+            // When a dataset is requested
+            Dataset dataset = client.getDataset("123");
+
+            // Then only one request is sent, on the caller's thread
+            assertEquals("1", dataset.getId());
+            assertEquals(1, stubClient.calls.get());
+            assertEquals(0, client.getHedgeCount());
+            assertEquals(Thread.currentThread(), stubClient.firstCallThread);
+        }
+    }
+
+    @Test
+    public void testGetDataset_everyRequestSlow_extraLoadCapped() throws Exception {
+
+        // Given a dataset API where every request takes longer than the hedge delay
+        ScriptedDatasetClient stubClient = new ScriptedDatasetClient(5);
+        int reads = 200;
+
+        try (HedgingDatasetClient client = HedgingDatasetClient.builder(stubClient)
+                .delay(1, TimeUnit.MILLISECONDS)
+                .maxExtraLoadPercent(10)
+                .maxBurst(5)
+                .build()) {
+
+            // When many datasets are read
+            for (int i = 0; i < reads; i++) {
+                client.getDataset("123");
+            }
+
+            // Then hedges are limited to the burst plus 10% of reads
+            assertTrue(client.getHedgeCount() <= 5 + reads / 10,
+                    "expected at most " + (5 + reads / 10) + " hedges but sent " + client.getHedgeCount());
+            assertTrue(client.getHedgeShedCount() > 0);
+
+            // Then every read was made, and no more than one call per hedge on top (a hedge can be cancelled before
+            // it starts)
+            assertTrue(stubClient.calls.get() >= reads);
+            assertTrue(stubClient.calls.get() <= reads + client.getHedgeCount());
+        }
+    }
+
+    @Test
+    public void testHedgeDelay_percentile_derivedFromObservedLatency() throws Exception {
+
+        // Given a dataset API that takes 10ms on a virtual clock
+        AtomicLong clock = new AtomicLong();
+        ScriptedDatasetClient stubClient = new ScriptedDatasetClient(0);
+        stubClient.clock = clock;
+
+        try (HedgingDatasetClient client = HedgingDatasetClient.builder(stubClient)
+                .delay(1, TimeUnit.SECONDS)
+                .delayPercentile(0.95, 50)
+                .nanoTime(clock::get)
+                .build()) {
+
+            // When fewer reads than the minimum number of samples have been made
+            for (int i = 0; i < 49; i++) {
+                client.getDataset("123");
+            }
+
+            // Then the fixed delay is used
+            assertEquals(TimeUnit.SECONDS.toNanos(1), client.hedgeDelayNanos(DatasetOperation.GET_DATASET));
+
+            // When enough reads have been made
+            client.getDataset("123");
+
+            // Then the delay is the observed percentile, to within the histogram's precision
+            long delayNanos = client.hedgeDelayNanos(DatasetOperation.GET_DATASET);
+            assertTrue(delayNanos >= TimeUnit.MILLISECONDS.toNanos(10), "delay was " + delayNanos);
+            assertTrue(delayNanos < TimeUnit.MILLISECONDS.toNanos(11), "delay was " + delayNanos);
+
+            // Then the other operations still use the fixed delay
+            assertEquals(TimeUnit.SECONDS.toNanos(1), client.hedgeDelayNanos(DatasetOperation.GET_DATASET_VERSION));
+        }
+    }
+
+    @Test
+    public void testHedgeDelay_percentile_failuresIgnored() throws Exception {
+
+        // Given a dataset API that fails every request after 10ms on a virtual clock
+        AtomicLong clock = new AtomicLong();
+        ScriptedDatasetClient stubClient = new ScriptedDatasetClient(0);
+        stubClient.clock = clock;
+        stubClient.failingCall = -1;
+
+        try (HedgingDatasetClient client = HedgingDatasetClient.builder(stubClient)
+                .delay(1, TimeUnit.SECONDS)
+                .delayPercentile(0.95, 50)
+                .nanoTime(clock::get)
+                .build()) {
+
+            // When more reads than the minimum number of samples have failed
+            for (int i = 0; i < 60; i++) {
+                assertThrows(IOException.class, () -> client.getDataset("123"));
+            }
+
+            // Then their latencies are not used, and the fixed delay still applies
+            assertEquals(TimeUnit.SECONDS.toNanos(1), client.hedgeDelayNanos(DatasetOperation.GET_DATASET));
+        }
+    }
+
+    @Test
+    public void testGetDataset_hedgesInFlightCapped_hedgeShed() throws Exception {
+
+        // Given a dataset API where every request takes longer than the hedge delay
+        ScriptedDatasetClient stubClient = new ScriptedDatasetClient(500);
+
+        try (HedgingDatasetClient client = HedgingDatasetClient.builder(stubClient)
+                .delay(100, TimeUnit.MILLISECONDS)
+                .maxConcurrentHedges(1)
+                .build()) {
+
+            // When two reads are made at the same time
+            ExecutorService callers = Executors.newFixedThreadPool(2);
+            try {
+                Future<Dataset> first = callers.submit(() -> client.getDataset("123"));
+                Future<Dataset> second = callers.submit(() -> client.getDataset("123"));
+                first.get(5, TimeUnit.SECONDS);
+                second.get(5, TimeUnit.SECONDS);
+            } finally {
+                callers.shutdownNow();
+            }
+
+            // Then only one of them is hedged
+            assertEquals(1, client.getHedgeCount());
+            assertEquals(1, client.getHedgeShedCount());
+        }
+    }
+
+    /**
+     * A fake DatasetClient that sleeps for a scripted latency on each call, repeating the last latency once the
+     * script runs out, and returns a dataset whose ID is the call number, or fails the call numbered failingCall
+     * (every call if it is -1). A call is aborted like an HTTP exchange when it is cancelled. Other calls are forwarded
+     * to a mock.
+     */
+    private static class ScriptedDatasetClient extends ForwardingDatasetClient {
+
+        private final ConcurrentLinkedQueue<Long> latenciesMs = new ConcurrentLinkedQueue<>();
+        private final long lastLatencyMs;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+        private volatile AtomicLong clock;
+        private volatile int failingCall;
+        private volatile Thread firstCallThread;
+
+        private ScriptedDatasetClient(long... latenciesMs) {
+            super(mock(DatasetClient.class));
+            for (long latencyMs : latenciesMs) {
+                this.latenciesMs.add(latencyMs);
+            }
+            this.lastLatencyMs = latenciesMs[latenciesMs.length - 1];
+        }
+
+        @Override
+        public Dataset getDataset(String datasetID) throws IOException {
+            int call = calls.incrementAndGet();
+            if (call == 1) {
+                firstCallThread = Thread.currentThread();
+            }
+            Long latencyMs = latenciesMs.poll();
+
+            CountDownLatch aborted = new CountDownLatch(1);
+            Cancellation cancellation = Cancellation.current();
+            if (cancellation != null) {
+                cancellation.abortWith(aborted::countDown);
+            }
+            try {
+                if (aborted.await(latencyMs != null ? latencyMs : lastLatencyMs, TimeUnit.MILLISECONDS)) {
+                    cancelled.countDown();
+                    throw new IOException("call " + call + " aborted");
+                }
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+                throw new InterruptedIOException();
+            } finally {
+                if (cancellation != null) {
+                    cancellation.abortWith(null);
+                }
+            }
+            if (clock != null) {
+                clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+            if (failingCall == call || failingCall == -1) {
+                throw new IOException("call " + call + " failed");
+            }
+            Dataset dataset = new Dataset();
+            dataset.setId(Integer.toString(call));
+            return dataset;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package dp.api.dataset;
+
+import com.sun.net.httpserver.HttpServer;
+import dp.api.dataset.exception.DatasetNotFoundException;
+import dp.api.dataset.model.Dataset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramMetricsListenerTest {
+
+    private static final byte[] datasetBody = "{\"id\":\"321\",\"next\":{\"id\":\"321\",\"title\":\"CPIH\"}}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private final AtomicInteger unavailableResponses = new AtomicInteger();
+    private final AtomicLong requestBytes = new AtomicLong();
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/datasets/", exchange -> {
+            requestBytes.addAndGet(drain(exchange.getRequestBody()));
+            String path = exchange.getRequestURI().getPath();
+            if (unavailableResponses.getAndDecrement() > 0) {
+                exchange.sendResponseHeaders(503, -1);
+            } else if (path.equals("/datasets/missing")) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(200, datasetBody.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(datasetBody);
+                }
+            } else {
+                exchange.sendResponseHeaders(200, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testLatencyPercentiles_withinBucketPrecision() {
+
+        // Given latencies of 1 to 10000 microseconds
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+        for (int i = 1; i <= 10000; i++) {
+            listener.requestCompleted(DatasetOperation.GET_DATASET, 200, null, TimeUnit.MICROSECONDS.toNanos(i), 0, 0);
+        }
+
+        // When the metrics are read
+        OperationMetrics metrics = listener.getMetrics(DatasetOperation.GET_DATASET);
+
+        // Then each percentile is within the 6.25% precision of the histogram buckets
+        assertEquals(10000, metrics.getCount());
+        assertWithin(5000, metrics.getP50(TimeUnit.MICROSECONDS));
+        assertWithin(9000, metrics.getP90(TimeUnit.MICROSECONDS));
+        assertWithin(9900, metrics.getP99(TimeUnit.MICROSECONDS));
+        assertWithin(9990, metrics.getP999(TimeUnit.MICROSECONDS));
+        assertEquals(10000, metrics.getMax(TimeUnit.MICROSECONDS));
+        assertEquals(Long.valueOf(10000), metrics.getStatusCounts().get(200));
+    }
+
+    @Test
+    public void testClient_retriedThenNotFound_statusExceptionAndRetryCounted() throws Exception {
+
+        // Given a dataset API that is unavailable for two requests and then reports the dataset as not found
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+        unavailableResponses.set(2);
+
+        try (DatasetAPIClient client = client(listener)) {
+
+            // When getDataset is called
+            assertThrows(DatasetNotFoundException.class, () -> client.getDataset("missing"));
+        }
+
+        // Then the final status, the exception and both retries are recorded against getDataset
+        OperationMetrics metrics = listener.getMetrics(DatasetOperation.GET_DATASET);
+        assertEquals(1, metrics.getCount());
+        assertEquals(Long.valueOf(1), metrics.getStatusCounts().get(404));
+        assertEquals(Long.valueOf(1), metrics.getExceptionCounts().get(DatasetNotFoundException.class.getName()));
+        assertEquals(2, metrics.getRetryCount());
+        assertEquals(0, listener.getMetrics(DatasetOperation.GET_INSTANCE).getCount());
+    }
+
+    @Test
+    public void testClient_bytesSentAndReceived() throws Exception {
+
+        // Given a client with a metrics listener
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+        Dataset dataset = new Dataset();
+        dataset.setTitle("CPIH");
+
+        try (DatasetAPIClient client = client(listener)) {
+
+            // When a dataset is read and updated
+            client.getDataset("321");
+            client.updateDataset("321", dataset);
+        }
+
+        // Then the response and request body sizes are recorded
+        assertEquals(datasetBody.length, listener.getMetrics(DatasetOperation.GET_DATASET).getBytesReceived());
+        assertTrue(requestBytes.get() > 0);
+        assertEquals(requestBytes.get(), listener.getMetrics(DatasetOperation.UPDATE_DATASET).getBytesSent());
+    }
+
+    private DatasetAPIClient client(MetricsListener listener) throws Exception {
+        return DatasetAPIClient.builder()
+                .datasetAPIURL("http://localhost:" + server.getAddress().getPort())
+                .datasetAPIAuthToken("12345")
+                .serviceAuthToken("67856")
+                .metricsListener(listener)
+                .build();
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected / 16, "expected about " + expected + " but was " + actual);
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+        }
+        return total;
+    }
+}
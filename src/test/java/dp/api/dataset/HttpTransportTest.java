@@ -0,0 +1,293 @@
+package dp.api.dataset;
+
+import com.sun.net.httpserver.HttpServer;
+import dp.api.dataset.exception.DatasetNotFoundException;
+import dp.api.dataset.exception.DeadlineExceededException;
+import dp.api.dataset.model.Dataset;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpTransportTest {
+
+    private static final String datasetJson = "{\"id\":\"321\",\"next\":{\"id\":\"321\",\"title\":\"CPIH\"}}";
+
+    @Test
+    public void testGetDataset_transport_requestAndResponseMapped() throws Exception {
+
+        // Given a transport that returns a dataset
+        FakeTransport transport = new FakeTransport();
+        transport.respond(200, datasetJson);
+
+        try (DatasetAPIClient client = client(transport)) {
+
+            // When a dataset is requested
+            Dataset dataset = client.getDataset("321");
+
+            // Then the request is sent through the transport with the client's headers
+            TransportRequest request = transport.requests.get(0);
+            assertEquals("GET", request.getMethod());
+            assertEquals("http://localhost:22000/datasets/321", request.getUri().toString());
+            assertEquals(Collections.singletonList("auth"), request.getHeaders().get("Internal-token"));
+            assertNull(request.getBody());
+
+            // Then the response is mapped as usual
+            assertEquals("321", dataset.getId());
+        }
+
+        // Then the transport is closed with the client
+        assertTrue(transport.closed);
+    }
+
+    @Test
+    public void testUpdateDataset_transport_bodySent() throws Exception {
+
+        // Given a transport that accepts an update
+        FakeTransport transport = new FakeTransport();
+        transport.respond(200, null);
+
+        try (DatasetAPIClient client = client(transport)) {
+
+            // When a dataset is updated
+            Dataset dataset = new Dataset();
+            dataset.setTitle("CPIH");
+            client.updateDataset("321", dataset);
+
+            // Then the serialized body and its content type are sent
+            TransportRequest request = transport.requests.get(0);
+            assertEquals("PUT", request.getMethod());
+            assertTrue(new String(request.getBody(), StandardCharsets.UTF_8).contains("\"title\":\"CPIH\""));
+            assertEquals("application/json", request.getHeaders().get("Content-Type").get(0));
+        }
+    }
+
+    @Test
+    public void testGetDataset_transport_retriedByRetryStrategy() throws Exception {
+
+        // Given a transport that is unavailable twice before returning a dataset
+        FakeTransport transport = new FakeTransport();
+        transport.respond(503, null);
+        transport.respond(503, null);
+        transport.respond(200, datasetJson);
+        HistogramMetricsListener metrics = new HistogramMetricsListener();
+
+        try (DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL("http://localhost:22000")
+                .transport(transport)
+                .metricsListener(metrics)
+                .retryStrategy(new RetryStrategy(3, 1, metrics))
+                .build()) {
+
+            // When a dataset is requested, then it is returned after two retries
+            assertEquals("321", client.getDataset("321").getId());
+            assertEquals(3, transport.requests.size());
+            assertEquals(2, metrics.getMetrics(DatasetOperation.GET_DATASET).getRetryCount());
+        }
+    }
+
+    @Test
+    public void testGetDataset_apacheTransport_endToEnd() throws Exception {
+
+        // Given a dataset API that knows one dataset
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/datasets/", exchange -> {
+            byte[] body = datasetJson.getBytes(StandardCharsets.UTF_8);
+            if (exchange.getRequestURI().getPath().equals("/datasets/321")) {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+            }
+            exchange.close();
+        });
+        server.start();
+
+        try (DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL("http://localhost:" + server.getAddress().getPort())
+                .transport(new ApacheHttpTransport(HttpClients.custom().disableAutomaticRetries().build()))
+                .build()) {
+
+            // When datasets are requested through the Apache transport, then they are mapped as usual
+            assertEquals("321", client.getDataset("321").getId());
+            assertThrows(DatasetNotFoundException.class, () -> client.getDataset("missing"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testGetDataset_transport_slowBody_deadlineExceeded() throws Exception {
+
+        // Given a transport whose response body never arrives unless the response is aborted
+        CountDownLatch aborted = new CountDownLatch(1);
+        FakeTransport transport = new FakeTransport();
+        transport.responses.add(bodyUntilAborted(aborted));
+
+        try (DatasetAPIClient client = client(transport)) {
+
+            // When a dataset is requested with a deadline
+            // Then the response is aborted and the call fails once the deadline passes
+            assertThrows(DeadlineExceededException.class,
+                    () -> client.getDataset("321", Deadline.after(200, TimeUnit.MILLISECONDS)));
+            assertEquals(0, aborted.getCount());
+
+            // Then the transport was given the time left as its timeout
+            long timeoutMs = transport.requests.get(0).getTimeoutMs();
+            assertTrue(timeoutMs > 0 && timeoutMs <= 200, "timeout was " + timeoutMs);
+        }
+    }
+
+    @Test
+    public void testGetDataset_transport_cancelled_responseAborted() throws Exception {
+
+        // Given a transport whose response body never arrives unless the response is aborted
+        CountDownLatch aborted = new CountDownLatch(1);
+        FakeTransport transport = new FakeTransport();
+        transport.responses.add(bodyUntilAborted(aborted));
+
+        try (DatasetAPIClient client = client(transport)) {
+
+            // When a dataset is requested on another thread, and the call is cancelled
+            Cancellation cancellation = new Cancellation();
+            ExecutorService caller = Executors.newSingleThreadExecutor();
+            try {
+                Future<Dataset> result = caller.submit(() -> Cancellation.callWithin(cancellation, () -> client.getDataset("321")));
+                while (transport.requests.isEmpty()) {
+                    Thread.sleep(1);
+                }
+                cancellation.cancel();
+
+                // Then the response is aborted and the call fails
+                assertTrue(aborted.await(5, TimeUnit.SECONDS));
+                ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertTrue(e.getCause() instanceof IOException);
+            } finally {
+                caller.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * A response whose body blocks until the response is aborted.
+     */
+    private static TransportResponse bodyUntilAborted(CountDownLatch aborted) {
+        return new TransportResponse() {
+            @Override
+            public int getStatusCode() {
+                return 200;
+            }
+
+            @Override
+            public Map<String, List<String>> getHeaders() {
+                return Collections.emptyMap();
+            }
+
+            @Override
+            public InputStream getBody() {
+                return new InputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        try {
+                            aborted.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        throw new IOException("response aborted");
+                    }
+                };
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public void abort() {
+                aborted.countDown();
+            }
+        };
+    }
+
+    private static DatasetAPIClient client(HttpTransport transport) throws Exception {
+        return DatasetAPIClient.builder()
+                .datasetAPIURL("http://localhost:22000")
+                .datasetAPIAuthToken("auth")
+                .serviceAuthToken("service")
+                .transport(transport)
+                .build();
+    }
+
+    /**
+     * A transport that records requests and plays back canned responses.
+     */
+    private static class FakeTransport implements HttpTransport {
+
+        private final List<TransportRequest> requests = new CopyOnWriteArrayList<>();
+        private final Deque<TransportResponse> responses = new ArrayDeque<>();
+        private boolean closed;
+
+        private void respond(int statusCode, String body) {
+            byte[] bytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            Map<String, List<String>> headers = Collections.singletonMap(
+                    "content-length", Arrays.asList(Integer.toString(bytes.length)));
+            responses.add(new TransportResponse() {
+                @Override
+                public int getStatusCode() {
+                    return statusCode;
+                }
+
+                @Override
+                public Map<String, List<String>> getHeaders() {
+                    return headers;
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return new ByteArrayInputStream(bytes);
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+        }
+
+        @Override
+        public TransportResponse execute(TransportRequest request) {
+            requests.add(request);
+            return responses.remove();
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
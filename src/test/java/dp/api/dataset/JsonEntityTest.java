@@ -0,0 +1,115 @@
+package dp.api.dataset;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dp.api.dataset.model.Dataset;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonEntityTest {
+
+    private static final ObjectMapper json = new ObjectMapper();
+
+    private static final String datasetTitle = "Ystadegau Gwladol \u2013 \u7d71\u8a08";
+
+    @Test
+    public void testJsonEntity_writeTo_utf8() throws Exception {
+
+        // Given a dataset with a non-Latin title
+        JsonEntity entity = new JsonEntity(createDataset(), json.writer());
+
+        // When the entity is written
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+
+        // Then the body is UTF-8 JSON that reads back to the same title
+        Dataset actual = json.readValue(out.toByteArray(), Dataset.class);
+        assertEquals(datasetTitle, actual.getTitle());
+        assertEquals("application/json; charset=UTF-8", entity.getContentType().getValue());
+    }
+
+    @Test
+    public void testJsonEntity_repeatable() throws Exception {
+
+        // Given a JSON entity
+        JsonEntity entity = new JsonEntity(createDataset(), json.writer());
+
+        // When it is written more than once, as on a retry
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        entity.writeTo(first);
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        entity.writeTo(second);
+
+        // Then the same body is sent each time
+        assertTrue(entity.isRepeatable());
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+    }
+
+    @Test
+    public void testJsonEntity_getContent_buffersBody() throws Exception {
+
+        // Given a JSON entity that has not been written
+        JsonEntity entity = new JsonEntity(createDataset(), json.writer());
+
+        // When the content is read as a stream
+        byte[] content = IOUtils.toByteArray(entity.getContent());
+
+        // Then the body is buffered and reused for subsequent writes
+        assertEquals(content.length, entity.getContentLength());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        assertArrayEquals(content, out.toByteArray());
+        assertEquals(datasetTitle, json.readValue(new String(content, StandardCharsets.UTF_8), Dataset.class).getTitle());
+    }
+
+    @Test
+    public void testJsonEntity_smallBody_contentLengthKnown() throws Exception {
+
+        // Given a JSON entity for a small dataset
+        JsonEntity entity = new JsonEntity(createDataset(), json.writer());
+
+        // When its length is asked for before it is written, as when the request headers are sent
+        long contentLength = entity.getContentLength();
+
+        // Then it is the length of the UTF-8 body, so the request is not sent chunked
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        assertEquals(out.size(), contentLength);
+        assertFalse(entity.isChunked());
+    }
+
+    @Test
+    public void testJsonEntity_largeBody_streamedWithoutLength() throws Exception {
+
+        // Given a JSON entity for a dataset larger than the most that is buffered
+        Dataset dataset = createDataset();
+        StringBuilder title = new StringBuilder();
+        while (title.length() <= JsonEntity.MAX_BUFFERED_LENGTH) {
+            title.append(datasetTitle);
+        }
+        dataset.setTitle(title.toString());
+        JsonEntity entity = new JsonEntity(dataset, json.writer());
+
+        // When its length is asked for
+        // Then it is unknown, and the whole body is still written
+        assertEquals(-1, entity.getContentLength());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        entity.writeTo(out);
+        assertEquals(title.toString(), json.readValue(out.toByteArray(), Dataset.class).getTitle());
+    }
+
+    private Dataset createDataset() {
+        Dataset dataset = new Dataset();
+        dataset.setId("321");
+        dataset.setTitle(datasetTitle);
+        return dataset;
+    }
+}
@@ -0,0 +1,156 @@
+package dp.api.dataset;
+
+import com.sun.net.httpserver.HttpServer;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetLinks;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Link;
+import dp.api.dataset.model.State;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonPatchTest {
+
+    @Test
+    public void testDiff_changedFields_onlyChangesIncluded() {
+
+        // Given a dataset read from the API, and a copy with its state and collection changed
+        Dataset source = dataset("123", "Population", State.CREATED, null);
+        Dataset target = dataset("123", "Population", State.PUBLISHED, "collection-1");
+
+        // When the two are diffed
+        JsonPatch patch = JsonPatch.diff(source, target);
+
+        // Then only the changed fields are patched
+        assertEquals("[{\"op\":\"add\",\"path\":\"/collection_id\",\"value\":\"collection-1\"},"
+                + "{\"op\":\"replace\",\"path\":\"/state\",\"value\":\"published\"}]", patch.toString());
+    }
+
+    @Test
+    public void testDiff_nestedAndRemovedFields() {
+
+        // Given a version whose self link changes and whose collection is cleared
+        DatasetVersion source = version("2017", "collection-1", "http://localhost/v/1");
+        DatasetVersion target = version("2017", null, "http://localhost/v/2");
+
+        // When the two are diffed
+        JsonPatch patch = JsonPatch.diff(source, target);
+
+        // Then the removed field is removed and the nested change is replaced in place
+        assertEquals("[{\"op\":\"remove\",\"path\":\"/collection_id\"},"
+                + "{\"op\":\"replace\",\"path\":\"/links/self/href\",\"value\":\"http://localhost/v/2\"}]",
+                patch.toString());
+    }
+
+    @Test
+    public void testDiff_unchanged_emptyPatch() {
+
+        // Given two identical snapshots of a dataset
+        Dataset source = dataset("123", "Population", State.PUBLISHED, "collection-1");
+        Dataset target = dataset("123", "Population", State.PUBLISHED, "collection-1");
+
+        // When the two are diffed, then the patch is empty
+        assertTrue(JsonPatch.diff(source, target).isEmpty());
+    }
+
+    @Test
+    public void testBuilder_valuesSerializedAndPathsValidated() {
+
+        // Given a patch built by hand
+        JsonPatch patch = JsonPatch.builder()
+                .test("/state", State.ASSOCIATED)
+                .replace("/state", State.PUBLISHED)
+                .replace("/title", null)
+                .build();
+
+        // Then enum values are serialized as in the models and null values are kept
+        assertEquals("[{\"op\":\"test\",\"path\":\"/state\",\"value\":\"associated\"},"
+                + "{\"op\":\"replace\",\"path\":\"/state\",\"value\":\"published\"},"
+                + "{\"op\":\"replace\",\"path\":\"/title\",\"value\":null}]", patch.toString());
+
+        // Then paths that are not JSON Pointers are rejected
+        assertThrows(IllegalArgumentException.class, () -> JsonPatch.builder().remove("state"));
+    }
+
+    @Test
+    public void testPatchDataset_sendsJsonPatch() throws Exception {
+
+        // Given a dataset API that records PATCH requests
+        List<String> received = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/datasets/", exchange -> {
+            received.add(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath() + " "
+                    + exchange.getRequestHeaders().getFirst("Content-Type") + " " + read(exchange.getRequestBody()));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        try (DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL("http://localhost:" + server.getAddress().getPort())
+                .build()) {
+
+            // When a dataset and a version are patched, and an empty patch is applied
+            client.patchDataset("123", JsonPatch.builder().replace("/state", State.PUBLISHED).build());
+            client.patchDatasetVersion("123", "2017", "1", JsonPatch.builder().remove("/collection_id").build());
+            client.patchDataset("123", JsonPatch.builder().build());
+
+            // Then the operations are sent as JSON Patch documents, and the empty patch is not sent
+            assertEquals(2, received.size());
+            assertEquals("PATCH /datasets/123 application/json-patch+json "
+                    + "[{\"op\":\"replace\",\"path\":\"/state\",\"value\":\"published\"}]", received.get(0));
+            assertEquals("PATCH /datasets/123/editions/2017/versions/1 application/json-patch+json "
+                    + "[{\"op\":\"remove\",\"path\":\"/collection_id\"}]", received.get(1));
+
+            // Then the arguments of an empty patch are still checked
+            assertThrows(IllegalArgumentException.class, () -> client.patchDataset("", JsonPatch.builder().build()));
+            assertThrows(IllegalArgumentException.class,
+                    () -> client.patchDatasetVersion("123", "2017", null, JsonPatch.builder().build()));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static Dataset dataset(String id, String title, State state, String collectionID) {
+        Dataset dataset = new Dataset();
+        dataset.setId(id);
+        dataset.setTitle(title);
+        dataset.setState(state);
+        dataset.setCollection_id(collectionID);
+        return dataset;
+    }
+
+    private static DatasetVersion version(String edition, String collectionID, String selfHref) {
+        Link self = new Link();
+        self.setHref(selfHref);
+        DatasetLinks links = new DatasetLinks();
+        links.setSelf(self);
+
+        DatasetVersion version = new DatasetVersion();
+        version.setEdition(edition);
+        version.setCollection_id(collectionID);
+        version.setLinks(links);
+        return version;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        for (int n; (n = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+package dp.api.dataset;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Simulates many clients whose requests fail at the same moment because of an outage, and compares how their
+ * retries are spread over time with a fixed interval and with exponential backoff and jitter, and how much extra
+ * load they add with and without a retry budget.
+ * <p>
+ * The simulation runs against a fault-injecting stub on a virtual clock, so the result does not depend on how fast
+ * the machine running the test can accept connections.
+ */
+public class RetryStrategySimulationTest {
+
+    private static final int CLIENTS = 200;
+    private static final int MAX_RETRIES = 3;
+    private static final long BASE_INTERVAL_MS = 50;
+    private static final long OUTAGE_MS = 400;
+    private static final long WINDOW_MS = 10;
+
+    @Test
+    public void testOutage_jitteredBackoff_lowerPeakRequestRate() {
+
+        // Given a dataset API that is unavailable for 400ms, called by many clients at the start of the outage
+        RetryStrategy fixed = new RetryStrategy(MAX_RETRIES, BASE_INTERVAL_MS);
+        AtomicLong clock = new AtomicLong();
+        RetryStrategy fullJitter = RetryStrategy.builder()
+                .maxRetries(MAX_RETRIES)
+                .baseIntervalMs(BASE_INTERVAL_MS)
+                .jitter(RetryStrategy.Jitter.FULL)
+                .retryBudget(null)
+                .currentTimeMillis(clock::get)
+                .build();
+        RetryStrategy decorrelatedJitter = RetryStrategy.builder()
+                .maxRetries(MAX_RETRIES)
+                .baseIntervalMs(BASE_INTERVAL_MS)
+                .jitter(RetryStrategy.Jitter.DECORRELATED)
+                .retryBudget(null)
+                .currentTimeMillis(clock::get)
+                .build();
+
+        // When the retries of every client are played out
+        int fixedPeak = peakRetriesPerWindow(fixed, clock);
+        int fullJitterPeak = peakRetriesPerWindow(fullJitter, clock);
+        int decorrelatedJitterPeak = peakRetriesPerWindow(decorrelatedJitter, clock);
+
+        // Then the jittered retries reach the dataset API at a much lower peak rate
+        String peaks = "peak retries per " + WINDOW_MS + "ms: fixed " + fixedPeak + ", full jitter " + fullJitterPeak
+                + ", decorrelated jitter " + decorrelatedJitterPeak;
+        assertTrue(fullJitterPeak * 2 < fixedPeak, peaks);
+        assertTrue(decorrelatedJitterPeak * 2 < fixedPeak, peaks);
+    }
+
+    @Test
+    public void testFullOutage_retryBudget_limitsLoadAmplification() {
+
+        // Given a dataset API that is unavailable for the whole simulation
+        AtomicLong clock = new AtomicLong();
+        RetryStrategy unbudgeted = RetryStrategy.builder()
+                .maxRetries(MAX_RETRIES)
+                .retryBudget(null)
+                .currentTimeMillis(clock::get)
+                .build();
+        RetryBudget retryBudget = new RetryBudget(0.1, 10);
+        RetryStrategy budgeted = RetryStrategy.builder()
+                .maxRetries(MAX_RETRIES)
+                .retryBudget(retryBudget)
+                .currentTimeMillis(clock::get)
+                .build();
+
+        // When the requests of every client are played out
+        int unbudgetedRequests = requests(unbudgeted, clock, Long.MAX_VALUE);
+        int budgetedRequests = requests(budgeted, clock, Long.MAX_VALUE);
+
+        // Then without a budget every client retries 3 times, and with one only the saved up retries are made
+        assertEquals(CLIENTS * (MAX_RETRIES + 1), unbudgetedRequests, "requests without a budget");
+        assertEquals(CLIENTS + 10, budgetedRequests,
+                "requests with a budget, " + retryBudget.getShedCount() + " retries shed");
+    }
+
+    /**
+     * Play out every client's first request and retries in time order, and count the retries the stub receives in
+     * each window.
+     */
+    private static int peakRetriesPerWindow(RetryStrategy retryStrategy, AtomicLong clock) {
+        TreeMap<Long, Integer> retriesPerWindow = new TreeMap<>();
+        simulate(retryStrategy, clock, OUTAGE_MS, retriesPerWindow);
+
+        int peak = 0;
+        for (int count : retriesPerWindow.values()) {
+            peak = Math.max(peak, count);
+        }
+        return peak;
+    }
+
+    private static int requests(RetryStrategy retryStrategy, AtomicLong clock, long outageMs) {
+        return simulate(retryStrategy, clock, outageMs, new TreeMap<>());
+    }
+
+    /**
+     * @return the total number of requests received by the stub
+     */
+    private static int simulate(RetryStrategy retryStrategy, AtomicLong clock, long outageMs,
+                                TreeMap<Long, Integer> retriesPerWindow) {
+
+        PriorityQueue<Attempt> attempts = new PriorityQueue<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            attempts.add(new Attempt(0, 1, new BasicHttpContext()));
+        }
+
+        int requests = 0;
+        while (!attempts.isEmpty()) {
+            Attempt attempt = attempts.poll();
+            requests++;
+            clock.set(attempt.at);
+            if (attempt.executionCount > 1) {
+                retriesPerWindow.merge(attempt.at / WINDOW_MS, 1, Integer::sum);
+            }
+
+            HttpResponse response = stubResponse(attempt.at, outageMs);
+            if (retryStrategy.retryRequest(response, attempt.executionCount, attempt.context)) {
+                long retryAt = attempt.at + retryStrategy.getRetryInterval();
+                attempts.add(new Attempt(retryAt, attempt.executionCount + 1, attempt.context));
+            }
+        }
+        return requests;
+    }
+
+    private static HttpResponse stubResponse(long at, long outageMs) {
+        int statusCode = at < outageMs ? HttpStatus.SC_SERVICE_UNAVAILABLE : HttpStatus.SC_OK;
+        return new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, null);
+    }
+
+    private static class Attempt implements Comparable<Attempt> {
+
+        private final long at;
+        private final int executionCount;
+        private final HttpContext context;
+
+        private Attempt(long at, int executionCount, HttpContext context) {
+            this.at = at;
+            this.executionCount = executionCount;
+            this.context = context;
+        }
+
+        @Override
+        public int compareTo(Attempt other) {
+            return Long.compare(at, other.at);
+        }
+    }
+}
@@ -1,11 +1,22 @@
 package dp.api.dataset;
 
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpRequest;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
 import org.junit.jupiter.api.Test;
 
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -68,4 +79,228 @@ public class RetryStrategyTest {
 
         assertFalse(retryRequest);
     }
+
+    @Test
+    void testRetryStrategy_retryRequest_tooManyRequests() {
+
+        HttpResponse httpResponse = response(RetryStrategy.SC_TOO_MANY_REQUESTS);
+
+        boolean retryRequest = retryStrategy.retryRequest(httpResponse, 1, new BasicHttpContext());
+
+        assertTrue(retryRequest);
+    }
+
+    @Test
+    void testRetryStrategy_exponentialBackoff_doublesUpToMaxInterval() {
+
+        // Given a strategy without jitter
+        RetryStrategy strategy = RetryStrategy.builder()
+                .maxRetries(5)
+                .baseIntervalMs(100)
+                .maxIntervalMs(500)
+                .maxTotalRetryTimeMs(60000)
+                .jitter(RetryStrategy.Jitter.NONE)
+                .build();
+        HttpContext httpContext = new BasicHttpContext();
+
+        // When successive retries are requested, then the interval doubles until it reaches the maximum
+        long[] expected = {100, 200, 400, 500, 500};
+        for (int i = 0; i < expected.length; i++) {
+            assertTrue(strategy.retryRequest(response(HttpStatus.SC_BAD_GATEWAY), i + 1, httpContext));
+            assertEquals(expected[i], strategy.getRetryInterval());
+        }
+        assertFalse(strategy.retryRequest(response(HttpStatus.SC_BAD_GATEWAY), expected.length + 1, httpContext));
+    }
+
+    @Test
+    void testRetryStrategy_fullJitter_withinExponentialInterval() {
+
+        // Given a strategy with full jitter
+        RetryStrategy strategy = RetryStrategy.builder()
+                .maxRetries(3)
+                .baseIntervalMs(100)
+                .maxIntervalMs(1000)
+                .jitter(RetryStrategy.Jitter.FULL)
+                .retryBudget(null)
+                .build();
+
+        // When the third attempt is retried many times, then every interval is between zero and 4x the base
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(strategy.retryRequest(response(HttpStatus.SC_SERVICE_UNAVAILABLE), 3, new BasicHttpContext()));
+            long interval = strategy.getRetryInterval();
+            assertTrue(interval >= 0 && interval <= 400, "interval out of range: " + interval);
+        }
+    }
+
+    @Test
+    void testRetryStrategy_decorrelatedJitter_withinBaseAndMax() {
+
+        // Given a strategy with decorrelated jitter
+        RetryStrategy strategy = RetryStrategy.builder()
+                .maxRetries(10)
+                .baseIntervalMs(50)
+                .maxIntervalMs(800)
+                .maxTotalRetryTimeMs(60000)
+                .jitter(RetryStrategy.Jitter.DECORRELATED)
+                .retryBudget(null)
+                .build();
+        HttpContext httpContext = new BasicHttpContext();
+
+        // When a request is retried repeatedly, then every interval is between the base and the maximum
+        for (int i = 1; i <= 10; i++) {
+            assertTrue(strategy.retryRequest(response(HttpStatus.SC_SERVICE_UNAVAILABLE), i, httpContext));
+            long interval = strategy.getRetryInterval();
+            assertTrue(interval >= 50 && interval <= 800, "interval out of range: " + interval);
+        }
+    }
+
+    @Test
+    void testRetryStrategy_retryAfterSeconds_used() {
+
+        // Given a 503 response asking the client to retry after 2 seconds
+        RetryStrategy strategy = RetryStrategy.builder().maxTotalRetryTimeMs(5000).build();
+        HttpResponse httpResponse = response(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        httpResponse.setHeader(HttpHeaders.RETRY_AFTER, "2");
+
+        // When the retry is requested, then the Retry-After value is used as the interval
+        assertTrue(strategy.retryRequest(httpResponse, 1, new BasicHttpContext()));
+        assertEquals(2000, strategy.getRetryInterval());
+    }
+
+    @Test
+    void testRetryStrategy_retryAfterDate_used() {
+
+        // Given a 429 response asking the client to retry at a time 3 seconds from now
+        long now = 1500000000000L;
+        RetryStrategy strategy = RetryStrategy.builder().currentTimeMillis(() -> now).build();
+        HttpResponse httpResponse = response(RetryStrategy.SC_TOO_MANY_REQUESTS);
+        httpResponse.setHeader(HttpHeaders.RETRY_AFTER,
+                DateUtils.formatDate(new Date(now + 3000)));
+
+        // When the retry is requested, then the interval runs until that time
+        assertTrue(strategy.retryRequest(httpResponse, 1, new BasicHttpContext()));
+        assertEquals(3000, strategy.getRetryInterval());
+    }
+
+    @Test
+    void testRetryStrategy_totalRetryTimeExceeded_noRetry() {
+
+        // Given a strategy that allows 1 second of retrying and a clock that can be moved on
+        AtomicLong clock = new AtomicLong(0);
+        RetryStrategy strategy = RetryStrategy.builder()
+                .maxRetries(10)
+                .baseIntervalMs(100)
+                .maxTotalRetryTimeMs(1000)
+                .jitter(RetryStrategy.Jitter.NONE)
+                .currentTimeMillis(clock::get)
+                .build();
+        HttpContext httpContext = new BasicHttpContext();
+
+        // When the first failure is retried, then the retry is allowed
+        assertTrue(strategy.retryRequest(response(HttpStatus.SC_BAD_GATEWAY), 1, httpContext));
+        strategy.getRetryInterval();
+
+        // When a later failure would wait beyond the total retry time, then no retry is made
+        clock.set(950);
+        assertFalse(strategy.retryRequest(response(HttpStatus.SC_BAD_GATEWAY), 2, httpContext));
+    }
+
+    @Test
+    void testRetryStrategy_retryAfterBeyondTotalRetryTime_noRetry() {
+
+        // Given a 503 response asking the client to retry after longer than the total retry time
+        RetryStrategy strategy = RetryStrategy.builder().maxTotalRetryTimeMs(5000).build();
+        HttpResponse httpResponse = response(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        httpResponse.setHeader(HttpHeaders.RETRY_AFTER, "60");
+
+        // When the retry is requested, then it is refused
+        assertFalse(strategy.retryRequest(httpResponse, 1, new BasicHttpContext()));
+    }
+
+    @Test
+    void testRetryStrategy_retryAfterOverflows_noRetry() {
+
+        // Given 503 responses asking the client to wait longer than can be counted in milliseconds
+        RetryStrategy strategy = RetryStrategy.builder().maxTotalRetryTimeMs(5000).build();
+        HttpResponse overflowsMillis = response(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        overflowsMillis.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Long.MAX_VALUE / 100));
+        HttpResponse overflowsLong = response(HttpStatus.SC_SERVICE_UNAVAILABLE);
+        overflowsLong.setHeader(HttpHeaders.RETRY_AFTER, "99999999999999999999999");
+
+        // When the waits are read, then they saturate instead of wrapping around to an immediate retry
+        assertEquals(Long.MAX_VALUE, RetryStrategy.retryAfterMs(overflowsMillis, 0));
+        assertEquals(Long.MAX_VALUE, RetryStrategy.retryAfterMs(overflowsLong, 0));
+
+        // When the retries are requested, then they are refused, even with no limit on the total retry time
+        assertFalse(strategy.retryRequest(overflowsMillis, 1, new BasicHttpContext()));
+        assertFalse(strategy.retryRequest(overflowsLong, 1, new BasicHttpContext()));
+        assertFalse(retryStrategy.retryRequest(overflowsLong, 1, new BasicHttpContext()));
+    }
+
+    @Test
+    void testRetryStrategy_retryBudgetExhausted_retryShed() {
+
+        // Given a strategy with a budget of two retries
+        HistogramMetricsListener metricsListener = new HistogramMetricsListener();
+        RetryBudget retryBudget = new RetryBudget(0.5, 2);
+        RetryStrategy strategy = RetryStrategy.builder()
+                .retryBudget(retryBudget)
+                .metricsListener(metricsListener)
+                .build();
+
+        // When three failed requests are retried, then the third retry is shed
+        assertTrue(strategy.retryRequest(response(HttpStatus.SC_BAD_GATEWAY), 1, context(new HttpGet("http://localhost/datasets/123"))));
+        assertTrue(strategy.retryRequest(response(HttpStatus.SC_BAD_GATEWAY), 1, context(new HttpGet("http://localhost/datasets/123"))));
+        assertFalse(strategy.retryRequest(response(HttpStatus.SC_BAD_GATEWAY), 1, context(new HttpGet("http://localhost/datasets/123"))));
+
+        // Then the shed retry is reported through the budget and the metrics listener
+        assertEquals(2, retryBudget.getRetryCount());
+        assertEquals(1, retryBudget.getShedCount());
+        assertEquals(2, metricsListener.getMetrics(DatasetOperation.GET_DATASET).getRetryCount());
+        assertEquals(1, metricsListener.getMetrics(DatasetOperation.GET_DATASET).getRetryShedCount());
+
+        // When two requests succeed, then a retry is allowed again
+        strategy.retryRequest(response(HttpStatus.SC_OK), 1, new BasicHttpContext());
+        strategy.retryRequest(response(HttpStatus.SC_OK), 1, new BasicHttpContext());
+        assertTrue(strategy.retryRequest(response(HttpStatus.SC_BAD_GATEWAY), 1, new BasicHttpContext()));
+    }
+
+    @Test
+    void testRetryStrategy_retryBeyondDeadline_noRetry() throws Exception {
+
+        // Given a strategy that waits 100ms before each retry, and a call with 150ms left before its deadline
+        AtomicLong clock = new AtomicLong(0);
+        RetryStrategy strategy = RetryStrategy.builder()
+                .baseIntervalMs(100)
+                .jitter(RetryStrategy.Jitter.NONE)
+                .retryBudget(null)
+                .build();
+        Deadline deadline = new Deadline(TimeUnit.MILLISECONDS.toNanos(150), clock::get);
+        HttpContext httpContext = new BasicHttpContext();
+
+        Deadline.callWithin(deadline, () -> {
+
+            // When the first failure is retried, then the retry is allowed
+            assertTrue(strategy.retryRequest(response(HttpStatus.SC_BAD_GATEWAY), 1, httpContext));
+            strategy.getRetryInterval();
+
+            // When the next retry would start after the deadline, then no retry is made
+            clock.set(TimeUnit.MILLISECONDS.toNanos(100));
+            assertFalse(strategy.retryRequest(response(HttpStatus.SC_BAD_GATEWAY), 1, httpContext));
+            return null;
+        });
+
+        // Then the deadline no longer applies once the call is complete
+        assertTrue(strategy.retryRequest(response(HttpStatus.SC_BAD_GATEWAY), 1, new BasicHttpContext()));
+    }
+
+    private static HttpContext context(HttpRequest request) {
+        HttpContext httpContext = new BasicHttpContext();
+        httpContext.setAttribute(HttpCoreContext.HTTP_REQUEST, request);
+        return httpContext;
+    }
+
+    private static HttpResponse response(int statusCode) {
+        return new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, null);
+    }
 }
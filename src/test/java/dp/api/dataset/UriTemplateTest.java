@@ -0,0 +1,75 @@
+package dp.api.dataset;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class UriTemplateTest {
+
+    private static final URI baseURL = URI.create("http://localhost:22000");
+
+    @Test
+    public void testExpand_plainValues() {
+
+        // Given a template with three variables
+        UriTemplate template = UriTemplate.compile(baseURL, "/datasets/{datasetID}/editions/{edition}/versions/{version}");
+
+        // When it is expanded with plain values
+        URI uri = template.expand("cpih01", "time-series", "1");
+
+        // Then the values are inserted unchanged
+        assertEquals("http://localhost:22000/datasets/cpih01/editions/time-series/versions/1", uri.toString());
+    }
+
+    @Test
+    public void testExpand_reservedAndNonAsciiCharacters_percentEncoded() {
+
+        // Given a template with a path and a query variable
+        UriTemplate template = UriTemplate.compile(baseURL, "/datasets/{datasetID}/editions?filter={filter}");
+
+        // When it is expanded with values containing reserved and non-ASCII characters
+        URI uri = template.expand("a/b?c#d e%", "x&y=z+£€😀");
+
+        // Then each value stays within its own segment and decodes back to the original
+        assertEquals("http://localhost:22000/datasets/a%2Fb%3Fc%23d%20e%25/editions?filter=x%26y%3Dz%2B%C2%A3%E2%82%AC%F0%9F%98%80",
+                uri.toString());
+        assertEquals("/datasets/a/b?c#d e%/editions", uri.getPath());
+        assertEquals("filter=x&y=z+£€😀", uri.getQuery());
+    }
+
+    @Test
+    public void testExpand_dotSegment_encoded() {
+
+        // Given a template with one variable
+        UriTemplate template = UriTemplate.compile(baseURL, "/datasets/{datasetID}");
+
+        // When it is expanded with a dot segment, then the segment is kept rather than normalised away
+        assertEquals("http://localhost:22000/datasets/%2E%2E", template.expand("..").toString());
+    }
+
+    @Test
+    public void testCompile_baseURLWithPath_pathReplaced() {
+
+        // Given a base URL with a path and a trailing slash
+        URI base = URI.create("https://api.example.com:8443/v1/");
+
+        // When a template is compiled against it
+        URI uri = UriTemplate.compile(base, "/instances/{instanceID}").expand("123");
+
+        // Then the template replaces the path, as URI.resolve does
+        assertEquals(base.resolve("/instances/123"), uri);
+    }
+
+    @Test
+    public void testExpand_wrongNumberOfValues_throwsException() {
+
+        // Given a template with one variable
+        UriTemplate template = UriTemplate.compile(baseURL, "/datasets/{datasetID}");
+
+        // When it is expanded with two values, then an exception is thrown
+        assertThrows(IllegalArgumentException.class, () -> template.expand("a", "b"));
+    }
+}
@@ -0,0 +1,187 @@
+package dp.api.dataset;
+
+import dp.api.dataset.model.DatasetResponse;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.State;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHeader;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ValidatingResponseCacheTest {
+
+    private static final String datasetAPIURL = "http://localhost:22000";
+    private static final String datasetID = "321";
+    private static final String edition = "current";
+    private static final String version = "1";
+    private static final String etag = "\"abc123\"";
+    private static final String lastModified = "Wed, 21 Oct 2015 07:28:00 GMT";
+
+    @Test
+    public void testCache_store_withoutValidators() {
+
+        // Given a response cache
+        ValidatingResponseCache cache = new ValidatingResponseCache();
+
+        // When a response without an ETag or Last-Modified header is stored
+        cache.store("/datasets/321", null, null, new DatasetVersion());
+
+        // Then it is not cached, as it could never be revalidated
+        assertEquals(0, cache.size());
+        assertNull(cache.lookup("/datasets/321"));
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testCache_store_nullModel() {
+
+        // Given a response cache holding a version
+        ValidatingResponseCache cache = new ValidatingResponseCache();
+        cache.store("/datasets/321", etag, null, new DatasetVersion());
+
+        // When a valid response with no model is stored for the same request
+        cache.store("/datasets/321", etag, null, null);
+
+        // Then the stale entry is removed rather than kept or failing
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCache_getDataset_noNextDocument_returnsNull() throws Exception {
+
+        // Given a client with a response cache
+        CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+        ValidatingResponseCache cache = new ValidatingResponseCache();
+        DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL(datasetAPIURL)
+                .httpClient(mockHttpClient)
+                .responseCache(cache)
+                .build();
+
+        // Given the dataset API returns a dataset with validators but no next document
+        CloseableHttpResponse okResponse = MockHttp.response(HttpStatus.SC_OK);
+        MockHttp.responseBody(okResponse, new DatasetResponse());
+        when(okResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, etag));
+        when(mockHttpClient.execute(any(HttpRequestBase.class))).thenReturn(okResponse);
+
+        // When getDataset is called, then no dataset is returned and nothing is cached
+        assertNull(client.getDataset(datasetID));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCache_store_bounded() {
+
+        // Given a response cache with room for two entries
+        ValidatingResponseCache cache = new ValidatingResponseCache(2);
+
+        // When three responses are stored
+        cache.store("/datasets/1", etag, null, new DatasetVersion());
+        cache.store("/datasets/2", etag, null, new DatasetVersion());
+        cache.store("/datasets/3", etag, null, new DatasetVersion());
+
+        // Then the cache does not grow beyond its bound, and the newest entry is kept
+        assertEquals(2, cache.size());
+        assertNotNull(cache.lookup("/datasets/3"));
+    }
+
+    @Test
+    public void testCache_conditionalGet_notModified() throws Exception {
+
+        // Given a client with a response cache
+        CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+        ValidatingResponseCache cache = new ValidatingResponseCache();
+        DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL(datasetAPIURL)
+                .httpClient(mockHttpClient)
+                .responseCache(cache)
+                .build();
+
+        // Given the dataset API returns a version with validators, and then a 304
+        CloseableHttpResponse okResponse = MockHttp.response(HttpStatus.SC_OK);
+        DatasetVersion datasetVersion = new DatasetVersion();
+        datasetVersion.setVersion(version);
+        MockHttp.responseBody(okResponse, datasetVersion);
+        when(okResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, etag));
+        when(okResponse.getFirstHeader(HttpHeaders.LAST_MODIFIED)).thenReturn(new BasicHeader(HttpHeaders.LAST_MODIFIED, lastModified));
+
+        CloseableHttpResponse notModifiedResponse = MockHttp.response(HttpStatus.SC_NOT_MODIFIED);
+        when(mockHttpClient.execute(any(HttpRequestBase.class))).thenReturn(okResponse, notModifiedResponse);
+
+        // When getDatasetVersion is called twice, and the first caller changes the version it was given
+        DatasetVersion first = client.getDatasetVersion(datasetID, edition, version);
+        first.setState(State.PUBLISHED);
+        DatasetVersion second = client.getDatasetVersion(datasetID, edition, version);
+
+        // Then the second request is conditional on the cached validators
+        ArgumentCaptor<HttpRequestBase> requestCaptor = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(mockHttpClient, times(2)).execute(requestCaptor.capture());
+        List<HttpRequestBase> requests = requestCaptor.getAllValues();
+
+        assertNull(requests.get(0).getFirstHeader(HttpHeaders.IF_NONE_MATCH));
+        assertEquals(etag, requests.get(1).getFirstHeader(HttpHeaders.IF_NONE_MATCH).getValue());
+        assertEquals(lastModified, requests.get(1).getFirstHeader(HttpHeaders.IF_MODIFIED_SINCE).getValue());
+
+        // Then a copy of the cached version is returned for the 304, without the first caller's change
+        assertEquals(version, second.getVersion());
+        assertEquals(etag, second.getEtag());
+        assertNull(second.getState());
+        assertNotSame(first, second);
+
+        // Then the counters reflect it
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getNotModifiedCount());
+    }
+
+    @Test
+    public void testCache_conditionalGet_modified() throws Exception {
+
+        // Given a client with a response cache
+        CloseableHttpClient mockHttpClient = mock(CloseableHttpClient.class);
+        ValidatingResponseCache cache = new ValidatingResponseCache();
+        DatasetAPIClient client = DatasetAPIClient.builder()
+                .datasetAPIURL(datasetAPIURL)
+                .httpClient(mockHttpClient)
+                .responseCache(cache)
+                .build();
+
+        // Given the dataset API returns a new version each time
+        CloseableHttpResponse firstResponse = MockHttp.response(HttpStatus.SC_OK);
+        DatasetVersion firstVersion = new DatasetVersion();
+        firstVersion.setCollection_id("first");
+        MockHttp.responseBody(firstResponse, firstVersion);
+        when(firstResponse.getFirstHeader(HttpHeaders.ETAG)).thenReturn(new BasicHeader(HttpHeaders.ETAG, etag));
+
+        CloseableHttpResponse secondResponse = MockHttp.response(HttpStatus.SC_OK);
+        DatasetVersion secondVersion = new DatasetVersion();
+        secondVersion.setCollection_id("second");
+        MockHttp.responseBody(secondResponse, secondVersion);
+
+        when(mockHttpClient.execute(any(HttpRequestBase.class))).thenReturn(firstResponse, secondResponse);
+
+        // When getDatasetVersion is called twice
+        client.getDatasetVersion(datasetID, edition, version);
+        DatasetVersion actual = client.getDatasetVersion(datasetID, edition, version);
+
+        // Then the updated version is returned
+        assertEquals("second", actual.getCollection_id());
+        assertEquals(0, cache.getNotModifiedCount());
+    }
+}
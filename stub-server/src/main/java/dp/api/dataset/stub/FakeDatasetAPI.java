@@ -0,0 +1,824 @@
+package dp.api.dataset.stub;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Instance;
+import org.apache.http.util.Args;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An in-process fake of the dataset API for integration, load and soak tests that need no network. It serves every
+ * route the client uses over real HTTP on the loopback interface, so requests go through the client's connection
+ * pool, retries and response parsing as they would against the real API.
+ * <p>
+ * Instances, datasets, editions and versions are kept in memory. Writes change what later reads return, each
+ * resource has an ETag that changes with every write, {@code If-Match} and {@code If-None-Match} are honoured, and
+ * PATCH requests apply JSON Patch operations. Editions are created with the first version stored for them.
+ * <p>
+ * Responses can be delayed by a {@link LatencyDistribution}, a share of requests can be answered with an error
+ * status before touching any state, and single-resource GET responses can be padded with fields the client ignores
+ * up to a payload size.
+ * <p>
+ * Start the JVM with {@code -Dsun.net.httpserver.nodelay=true} when measuring latency. Without TCP_NODELAY, small
+ * responses stall for ~40ms on Nagle's algorithm and delayed ACKs, which swamps any injected latency. The property is
+ * read once per JVM, so the fake does not set it itself.
+ */
+public class FakeDatasetAPI implements Closeable {
+
+    private static final ObjectMapper json = new ObjectMapper();
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final int errorStatus;
+    private final int payloadBytes;
+    private final boolean gzip;
+    private final Long seed;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<String, Resource> instances = new HashMap<>();
+    private final NavigableMap<String, Resource> datasets = new TreeMap<>();
+    private final Map<String, NavigableMap<String, Resource>> editions = new HashMap<>();
+    private final Map<String, NavigableMap<String, Resource>> versions = new HashMap<>();
+    private long revision;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong injectedErrorCount = new AtomicLong();
+    private final Set<InetSocketAddress> clientAddresses = ConcurrentHashMap.newKeySet();
+
+    private FakeDatasetAPI(Builder builder) throws IOException {
+        this.latency = builder.latency;
+        this.errorRate = builder.errorRate;
+        this.errorStatus = builder.errorStatus;
+        this.payloadBytes = builder.payloadBytes;
+        this.gzip = builder.gzip;
+        this.seed = builder.seed;
+
+        this.executor = builder.threads > 0
+                ? Executors.newFixedThreadPool(builder.threads) : Executors.newCachedThreadPool();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), 1024);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * Create a new builder for a FakeDatasetAPI.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * The base URL of the fake, to be used as the client's dataset API URL.
+     */
+    public String url() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Store an instance, replacing any with the same ID.
+     */
+    public void putInstance(Instance instance) {
+        Args.notNull(instance, "instance");
+        Args.notBlank(instance.getId(), "instance id");
+        ObjectNode body = json.valueToTree(instance);
+        lock.lock();
+        try {
+            instances.put(instance.getId(), new Resource(body, ++revision));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Store a dataset, replacing any with the same ID.
+     */
+    public void putDataset(Dataset dataset) {
+        Args.notNull(dataset, "dataset");
+        Args.notBlank(dataset.getId(), "dataset id");
+        ObjectNode body = json.valueToTree(dataset);
+        lock.lock();
+        try {
+            datasets.put(dataset.getId(), new Resource(body, ++revision));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Store a version of a dataset, replacing any already stored for the same edition and version, and creating the
+     * dataset and edition if they do not exist yet.
+     */
+    public void putDatasetVersion(String datasetID, String edition, String version, DatasetVersion datasetVersion) {
+        Args.notBlank(datasetID, "datasetID");
+        Args.notBlank(edition, "edition");
+        Args.notBlank(version, "version");
+        Args.notNull(datasetVersion, "datasetVersion");
+
+        ObjectNode body = json.valueToTree(datasetVersion);
+        body.put("edition", edition);
+        body.put("version", version);
+        lock.lock();
+        try {
+            if (!datasets.containsKey(datasetID)) {
+                datasets.put(datasetID, new Resource(json.createObjectNode().put("id", datasetID), ++revision));
+            }
+            NavigableMap<String, Resource> datasetEditions = editions.computeIfAbsent(datasetID, id -> new TreeMap<>());
+            if (!datasetEditions.containsKey(edition)) {
+                ObjectNode editionBody = json.createObjectNode().put("id", edition).put("edition", edition);
+                if (body.has("state")) {
+                    editionBody.set("state", body.get("state"));
+                }
+                datasetEditions.put(edition, new Resource(editionBody, ++revision));
+            }
+            versions.computeIfAbsent(datasetID + "/" + edition, key -> new TreeMap<>(VERSION_ORDER))
+                    .put(version, new Resource(body, ++revision));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The dataset as currently stored, with its ETag, or null if there is none.
+     */
+    public Dataset getDataset(String datasetID) throws JsonProcessingException {
+        Resource resource;
+        lock.lock();
+        try {
+            resource = datasets.get(datasetID);
+        } finally {
+            lock.unlock();
+        }
+        if (resource == null) {
+            return null;
+        }
+        Dataset dataset = json.treeToValue(resource.body, Dataset.class);
+        dataset.setEtag(resource.etag());
+        return dataset;
+    }
+
+    /**
+     * The dataset version as currently stored, with its ETag, or null if there is none.
+     */
+    public DatasetVersion getDatasetVersion(String datasetID, String edition, String version) throws JsonProcessingException {
+        Resource resource;
+        lock.lock();
+        try {
+            NavigableMap<String, Resource> editionVersions = versions.get(datasetID + "/" + edition);
+            resource = editionVersions != null ? editionVersions.get(version) : null;
+        } finally {
+            lock.unlock();
+        }
+        if (resource == null) {
+            return null;
+        }
+        DatasetVersion datasetVersion = json.treeToValue(resource.body, DatasetVersion.class);
+        datasetVersion.setEtag(resource.etag());
+        return datasetVersion;
+    }
+
+    /**
+     * Remove every stored resource and reset the request counts.
+     */
+    public void reset() {
+        lock.lock();
+        try {
+            instances.clear();
+            datasets.clear();
+            editions.clear();
+            versions.clear();
+        } finally {
+            lock.unlock();
+        }
+        requestCount.set(0);
+        injectedErrorCount.set(0);
+        clientAddresses.clear();
+    }
+
+    /**
+     * The number of requests received, including those answered with an injected error.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * The number of requests answered with an injected error.
+     */
+    public long getInjectedErrorCount() {
+        return injectedErrorCount.get();
+    }
+
+    /**
+     * The number of connections requests were received on, counted by their distinct client address and port.
+     */
+    public int getConnectionCount() {
+        return clientAddresses.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Random random = random(requestCount.incrementAndGet());
+            clientAddresses.add(exchange.getRemoteAddress());
+            byte[] body = readBody(exchange);
+
+            sleep(latency.sampleMillis(random));
+            if (errorRate > 0 && random.nextDouble() < errorRate) {
+                injectedErrorCount.incrementAndGet();
+                respond(exchange, new Response(errorStatus));
+                return;
+            }
+
+            Response response;
+            try {
+                response = route(new Request(exchange, body));
+            } catch (RuntimeException e) {
+                response = new Response(500);
+            }
+            respond(exchange, response);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Response route(Request req) throws IOException {
+        List<String> path = req.path;
+        int segments = path.size();
+
+        if (segments == 2 && path.get(0).equals("instances")) {
+            return req.method.equals("GET") ? get(req, locked(() -> instances.get(path.get(1))), false) : new Response(405);
+        }
+        if (segments == 0 || !path.get(0).equals("datasets")) {
+            return new Response(404);
+        }
+        if (segments == 1) {
+            return req.method.equals("GET") ? page(req, datasets::values, true) : new Response(405);
+        }
+
+        String datasetID = path.get(1);
+        if (segments == 2) {
+            return dataset(req, datasetID);
+        }
+        if (segments == 3 && path.get(2).equals("editions")) {
+            return req.method.equals("GET") ? editions(req, datasetID) : new Response(405);
+        }
+        if (segments < 5 || !path.get(2).equals("editions") || !path.get(4).equals("versions")) {
+            return new Response(404);
+        }
+
+        String key = datasetID + "/" + path.get(3);
+        if (segments == 5) {
+            return req.method.equals("GET") ? versions(req, key) : new Response(405);
+        }
+        if (segments == 6) {
+            return version(req, key, path.get(5));
+        }
+        return new Response(404);
+    }
+
+    private Response dataset(Request req, String datasetID) throws IOException {
+        switch (req.method) {
+            case "GET":
+                return get(req, locked(() -> datasets.get(datasetID)), true);
+            case "POST":
+                ObjectNode body = req.jsonBody();
+                if (body == null) {
+                    return new Response(400);
+                }
+                body.put("id", datasetID);
+                return locked(() -> {
+                    if (datasets.containsKey(datasetID)) {
+                        return new Response(403);
+                    }
+                    Resource created = new Resource(body, ++revision);
+                    datasets.put(datasetID, created);
+                    return new Response(201, wrap(datasetID, created.body), created.etag());
+                });
+            case "PUT":
+            case "PATCH":
+                return update(req, datasets, datasetID);
+            case "DELETE":
+                return locked(() -> {
+                    if (datasets.remove(datasetID) == null) {
+                        return new Response(404);
+                    }
+                    editions.remove(datasetID);
+                    versions.keySet().removeIf(key -> key.startsWith(datasetID + "/"));
+                    return new Response(204);
+                });
+            default:
+                return new Response(405);
+        }
+    }
+
+    private Response editions(Request req, String datasetID) {
+        return page(req, () -> datasets.containsKey(datasetID)
+                ? editions.getOrDefault(datasetID, new TreeMap<>()).values() : null, true);
+    }
+
+    private Response versions(Request req, String key) {
+        return page(req, () -> {
+            NavigableMap<String, Resource> editionVersions = versions.get(key);
+            return editionVersions != null ? editionVersions.values() : null;
+        }, false);
+    }
+
+    private Response version(Request req, String key, String version) throws IOException {
+        if (req.method.equals("GET")) {
+            return get(req, locked(() -> {
+                NavigableMap<String, Resource> editionVersions = versions.get(key);
+                return editionVersions != null ? editionVersions.get(version) : null;
+            }), false);
+        }
+
+        lock.lock();
+        try {
+            NavigableMap<String, Resource> editionVersions = versions.get(key);
+            if (editionVersions == null) {
+                return new Response(404);
+            }
+            switch (req.method) {
+                case "PUT":
+                case "PATCH":
+                    return update(req, editionVersions, version);
+                case "DELETE":
+                    return new Response(editionVersions.remove(version) != null ? 200 : 404);
+                default:
+                    return new Response(405);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Build the response for a resource read under the lock. Resources are never changed once stored, so the body is
+     * copied and padded without holding the lock.
+     */
+    private Response get(Request req, Resource resource, boolean wrapped) {
+        if (resource == null) {
+            return new Response(404);
+        }
+        if (resource.etag().equals(req.header("If-None-Match"))) {
+            return new Response(304, null, resource.etag());
+        }
+        ObjectNode body = wrapped ? wrap(resource.body.path("id").asText(), resource.body) : resource.body.deepCopy();
+        return new Response(200, pad(body), resource.etag());
+    }
+
+    /**
+     * Replace a resource with the request body, or apply the JSON Patch in the request body to it.
+     */
+    private Response update(Request req, Map<String, Resource> resources, String id) throws IOException {
+        lock.lock();
+        try {
+            Resource current = resources.get(id);
+            if (current == null) {
+                return new Response(404);
+            }
+            String ifMatch = req.header("If-Match");
+            if (ifMatch != null && !ifMatch.equals("*") && !ifMatch.equals(current.etag())) {
+                return new Response(412);
+            }
+
+            ObjectNode updated;
+            if (req.method.equals("PUT")) {
+                updated = req.jsonBody();
+                if (updated == null) {
+                    return new Response(400);
+                }
+                for (String immutable : new String[]{"id", "edition", "version"}) {
+                    if (current.body.has(immutable)) {
+                        updated.set(immutable, current.body.get(immutable));
+                    }
+                }
+            } else {
+                JsonNode patch = req.jsonTree();
+                if (patch == null || !patch.isArray()) {
+                    return new Response(400);
+                }
+                updated = current.body.deepCopy();
+                int status = JsonPatches.apply(updated, patch);
+                if (status != JsonPatches.APPLIED) {
+                    return new Response(status);
+                }
+            }
+
+            Resource replaced = new Resource(updated, ++revision);
+            resources.put(id, replaced);
+            return new Response(200, null, replaced.etag());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pick the resources on the requested page under the lock, then build the page without holding it. The listing
+     * returns null if the parent resource does not exist.
+     */
+    private Response page(Request req, LockedCall<Collection<Resource>> listing, boolean wrapped) {
+        int offset = req.intParameter("offset", 0);
+        int limit = req.intParameter("limit", DEFAULT_PAGE_SIZE);
+        if (offset < 0 || limit < 0) {
+            return new Response(400);
+        }
+
+        List<Resource> selected = new ArrayList<>();
+        int total;
+        lock.lock();
+        try {
+            Collection<Resource> resources = listing.call();
+            if (resources == null) {
+                return new Response(404);
+            }
+            total = resources.size();
+            int index = 0;
+            for (Iterator<Resource> it = resources.iterator(); it.hasNext() && selected.size() < limit; index++) {
+                Resource resource = it.next();
+                if (index >= offset) {
+                    selected.add(resource);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        ArrayNode items = json.createArrayNode();
+        for (Resource resource : selected) {
+            items.add(wrapped ? wrap(resource.body.path("id").asText(), resource.body) : resource.body.deepCopy());
+        }
+
+        ObjectNode page = json.createObjectNode();
+        page.set("items", items);
+        page.put("count", items.size());
+        page.put("offset", offset);
+        page.put("limit", limit);
+        page.put("total_count", total);
+        return new Response(200, page, null);
+    }
+
+    /**
+     * Wrap a dataset or edition in the current/next document the dataset API returns them in.
+     */
+    private static ObjectNode wrap(String id, ObjectNode body) {
+        ObjectNode wrapper = json.createObjectNode();
+        wrapper.put("id", id);
+        wrapper.set("next", body.deepCopy());
+        return wrapper;
+    }
+
+    /**
+     * Pad a response with a "dimensions" array, which the client's models ignore, until it reaches the payload size.
+     */
+    private ObjectNode pad(ObjectNode body) {
+        if (payloadBytes <= 0) {
+            return body;
+        }
+        try {
+            int size = json.writeValueAsBytes(body).length;
+            if (size >= payloadBytes) {
+                return body;
+            }
+            ArrayNode dimensions = body.putArray("dimensions");
+            int dimensionBytes = json.writeValueAsBytes(dimension(0)).length + 1;
+            for (int i = 0; size < payloadBytes; i++) {
+                dimensions.add(dimension(i));
+                size += dimensionBytes;
+            }
+            return body;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ObjectNode dimension(int i) {
+        ObjectNode dimension = json.createObjectNode();
+        dimension.put("id", "dimension-" + i);
+        dimension.put("name", "geography");
+        dimension.put("label", "Geography " + i);
+        dimension.put("href", "http://localhost:22400/code-lists/geography-" + i);
+        return dimension;
+    }
+
+    private void respond(HttpExchange exchange, Response response) throws IOException {
+        if (response.etag != null) {
+            exchange.getResponseHeaders().set("ETag", response.etag);
+        }
+        if (response.body == null) {
+            exchange.sendResponseHeaders(response.status, -1);
+            return;
+        }
+
+        byte[] body = json.writeValueAsBytes(response.body);
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (gzip && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(bytes)) {
+                out.write(body);
+            }
+            body = bytes.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        byte[] body = readAll(in);
+        if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            body = readAll(new GZIPInputStream(new ByteArrayInputStream(body)));
+        }
+        return body;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * The source of the latency and error sampling for one request. With a seed, it depends only on the seed and the
+     * request number, so the same request number gets the same latency and error on every run, whichever threads
+     * answer the requests.
+     */
+    private Random random(long requestNumber) {
+        if (seed == null) {
+            return ThreadLocalRandom.current();
+        }
+        // SplittableRandom mixes the bits, so consecutive request numbers do not start from correlated seeds
+        return new Random(new SplittableRandom(seed + requestNumber).nextLong());
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> T locked(LockedCall<T> call) {
+        lock.lock();
+        try {
+            return call.call();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface LockedCall<T> {
+        T call();
+    }
+
+    /**
+     * Orders versions numerically where they are numbers, so that version 10 comes after version 9.
+     */
+    private static final Comparator<String> VERSION_ORDER = (a, b) -> {
+        boolean numeric = a.chars().allMatch(Character::isDigit) && b.chars().allMatch(Character::isDigit);
+        if (numeric && a.length() != b.length()) {
+            return Integer.compare(a.length(), b.length());
+        }
+        return a.compareTo(b);
+    };
+
+    /**
+     * A stored resource at one revision. Bodies are never changed once stored; writes store a new Resource.
+     */
+    private static final class Resource {
+
+        private final ObjectNode body;
+        private final long revision;
+
+        private Resource(ObjectNode body, long revision) {
+            this.body = body;
+            this.revision = revision;
+        }
+
+        private String etag() {
+            return "\"" + revision + "\"";
+        }
+    }
+
+    private static final class Request {
+
+        private final String method;
+        private final List<String> path;
+        private final Map<String, String> parameters;
+        private final HttpExchange exchange;
+        private final byte[] body;
+
+        private Request(HttpExchange exchange, byte[] body) throws UnsupportedEncodingException {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+            this.body = body;
+            this.path = new ArrayList<>();
+            for (String segment : exchange.getRequestURI().getRawPath().split("/")) {
+                if (!segment.isEmpty()) {
+                    path.add(decode(segment));
+                }
+            }
+            this.parameters = new HashMap<>();
+            String query = exchange.getRequestURI().getRawQuery();
+            if (query != null) {
+                for (String parameter : query.split("&")) {
+                    int equals = parameter.indexOf('=');
+                    if (equals > 0) {
+                        parameters.put(decode(parameter.substring(0, equals)), decode(parameter.substring(equals + 1)));
+                    }
+                }
+            }
+        }
+
+        private static String decode(String encoded) throws UnsupportedEncodingException {
+            return URLDecoder.decode(encoded.replace("+", "%2B"), "UTF-8");
+        }
+
+        private String header(String name) {
+            return exchange.getRequestHeaders().getFirst(name);
+        }
+
+        private int intParameter(String name, int defaultValue) {
+            String value = parameters.get(name);
+            try {
+                return value != null ? Integer.parseInt(value) : defaultValue;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private JsonNode jsonTree() {
+            try {
+                return body.length > 0 ? json.readTree(body) : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        private ObjectNode jsonBody() {
+            JsonNode tree = jsonTree();
+            return tree instanceof ObjectNode ? (ObjectNode) tree : null;
+        }
+    }
+
+    private static final class Response {
+
+        private final int status;
+        private final JsonNode body;
+        private final String etag;
+
+        private Response(int status) {
+            this(status, null, null);
+        }
+
+        private Response(int status, JsonNode body, String etag) {
+            this.status = status;
+            this.body = body;
+            this.etag = etag;
+        }
+    }
+
+    /**
+     * Builder for a FakeDatasetAPI.
+     */
+    public static class Builder {
+
+        private int port;
+        private int threads;
+        private LatencyDistribution latency = LatencyDistribution.none();
+        private double errorRate;
+        private int errorStatus = 500;
+        private int payloadBytes;
+        private boolean gzip;
+        private Long seed;
+
+        private Builder() {
+        }
+
+        /**
+         * @param port - The port to listen on. Defaults to a free port chosen by the system.
+         */
+        public Builder port(int port) {
+            this.port = Args.notNegative(port, "port");
+            return this;
+        }
+
+        /**
+         * @param threads - The number of threads answering requests, which bounds the requests in progress at once.
+         *                Defaults to a thread for each request in progress.
+         */
+        public Builder threads(int threads) {
+            this.threads = Args.positive(threads, "threads");
+            return this;
+        }
+
+        /**
+         * @param latency - How long to wait before answering each request
+         */
+        public Builder latency(LatencyDistribution latency) {
+            this.latency = Args.notNull(latency, "latency");
+            return this;
+        }
+
+        /**
+         * @param errorRate   - The share of requests, between 0 and 1, answered with the error status instead
+         * @param errorStatus - The status of the injected errors, for example 503
+         */
+        public Builder errorRate(double errorRate, int errorStatus) {
+            Args.check(errorRate >= 0 && errorRate <= 1, "errorRate must be between 0 and 1");
+            Args.check(errorStatus >= 400 && errorStatus < 600, "errorStatus must be a 4xx or 5xx status");
+            this.errorRate = errorRate;
+            this.errorStatus = errorStatus;
+            return this;
+        }
+
+        /**
+         * @param payloadBytes - The size in bytes that instance, dataset and version GET responses are padded up to
+         */
+        public Builder payloadBytes(int payloadBytes) {
+            this.payloadBytes = Args.notNegative(payloadBytes, "payloadBytes");
+            return this;
+        }
+
+        /**
+         * @param gzip - Whether to gzip responses to clients that accept it
+         */
+        public Builder gzip(boolean gzip) {
+            this.gzip = gzip;
+            return this;
+        }
+
+        /**
+         * @param seed - Seeds the latency and error sampling, so that the Nth request of every run gets the same
+         *             latency and error
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Start the fake on the loopback interface.
+         */
+        public FakeDatasetAPI build() throws IOException {
+            return new FakeDatasetAPI(this);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package dp.api.dataset.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Applies RFC 6902 JSON Patch documents to the fake's stored resources.
+ */
+final class JsonPatches {
+
+    static final int APPLIED = 200;
+    static final int MALFORMED = 400;
+    static final int CONFLICT = 409;
+
+    private JsonPatches() {
+    }
+
+    /**
+     * Apply every operation in the patch to the document, stopping at the first that cannot be applied.
+     *
+     * @return APPLIED, MALFORMED if an operation is not valid JSON Patch, or CONFLICT if a test fails or a path does
+     * not exist in the document. The document is left part-way patched unless APPLIED is returned.
+     */
+    static int apply(ObjectNode document, JsonNode patch) {
+        for (JsonNode operation : patch) {
+            String op = operation.path("op").asText(null);
+            String path = operation.path("path").asText(null);
+            if (op == null || path == null || !path.startsWith("/")) {
+                return MALFORMED;
+            }
+
+            int status;
+            switch (op) {
+                case "add":
+                case "replace":
+                case "test":
+                    if (!operation.has("value")) {
+                        return MALFORMED;
+                    }
+                    JsonNode value = operation.get("value");
+                    if (op.equals("test")) {
+                        status = value.equals(get(document, path)) ? APPLIED : CONFLICT;
+                    } else if (op.equals("replace") && get(document, path) == null) {
+                        status = CONFLICT;
+                    } else {
+                        status = add(document, path, value.deepCopy(), op.equals("replace"));
+                    }
+                    break;
+                case "remove":
+                    status = remove(document, path) != null ? APPLIED : CONFLICT;
+                    break;
+                case "move":
+                case "copy":
+                    String from = operation.path("from").asText(null);
+                    if (from == null || !from.startsWith("/")) {
+                        return MALFORMED;
+                    }
+                    JsonNode moved = op.equals("move") ? remove(document, from) : get(document, from);
+                    status = moved != null ? add(document, path, moved.deepCopy(), false) : CONFLICT;
+                    break;
+                default:
+                    return MALFORMED;
+            }
+            if (status != APPLIED) {
+                return status;
+            }
+        }
+        return APPLIED;
+    }
+
+    private static JsonNode get(JsonNode document, String path) {
+        JsonNode parent = parent(document, path);
+        String token = lastToken(path);
+        if (parent instanceof ObjectNode) {
+            return parent.get(token);
+        }
+        if (parent instanceof ArrayNode) {
+            int index = index(token, parent.size() - 1);
+            return index >= 0 ? parent.get(index) : null;
+        }
+        return null;
+    }
+
+    private static int add(JsonNode document, String path, JsonNode value, boolean replace) {
+        JsonNode parent = parent(document, path);
+        String token = lastToken(path);
+        if (parent instanceof ObjectNode) {
+            ((ObjectNode) parent).set(token, value);
+            return APPLIED;
+        }
+        if (parent instanceof ArrayNode) {
+            ArrayNode array = (ArrayNode) parent;
+            if (!replace && token.equals("-")) {
+                array.add(value);
+                return APPLIED;
+            }
+            int index = index(token, replace ? array.size() - 1 : array.size());
+            if (index < 0) {
+                return CONFLICT;
+            }
+            if (replace) {
+                array.set(index, value);
+            } else {
+                array.insert(index, value);
+            }
+            return APPLIED;
+        }
+        return CONFLICT;
+    }
+
+    private static JsonNode remove(JsonNode document, String path) {
+        JsonNode parent = parent(document, path);
+        String token = lastToken(path);
+        if (parent instanceof ObjectNode) {
+            return ((ObjectNode) parent).remove(token);
+        }
+        if (parent instanceof ArrayNode) {
+            int index = index(token, parent.size() - 1);
+            return index >= 0 ? ((ArrayNode) parent).remove(index) : null;
+        }
+        return null;
+    }
+
+    /**
+     * The container holding the value a pointer refers to, or null if there is none.
+     */
+    private static JsonNode parent(JsonNode document, String path) {
+        String[] tokens = path.substring(1).split("/", -1);
+        JsonNode node = document;
+        for (int i = 0; i < tokens.length - 1 && node != null; i++) {
+            String token = unescape(tokens[i]);
+            if (node.isArray()) {
+                int index = index(token, node.size() - 1);
+                node = index >= 0 ? node.get(index) : null;
+            } else {
+                node = node.get(token);
+            }
+        }
+        return node;
+    }
+
+    private static String lastToken(String path) {
+        return unescape(path.substring(path.lastIndexOf('/') + 1));
+    }
+
+    private static String unescape(String token) {
+        return token.replace("~1", "/").replace("~0", "~");
+    }
+
+    /**
+     * The array index a token refers to, or -1 if it is not a number between 0 and max.
+     */
+    private static int index(String token, int max) {
+        if (token.isEmpty() || !token.chars().allMatch(Character::isDigit) || token.length() > 9) {
+            return -1;
+        }
+        int index = Integer.parseInt(token);
+        return index <= max ? index : -1;
+    }
+}
@@ -0,0 +1,55 @@
+package dp.api.dataset.stub;
+
+import org.apache.http.util.Args;
+
+import java.util.Random;
+
+/**
+ * How long the {@link FakeDatasetAPI} waits before answering each request.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * The delay before the next response, in milliseconds.
+     */
+    long sampleMillis(Random random);
+
+    /**
+     * Answer straight away.
+     */
+    static LatencyDistribution none() {
+        return random -> 0;
+    }
+
+    /**
+     * Wait the same time before every response.
+     */
+    static LatencyDistribution fixed(long millis) {
+        Args.notNegative(millis, "millis");
+        return random -> millis;
+    }
+
+    /**
+     * Wait a time picked evenly between the minimum and maximum.
+     */
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        Args.notNegative(minMillis, "minMillis");
+        Args.check(maxMillis >= minMillis, "maxMillis must not be less than minMillis");
+        return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis + 1));
+    }
+
+    /**
+     * Wait a log-normally distributed time, the long-tailed shape of most service latencies: half of the responses
+     * are faster than the median, and a larger sigma makes the slowest responses slower.
+     *
+     * @param medianMillis - The median delay
+     * @param sigma        - The standard deviation of the delay's natural logarithm, for example 0.5
+     */
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        Args.check(medianMillis > 0, "medianMillis must be positive");
+        Args.check(sigma >= 0, "sigma must not be negative");
+        double mu = Math.log(medianMillis);
+        return random -> Math.round(Math.exp(mu + sigma * random.nextGaussian()));
+    }
+}
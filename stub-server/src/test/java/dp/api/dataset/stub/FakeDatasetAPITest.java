@@ -0,0 +1,210 @@
+package dp.api.dataset.stub;
+
+import dp.api.dataset.DatasetAPIClient;
+import dp.api.dataset.JsonPatch;
+import dp.api.dataset.RetryStrategy;
+import dp.api.dataset.exception.DatasetAlreadyExistsException;
+import dp.api.dataset.exception.DatasetNotFoundException;
+import dp.api.dataset.exception.PreconditionFailedException;
+import dp.api.dataset.exception.UnexpectedResponseException;
+import dp.api.dataset.model.Dataset;
+import dp.api.dataset.model.DatasetVersion;
+import dp.api.dataset.model.Edition;
+import dp.api.dataset.model.State;
+import org.junit.jupiter.api.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FakeDatasetAPITest {
+
+    @Test
+    public void testDatasetLifecycle() throws Exception {
+
+        try (FakeDatasetAPI api = FakeDatasetAPI.builder().build();
+             DatasetAPIClient client = client(api)) {
+
+            // Given a dataset created through the client
+            Dataset dataset = new Dataset();
+            dataset.setTitle("CPI");
+            client.createDataset("cpi", dataset);
+            assertThrows(DatasetAlreadyExistsException.class, () -> client.createDataset("cpi", dataset));
+
+            // When it is read, updated and patched
+            Dataset read = client.getDataset("cpi");
+            read.setTitle("Consumer prices");
+            String etag = client.updateDataset("cpi", read, read.getEtag());
+            client.patchDataset("cpi", JsonPatch.builder().add("/state", State.PUBLISHED).build());
+
+            // Then every write is seen by later reads
+            Dataset stored = api.getDataset("cpi");
+            assertEquals("Consumer prices", stored.getTitle());
+            assertEquals(State.PUBLISHED, stored.getState());
+            assertEquals(stored.getEtag(), client.getDataset("cpi").getEtag());
+
+            // Then an update made with the ETag returned before the patch is rejected
+            assertThrows(PreconditionFailedException.class, () -> client.updateDataset("cpi", read, etag));
+
+            // Then it is gone once deleted
+            client.deleteDataset("cpi");
+            assertNull(api.getDataset("cpi"));
+            assertThrows(DatasetNotFoundException.class, () -> client.getDataset("cpi"));
+        }
+    }
+
+    @Test
+    public void testListing_pagesThroughStoredVersions() throws Exception {
+
+        try (FakeDatasetAPI api = FakeDatasetAPI.builder().build();
+             DatasetAPIClient client = client(api)) {
+
+            // Given 25 versions of one edition
+            for (int i = 1; i <= 25; i++) {
+                DatasetVersion version = new DatasetVersion();
+                version.setState(State.PUBLISHED);
+                api.putDatasetVersion("cpi", "time-series", String.valueOf(i), version);
+            }
+
+            // When they are listed in pages of 10
+            List<String> versions;
+            try (Stream<DatasetVersion> stream = client.listVersions("cpi", "time-series", 10)) {
+                versions = stream.map(DatasetVersion::getVersion).collect(Collectors.toList());
+            }
+
+            // Then every version is returned in numeric order
+            assertEquals(25, versions.size());
+            assertEquals("1", versions.get(0));
+            assertEquals("10", versions.get(9));
+            assertEquals("25", versions.get(24));
+
+            // Then the dataset and edition were created with them
+            List<Edition> editions;
+            try (Stream<Edition> stream = client.listEditions("cpi", 10)) {
+                editions = stream.collect(Collectors.toList());
+            }
+            assertEquals(1, editions.size());
+            assertEquals("time-series", editions.get(0).getEdition());
+            assertEquals(1, client.listDatasets(10).count());
+        }
+    }
+
+    @Test
+    public void testPatchDatasetVersion_failedTest_leavesVersionUnchanged() throws Exception {
+
+        try (FakeDatasetAPI api = FakeDatasetAPI.builder().build();
+             DatasetAPIClient client = client(api)) {
+
+            // Given a stored version
+            DatasetVersion version = new DatasetVersion();
+            version.setState(State.EDITION_CONFIRMED);
+            api.putDatasetVersion("cpi", "time-series", "1", version);
+            String etag = api.getDatasetVersion("cpi", "time-series", "1").getEtag();
+
+            // When a patch is sent whose test operation fails after a replace
+            JsonPatch patch = JsonPatch.builder()
+                    .replace("/state", State.PUBLISHED)
+                    .test("/collection_id", "missing")
+                    .build();
+
+            // Then the patch is rejected and none of it is applied
+            UnexpectedResponseException e = assertThrows(UnexpectedResponseException.class,
+                    () -> client.patchDatasetVersion("cpi", "time-series", "1", patch));
+            assertEquals(409, e.getResponseCode());
+            DatasetVersion stored = api.getDatasetVersion("cpi", "time-series", "1");
+            assertEquals(State.EDITION_CONFIRMED, stored.getState());
+            assertEquals(etag, stored.getEtag());
+        }
+    }
+
+    @Test
+    public void testErrorRate_everyRequestFails() throws Exception {
+
+        // Given a fake that fails every request with a 503
+        try (FakeDatasetAPI api = FakeDatasetAPI.builder().errorRate(1, 503).build();
+             DatasetAPIClient client = DatasetAPIClient.builder()
+                     .datasetAPIURL(api.url())
+                     .retryStrategy(RetryStrategy.builder().maxRetries(2).baseIntervalMs(1).maxIntervalMs(1).build())
+                     .build()) {
+
+            // When a dataset is read, then it fails once the retries are used up
+            UnexpectedResponseException e = assertThrows(UnexpectedResponseException.class,
+                    () -> client.getDataset("cpi"));
+            assertEquals(503, e.getResponseCode());
+
+            // Then the first request and both retries reached the fake
+            assertEquals(3, api.getRequestCount());
+            assertEquals(3, api.getInjectedErrorCount());
+        }
+    }
+
+    @Test
+    public void testSeed_sameErrorsOnEveryRun() throws Exception {
+
+        // Given two fakes with the same seed that fail half of all requests
+        List<Integer> first = statuses(FakeDatasetAPI.builder().seed(42).errorRate(0.5, 503), 40);
+        List<Integer> second = statuses(FakeDatasetAPI.builder().seed(42).errorRate(0.5, 503), 40);
+
+        // Then the same requests fail on each
+        assertEquals(first, second);
+        assertTrue(first.contains(503) && first.contains(404), "statuses " + first);
+    }
+
+    @Test
+    public void testLatencyAndPayloadSize() throws Exception {
+
+        // Given a fake that waits 50ms before answering and pads responses to 64KB
+        try (FakeDatasetAPI api = FakeDatasetAPI.builder()
+                .latency(LatencyDistribution.fixed(50))
+                .payloadBytes(64 * 1024)
+                .build();
+             DatasetAPIClient client = client(api)) {
+
+            Dataset dataset = new Dataset();
+            dataset.setId("cpi");
+            api.putDataset(dataset);
+
+            // When the dataset is read
+            long start = System.nanoTime();
+            Dataset read = client.getDataset("cpi");
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            // Then the response was delayed, and the padding was ignored by the client
+            assertTrue(elapsedMs >= 50, "elapsed " + elapsedMs + "ms");
+            assertEquals("cpi", read.getId());
+
+            // Then the response body is at least the payload size
+            HttpURLConnection connection = (HttpURLConnection) new URL(api.url() + "/datasets/cpi").openConnection();
+            assertTrue(connection.getContentLengthLong() >= 64 * 1024);
+            assertNotEquals(null, connection.getHeaderField("ETag"));
+            connection.disconnect();
+        }
+    }
+
+    private static List<Integer> statuses(FakeDatasetAPI.Builder builder, int requests) throws Exception {
+        List<Integer> statuses = new ArrayList<>();
+        try (FakeDatasetAPI api = builder.build()) {
+            for (int i = 0; i < requests; i++) {
+                HttpURLConnection connection = (HttpURLConnection) new URL(api.url() + "/datasets/cpi").openConnection();
+                statuses.add(connection.getResponseCode());
+                connection.disconnect();
+            }
+        }
+        return statuses;
+    }
+
+    private static DatasetAPIClient client(FakeDatasetAPI api) throws Exception {
+        return DatasetAPIClient.builder()
+                .datasetAPIURL(api.url())
+                .build();
+    }
+}
@@ -0,0 +1,216 @@
+package dp.api.dataset;
+
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.util.Args;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An {@link HttpTransport} for callers on Java 21 virtual threads. Requests are sent with a {@link JdkHttpTransport}
+ * whose asynchronous tasks also run on virtual threads, and the number of requests in flight is limited with a
+ * semaphore rather than a connection pool, so a caller waiting for a request slot or a response parks its virtual
+ * thread instead of pinning a carrier thread.
+ * <p>
+ * A request slot is held until its response is closed, and a caller that can not get one within the acquire timeout
+ * fails with a {@link ConnectionPoolTimeoutException}, as it would waiting for a pooled connection.
+ */
+public class VirtualThreadTransport implements HttpTransport {
+
+    private final ExecutorService executor;
+    private final JdkHttpTransport delegate;
+    private final Semaphore requestSlots;
+    private final long acquireTimeoutMs;
+
+    private VirtualThreadTransport(Builder builder) {
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dataset-http-", 0).factory());
+        this.delegate = JdkHttpTransport.builder()
+                .version(builder.version)
+                .connectTimeout(builder.connectTimeout)
+                .requestTimeout(builder.requestTimeout)
+                .executor(executor)
+                .build();
+        this.requestSlots = new Semaphore(builder.maxConcurrentRequests, true);
+        this.acquireTimeoutMs = builder.acquireTimeout.toMillis();
+    }
+
+    /**
+     * Create a new builder for a VirtualThreadTransport.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+
+        long timeoutMs = request.getTimeoutMs() > 0
+                ? Math.min(request.getTimeoutMs(), acquireTimeoutMs) : acquireTimeoutMs;
+        try {
+            if (!requestSlots.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new ConnectionPoolTimeoutException("timeout waiting for a dataset-api request slot");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for a dataset-api request slot");
+        }
+
+        try {
+            return new Response(delegate.execute(request), requestSlots);
+        } catch (IOException | RuntimeException e) {
+            requestSlots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * The number of requests that could be started now without waiting.
+     */
+    public int getAvailableRequestSlots() {
+        return requestSlots.availablePermits();
+    }
+
+    /**
+     * The approximate number of callers waiting for a request slot.
+     */
+    public int getPendingRequests() {
+        return requestSlots.getQueueLength();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            delegate.close();
+        } finally {
+            executor.close();
+        }
+    }
+
+    /**
+     * A response that gives back its request slot when it is closed.
+     */
+    private static class Response implements TransportResponse {
+
+        private final TransportResponse response;
+        private final Semaphore requestSlots;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Response(TransportResponse response, Semaphore requestSlots) {
+            this.response = response;
+            this.requestSlots = requestSlots;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                response.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    requestSlots.release();
+                }
+            }
+        }
+
+        @Override
+        public void abort() throws IOException {
+            try {
+                response.abort();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    requestSlots.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * Builder for a VirtualThreadTransport.
+     */
+    public static class Builder {
+
+        private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 100;
+        private static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofSeconds(5);
+        private static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+        private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+        private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+        private Duration acquireTimeout = DEFAULT_ACQUIRE_TIMEOUT;
+        private HttpClient.Version version = HttpClient.Version.HTTP_2;
+        private Duration connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+        private Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxConcurrentRequests - The maximum number of requests in flight, and so of HTTP/1.1 connections
+         */
+        public Builder maxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = Args.positive(maxConcurrentRequests, "maxConcurrentRequests");
+            return this;
+        }
+
+        /**
+         * @param acquireTimeout - The time to wait for a request slot, unless the call's deadline is sooner
+         */
+        public Builder acquireTimeout(Duration acquireTimeout) {
+            Args.check(!acquireTimeout.isNegative(), "acquireTimeout must not be negative");
+            this.acquireTimeout = acquireTimeout;
+            return this;
+        }
+
+        /**
+         * @param version - The preferred HTTP version, HTTP/2 by default
+         */
+        public Builder version(HttpClient.Version version) {
+            this.version = Args.notNull(version, "version");
+            return this;
+        }
+
+        /**
+         * @param connectTimeout - The time to wait for a connection to the dataset API to be established
+         */
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = Args.notNull(connectTimeout, "connectTimeout");
+            return this;
+        }
+
+        /**
+         * @param requestTimeout - The time to wait for the response headers of each request, unless the call's
+         *                       deadline is sooner
+         */
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = Args.notNull(requestTimeout, "requestTimeout");
+            return this;
+        }
+
+        public VirtualThreadTransport build() {
+            return new VirtualThreadTransport(this);
+        }
+    }
+}
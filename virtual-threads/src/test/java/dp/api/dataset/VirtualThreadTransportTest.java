@@ -0,0 +1,145 @@
+package dp.api.dataset;
+
+import com.sun.net.httpserver.HttpServer;
+import dp.api.dataset.model.Dataset;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Surefire bounds the virtual thread scheduler to 2 carrier threads, so a caller that pinned its carrier while
+ * waiting would stall every other caller.
+ */
+public class VirtualThreadTransportTest {
+
+    private static final byte[] datasetBody = "{\"id\":\"321\",\"next\":{\"id\":\"321\",\"title\":\"CPIH\"}}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile CountDownLatch release;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.setExecutor(serverExecutor);
+        server.createContext("/datasets/", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                if (release != null) {
+                    release.await();
+                } else {
+                    Thread.sleep(20);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, datasetBody.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(datasetBody);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+        serverExecutor.close();
+    }
+
+    @Test
+    public void testGetDataset_tenThousandVirtualThreadCallers() throws Exception {
+
+        // Given a client on a transport allowing 200 requests in flight
+        try (DatasetAPIClient client = client(200, Duration.ofSeconds(60))) {
+
+            // When 10,000 virtual threads each get a dataset
+            List<Future<Dataset>> results = new ArrayList<>();
+            try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 10000; i++) {
+                    results.add(callers.submit(() -> client.getDataset("321")));
+                }
+            }
+
+            // Then every call succeeds, with far more requests in flight at once than there are carrier threads
+            for (Future<Dataset> result : results) {
+                assertEquals("321", result.get().getId());
+            }
+            assertTrue(maxInFlight.get() > 100, "max in flight " + maxInFlight.get());
+        }
+    }
+
+    @Test
+    public void testGetDataset_noRequestSlot_timesOut() throws Exception {
+
+        // Given a transport allowing one request in flight, which is held by a slow call
+        release = new CountDownLatch(1);
+        VirtualThreadTransport transport = transport(1, Duration.ofMillis(100));
+        try (DatasetAPIClient client = client(transport)) {
+            Thread slow = Thread.ofVirtual().start(() -> {
+                try {
+                    client.getDataset("321");
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            while (transport.getAvailableRequestSlots() > 0) {
+                Thread.sleep(1);
+            }
+
+            // When another call is made, then it fails once it has waited for a request slot
+            assertThrows(ConnectionPoolTimeoutException.class, () -> client.getDataset("321"));
+
+            // When the slow call completes, then its slot is given back
+            release.countDown();
+            slow.join();
+            assertEquals(1, transport.getAvailableRequestSlots());
+        }
+    }
+
+    private DatasetAPIClient client(int maxConcurrentRequests, Duration acquireTimeout) throws Exception {
+        return client(transport(maxConcurrentRequests, acquireTimeout));
+    }
+
+    private DatasetAPIClient client(VirtualThreadTransport transport) throws Exception {
+        return DatasetAPIClient.builder()
+                .datasetAPIURL("http://localhost:" + server.getAddress().getPort())
+                .transport(transport)
+                .build();
+    }
+
+    private static VirtualThreadTransport transport(int maxConcurrentRequests, Duration acquireTimeout) {
+        return VirtualThreadTransport.builder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .maxConcurrentRequests(maxConcurrentRequests)
+                .acquireTimeout(acquireTimeout)
+                .build();
+    }
+}